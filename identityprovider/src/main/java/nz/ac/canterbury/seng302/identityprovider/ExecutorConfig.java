@@ -0,0 +1,65 @@
+package nz.ac.canterbury.seng302.identityprovider;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the thread pools that slow work is handed off to, so it doesn't tie up
+ * the threads that handle gRPC calls.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Returns the pool that decodes and re-encodes uploaded profile photos.
+     * Its queue is bounded; when it's full, new photos are rejected (RejectedExecutionException)
+     * instead of waiting, so a burst of uploads can't build up unbounded work or memory.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService photoProcessingExecutor(
+            @Value("${profile-photo.processing-threads:2}") int threads,
+            @Value("${profile-photo.processing-queue-size:20}") int queueSize) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), namedDaemonThreads("photo-processing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Returns the pool that hashes and checks passwords. BCrypt is slow on purpose, so by default there's one thread
+     * per core; more threads would only make every login slower. When its queue is full, new work is rejected
+     * (RejectedExecutionException), and the call fails with RESOURCE_EXHAUSTED rather than waiting.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor passwordHashingExecutor(
+            @Value("${password-hashing.threads:0}") int threads,
+            @Value("${password-hashing.queue-size:200}") int queueSize) {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), namedDaemonThreads("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Makes daemon threads named with a prefix and a number, so they're easy to spot in thread dumps
+     * @param prefix The start of each thread's name
+     * @return A thread factory for a pool
+     */
+    static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
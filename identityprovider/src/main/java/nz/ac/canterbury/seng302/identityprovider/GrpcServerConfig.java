@@ -0,0 +1,74 @@
+package nz.ac.canterbury.seng302.identityprovider;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallExecutorSupplier;
+import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import nz.ac.canterbury.seng302.identityprovider.utils.GrpcCallClasses;
+
+import static nz.ac.canterbury.seng302.identityprovider.ExecutorConfig.namedDaemonThreads;
+
+/**
+ * Configuration class for the threads that run gRPC calls. Heavy and light calls (see GrpcCallClasses) each run on
+ * their own pool, so a rush of heavy calls can't hold up cheap ones.
+ * <p>
+ * The pools' queues aren't bounded, as gRPC can't turn away a call its executor rejects cleanly. Instead, the number
+ * of open calls of each class is limited by CallLimitInterceptor, which fails the calls over the limit with
+ * RESOURCE_EXHAUSTED. Message sizes and keepalive are set with the <code>grpc.server.*</code> properties.
+ * </p>
+ */
+@Configuration
+public class GrpcServerConfig {
+
+    /**
+     * Returns the pool that runs heavy gRPC calls, like logins and photo uploads
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService grpcHeavyCallExecutor(@Value("${grpc-calls.heavy-threads:4}") int threads) {
+        return fixedPool(threads, "grpc-heavy-");
+    }
+
+    /**
+     * Returns the pool that runs every gRPC call that isn't heavy
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService grpcLightCallExecutor(@Value("${grpc-calls.light-threads:16}") int threads) {
+        return fixedPool(threads, "grpc-light-");
+    }
+
+    /**
+     * Runs each gRPC call on the pool for its class
+     * @param callClasses Sorts methods into heavy and light ones
+     * @param heavyCallExecutor The pool for heavy calls
+     * @param lightCallExecutor The pool for light calls
+     * @return A configurer for the gRPC server
+     */
+    @Bean
+    public GrpcServerConfigurer callExecutorConfigurer(
+            GrpcCallClasses callClasses,
+            @Qualifier("grpcHeavyCallExecutor") ExecutorService heavyCallExecutor,
+            @Qualifier("grpcLightCallExecutor") ExecutorService lightCallExecutor) {
+        ServerCallExecutorSupplier executorSupplier = new ServerCallExecutorSupplier() {
+            @Override
+            public <ReqT, RespT> ExecutorService getExecutor(ServerCall<ReqT, RespT> call, Metadata headers) {
+                return callClasses.isHeavy(call.getMethodDescriptor()) ? heavyCallExecutor : lightCallExecutor;
+            }
+        };
+        return serverBuilder -> serverBuilder.callExecutor(executorSupplier);
+    }
+
+    private static ExecutorService fixedPool(int threads, String threadNamePrefix) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), namedDaemonThreads(threadNamePrefix));
+    }
+}
@@ -3,8 +3,7 @@ package nz.ac.canterbury.seng302.identityprovider.authentication;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.security.SignatureException;
+import io.jsonwebtoken.JwtException;
 import nz.ac.canterbury.seng302.identityprovider.model.User;
 import nz.ac.canterbury.seng302.identityprovider.service.UserService;
 import nz.ac.canterbury.seng302.shared.identityprovider.AuthState;
@@ -15,7 +14,8 @@ public class AuthenticationValidatorUtil {
     @Autowired
     private UserService userService;
     
-    private static final JwtTokenUtil jwtTokenUtil = JwtTokenUtil.getInstance();
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
 
     /**
      * Consumes the provided session token in the request body. If the session token is invalid, return an
@@ -32,30 +32,28 @@ public class AuthenticationValidatorUtil {
     public AuthState validateTokenForAuthState(String sessionToken) {
         AuthState.Builder reply = AuthState.newBuilder();
 
-        boolean tokenIsValid;
+        // The token is parsed and verified once; everything needed from it is read from the result
+        JwtTokenUtil.ParsedToken token;
         try {
-            tokenIsValid = jwtTokenUtil.validateToken(sessionToken);
-        } catch (SignatureException | MalformedJwtException e) {
-            // A token is given, that was not valid jwt, has been tampered with, or was not signed with they key we are using.
-            // Currently, we generate a new signing key every time the IdP is started, so this exception can be expected if a browser
-            // is still using a key that was generated by a previous instance of this application.
-            tokenIsValid = false;
+            token = jwtTokenUtil.parseToken(sessionToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            // A token is given, that was not valid jwt, has been tampered with, has expired, or was not signed with one of our keys.
+            // Keys are kept in the JWT keystore file, so this is only expected if that file was deleted or its keys have been retired.
+            return reply.setIsAuthenticated(false).build();
         }
 
-        if (!tokenIsValid) {
-            reply.setIsAuthenticated(false);
-        } else {
-            int userID = (int) jwtTokenUtil.getNamedClaimFromToken(sessionToken, "nameid");
-            User user = userService.getUser(userID);
-            String newToken = jwtTokenUtil.generateTokenForUser(user);
-            reply.addAllClaims(jwtTokenUtil.getClaimDTOsForAuthStateCheck(newToken));
-            reply
-                .setIsAuthenticated(true)
-                .setNameClaimType(JwtTokenUtil.NAME_CLAIM_TYPE)
-                .setRoleClaimType(JwtTokenUtil.ROLE_CLAIM_TYPE)
-                .setAuthenticationType(JwtTokenUtil.AUTHENTICATION_TYPE)
-                .setName(jwtTokenUtil.getNamedClaimFromToken(newToken, "name").toString());
+        User user = userService.getUser(token.getUserId());
+        if (user == null) {     // The user has been deleted since the token was made
+            return reply.setIsAuthenticated(false).build();
         }
+        // The claims are built from the user's current details, so changes like new roles take effect straight away
+        reply.addAllClaims(jwtTokenUtil.getClaimDTOsForUser(user));
+        reply
+            .setIsAuthenticated(true)
+            .setNameClaimType(JwtTokenUtil.NAME_CLAIM_TYPE)
+            .setRoleClaimType(JwtTokenUtil.ROLE_CLAIM_TYPE)
+            .setAuthenticationType(JwtTokenUtil.AUTHENTICATION_TYPE)
+            .setName(user.getFullName());
 
         return reply.build();
     }
@@ -0,0 +1,239 @@
+package nz.ac.canterbury.seng302.identityprovider.authentication;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.crypto.SecretKey;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Holds the keys that session tokens are signed with, in a PKCS12 keystore file, so tokens still work after the IdP
+ * restarts, and on any IdP instance that shares the file.
+ * <p>
+ * Each key has an id (<code>kid</code>), which is put in the header of the tokens it signs. New tokens are signed with
+ * the newest key. Once it's older than <code>jwt.key-rotation-hours</code>, a new key is made and added to the file.
+ * Older keys are kept for verifying tokens until every token they could have signed has expired.
+ * If a token has a key id this instance doesn't know, the file is read again, as another instance may have made it.
+ * </p>
+ */
+@Component
+public class JwtKeyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyStore.class);
+
+    private static final String KEYSTORE_TYPE = "PKCS12";
+    // Unknown key ids only cause the file to be read again this often, so bad tokens can't make us read it constantly
+    private static final Duration MIN_RELOAD_INTERVAL = Duration.ofSeconds(1);
+
+    /**
+     * A signing key and its id
+     * @param id The key's id, which goes in the <code>kid</code> header of tokens it signs.
+     *           It's when the key was made, in base 36, as PKCS12 files don't keep when entries were added
+     * @param key The key
+     * @param createdAt When the key was made, in milliseconds since the epoch
+     */
+    public record SigningKey(String id, SecretKey key, long createdAt) {}
+
+    private final Path keystoreFile;
+    private final Path lockFile;
+    private final char[] password;
+    private final Duration rotationPeriod;
+    private final Duration keyLifetime;
+
+    // The usable keys, by id
+    private volatile Map<String, SigningKey> keys = Map.of();
+    private volatile SigningKey activeKey;
+    private volatile long lastLoadedAt;
+
+    /**
+     * Creates the key store, loading the keys from the keystore file, or making the file if it doesn't exist yet.
+     * @param keystoreFile The keystore file the keys are kept in
+     * @param password The keystore's password, which also protects each key. There is no default, so a profile
+     *                 that doesn't set one fails to start rather than using a password that's in the repo
+     * @param rotationHours How many hours a key signs new tokens for before a new one is made
+     * @throws IllegalStateException If the password is blank
+     */
+    public JwtKeyStore(@Value("${jwt.keystore-file:data/jwt-keys.p12}") Path keystoreFile,
+                       @Value("${jwt.keystore-password:}") String password,
+                       @Value("${jwt.key-rotation-hours:24}") long rotationHours) {
+        if (password.isBlank()) {
+            throw new IllegalStateException("jwt.keystore-password must be set to use the JWT keystore");
+        }
+        this.keystoreFile = keystoreFile;
+        this.lockFile = keystoreFile.resolveSibling(keystoreFile.getFileName() + ".lock");
+        this.password = password.toCharArray();
+        this.rotationPeriod = Duration.ofHours(rotationHours);
+        // A key signs tokens for the rotation period, and the last of those lasts for the token validity
+        this.keyLifetime = rotationPeriod.plusSeconds(JwtTokenUtil.JWT_TOKEN_VALIDITY);
+        rotateIfNeeded();
+    }
+
+    /**
+     * Gets the key to sign new tokens with, making a new one first if it's due
+     * @return The newest key
+     */
+    public SigningKey getSigningKey() {
+        SigningKey key = activeKey;
+        if (key == null || isDue(key)) {
+            rotateIfNeeded();
+            key = activeKey;
+        }
+        return key;
+    }
+
+    /**
+     * Gets the key with an id, to verify a token's signature. If this instance doesn't know the key,
+     * the keystore file is read again in case another instance has made it.
+     * @param id The key id from the token's header
+     * @return The key, or null if there is no usable key with that id
+     */
+    public SecretKey getVerificationKey(String id) {
+        if (id == null) {
+            return null;
+        }
+        SigningKey key = keys.get(id);
+        if (key == null && System.currentTimeMillis() - lastLoadedAt > MIN_RELOAD_INTERVAL.toMillis()) {
+            synchronized (this) {
+                if (!keys.containsKey(id)) {
+                    reload();
+                }
+            }
+            key = keys.get(id);
+        }
+        return key != null && !isRetired(key) ? key.key() : null;
+    }
+
+    /**
+     * Reads the keys from the keystore file again, without changing it
+     */
+    private void reload() {
+        try {
+            setKeys(loadKeyStore());
+        } catch (IOException | GeneralSecurityException e) {
+            logger.error("Could not read JWT keystore {}: {}", keystoreFile.toAbsolutePath(), e.getMessage());
+        }
+    }
+
+    /**
+     * Makes a new key if the newest key in the file is due to be replaced, and removes keys that are no longer needed.
+     * The file is locked while this happens, so instances sharing it don't both make a key at once.
+     */
+    private synchronized void rotateIfNeeded() {
+        try {
+            Files.createDirectories(keystoreFile.toAbsolutePath().getParent());
+            try (FileChannel lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = lockChannel.lock()) {
+                KeyStore keyStore = loadKeyStore();
+                setKeys(keyStore);
+                if (activeKey != null && !isDue(activeKey)) {
+                    return;     // Another instance has already made a new key
+                }
+
+                long now = System.currentTimeMillis();
+                String id = Long.toString(now, 36);
+                SecretKey newKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+                KeyStore.ProtectionParameter protection = new KeyStore.PasswordProtection(password);
+                keyStore.setEntry(id, new KeyStore.SecretKeyEntry(newKey), protection);
+                for (String alias : Collections.list(keyStore.aliases())) {
+                    if (now - getCreatedAt(alias) > keyLifetime.toMillis()) {
+                        keyStore.deleteEntry(alias);
+                    }
+                }
+                saveKeyStore(keyStore);
+                setKeys(keyStore);
+                logger.info("Made new JWT signing key {}; {} keys in {}", id, keys.size(), keystoreFile.toAbsolutePath());
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Could not set up JWT keystore " + keystoreFile.toAbsolutePath(), e);
+        }
+    }
+
+    private KeyStore loadKeyStore() throws IOException, GeneralSecurityException {
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE_TYPE);
+        if (Files.exists(keystoreFile)) {
+            try (InputStream input = Files.newInputStream(keystoreFile)) {
+                keyStore.load(input, password);
+            }
+        } else {
+            keyStore.load(null, password);
+        }
+        return keyStore;
+    }
+
+    /**
+     * Writes the keystore to a temporary file and moves it into place, so other instances never read half a file
+     */
+    private void saveKeyStore(KeyStore keyStore) throws IOException, GeneralSecurityException {
+        Path newFile = Files.createTempFile(keystoreFile.toAbsolutePath().getParent(), "jwt-keys-", ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(newFile)) {
+                keyStore.store(output, password);
+            }
+            Files.move(newFile, keystoreFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(newFile);
+        }
+    }
+
+    /**
+     * Replaces the usable keys with those in a keystore
+     */
+    private void setKeys(KeyStore keyStore) throws GeneralSecurityException {
+        Map<String, SigningKey> loaded = new HashMap<>();
+        SigningKey newest = null;
+        KeyStore.ProtectionParameter protection = new KeyStore.PasswordProtection(password);
+        for (String alias : Collections.list(keyStore.aliases())) {
+            if (keyStore.getEntry(alias, protection) instanceof KeyStore.SecretKeyEntry entry) {
+                SigningKey key = new SigningKey(alias, entry.getSecretKey(), getCreatedAt(alias));
+                if (!isRetired(key)) {
+                    loaded.put(alias, key);
+                    if (newest == null || key.createdAt() > newest.createdAt()) {
+                        newest = key;
+                    }
+                }
+            }
+        }
+        keys = Map.copyOf(loaded);
+        activeKey = newest;
+        lastLoadedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets when a key was made from its id. Ids that aren't times count as made long ago, so they get removed.
+     */
+    private static long getCreatedAt(String id) {
+        try {
+            return Long.parseLong(id, 36);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private boolean isDue(SigningKey key) {
+        return System.currentTimeMillis() - key.createdAt() > rotationPeriod.toMillis();
+    }
+
+    private boolean isRetired(SigningKey key) {
+        return System.currentTimeMillis() - key.createdAt() > keyLifetime.toMillis();
+    }
+}
@@ -1,6 +1,6 @@
 package nz.ac.canterbury.seng302.identityprovider.authentication;
 
-import java.io.Serializable;
+import java.security.Key;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -9,28 +9,25 @@ import nz.ac.canterbury.seng302.identityprovider.model.User;
 import nz.ac.canterbury.seng302.shared.identityprovider.ClaimDTO;
 import nz.ac.canterbury.seng302.shared.identityprovider.UserRole;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
+import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 
-public class JwtTokenUtil implements Serializable {
+@Component
+public class JwtTokenUtil {
 
-	private static final JwtTokenUtil singletonInstance = new JwtTokenUtil();
-
-	public static JwtTokenUtil getInstance() {
-		return singletonInstance;
-	}
-
-	// Private constructor to force using singleton instance
-	private JwtTokenUtil() {}
-
-	private static final long serialVersionUID = -2550185165626007488L;
 	public static final long JWT_TOKEN_VALIDITY = 5 * 60 * 60L;
 
 	public static final String ROLE_CLAIM_TYPE = "role";
 	public static final String NAME_CLAIM_TYPE = "name";
 	public static final String AUTHENTICATION_TYPE = "AuthenticationTypes.Federation";
+	public static final String ISSUER = "LOCAL AUTHORITY";
 
 	private static final Map<Class<?>, String> jwtValueTypesForJavaClasses = Map.of(
 		String.class, "http://www.w3.org/2001/XMLSchema#string",
@@ -38,7 +35,67 @@ public class JwtTokenUtil implements Serializable {
 		Integer.class, "http://www.w3.org/2001/XMLSchema#integer"
 	);
 
-    SecretKey key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+	private final JwtKeyStore keyStore;
+
+	// Parsers are immutable and thread-safe, so one is built and shared rather than building one for each token
+	private final JwtParser parser;
+
+	/**
+	 * Creates the token util, which signs tokens with the key store's newest key,
+	 * and verifies them with whichever of its keys the token's <code>kid</code> header names.
+	 * @param keyStore Where the signing keys are kept
+	 */
+	public JwtTokenUtil(JwtKeyStore keyStore) {
+		this.keyStore = keyStore;
+		this.parser = Jwts.parserBuilder().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+			@Override
+			public Key resolveSigningKey(JwsHeader header, Claims claims) {
+				SecretKey key = keyStore.getVerificationKey(header.getKeyId());
+				if (key == null) {
+					throw new SignatureException("Token was not signed with a known key");
+				}
+				return key;
+			}
+		}).build();
+	}
+
+	/**
+	 * The claims of a token that has been parsed and verified. The claims can't be changed,
+	 * so one of these can be passed around instead of parsing the token again for each claim.
+	 * @param claims The token's claims, by type
+	 */
+	public record ParsedToken(Map<String, Object> claims) {
+
+		public ParsedToken {
+			claims = Collections.unmodifiableMap(new LinkedHashMap<>(claims));
+		}
+
+		/**
+		 * @param type The type (or key) of the claim
+		 * @return The claim's value, or null if the token doesn't have it
+		 */
+		public Object get(String type) {
+			return claims.get(type);
+		}
+
+		/**
+		 * @return The id of the user the token was made for
+		 */
+		public int getUserId() {
+			return ((Number) claims.get("nameid")).intValue();
+		}
+	}
+
+	/**
+	 * Parses a token and checks its signature and expiry, once. Use the result to read as many claims as needed.
+	 * @param token JWT token string
+	 * @return The token's claims
+	 * @throws JwtException If the token isn't a valid JWT, wasn't signed with one of our keys, or has expired
+	 * @throws IllegalArgumentException If the token is empty
+	 */
+	public ParsedToken parseToken(String token) throws JwtException, IllegalArgumentException {
+		return new ParsedToken(getAllClaimsFromToken(token));
+	}
 
 	// retrieve username from jwt token
 	public String getUsernameFromToken(String token) {
@@ -62,13 +119,7 @@ public class JwtTokenUtil implements Serializable {
 
     // for retrieveing any information from token we will need the secret key
 	private Claims getAllClaimsFromToken(String token) {
-		return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
-	}
-
-	// check if the token has expired
-	private Boolean isTokenExpired(String token) {
-		final Date expiration = getExpirationDateFromToken(token);
-		return expiration.before(new Date());
+		return parser.parseClaimsJws(token).getBody();
 	}
 
 	/**
@@ -91,6 +142,44 @@ public class JwtTokenUtil implements Serializable {
 				.build();
 	}
 
+	/**
+	 * Builds a single claim as a ClaimDTO, the same way getClaimAsDTO would if it were read from a token.
+	 * @param type The type (or key) of the claim
+	 * @param value The claim's value
+	 * @return ClaimDTO representing some JWT claim
+	 */
+	private ClaimDTO buildClaimDTO(String type, Object value) {
+		return ClaimDTO
+				.newBuilder()
+				.setIssuer(ISSUER)
+				.setOriginalIssuer(ISSUER)
+				.setType(type)
+				.setValue(value.toString())
+				.setValueType(jwtValueTypesForJavaClasses.getOrDefault(value.getClass(), ""))
+				.build();
+	}
+
+	/**
+	 * Builds the ClaimDTOs that a token freshly generated for a user would have, straight from the user's details,
+	 * in the same order as getClaimDTOsForAuthStateCheck. Use this rather than generating a token just to read it back.
+	 *
+	 * @param user A user database object
+	 * @return List of ClaimDTOs for the user
+	 */
+	public Collection<ClaimDTO> getClaimDTOsForUser(User user) {
+		long nowSeconds = System.currentTimeMillis() / 1000;
+		// Times in a token are whole seconds, and are read back as Integers until 2038
+		return List.of(
+			buildClaimDTO("unique_name", user.getUsername()),
+			buildClaimDTO("sub", user.getUsername()),
+			buildClaimDTO("nameid", user.getId()),
+			buildClaimDTO(NAME_CLAIM_TYPE, user.getFullName()),
+			buildClaimDTO(ROLE_CLAIM_TYPE, getRolesClaim(user)),
+			buildClaimDTO("exp", (int) (nowSeconds + JWT_TOKEN_VALIDITY)),
+			buildClaimDTO("iat", (int) nowSeconds)
+		);
+	}
+
 	/**
 	 * Parses a token and pulls certain expected claims out to form a list of ClaimDTOs. These DTOs allow
 	 * for serializing a Java 'Claims' object for use in any other system. This format also corresponds with
@@ -134,13 +223,15 @@ public class JwtTokenUtil implements Serializable {
 		// E.g "student,teacher" or "teacher,courseadministrator,student" (Order doesn't matter)
         claims.put(ROLE_CLAIM_TYPE, roleOfUser);
 
+		JwtKeyStore.SigningKey signingKey = keyStore.getSigningKey();
 		return Jwts.builder()
+				.setHeaderParam(JwsHeader.KEY_ID, signingKey.id())
                 .setClaims(claims)
                 .setSubject(username)
-				.setIssuer("LOCAL AUTHORITY")
+				.setIssuer(ISSUER)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
 				.setExpiration(new Date(System.currentTimeMillis() + JWT_TOKEN_VALIDITY * 1000))
-				.signWith(key).compact();
+				.signWith(signingKey.key()).compact();
     }
 
 	/**
@@ -150,19 +241,33 @@ public class JwtTokenUtil implements Serializable {
 	 * @return String encoded JWT token
 	 */
 	public String generateTokenForUser(User user) {
+		return generateTokenForUser(user.getUsername(), user.getId(), user.getFullName(), getRolesClaim(user));
+	}
+
+	/**
+	 * Gets the value of a user's role claim
+	 * @param user A user database object
+	 * @return The user's roles as a lower case, comma-separated string
+	 */
+	private static String getRolesClaim(User user) {
 		// Convert all the roles into a comma-separated string of roles
 		List<String> userRoles = user.getRoles().stream().map(UserRole::toString).toList();
 		String commaSeparatedUserRoles = String.join(",", userRoles);
-		commaSeparatedUserRoles = commaSeparatedUserRoles.toLowerCase();    // Because the hard-coded roles were lower-case
-		return generateTokenForUser(user.getUsername(), user.getId(), user.getFullName(), commaSeparatedUserRoles);
+		return commaSeparatedUserRoles.toLowerCase();    // Because the hard-coded roles were lower-case
 	}
 
 	/**
-	 * Validate the token. For now we simply check if it was signed using our signing key, and if it isn't expired.
+	 * Validate the token. For now we simply check if it was signed using one of our signing keys, and if it isn't expired.
+	 * If you need any of the token's claims as well, use parseToken instead, so the token is only parsed once.
 	 * @param token JWT token string
 	 * @return True if token validates, False otherwise
 	 */
 	public Boolean validateToken(String token) {
-		return !isTokenExpired(token);
+		try {
+			parseToken(token);	// Checks the signature and expiry
+			return true;
+		} catch (ExpiredJwtException e) {
+			return false;
+		}
 	}
 }
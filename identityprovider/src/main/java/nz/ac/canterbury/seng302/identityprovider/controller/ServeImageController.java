@@ -1,86 +1,99 @@
 package nz.ac.canterbury.seng302.identityprovider.controller;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
-import javax.servlet.http.HttpServletResponse;
-
-import org.apache.tomcat.util.http.fileupload.IOUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @Controller
 public class ServeImageController {
 
-    private static final Logger logger = LoggerFactory.getLogger(ServeImageController.class);
+    // Versioned URLs never change what they point to, so they can be cached for as long as browsers allow
+    private static final CacheControl VERSIONED_CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic();
 
     @Value("${profile-image-folder}")
     private Path avatarFolder;
 
-    // https://www.baeldung.com/spring-mvc-image-media-data
     /**
-     * Gets the requested file from the profile-image folder, and writes
-     * it to the request.
-     * 
-     * Note: This method ONLY works if the file is a .jpg
-     * 
-     * Note #2: I know the method sucks, but I've spent 3 hours
-     * trying to get `Resource` or something else working, something that
-     * doesn't care about the filetype, something that doesn't read the
-     * whole file into memory first.
-     * 
-     * Unfortunately, any solution using `servletContext` will cause it
-     * to look for the files in my AppData temp folder, and the other
-     * solutions either don't work, or cause it to look inside the
-     * /build/classes/ folder.
-     * 
-     * If you can get this working, power to you.
-     * If you can't, fair enough.
-     * 
-     * Note #3: If we start accepting other file-types, this'll break.
+     * The ETag of a file, and what the file looked like when it was worked out
+     */
+    private record FileTag(long lastModified, long size, String etag) {}
+
+    // ETags of the images that have been served, so each one is only hashed again when the file changes
+    private final Map<Path, FileTag> fileTags = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the requested file from the profile-image folder.
+     *
+     * Responses have an ETag (a hash of the file) and Last-Modified date, so browsers that already have the image
+     * get a 304 Not Modified instead of the whole file. Spring writes the file, which also handles Range requests.
+     * Requests with a version (the <code>v</code> parameter that ProfilePhotoService puts in photo URLs) can be
+     * cached for a year, as a changed photo gets a new URL; other requests have to be checked with the server each time.
+     *
+     * @param filename The name of the image in the profile-image folder
+     * @param version The version of the image, if the URL has one
+     * @return The image, or 404 if it doesn't exist
+     * @throws IOException If the image couldn't be read
      */
     @GetMapping(value = "${profile-image-uri}{filename}")
-    public void profileImage(
+    public ResponseEntity<Resource> profileImage(
             @PathVariable(name = "filename") String filename,
-            HttpServletResponse response) throws IOException {
+            @RequestParam(name = "v", required = false) String version) throws IOException {
         // Construct the directory path
         Path pathToImage = avatarFolder.resolve(filename).normalize();
-        logger.info("pathToImage={}", pathToImage.toAbsolutePath());
-        logger.info("avatarFolder={}", avatarFolder.toAbsolutePath());
 
         if (!pathToImage.startsWith(avatarFolder)) { // Directory Traversal check
-            response.setStatus(404);
-            return;
+            return ResponseEntity.notFound().build();
         }
 
-        File imageFile = Path.of(".").resolve(pathToImage).toFile();
-        boolean fileExists = imageFile.isFile();
-        if (!fileExists) {
-            response.setStatus(404);
-            return;
+        if (!Files.isRegularFile(pathToImage)) {
+            return ResponseEntity.notFound().build();
         }
+        FileTag tag = getFileTag(pathToImage);
 
+        MediaType contentType = MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .cacheControl(version != null ? VERSIONED_CACHE_CONTROL : CacheControl.noCache())
+                .eTag(tag.etag())
+                .lastModified(tag.lastModified())
+                .body(new FileSystemResource(pathToImage));
+    }
 
-        // Write the file
-        try (InputStream fileStream = new FileInputStream(imageFile)) {
-            IOUtils.copy(fileStream, response.getOutputStream());
-            response.setContentType(MediaType.IMAGE_JPEG_VALUE);
-        } catch (FileNotFoundException e) {
-            logger.info(String.format("Exception when writing file: %s", e.getMessage()));
-            response.setStatus(404);
-            return;
+    /**
+     * Gets the ETag of a file, only hashing it if it's changed since it was last hashed
+     * @param file The file to get the ETag of
+     * @return The file's ETag, and its size and last modified time
+     * @throws IOException If the file couldn't be read
+     */
+    private FileTag getFileTag(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        FileTag tag = fileTags.get(file);
+        if (tag == null || tag.lastModified() != lastModified || tag.size() != attributes.size()) {
+            try (InputStream fileStream = Files.newInputStream(file)) {
+                tag = new FileTag(lastModified, attributes.size(), "\"" + DigestUtils.md5DigestAsHex(fileStream) + "\"");
+            }
+            fileTags.put(file, tag);
         }
-
-        response.setStatus(200);
+        return tag;
     }
 
 }
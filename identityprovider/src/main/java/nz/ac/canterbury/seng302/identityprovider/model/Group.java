@@ -18,7 +18,9 @@ public class Group {
     @GeneratedValue(strategy = GenerationType.AUTO)
     private int id;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // Not loaded with the group, as listing groups doesn't need every member.
+    // Use UserService.getUsersInGroupPaginated to get a page of them instead
+    @ManyToMany
     @JoinTable(
             name = "group_members",
             joinColumns = @JoinColumn(name = "group_id"),
@@ -1,5 +1,6 @@
 package nz.ac.canterbury.seng302.identityprovider.model;
 
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import javax.persistence.*;
 import java.time.Instant;
@@ -12,7 +13,8 @@ import nz.ac.canterbury.seng302.shared.identityprovider.UserRole;
  * Represents a user object.
  */
 @Entity
-@Table(name = "Users")
+// Index for sorting users by their highest role
+@Table(name = "Users", indexes = @Index(name = "idx_users_highest_role", columnList = "highestRole"))
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -33,11 +35,20 @@ public class User {
     private String email;
     @CreationTimestamp
     private Instant created;
-    @ElementCollection(fetch = FetchType.EAGER)
+    // Roles and groups are only loaded when they're used. When one user's are loaded, those of the other users
+    // loaded with them are too, so a page of users takes one more query rather than one per user.
+    // Repository methods that always need roles load them in the same query instead (see UserRepository)
+    @ElementCollection
+    @BatchSize(size = 100)
     @Enumerated
     private Set<UserRole> roles;
+    // A copy of the highest of the user's roles, so the database can sort users by it.
+    // Kept up to date by addRole and removeRole
+    @Enumerated
+    private UserRole highestRole;
 
     @ManyToMany(mappedBy = "members")
+    @BatchSize(size = 100)
     private Set<Group> groups = new HashSet<>();
 
     protected User() {
@@ -165,7 +176,9 @@ public class User {
      * @return <code>true</code> if the user didn't already have this role
      */
     public boolean addRole(UserRole role) {
-        return roles.add(role);
+        boolean added = roles.add(role);
+        updateHighestRole();
+        return added;
     }
 
     /**
@@ -178,10 +191,20 @@ public class User {
         if(roles.size() == 1) {
             return false;
         } else {
-            return roles.remove(role);
+            boolean removed = roles.remove(role);
+            updateHighestRole();
+            return removed;
         }
     }
 
+    /**
+     * Sets the stored highest role to the highest of the user's roles.
+     * Only needs calling directly for users saved before the highest role was stored.
+     */
+    public void updateHighestRole() {
+        highestRole = highestRole();
+    }
+
     /**
      * Combines the users first name, middle name (if they have one) and their last name into one String
      * @return A String containing the user's full name
@@ -194,6 +217,14 @@ public class User {
         }
     }
 
+    /**
+     * Gets the stored highest role, which unlike highestRole doesn't need the user's roles to be loaded
+     * @return The highest of the user's roles when they were last changed
+     */
+    public UserRole getHighestRole() {
+        return highestRole;
+    }
+
     public UserRole highestRole() {
         return roles.stream().max(Comparator.naturalOrder()).orElse(null);
     }
@@ -0,0 +1,144 @@
+package nz.ac.canterbury.seng302.identityprovider.repository;
+
+import nz.ac.canterbury.seng302.shared.identityprovider.UserRole;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * Changes group memberships and roles of many users at once, straight on the group_members and user_roles tables.
+ * <p>
+ * Going through the Group and User entities loads the group's whole member list and each user's groups,
+ * and saves them one at a time, which takes hundreds of queries to move a class of students into a group.
+ * These methods work on user ids instead: memberships are added and removed in JDBC batches,
+ * and roles are changed with one statement for all the users.
+ * </p>
+ * <p>
+ * This skips Hibernate, so any Group or User entities already loaded in the same transaction won't show the changes.
+ * </p>
+ */
+@Repository
+public class GroupMembershipRepository {
+
+    private static final String USER_IDS = "userIds";
+    private static final String GROUP_ID = "groupId";
+    private static final String ROLE = "role";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * @param userIds The ids to check
+     * @return The ids of the users that exist, out of the ones given
+     */
+    public List<Integer> findExistingUserIds(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE id IN (:userIds)",
+                Map.of(USER_IDS, userIds), Integer.class);
+    }
+
+    /**
+     * @param groupId The id of the group
+     * @param userIds The ids of the users to check
+     * @return The ids of the users that are members of the group, out of the ones given
+     */
+    public Set<Integer> findMemberIds(int groupId, Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT user_id FROM group_members WHERE group_id = :groupId AND user_id IN (:userIds)",
+                Map.of(GROUP_ID, groupId, USER_IDS, userIds), Integer.class));
+    }
+
+    /**
+     * @param userIds The ids of the users to check
+     * @return The ids of the users that aren't in any group, out of the ones given
+     */
+    public Set<Integer> findUserIdsWithoutAGroup(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT u.id FROM users u WHERE u.id IN (:userIds) " +
+                        "AND NOT EXISTS (SELECT 1 FROM group_members m WHERE m.user_id = u.id)",
+                Map.of(USER_IDS, userIds), Integer.class));
+    }
+
+    /**
+     * Adds users to a group, in one batch. The users must not already be in the group.
+     * @param groupId The id of the group
+     * @param userIds The ids of the users to add
+     */
+    public void addMembers(int groupId, Collection<Integer> userIds) {
+        jdbcTemplate.batchUpdate("INSERT INTO group_members (group_id, user_id) VALUES (:groupId, :userId)",
+                membershipParameters(groupId, userIds));
+    }
+
+    /**
+     * Removes users from a group, in one batch. Users that aren't in the group are ignored.
+     * @param groupId The id of the group
+     * @param userIds The ids of the users to remove
+     */
+    public void removeMembers(int groupId, Collection<Integer> userIds) {
+        jdbcTemplate.batchUpdate("DELETE FROM group_members WHERE group_id = :groupId AND user_id = :userId",
+                membershipParameters(groupId, userIds));
+    }
+
+    private static MapSqlParameterSource[] membershipParameters(int groupId, Collection<Integer> userIds) {
+        return userIds.stream()
+                .map(userId -> new MapSqlParameterSource(GROUP_ID, groupId).addValue("userId", userId))
+                .toArray(MapSqlParameterSource[]::new);
+    }
+
+    /**
+     * Gives users a role, if they don't already have it
+     * @param userIds The ids of the users
+     * @param role The role to give them
+     */
+    public void addRole(Collection<Integer> userIds, UserRole role) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, roles) SELECT u.id, :role FROM users u " +
+                        "WHERE u.id IN (:userIds) " +
+                        "AND NOT EXISTS (SELECT 1 FROM user_roles r WHERE r.user_id = u.id AND r.roles = :role)",
+                Map.of(USER_IDS, userIds, ROLE, role.ordinal()));
+        updateHighestRoles(userIds);
+    }
+
+    /**
+     * Takes a role away from users. Users for whom it was their only role are given another role instead,
+     * as users must always have a role.
+     * @param userIds The ids of the users
+     * @param role The role to take away
+     * @param replacement The role to give users who would otherwise have none
+     */
+    public void removeRole(Collection<Integer> userIds, UserRole role, UserRole replacement) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Map<String, Object> parameters = Map.of(USER_IDS, userIds, ROLE, role.ordinal(),
+                "replacement", replacement.ordinal());
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, roles) SELECT r.user_id, :replacement FROM user_roles r " +
+                        "WHERE r.user_id IN (:userIds) AND r.roles = :role " +
+                        "AND NOT EXISTS (SELECT 1 FROM user_roles o WHERE o.user_id = r.user_id AND o.roles <> :role)",
+                parameters);
+        jdbcTemplate.update("DELETE FROM user_roles WHERE user_id IN (:userIds) AND roles = :role", parameters);
+        updateHighestRoles(userIds);
+    }
+
+    /**
+     * Sets the stored highest role of users to the highest of their roles, like User.updateHighestRole
+     */
+    private void updateHighestRoles(Collection<Integer> userIds) {
+        jdbcTemplate.update("UPDATE users SET highest_role = " +
+                        "(SELECT MAX(r.roles) FROM user_roles r WHERE r.user_id = users.id) WHERE id IN (:userIds)",
+                Map.of(USER_IDS, userIds));
+    }
+}
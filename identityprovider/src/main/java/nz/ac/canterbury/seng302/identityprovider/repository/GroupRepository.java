@@ -12,4 +12,8 @@ import java.util.List;
 public interface GroupRepository extends CrudRepository<Group, Integer> {
     Group findById(int id);
     List<Group> findAll(Pageable pageable);
+
+    // Whether a group other than the given one has a name, found with the names' unique indexes
+    boolean existsByShortNameAndIdNot(String shortName, int id);
+    boolean existsByLongNameAndIdNot(String longName, int id);
 }
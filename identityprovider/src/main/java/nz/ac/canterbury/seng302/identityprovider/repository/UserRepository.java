@@ -3,16 +3,55 @@ package nz.ac.canterbury.seng302.identityprovider.repository;
 import nz.ac.canterbury.seng302.identityprovider.model.User;
 import nz.ac.canterbury.seng302.shared.identityprovider.UserRole;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface UserRepository extends CrudRepository<User, Integer> {
 
+    // Roles are loaded lazily. Methods whose users are always sent back with their roles
+    // fetch them in the same query, with the ROLES graph.
+    // The paged methods don't, as Hibernate would page in memory; their roles are batch loaded instead
+    String ROLES = "roles";
+
+    @EntityGraph(attributePaths = ROLES)
     User findByUsername(String username);
+    boolean existsByUsername(String username);
     List<User> findAll(Pageable pageable);
+    // Same as findAll(Pageable), but as a query of its own it doesn't also count every user for each page
+    List<User> findAllBy(Pageable pageable);
+    @EntityGraph(attributePaths = ROLES)
     User findById(int id);
+    @Override
+    @EntityGraph(attributePaths = ROLES)
+    Iterable<User> findAllById(Iterable<Integer> ids);
     List<User> findAllByRoles(UserRole role);
+    List<User> findAllByHighestRoleIsNull();
+    List<User> findAllByGroupsId(int groupId, Pageable pageable);
+    @EntityGraph(attributePaths = ROLES)
+    List<User> findAllByGroupsId(int groupId, Sort sort);
+    int countByGroupsId(int groupId);
+
+    /**
+     * How many members a group has, as returned by countMembersByGroupIds
+     */
+    interface GroupMemberCount {
+        int getGroupId();
+        long getMemberCount();
+    }
+
+    /**
+     * Counts the members of some groups in one query, without loading them.
+     * Groups with no members are left out.
+     */
+    @Query("SELECT g.id AS groupId, COUNT(u) AS memberCount FROM User u JOIN u.groups g " +
+            "WHERE g.id IN :groupIds GROUP BY g.id")
+    List<GroupMemberCount> countMembersByGroupIds(@Param("groupIds") Collection<Integer> groupIds);
 }
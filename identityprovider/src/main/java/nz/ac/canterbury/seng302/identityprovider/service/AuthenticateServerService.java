@@ -13,7 +13,6 @@ import nz.ac.canterbury.seng302.shared.identityprovider.AuthenticationServiceGrp
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 @GrpcService
 public class AuthenticateServerService extends AuthenticationServiceImplBase{
@@ -24,47 +23,53 @@ public class AuthenticateServerService extends AuthenticationServiceImplBase{
     @Autowired
     private UserService userService;
 
-    private JwtTokenUtil jwtTokenService = JwtTokenUtil.getInstance();
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenService;
 
     /**
-     * Attempts to authenticate a user with a given username and password. 
+     * Attempts to authenticate a user with a given username and password.
+     * Fails with RESOURCE_EXHAUSTED if too many logins are already waiting to be checked.
      */
     @Override
     public void authenticate(AuthenticateRequest request, StreamObserver<AuthenticateResponse> responseObserver) {
-        AuthenticateResponse.Builder reply = AuthenticateResponse.newBuilder();
-
-        User user = userService.getUserByUsername(request.getUsername());
         logger.info("authenticate() has been called by {}", request.getUsername());
+        // Checking the password is slow, so it's done on the password hashing pool
+        passwordHashingService.execute(() -> {
+            AuthenticateResponse.Builder reply = AuthenticateResponse.newBuilder();
 
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+            User user = userService.getUserByUsername(request.getUsername());
 
-        if (user == null || !encoder.matches(request.getPassword(), user.getPassword())) {
-            logger.info(LOGIN_FAIL_MSG_FORMAT, request.getUsername());
-            reply
-            .setMessage("Username or password is incorrect.")
-            .setSuccess(false)
-            .setToken("");
-        } else if (request.getUsername().equals(user.getUsername())) {
-            logger.info("Login attempt by {} succeeded", request.getUsername());
-            String token = jwtTokenService.generateTokenForUser(user);
-            reply
-                .setEmail(user.getEmail())
-                .setFirstName(user.getFirstName())
-                .setLastName(user.getLastName())
-                .setMessage("Logged in successfully!")
-                .setSuccess(true)
-                .setToken(token)
-                .setUserId(user.getId())
-                .setUsername(user.getUsername());
-        } else {
-            logger.info(LOGIN_FAIL_MSG_FORMAT, request.getUsername());
-            reply
-            .setMessage("Log in attempt failed: username or password incorrect")
-            .setSuccess(false)
-            .setToken("");
-        }
-        responseObserver.onNext(reply.build());
-        responseObserver.onCompleted();
+            if (user == null || !passwordHashingService.matches(request.getPassword(), user.getPassword())) {
+                logger.info(LOGIN_FAIL_MSG_FORMAT, request.getUsername());
+                reply
+                .setMessage("Username or password is incorrect.")
+                .setSuccess(false)
+                .setToken("");
+            } else if (request.getUsername().equals(user.getUsername())) {
+                logger.info("Login attempt by {} succeeded", request.getUsername());
+                String token = jwtTokenService.generateTokenForUser(user);
+                reply
+                    .setEmail(user.getEmail())
+                    .setFirstName(user.getFirstName())
+                    .setLastName(user.getLastName())
+                    .setMessage("Logged in successfully!")
+                    .setSuccess(true)
+                    .setToken(token)
+                    .setUserId(user.getId())
+                    .setUsername(user.getUsername());
+            } else {
+                logger.info(LOGIN_FAIL_MSG_FORMAT, request.getUsername());
+                reply
+                .setMessage("Log in attempt failed: username or password incorrect")
+                .setSuccess(false)
+                .setToken("");
+            }
+            responseObserver.onNext(reply.build());
+            responseObserver.onCompleted();
+        }, responseObserver);
     }
 
     /**
@@ -6,6 +6,8 @@ import net.devh.boot.grpc.server.service.GrpcService;
 import nz.ac.canterbury.seng302.identityprovider.model.Group;
 import nz.ac.canterbury.seng302.identityprovider.model.User;
 import nz.ac.canterbury.seng302.identityprovider.repository.GroupRepository;
+import nz.ac.canterbury.seng302.identityprovider.repository.UserRepository;
+import nz.ac.canterbury.seng302.identityprovider.utils.PagedResponseStream;
 import nz.ac.canterbury.seng302.shared.identityprovider.*;
 import nz.ac.canterbury.seng302.shared.util.PaginationRequestOptions;
 import nz.ac.canterbury.seng302.shared.util.PaginationResponseOptions;
@@ -17,6 +19,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import javax.validation.*;
 import java.util.*;
 
+import static nz.ac.canterbury.seng302.identityprovider.utils.GlobalVars.MAX_STREAM_PAGE_SIZE;
 import static nz.ac.canterbury.seng302.identityprovider.utils.GlobalVars.MEMBERS_WITHOUT_GROUPS_ID;
 import static nz.ac.canterbury.seng302.identityprovider.utils.GlobalVars.TEACHER_GROUP_ID;
 
@@ -38,6 +41,16 @@ public class GroupServerService extends GroupsServiceGrpc.GroupsServiceImplBase
     @Autowired
     private UserAccountServerService userAccountServerService;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Validators are thread-safe, so Spring's one is shared rather than building a new one for each request
+    @Autowired
+    private Validator validator;
+
     /**
      * Creates a new group, adds it to the database and returns a CreateGroupResponse
      * @param request An object containing all the details of the group to create
@@ -222,9 +235,9 @@ public class GroupServerService extends GroupsServiceGrpc.GroupsServiceImplBase
             return;
         }
 
-        Group group;
         try {
-            group = groupService.getGroup(request.getGroupId());
+            // Removes all members from the group before deleting it
+            groupService.deleteGroup(request.getGroupId());
         } catch (NoSuchElementException e) {
             reply
                     .setIsSuccess(false)
@@ -233,11 +246,6 @@ public class GroupServerService extends GroupsServiceGrpc.GroupsServiceImplBase
             responseObserver.onCompleted();
             return;
         }
-
-        // Remove all members from the group before deleting it
-        // This also removes this group from all of its member's sets of joined groups
-        group.removeAllMembers();
-        groupRepository.delete(group);
         reply
                 .setIsSuccess(true)
                 .setMessage("Group " + request.getGroupId() + " has been deleted");
@@ -266,19 +274,7 @@ public class GroupServerService extends GroupsServiceGrpc.GroupsServiceImplBase
             return;
         }
 
-        // Create a UserResponse for each group member
-        List<UserResponse> userResponses = new ArrayList<>();
-        for (User user : group.getMembers()) {
-            userResponses.add(userAccountServerService.buildUserResponse(user));
-        }
-        userResponses.sort(Comparator.comparing((UserResponse user) -> user.getFirstName() + user.getMiddleName() + user.getLastName()));
-
-        reply
-                .setGroupId(group.getId())
-                .setShortName(group.getShortName())
-                .setLongName(group.getLongName())
-                .addAllMembers(userResponses);
-        responseObserver.onNext(reply.build());
+        responseObserver.onNext(buildGroupDetailsResponse(group));
         responseObserver.onCompleted();
     }
 
@@ -289,30 +285,114 @@ public class GroupServerService extends GroupsServiceGrpc.GroupsServiceImplBase
     @Override
     public void getPaginatedGroups(GetPaginatedGroupsRequest request, StreamObserver<PaginatedGroupsResponse> responseObserver) {
         logger.info("getPaginatedGroups() has been called");
-
-        PaginatedGroupsResponse.Builder reply = PaginatedGroupsResponse.newBuilder();
         PaginationRequestOptions options = request.getPaginationRequestOptions();
-        int limit = options.getLimit();
-        int offset = options.getOffset();
-        String orderBy = options.getOrderBy();
-        boolean isAscending = options.getIsAscendingOrder();
 
-        List<Group> groups;
+        PaginatedGroupsResponse reply;
         try {
-            groups = groupService.getPaginatedGroups(offset, limit, orderBy, isAscending);
+            reply = buildGroupsPage(options.getOffset(), options);
         } catch (IllegalArgumentException e) {
             Throwable statusError = Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException();
             responseObserver.onError(statusError);
             return;
         }
 
-        List<GroupDetailsResponse> groupDetailsResponses = groups.stream().map(this::buildGroupDetailsResponse).toList();
+        responseObserver.onNext(reply);
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Sends the groups a page at a time, from the requested page to the last one, like getPaginatedGroups.
+     * Each page is only loaded once the client is ready for it.
+     * Gives a Status.INVALID_ARGUMENT error if the request's orderBy isn't a valid option,
+     * or its limit isn't between 1 and MAX_STREAM_PAGE_SIZE.
+     * @param request Contains the first page, the page size and how the groups are ordered
+     * @param responseObserver Receives each page, and the total number of groups with each
+     */
+    @Override
+    public void getPaginatedGroupsStream(GetPaginatedGroupsRequest request, StreamObserver<PaginatedGroupsResponse> responseObserver) {
+        logger.info("getPaginatedGroupsStream() has been called");
+        PaginationRequestOptions options = request.getPaginationRequestOptions();
+        if (options.getLimit() < 1 || options.getLimit() > MAX_STREAM_PAGE_SIZE) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Page size must be between 1 and " + MAX_STREAM_PAGE_SIZE)
+                    .asRuntimeException());
+            return;
+        }
+
+        PagedResponseStream.send(responseObserver, options.getOffset(), page -> {
+            PaginatedGroupsResponse reply;
+            try {
+                reply = buildGroupsPage(page, options);
+            } catch (IllegalArgumentException e) {
+                throw Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException();
+            }
+            boolean isLast = reply.getGroupsCount() < options.getLimit()
+                    || (page + 1L) * options.getLimit() >= reply.getPaginationResponseOptions().getResultSetSize();
+            return new PagedResponseStream.Page<>(reply, isLast);
+        });
+    }
+
+    /**
+     * Builds a page of groups for getPaginatedGroups and getPaginatedGroupsStream.
+     * Members are left out, as they're fetched with getPaginatedGroupMembers when needed
+     * @param page The page to build
+     * @param options The page size and how the groups are ordered
+     * @return The groups on the page with their member counts, and the total number of groups
+     * @throws IllegalArgumentException Thrown if the orderBy option isn't valid
+     */
+    private PaginatedGroupsResponse buildGroupsPage(int page, PaginationRequestOptions options) {
+        List<Group> groups = groupService.getPaginatedGroups(page, options.getLimit(), options.getOrderBy(),
+                options.getIsAscendingOrder());
+
+        List<Integer> groupIds = groups.stream().map(Group::getId).toList();
+        Map<Integer, Integer> memberCounts = new HashMap<>();
+        for (UserRepository.GroupMemberCount count : userRepository.countMembersByGroupIds(groupIds)) {
+            memberCounts.put(count.getGroupId(), (int) count.getMemberCount());
+        }
+        List<GroupDetailsResponse> groupDetailsResponses = groups.stream()
+                .map(group -> buildGroupSummaryResponse(group, memberCounts.getOrDefault(group.getId(), 0)))
+                .toList();
         int numGroupsInDatabase = (int) groupRepository.count();
-        PaginationResponseOptions.Builder responseOptions = PaginationResponseOptions.newBuilder();
-        responseOptions.setResultSetSize(numGroupsInDatabase).build();
-        reply
+        PaginationResponseOptions responseOptions = PaginationResponseOptions.newBuilder()
+                .setResultSetSize(numGroupsInDatabase)
+                .build();
+        return PaginatedGroupsResponse.newBuilder()
                 .addAllGroups(groupDetailsResponses)
-                .setPaginationResponseOptions(responseOptions);
+                .setPaginationResponseOptions(responseOptions)
+                .build();
+    }
+
+    /**
+     * Gets a page of a group's members in the form of a PaginatedUsersResponse
+     * @param request An object containing the id of the group, and the page size, offset, and ordering of the members
+     *                (using the same options as getPaginatedUsers)
+     * @param responseObserver Observable stream of messages
+     */
+    @Override
+    public void getPaginatedGroupMembers(GetPaginatedGroupMembersRequest request, StreamObserver<PaginatedUsersResponse> responseObserver) {
+        logger.info("getPaginatedGroupMembers() has been called");
+
+        PaginatedUsersResponse.Builder reply = PaginatedUsersResponse.newBuilder();
+        PaginationRequestOptions options = request.getPaginationRequestOptions();
+        int groupId = request.getGroupId();
+
+        List<User> members;
+        try {
+            groupService.getGroup(groupId);
+            members = userService.getUsersInGroupPaginated(groupId, options.getOffset(), options.getLimit(),
+                    options.getOrderBy(), options.getIsAscendingOrder());
+        } catch (NoSuchElementException e) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription(e.getMessage()).asRuntimeException());
+            return;
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+            return;
+        }
+
+        reply
+                .addAllUsers(members.stream().map(userAccountServerService::buildUserResponse).toList())
+                .setPaginationResponseOptions(PaginationResponseOptions.newBuilder()
+                        .setResultSetSize(userService.countUsersInGroup(groupId)));
 
         responseObserver.onNext(reply.build());
         responseObserver.onCompleted();
@@ -325,8 +405,6 @@ public class GroupServerService extends GroupsServiceGrpc.GroupsServiceImplBase
      * @return A list of ValidationErrors
      */
     private List<ValidationError> getValidationErrors(Group group) {
-        ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
-        Validator validator = factory.getValidator();
         List<ValidationError> errors = new ArrayList<>();
 
         // Build ValidationErrors from ConstraintViolations
@@ -345,24 +423,21 @@ public class GroupServerService extends GroupsServiceGrpc.GroupsServiceImplBase
             errors.add(error);
         }
 
-        // Check that the short and long names are unique
-        for (Group other : groupRepository.findAll()) {
-            if (group.getId() != other.getId()) {
-                if (Objects.equals(group.getShortName(), other.getShortName())) {
-                    ValidationError error = ValidationError.newBuilder()
-                            .setFieldName("shortName")
-                            .setErrorText("Group short name is already in use")
-                            .build();
-                    errors.add(error);
-                }
-                if (Objects.equals(group.getLongName(), other.getLongName())) {
-                    ValidationError error = ValidationError.newBuilder()
-                            .setFieldName("longName")
-                            .setErrorText("Group long name is already in use")
-                            .build();
-                    errors.add(error);
-                }
-            }
+        // Check that the short and long names are unique. These are single index lookups,
+        // so they take the same time however many groups there are
+        if (group.getShortName() != null && groupRepository.existsByShortNameAndIdNot(group.getShortName(), group.getId())) {
+            ValidationError error = ValidationError.newBuilder()
+                    .setFieldName("shortName")
+                    .setErrorText("Group short name is already in use")
+                    .build();
+            errors.add(error);
+        }
+        if (group.getLongName() != null && groupRepository.existsByLongNameAndIdNot(group.getLongName(), group.getId())) {
+            ValidationError error = ValidationError.newBuilder()
+                    .setFieldName("longName")
+                    .setErrorText("Group long name is already in use")
+                    .build();
+            errors.add(error);
         }
 
         return errors;
@@ -375,8 +450,9 @@ public class GroupServerService extends GroupsServiceGrpc.GroupsServiceImplBase
      * @return A gRPC-ready response object with the group's fields copied in
      */
     public GroupDetailsResponse buildGroupDetailsResponse(Group group) {
+        // Create a UserResponse for each group member
         List<UserResponse> userResponses = new ArrayList<>();
-        for (User user : group.getMembers()) {
+        for (User user : userService.getUsersInGroup(group.getId())) {
             userResponses.add(userAccountServerService.buildUserResponse(user));
         }
 
@@ -384,8 +460,25 @@ public class GroupServerService extends GroupsServiceGrpc.GroupsServiceImplBase
                 .setGroupId(group.getId())
                 .setLongName(group.getLongName())
                 .setShortName(group.getShortName())
-                .addAllMembers(userResponses);
+                .addAllMembers(userResponses)
+                .setMemberCount(userResponses.size());
         return groupDetailsResponse.build();
     }
 
+    /**
+     * Returns a GroupDetailsResponse without the group's members, for listing groups.
+     *
+     * @param group The group object to extract the fields from
+     * @param memberCount How many members the group has
+     * @return A gRPC-ready response object with the group's fields and member count copied in
+     */
+    private GroupDetailsResponse buildGroupSummaryResponse(Group group, int memberCount) {
+        return GroupDetailsResponse.newBuilder()
+                .setGroupId(group.getId())
+                .setLongName(group.getLongName())
+                .setShortName(group.getShortName())
+                .setMemberCount(memberCount)
+                .build();
+    }
+
 }
@@ -2,6 +2,7 @@ package nz.ac.canterbury.seng302.identityprovider.service;
 
 import nz.ac.canterbury.seng302.identityprovider.model.Group;
 import nz.ac.canterbury.seng302.identityprovider.model.User;
+import nz.ac.canterbury.seng302.identityprovider.repository.GroupMembershipRepository;
 import nz.ac.canterbury.seng302.identityprovider.repository.GroupRepository;
 import nz.ac.canterbury.seng302.identityprovider.repository.UserRepository;
 import nz.ac.canterbury.seng302.identityprovider.utils.GlobalVars;
@@ -30,6 +31,12 @@ public class GroupService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private GroupMembershipRepository groupMembershipRepository;
+
+    @Autowired
+    private UserSearchService userSearchService;
+
     /**
      * Gets all groups from the repository
      * @return A list of all groups in the repository
@@ -66,7 +73,7 @@ public class GroupService {
         }
         Pageable pageable = PageRequest.of(page, limit, sortBy);
 
-        return (List<Group>) groupRepository.findAll();
+        return groupRepository.findAll(pageable);
     }
 
     /**
@@ -112,7 +119,25 @@ public class GroupService {
     }
 
     /**
-     * Adds a set of users to a group
+     * Deletes a group, after removing all of its members from it
+     * @param id The id of the group to delete
+     * @throws NoSuchElementException Thrown if there is no group with that id
+     */
+    @Transactional
+    public void deleteGroup(int id) {
+        Group group = getGroup(id);
+        // This also removes this group from all of its member's sets of joined groups
+        group.removeAllMembers();
+        groupRepository.delete(group);
+    }
+
+    /**
+     * Adds a set of users to a group. Users already in the group are left as they are, and users that
+     * were in Members Without A Group are taken out of it. Users added to Teaching Staff get the teacher role.
+     * <p>
+     * The memberships that need changing are worked out once for all the users,
+     * then changed in batches by GroupMembershipRepository.
+     * </p>
      * @param groupId The id of the group to add users to
      * @param userIds The ids of the users to add to the group
      * @return The number of users added to the group
@@ -122,24 +147,30 @@ public class GroupService {
         if (groupId == MEMBERS_WITHOUT_GROUPS_ID) { // If trying to add to members without groups, do nothing
             return 0;
         }
-        Group group = getGroup(groupId);
-        int count = 0;
-        for (User user : userRepository.findAllById(userIds)) {
-            group.addMember(user);
-            // If adding to teaching staff, give teacher role
-            if (groupId == TEACHER_GROUP_ID) {
-                user.addRole(UserRole.TEACHER);
-                userRepository.save(user);
-            }
-            removeUserFromMembersWithoutAGroup(user);
-            count++;
+        getGroup(groupId);  // Throws NoSuchElementException if there's no such group
+        List<Integer> existingUserIds = groupMembershipRepository.findExistingUserIds(userIds);
+
+        Set<Integer> newMemberIds = new HashSet<>(existingUserIds);
+        newMemberIds.removeAll(groupMembershipRepository.findMemberIds(groupId, existingUserIds));
+        groupMembershipRepository.addMembers(groupId, newMemberIds);
+        groupMembershipRepository.removeMembers(MEMBERS_WITHOUT_GROUPS_ID,
+                groupMembershipRepository.findMemberIds(MEMBERS_WITHOUT_GROUPS_ID, newMemberIds));
+
+        // If adding to teaching staff, give teacher role
+        if (groupId == TEACHER_GROUP_ID) {
+            groupMembershipRepository.addRole(existingUserIds, UserRole.TEACHER);
+            rolesChanged(existingUserIds);
         }
-        groupRepository.save(group);
-        return count;
+        return existingUserIds.size();
     }
 
     /**
-     * Removes a set of users from a group
+     * Removes a set of users from a group. Users that end up without a group are put in Members Without A Group.
+     * Users removed from Teaching Staff lose the teacher role, and get the student role if it was their only role.
+     * <p>
+     * The memberships that need changing are worked out once for all the users,
+     * then changed in batches by GroupMembershipRepository.
+     * </p>
      * @param groupId The id of the group to remove users from
      * @param userIds The ids of the users to remove from the group
      * @return The number of users removed from the group
@@ -149,49 +180,29 @@ public class GroupService {
         if (groupId == MEMBERS_WITHOUT_GROUPS_ID) { // If trying to remove from members without groups, do nothing
             return 0;
         }
+        getGroup(groupId);  // Throws NoSuchElementException if there's no such group
+        List<Integer> existingUserIds = groupMembershipRepository.findExistingUserIds(userIds);
 
-        Group group = getGroup(groupId);
-        int count = 0;
-        for (User user : userRepository.findAllById(userIds)) {
-            group.removeMember(user);
-            if (groupId == TEACHER_GROUP_ID) {  // If removing from teaching staff, remove teacher role
-                if (user.getRoles().size() == 1) {
-                    user.addRole(UserRole.STUDENT);
-                }
-                user.removeRole(UserRole.TEACHER);
-                userRepository.save(user);
-            }
-            if (user.getGroups().isEmpty()) {
-                addUserToMembersWithoutAGroup(user);
-            }
-            count++;
-        }
-        groupRepository.save(group);
-        return count;
-    }
+        Set<Integer> memberIds = groupMembershipRepository.findMemberIds(groupId, existingUserIds);
+        groupMembershipRepository.removeMembers(groupId, memberIds);
+        groupMembershipRepository.addMembers(MEMBERS_WITHOUT_GROUPS_ID,
+                groupMembershipRepository.findUserIdsWithoutAGroup(memberIds));
 
-    /**
-     * Adds a user to the group "Members Without A Group"
-     * @param user The user to add to the group
-     */
-    @Transactional
-    public void addUserToMembersWithoutAGroup(User user) {
-        Group membersWithoutAGroup = getGroup(MEMBERS_WITHOUT_GROUPS_ID);
-        membersWithoutAGroup.addMember(user);
-        groupRepository.save(membersWithoutAGroup);
-        userRepository.save(user);
+        if (groupId == TEACHER_GROUP_ID) {  // If removing from teaching staff, remove teacher role
+            groupMembershipRepository.removeRole(existingUserIds, UserRole.TEACHER, UserRole.STUDENT);
+            rolesChanged(existingUserIds);
+        }
+        return existingUserIds.size();
     }
 
     /**
-     * Removes a user from the group "Members Without A Group"
-     * @param user The user to remove from the group
+     * Updates the search index for users whose roles were changed by GroupMembershipRepository
+     * @param userIds The ids of the users whose roles changed
      */
-    public void removeUserFromMembersWithoutAGroup(User user) {
-        Group membersWithoutAGroup = getGroup(MEMBERS_WITHOUT_GROUPS_ID);
-        if (user.getGroups().contains(membersWithoutAGroup)) {
-            membersWithoutAGroup.removeMember(user);
-            groupRepository.save(membersWithoutAGroup);
-            userRepository.save(user);
+    private void rolesChanged(List<Integer> userIds) {
+        // No users were loaded earlier in the transaction, so these have the new roles
+        for (User user : userRepository.findAllById(userIds)) {
+            userSearchService.userSaved(user);
         }
     }
 
@@ -233,6 +244,7 @@ public class GroupService {
         } catch (NoSuchElementException e) {
             return;
         }
+        // Users' groups are batch loaded, so this takes a query per hundred users rather than per user
         for (User user : users) {
             if (user.getGroups().isEmpty()) {
                 membersWithoutAGroup.addMember(user);
@@ -0,0 +1,143 @@
+package nz.ac.canterbury.seng302.identityprovider.service;
+
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hashes and checks passwords with BCrypt on their own pool of threads (see ExecutorConfig.passwordHashingExecutor),
+ * so a rush of logins can't hold up every gRPC thread and make quick calls like checkAuthState wait behind them.
+ * <p>
+ * gRPC methods that hash or check passwords should do that work inside {@link #execute}, which fails the call with
+ * RESOURCE_EXHAUSTED if too much work is already waiting. How long work waited for a thread and took to run is
+ * logged every <code>password-hashing.stats-log-interval</code> tasks, to help tune the pool size and BCrypt cost.
+ * </p>
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    /**
+     * How the password hashing pool has been doing since the app started.
+     * @param completed number of tasks that have run
+     * @param rejected number of tasks turned away because the queue was full
+     * @param averageWaitMillis average time a task waited for a thread
+     * @param averageRunMillis average time a task took to run, which is mostly hashing
+     * @param queued number of tasks waiting for a thread right now
+     */
+    public record Statistics(long completed, long rejected, double averageWaitMillis, double averageRunMillis, int queued) {}
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final int statsLogInterval;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+
+    /**
+     * Creates the service with the configured BCrypt cost.
+     * @param strength the BCrypt cost (log2 of the number of rounds) for new hashes
+     * @param statsLogInterval how many tasks between logging the pool statistics
+     * @param executor the pool that passwords are hashed and checked on
+     */
+    public PasswordHashingService(@Value("${password-hashing.bcrypt-strength:10}") int strength,
+                                  @Value("${password-hashing.stats-log-interval:100}") int statsLogInterval,
+                                  @Qualifier("passwordHashingExecutor") ThreadPoolExecutor executor) {
+        this.encoder = new BCryptPasswordEncoder(strength);
+        this.statsLogInterval = statsLogInterval;
+        this.executor = executor;
+    }
+
+    /**
+     * Hashes a password. This is slow, so only call it from a task given to {@link #execute}.
+     * @param rawPassword the password to hash
+     * @return the BCrypt hash of the password
+     */
+    public String encode(String rawPassword) {
+        return encoder.encode(rawPassword);
+    }
+
+    /**
+     * Checks a password against a hash. This is slow, so only call it from a task given to {@link #execute}.
+     * @param rawPassword the password to check
+     * @param hashedPassword the BCrypt hash it should match
+     * @return true if the password matches the hash
+     */
+    public boolean matches(String rawPassword, String hashedPassword) {
+        return encoder.matches(rawPassword, hashedPassword);
+    }
+
+    /**
+     * Runs the part of a gRPC call that hashes or checks passwords on the password hashing pool.
+     * The task is responsible for responding to the call. If the pool's queue is full, the call fails
+     * with RESOURCE_EXHAUSTED straight away, and if the task throws an exception, it fails with INTERNAL.
+     * @param task the work to do, which responds to the call
+     * @param responseObserver the observer the call's response goes to
+     */
+    public void execute(Runnable task, StreamObserver<?> responseObserver) {
+        long queuedAt = System.nanoTime();
+        // Keeps the call's gRPC context (e.g. its AuthState) for the task
+        Runnable contextTask = Context.current().wrap(() -> {
+            long startedAt = System.nanoTime();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Error hashing or checking a password: {}", e.getMessage());
+                responseObserver.onError(Status.INTERNAL.withDescription("Error hashing or checking password").asRuntimeException());
+            } finally {
+                recordTask(startedAt - queuedAt, System.nanoTime() - startedAt);
+            }
+        });
+
+        try {
+            executor.execute(contextTask);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            logger.warn("Rejected password hashing task as {} are already waiting", executor.getQueue().size());
+            responseObserver.onError(Status.RESOURCE_EXHAUSTED
+                    .withDescription("The server is busy; please try again in a moment")
+                    .asRuntimeException());
+        }
+    }
+
+    private void recordTask(long waitNanos, long runNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        totalRunNanos.addAndGet(runNanos);
+        long count = completed.incrementAndGet();
+        if (statsLogInterval > 0 && count % statsLogInterval == 0) {
+            logStatistics();
+        }
+    }
+
+    /**
+     * @return the current task counts and timings of the password hashing pool
+     */
+    public Statistics getStatistics() {
+        long count = completed.get();
+        return new Statistics(count, rejected.get(),
+                count == 0 ? 0 : totalWaitNanos.get() / (double) count / TimeUnit.MILLISECONDS.toNanos(1),
+                count == 0 ? 0 : totalRunNanos.get() / (double) count / TimeUnit.MILLISECONDS.toNanos(1),
+                executor.getQueue().size());
+    }
+
+    private void logStatistics() {
+        Statistics stats = getStatistics();
+        logger.info("Password hashing: completed {}, rejected {}, average wait {} ms, average run {} ms, queued {}",
+                stats.completed(), stats.rejected(), String.format("%.1f", stats.averageWaitMillis()),
+                String.format("%.1f", stats.averageRunMillis()), stats.queued());
+    }
+}
@@ -1,38 +1,110 @@
 package nz.ac.canterbury.seng302.identityprovider.service;
 
-import java.io.File;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.net.URI;
-import java.nio.file.Path;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Keeps track of which users have a profile photo, and gives the URL of each user's photo.
+ * Photo URLs include a version that changes whenever the photo does, so browsers can cache them for a long time.
+ * Smaller copies (thumbnails) of each photo are made when it's saved, for pages that only show it as an icon.
+ *
+ * Which users have photos, and their versions, are kept in memory, so building a UserResponse doesn't need to check
+ * the file system. They're found by scanning the profile image folder when the app starts, updated by photoSaved and photoDeleted,
+ * and a WatchService on the folder picks up photos that are added or removed outside this app.
+ */
 @Component
 public class ProfilePhotoService {
-    
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfilePhotoService.class);
+
     @Value("${http-endpoint}")
     private URI httpURL;
 
     @Value("${profile-image-uri}")
     private URI imageEndpoint;
-    
+
     @Value("${profile-image-folder}")
     private Path profileImageFolder;
 
     private static final String IMAGE_FILENAME_FORMAT = "%d_photo.jpg";
+    private static final Pattern IMAGE_FILENAME_PATTERN = Pattern.compile("(\\d+)_photo\\.jpg");
     private static final String DEFAULT_PROFILE_IMAGE = "default-pfp.jpg";
 
+    // Sizes (width and height in pixels) of the thumbnails made of each photo. Icons are shown at 40px,
+    // so 64px keeps them sharp on high density screens
+    public static final int MEDIUM_THUMBNAIL_SIZE = 64;
+    private static final int[] THUMBNAIL_SIZES = {MEDIUM_THUMBNAIL_SIZE};
+    private static final String THUMBNAIL_FILENAME_FORMAT = "%d_photo_%d.jpg";
+
+    /**
+     * A photo in the profile image folder
+     * @param version The photo's last modified time, which its thumbnails are given too
+     * @param hasThumbnails Whether the photo's thumbnails could be made
+     */
+    private record Photo(long version, boolean hasThumbnails) {}
+
+    // Each photo in the profile image folder, by the id of the user it belongs to
+    private final Map<Integer, Photo> photos = new ConcurrentHashMap<>();
+
+    // A lock for each user whose photo has changed, so different users' photos can be processed at the same time
+    private final Map<Integer, Object> photoLocks = new ConcurrentHashMap<>();
+
+    @Autowired
+    @Qualifier("photoProcessingExecutor")
+    private ExecutorService photoProcessingExecutor;
+
+    private WatchService watchService;
+
     public String getUserProfileImageUrl(int id) {
-        String userImageFilename = String.format(IMAGE_FILENAME_FORMAT, id);
+        return getUserProfileImageUrl(id, 0);
+    }
+
+    /**
+     * Gets the URL of a thumbnail of a user's photo. If the thumbnail couldn't be made, the full photo's URL is given,
+     * and if the user has no photo, the default image's.
+     * @param id The id of the user
+     * @param size The size of the thumbnail; MEDIUM_THUMBNAIL_SIZE, or 0 for the full photo
+     * @return The URL of the photo
+     */
+    public String getUserProfileImageUrl(int id, int size) {
         // The full URL where images are found (http://localhost:9000/media/images/)
         URI fullImageEndpoint = httpURL.resolve(imageEndpoint);
-        
+
         // Does the user have a profile picture saved?
-        // If the image exists in the folder, it's theirs.
-        File imageInFolder = profileImageFolder.resolve(userImageFilename).toFile();
-        if (imageInFolder.isFile()) {
-            // They have a profile photo, use it.
-            URI userImageUrl = fullImageEndpoint.resolve(userImageFilename);
+        Photo photo = photos.get(id);
+        if (photo != null) {
+            String userImageFilename = (size != 0 && photo.hasThumbnails())
+                    ? String.format(THUMBNAIL_FILENAME_FORMAT, id, size)
+                    : String.format(IMAGE_FILENAME_FORMAT, id);
+            // They have a profile photo, use it. The version makes browsers get it again when it changes
+            URI userImageUrl = fullImageEndpoint.resolve(userImageFilename + "?v=" + Long.toString(photo.version(), 36));
             return userImageUrl.toString();
         } else {
             // Use the default image
@@ -41,5 +113,278 @@ public class ProfilePhotoService {
         }
     }
 
+    /**
+     * Checks if a user has a profile photo, without going to the file system
+     * @param id The id of the user
+     * @return true if there is a photo for the user in the profile image folder
+     */
+    public boolean hasProfilePhoto(int id) {
+        return photos.containsKey(id);
+    }
+
+    /**
+     * Records that a user's photo was saved to the profile image folder, giving it a new version, and makes its thumbnails
+     * @param id The id of the user whose photo was saved
+     * @param image The photo, so it doesn't have to be read from the file again
+     */
+    public void photoSaved(int id, BufferedImage image) {
+        photoChanged(id, profileImageFolder.resolve(String.format(IMAGE_FILENAME_FORMAT, id)), image);
+    }
+
+    /**
+     * Records that a user's photo was deleted from the profile image folder, and deletes its thumbnails
+     * @param id The id of the user whose photo was deleted
+     */
+    public void photoDeleted(int id) {
+        synchronized (getPhotoLock(id)) {
+            photos.remove(id);
+            for (int size : THUMBNAIL_SIZES) {
+                try {
+                    Files.deleteIfExists(getThumbnailPath(id, size));
+                } catch (IOException e) {
+                    logger.error("Could not delete thumbnail {}: {}", getThumbnailPath(id, size), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates a user's photo version from the file, making its thumbnails if they're out of date,
+     * or removes it if the file is gone.
+     * Holds the user's lock, so a photo saved by the app and noticed by the watcher only has its thumbnails made once,
+     * while other users' photos can be processed at the same time.
+     * @param id The id of the user the photo belongs to
+     * @param file The path to the photo
+     * @param image The photo if it's already been read, otherwise null
+     */
+    private void photoChanged(int id, Path file, BufferedImage image) {
+        synchronized (getPhotoLock(id)) {
+            long version;
+            try {
+                version = Files.getLastModifiedTime(file).toMillis();
+            } catch (IOException e) {
+                photoDeleted(id);
+                return;
+            }
+            boolean hasThumbnails = thumbnailsUpToDate(id, version) || createThumbnails(id, file, image, version);
+            photos.put(id, new Photo(version, hasThumbnails));
+        }
+    }
+
+    private Object getPhotoLock(int id) {
+        return photoLocks.computeIfAbsent(id, key -> new Object());
+    }
 
+    private Path getThumbnailPath(int id, int size) {
+        return profileImageFolder.resolve(String.format(THUMBNAIL_FILENAME_FORMAT, id, size));
+    }
+
+    /**
+     * Checks if a photo's thumbnails were made from this version of it
+     * @param id The id of the user the photo belongs to
+     * @param version The photo's version
+     * @return true if every thumbnail exists and has the photo's version
+     */
+    private boolean thumbnailsUpToDate(int id, long version) {
+        for (int size : THUMBNAIL_SIZES) {
+            try {
+                if (Files.getLastModifiedTime(getThumbnailPath(id, size)).toMillis() != version) {
+                    return false;
+                }
+            } catch (IOException e) {   // Doesn't exist
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Makes the thumbnails of a photo. Each is given the photo's version as its last modified time,
+     * and is moved into place once it's written, so it's never served half-written.
+     * @param id The id of the user the photo belongs to
+     * @param file The path to the photo
+     * @param image The photo if it's already been read, otherwise null
+     * @param version The photo's version
+     * @return true if the thumbnails were made
+     */
+    private boolean createThumbnails(int id, Path file, BufferedImage image, long version) {
+        try {
+            if (image == null) {
+                image = ImageIO.read(file.toFile());
+                if (image == null) {
+                    throw new IOException("Not an image");
+                }
+            }
+            for (int size : THUMBNAIL_SIZES) {
+                Path newThumbnail = Files.createTempFile(profileImageFolder, "thumbnail-", ".tmp");
+                try {
+                    ImageIO.write(scaleImage(image, size), "jpg", newThumbnail.toFile());
+                    Files.setLastModifiedTime(newThumbnail, FileTime.fromMillis(version));
+                    Files.move(newThumbnail, getThumbnailPath(id, size),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(newThumbnail);
+                }
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not make thumbnails of {}; the full photo will be used: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Scales an image to a square. Area averaging is used, as it looks much better than the default when shrinking a lot.
+     * @param image The image to scale
+     * @param size The width and height of the scaled image
+     * @return The scaled image
+     */
+    private static BufferedImage scaleImage(BufferedImage image, int size) {
+        BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.drawImage(image.getScaledInstance(size, size, Image.SCALE_AREA_AVERAGING), 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * When the app starts up, starts watching the profile image folder for changes, then finds the photos already in it.
+     * The folder is created if it doesn't exist yet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWatchingFolder() {
+        try {
+            Files.createDirectories(profileImageFolder);
+            // Watch before scanning, so photos added during the scan aren't missed
+            watchService = profileImageFolder.getFileSystem().newWatchService();
+            profileImageFolder.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            Thread watcher = new Thread(this::watchFolder, "profile-photo-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        } catch (IOException e) {
+            logger.error("Could not watch profile image folder {}; photos changed outside the app won't be noticed: {}",
+                    profileImageFolder.toAbsolutePath(), e.getMessage());
+        }
+        scanFolder();
+    }
+
+    /**
+     * Stops watching the profile image folder when the app shuts down
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void stopWatchingFolder() {
+        if (watchService != null) {
+            try {
+                watchService.close();   // Ends the watcher thread
+            } catch (IOException e) {
+                logger.error("Error closing profile image folder watcher: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Replaces the photos with those that are in the profile image folder.
+     * Any thumbnails that are missing or out of date are made on the photo processing pool, so starting up doesn't
+     * wait for them; until they're made, the full photo is used.
+     */
+    private void scanFolder() {
+        Map<Integer, Path> found = new HashMap<>();
+        try (Stream<Path> files = Files.list(profileImageFolder)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                Integer id = getPhotoOwner(file);
+                if (id != null) {
+                    found.put(id, file);
+                }
+            });
+        } catch (IOException e) {
+            logger.error("Could not scan profile image folder {}: {}", profileImageFolder.toAbsolutePath(), e.getMessage());
+            return;
+        }
+        photos.keySet().retainAll(found.keySet());
+        Map<Integer, Path> needThumbnails = new HashMap<>();
+        found.forEach((id, file) -> {
+            synchronized (getPhotoLock(id)) {
+                try {
+                    long version = Files.getLastModifiedTime(file).toMillis();
+                    boolean hasThumbnails = thumbnailsUpToDate(id, version);
+                    photos.put(id, new Photo(version, hasThumbnails));
+                    if (!hasThumbnails) {
+                        needThumbnails.put(id, file);
+                    }
+                } catch (IOException e) {
+                    photoDeleted(id);
+                }
+            }
+        });
+        logger.info("Found {} profile photos in {}", found.size(), profileImageFolder.toAbsolutePath());
+
+        if (!needThumbnails.isEmpty()) {
+            try {
+                // One task for them all, so they don't fill up the queue that uploads use
+                photoProcessingExecutor.execute(() -> {
+                    needThumbnails.forEach((id, file) -> photoChanged(id, file, null));
+                    logger.info("Made thumbnails of {} profile photos", needThumbnails.size());
+                });
+            } catch (RejectedExecutionException e) {
+                logger.error("Photo processing pool is full, so {} photos won't have thumbnails until they change",
+                        needThumbnails.size());
+            }
+        }
+    }
+
+    /**
+     * Updates the users with photos as files in the profile image folder change, until the watch service is closed.
+     * Each changed photo is checked again, rather than trusting the kind of event, as events can arrive out of order.
+     */
+    private void watchFolder() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    // Some events were lost, so look at the whole folder again
+                    scanFolder();
+                    continue;
+                }
+                Path file = profileImageFolder.resolve((Path) event.context());
+                Integer id = getPhotoOwner(file);
+                if (id != null) {
+                    photoChanged(id, file, null);
+                }
+            }
+
+            if (!key.reset()) {
+                logger.error("Profile image folder {} can no longer be watched", profileImageFolder.toAbsolutePath());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the id of the user a profile photo belongs to
+     * @param file The path to the photo
+     * @return The user's id, or null if the file isn't a profile photo
+     */
+    private static Integer getPhotoOwner(Path file) {
+        Matcher matcher = IMAGE_FILENAME_PATTERN.matcher(file.getFileName().toString());
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(matcher.group(1));
+        } catch (NumberFormatException e) {  // Too many digits to be a user id
+            return null;
+        }
+    }
 }
@@ -5,29 +5,36 @@ import com.google.protobuf.Timestamp;
 import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import net.devh.boot.grpc.server.service.GrpcService;
-import nz.ac.canterbury.seng302.identityprovider.model.Group;
 import nz.ac.canterbury.seng302.identityprovider.model.User;
-import nz.ac.canterbury.seng302.identityprovider.repository.GroupRepository;
+import nz.ac.canterbury.seng302.identityprovider.repository.GroupMembershipRepository;
 import nz.ac.canterbury.seng302.identityprovider.repository.UserRepository;
 import nz.ac.canterbury.seng302.identityprovider.utils.GlobalVars;
+import nz.ac.canterbury.seng302.identityprovider.utils.PagedResponseStream;
 import nz.ac.canterbury.seng302.shared.identityprovider.*;
 import nz.ac.canterbury.seng302.shared.util.FileUploadStatus;
 import nz.ac.canterbury.seng302.shared.util.FileUploadStatusResponse;
 import nz.ac.canterbury.seng302.shared.util.PaginationResponseOptions;
+import nz.ac.canterbury.seng302.shared.util.PaginationRequestOptions;
 import nz.ac.canterbury.seng302.shared.util.ValidationError;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.dao.DataAccessException;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * This class contains server-side methods for dealing with user accounts in the IDP, such as
@@ -42,18 +49,33 @@ public class UserAccountServerService extends UserAccountServiceGrpc.UserAccount
     private static final String USER_PHOTO_FORMAT = "jpg";
     private static final String USER_PHOTO_SUFFIX = USER_PHOTO_FILENAME + USER_PHOTO_FORMAT;
     private static final int USER_PHOTO_DIMENSIONS = 200;
-
-    private static final BCryptPasswordEncoder encoder =  new BCryptPasswordEncoder();
+    // Uploads must start with one of these to be read as an image
+    private static final byte[] JPEG_HEADER = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int IMAGE_HEADER_LENGTH = PNG_HEADER.length;
+    private static final String NOT_AN_IMAGE_MESSAGE = "Error saving image: the file is not a JPEG or PNG image.";
+    // The most users getUsersByIds gives at once, so one request can't load every user
+    private static final int MAX_USERS_BY_IDS = 1000;
 
     @Value("${profile-image-folder}")
     private Path profileImageFolder;
 
+    @Value("${profile-photo.max-upload-bytes:5242880}")
+    private long maxPhotoUploadBytes;
+
+    @Autowired
+    @Qualifier("photoProcessingExecutor")
+    private ExecutorService photoProcessingExecutor;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserSearchService userSearchService;
+
     @Autowired
     private ProfilePhotoService profilePhotoService;
 
@@ -61,14 +83,17 @@ public class UserAccountServerService extends UserAccountServiceGrpc.UserAccount
     private ValidationService validator;
 
     @Autowired
-    private GroupService groupService;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
-    private GroupRepository groupRepository;
+    private GroupMembershipRepository groupMembershipRepository;
 
     /**
-     * Creates a request to upload a profile photo for a user, following this tutorial:
-     * https://www.vinsguru.com/grpc-file-upload-client-streaming/ so far it's just copied from this one
+     * Creates a request to upload a profile photo for a user. The photo's metadata comes first, then its content in chunks.
+     * The content is streamed to a temporary file rather than kept in memory, and the upload fails as soon as it goes over
+     * the size limit or its first bytes show it isn't a JPEG or PNG. Once it's all received, the photo is checked and
+     * saved on the photo processing pool, so decoding images doesn't hold up the threads handling gRPC calls.
+     * Based on this tutorial: https://www.vinsguru.com/grpc-file-upload-client-streaming/
      * @param responseObserver Observable stream of messages
      * @return FileUploadStatusResponse with the status of the upload
      */
@@ -76,89 +101,220 @@ public class UserAccountServerService extends UserAccountServiceGrpc.UserAccount
     public StreamObserver<UploadUserProfilePhotoRequest> uploadUserProfilePhoto(StreamObserver<FileUploadStatusResponse> responseObserver) {
         return new StreamObserver<>() {
             // declare upload context variables
-            ByteArrayOutputStream byteWriter = new ByteArrayOutputStream();
-            FileUploadStatus status = FileUploadStatus.IN_PROGRESS; // different to the tutorial
+            Path uploadFile; // temporary file the content is written to as it arrives
+            OutputStream uploadWriter;
+            long bytesReceived = 0;
+            byte[] header = new byte[IMAGE_HEADER_LENGTH]; // the first bytes of the content, to check it's an image
+            int headerLength = 0;
+            boolean finished = false; // whether a response has been sent; anything after that is ignored
+            int userId; // id of the user the image is for
             String fileName; // file name of the image, e.g. "5_photo."
             String fileExtension; // this is the type of file uploaded - we only save JPGs, so don't use this to save!
-            String filePath; // the actual path to save the image to, including the file name and type (.JPG)
+            Path filePath; // the actual path to save the image to, including the file name and type (.JPG)
 
             /**
-             * Processes a file upload request, and saves the file contents to a ByteArrayOutputStream
+             * Processes a file upload request, and writes the file contents to a temporary file
              * so that it can be verified before being saved.
              * @param userProfilePhotoUploadRequest the file upload request object
              */
             @Override
             public void onNext(UploadUserProfilePhotoRequest userProfilePhotoUploadRequest) {
+                if (finished) {
+                    return;
+                }
                 try {
                     if (userProfilePhotoUploadRequest.hasMetaData()) {
-                        fileName = userProfilePhotoUploadRequest.getMetaData().getUserId() + USER_PHOTO_FILENAME;
+                        userId = userProfilePhotoUploadRequest.getMetaData().getUserId();
+                        fileName = userId + USER_PHOTO_FILENAME;
                         fileExtension = userProfilePhotoUploadRequest.getMetaData().getFileType().strip();
-                        filePath = getFilePath(userProfilePhotoUploadRequest);
+                        filePath = profileImageFolder.resolve(userId + USER_PHOTO_SUFFIX);
                         logger.info("Got upload profile request for user with id {}, filetype of {}", userProfilePhotoUploadRequest.getMetaData().getUserId(), fileExtension);
                     } else {
-                        writeFile(byteWriter, userProfilePhotoUploadRequest.getFileContent());
+                        writeContent(userProfilePhotoUploadRequest.getFileContent());
                     }
                 } catch (IOException e) {
                     this.onError(e);
                 }
             }
 
+            /**
+             * Writes a chunk of the photo to the temporary file, failing the upload if it's too big or not an image
+             * @param content the chunk of the photo
+             * @throws IOException if the temporary file couldn't be written
+             */
+            private void writeContent(ByteString content) throws IOException {
+                bytesReceived += content.size();
+                if (bytesReceived > maxPhotoUploadBytes) {
+                    fail(String.format("Image is too large; it must be at most %d KB", maxPhotoUploadBytes / 1024));
+                    return;
+                }
+                if (headerLength < IMAGE_HEADER_LENGTH) {
+                    int length = Math.min(content.size(), IMAGE_HEADER_LENGTH - headerLength);
+                    content.copyTo(header, 0, headerLength, length);
+                    headerLength += length;
+                    if (headerLength == IMAGE_HEADER_LENGTH && !isImageHeader(header)) {
+                        fail(NOT_AN_IMAGE_MESSAGE);
+                        return;
+                    }
+                }
+                if (uploadWriter == null) {
+                    uploadFile = Files.createTempFile("photo-upload-", ".tmp");
+                    uploadWriter = Files.newOutputStream(uploadFile);
+                }
+                content.writeTo(uploadWriter);  // Writes the chunk's bytes directly, without copying them to an array
+            }
+
             /**
              * Called when an error is encountered while uploading an image.
-             * Sets the status of the upload to failed and calls onCompleted.
+             * Fails the upload, and sends the response if it hasn't been sent already.
              * @param t the thrown exception which caused the error
              */
             @Override
             public void onError(Throwable t) {
                 logger.error("Error uploading profile photo: {}", t.getMessage());
-                status = FileUploadStatus.FAILED;
-                this.onCompleted();
+                fail("Error uploading image: " + t.getMessage());
             }
 
             /**
-             * Called when the file upload stops, either because it completed or an error was encountered.
-             * Checks the validity of the image and saves it to a file if it is valid.
-             * If the image can't be read, the upload fails.
-             * Creates a file upload response to send back to the user with a success/fail message.
+             * Called when the file upload stops. Unless it's already failed, the photo is checked and saved
+             * on the photo processing pool, which sends the response once it's done.
+             * If the pool is too busy, the upload fails straight away.
              */
             @Override
             public void onCompleted() {
-                FileUploadStatusResponse.Builder response = FileUploadStatusResponse.newBuilder();
+                if (finished) {
+                    return;
+                }
+                closeUpload();
+                if (filePath == null || uploadFile == null || headerLength < IMAGE_HEADER_LENGTH) {
+                    fail(NOT_AN_IMAGE_MESSAGE);
+                    return;
+                }
+                try {
+                    photoProcessingExecutor.execute(() -> {
+                        FileUploadStatusResponse response = savePhoto(uploadFile, filePath, userId, fileName, fileExtension);
+                        deleteUpload();
+                        responseObserver.onNext(response);
+                        responseObserver.onCompleted();
+                    });
+                    finished = true;
+                } catch (RejectedExecutionException e) {
+                    logger.warn("Rejected profile photo for user {} as too many photos are being processed", userId);
+                    fail("The server is busy processing other photos. Please try again.");
+                }
+            }
 
-                ByteArrayInputStream inputStream = new ByteArrayInputStream(byteWriter.toByteArray());
+            /**
+             * Ends the upload as a failure, deleting anything that was received and sending the response
+             * @param message why the upload failed
+             */
+            private void fail(String message) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                closeUpload();
+                deleteUpload();
+                logger.info("Profile photo upload for user {} failed: {}", userId, message);
+                responseObserver.onNext(FileUploadStatusResponse.newBuilder()
+                        .setStatus(FileUploadStatus.FAILED)
+                        .setMessage(message)
+                        .build());
+                responseObserver.onCompleted();
+            }
 
-                try {
-                    BufferedImage image = ImageIO.read(inputStream);
-
-                    if (image.getWidth() == USER_PHOTO_DIMENSIONS && image.getHeight() == USER_PHOTO_DIMENSIONS) {
-                        ImageIO.write(image, "jpg", new File(filePath));
-                        logger.info("Saved profile image {} with dimensions {} x {}", filePath, image.getWidth(), image.getHeight());
-                        status = FileUploadStatus.SUCCESS;
-                    } else { // invalid
-                        logger.info("Image {} has invalid dimensions {} x {} and was not saved", filePath, image.getWidth(), image.getHeight());
-                        response.setMessage(String.format("Image has invalid dimensions %d x %d when they must be %d x %<d", image.getWidth(), image.getHeight(), USER_PHOTO_DIMENSIONS));
-                        status = FileUploadStatus.FAILED;
+            private void closeUpload() {
+                if (uploadWriter != null) {
+                    try {
+                        uploadWriter.close();
+                    } catch (IOException e) {
+                        logger.error("Error closing writer during photo upload: {}", e.getMessage());
                     }
-                } catch (IOException | NullPointerException e) { // thrown by ImageIO.read and .write - will happen if the file isn't an image
-                    logger.error(String.format("Error reading or writing uploaded image: %s", Arrays.toString(e.getStackTrace())));
-                    response.setMessage("Error saving image: could not read image from file. Make sure the image is not corrupted.");
-                    status = FileUploadStatus.FAILED;
+                    uploadWriter = null;
                 }
+            }
 
-                closeFile(byteWriter);
-
-                status = FileUploadStatus.IN_PROGRESS.equals(status) ? FileUploadStatus.SUCCESS : status;
+            private void deleteUpload() {
+                if (uploadFile != null) {
+                    try {
+                        Files.deleteIfExists(uploadFile);
+                    } catch (IOException e) {
+                        logger.error("Error deleting temporary photo upload {}: {}", uploadFile, e.getMessage());
+                    }
+                }
+            }
+        };
+    }
 
-                if (status == FileUploadStatus.SUCCESS) {
-                    deleteIncorrectPhotoFileType(fileName, fileExtension);
-                    response.setMessage("Successfully uploaded profile photo.");
+    /**
+     * Checks an uploaded photo and saves it as the user's profile photo, in JPG format.
+     * The photo's dimensions are read from its header first, so photos of the wrong size are rejected without decoding them.
+     * The photo is written to a temporary file and moved into place, so it's never served half-written.
+     * @param uploadFile the file the uploaded photo was written to
+     * @param filePath where the user's photo is saved
+     * @param userId the id of the user the photo is for
+     * @param fileName the saved file name WITHOUT extension, e.g. "5_photo."
+     * @param fileExtension the original filetype of the upload
+     * @return the response to send back to the user, with a success/fail message
+     */
+    private FileUploadStatusResponse savePhoto(Path uploadFile, Path filePath, int userId, String fileName, String fileExtension) {
+        FileUploadStatusResponse.Builder response = FileUploadStatusResponse.newBuilder();
+        try (ImageInputStream imageStream = ImageIO.createImageInputStream(uploadFile.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+            if (!readers.hasNext()) {
+                throw new IOException("No image reader for " + uploadFile);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageStream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width != USER_PHOTO_DIMENSIONS || height != USER_PHOTO_DIMENSIONS) { // invalid
+                    logger.info("Image {} has invalid dimensions {} x {} and was not saved", filePath, width, height);
+                    return response
+                            .setStatus(FileUploadStatus.FAILED)
+                            .setMessage(String.format("Image has invalid dimensions %d x %d when they must be %d x %<d", width, height, USER_PHOTO_DIMENSIONS))
+                            .build();
                 }
+                BufferedImage image = reader.read(0);
 
-                response.setStatus(status);
-                responseObserver.onNext(response.build());
-                responseObserver.onCompleted();
+                Path newPhoto = Files.createTempFile(profileImageFolder, "upload-", ".tmp");
+                try {
+                    if (!ImageIO.write(image, USER_PHOTO_FORMAT, newPhoto.toFile())) {
+                        throw new IOException("No JPG writer for image");
+                    }
+                    Files.move(newPhoto, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(newPhoto);
+                }
+                profilePhotoService.photoSaved(userId, image);
+            } finally {
+                reader.dispose();
             }
-        };
+            logger.info("Saved profile image {} with dimensions {} x {}", filePath, USER_PHOTO_DIMENSIONS, USER_PHOTO_DIMENSIONS);
+        } catch (IOException | RuntimeException e) { // thrown by ImageIO if the file isn't an image, or can't be written
+            logger.error("Error reading or writing uploaded image: {}", e.getMessage());
+            return response
+                    .setStatus(FileUploadStatus.FAILED)
+                    .setMessage("Error saving image: could not read image from file. Make sure the image is not corrupted.")
+                    .build();
+        }
+
+        deleteIncorrectPhotoFileType(fileName, fileExtension);
+        return response
+                .setStatus(FileUploadStatus.SUCCESS)
+                .setMessage("Successfully uploaded profile photo.")
+                .build();
+    }
+
+    /**
+     * Checks whether the first bytes of a file are the start of a JPEG or PNG
+     * @param header the first IMAGE_HEADER_LENGTH bytes of the file
+     * @return true if the file looks like a JPEG or PNG
+     */
+    private static boolean isImageHeader(byte[] header) {
+        return Arrays.equals(header, 0, JPEG_HEADER.length, JPEG_HEADER, 0, JPEG_HEADER.length)
+                || Arrays.equals(header, 0, PNG_HEADER.length, PNG_HEADER, 0, PNG_HEADER.length);
     }
 
     /**
@@ -192,6 +348,7 @@ public class UserAccountServerService extends UserAccountServiceGrpc.UserAccount
             if (Files.exists(profileImageFolder.resolve(filename))) {
                 // Left as a deleteIfExists in case of two nearly simultaneous requests
                 Files.deleteIfExists(profileImageFolder.resolve(filename));
+                profilePhotoService.photoDeleted(request.getUserId());
                 reply
                         .setIsSuccess(true)
                         .setMessage("User photo deleted successfully");
@@ -214,41 +371,8 @@ public class UserAccountServerService extends UserAccountServiceGrpc.UserAccount
     }
 
     /**
-     * Gets the path, in the user profile photos folder, for the photo in the provided upload request.
-     * The file type is always set to JPG, per USER_PHOTO_FORMAT, regardless of what type the initial file is.
-     * @param request A request object containing the user ID and the file's information
-     * @return a string object representing the path to the photo in the request
-     */
-    private String getFilePath(UploadUserProfilePhotoRequest request) {
-        String fileName = request.getMetaData().getUserId() + USER_PHOTO_SUFFIX;
-        return profileImageFolder.resolve(fileName).toString();
-    }
-
-    /**
-     * Writes the file content to the OutputStream. Copied from tutorial; see uploadUserProfilePhoto.
-     * @param writer Output stream
-     * @param content File content
-     * @throws IOException When there is an error writing the content to the output stream
-     */
-    private void writeFile(OutputStream writer, ByteString content) throws IOException {
-        writer.write(content.toByteArray());
-        writer.flush();
-    }
-
-    /**
-     * Closes the output stream. Copied from tutorial; see uploadUserProfilePhoto.
-     * @param writer Output stream
-     */
-    private void closeFile(OutputStream writer) {
-        try {
-            writer.close();
-        } catch (Exception e) {
-            logger.error("Error closing writer during photo upload: {}", (Object) e.getStackTrace());
-        }
-    }
-
-    /**
-     * Adds a user to the database and returns a UserRegisterResponse to the portfolio
+     * Adds a user to the database and returns a UserRegisterResponse to the portfolio.
+     * Fails with RESOURCE_EXHAUSTED if too many passwords are already waiting to be hashed.
      * @param request An object containing all the details of the user to register
      */
     @Override
@@ -275,41 +399,45 @@ public class UserAccountServerService extends UserAccountServiceGrpc.UserAccount
             return;
         }
 
-        // Creates a user object from the parameters in the request
-        User user = new User(request.getUsername(), request.getPassword(), request.getFirstName(),
-                request.getMiddleName(), request.getLastName(), request.getNickname(),
-                request.getBio(), request.getPersonalPronouns(), request.getEmail());
-        // All users are initially given a `student` role
-        user.addRole(UserRole.STUDENT);
-
-        // Hash password
-        String hashedPassword = encoder.encode(user.getPassword());
-        user.setPassword(hashedPassword);
-
-        // Sets the current time as the users register date
-        long millis = System.currentTimeMillis();
-        Timestamp timestamp = Timestamp.newBuilder().setSeconds(millis / 1000)
-                .setNanos((int) ((millis % 1000) * 1000000)).build();
-        user.setCreated(Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos()));
-
-        userRepository.save(user);  // Saves the user object to the database
-
-        // Add new user to group for people without a group
-        try {
-            Group usersWithoutAGroup = groupService.getGroup(GlobalVars.MEMBERS_WITHOUT_GROUPS_ID);
-            usersWithoutAGroup.addMember(user);
-            groupRepository.save(usersWithoutAGroup);
-        } catch (NoSuchElementException ex) { // shouldn't happen
-            logger.error("ERROR adding new user {} to members without a group: {}", user.getId(), ex.getMessage());
-        }
+        // The rest hashes the password, so it's done on the password hashing pool
+        passwordHashingService.execute(() -> {
+            // Creates a user object from the parameters in the request
+            User user = new User(request.getUsername(), request.getPassword(), request.getFirstName(),
+                    request.getMiddleName(), request.getLastName(), request.getNickname(),
+                    request.getBio(), request.getPersonalPronouns(), request.getEmail());
+            // All users are initially given a `student` role
+            user.addRole(UserRole.STUDENT);
+
+            // Hash password
+            String hashedPassword = passwordHashingService.encode(user.getPassword());
+            user.setPassword(hashedPassword);
+
+            // Sets the current time as the users register date
+            long millis = System.currentTimeMillis();
+            Timestamp timestamp = Timestamp.newBuilder().setSeconds(millis / 1000)
+                    .setNanos((int) ((millis % 1000) * 1000000)).build();
+            user.setCreated(Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos()));
+
+            userRepository.save(user);  // Saves the user object to the database
+            userService.userCountChanged();
+            userSearchService.userSaved(user);
+
+            // Add new user to group for people without a group. This inserts the membership row directly,
+            // as the group's members are lazy and can't be changed here, outside a transaction
+            try {
+                groupMembershipRepository.addMembers(GlobalVars.MEMBERS_WITHOUT_GROUPS_ID, List.of(user.getId()));
+            } catch (DataAccessException ex) { // shouldn't happen
+                logger.error("ERROR adding new user {} to members without a group: {}", user.getId(), ex.getMessage());
+            }
 
-        reply
-                .setIsSuccess(true)
-                .setNewUserId(user.getId())
-                .setMessage("User created successfully");
+            reply
+                    .setIsSuccess(true)
+                    .setNewUserId(user.getId())
+                    .setMessage("User created successfully");
 
-        responseObserver.onNext(reply.build());
-        responseObserver.onCompleted();
+            responseObserver.onNext(reply.build());
+            responseObserver.onCompleted();
+        }, responseObserver);
     }
 
     /**
@@ -332,75 +460,148 @@ public class UserAccountServerService extends UserAccountServiceGrpc.UserAccount
 
     }
 
+    /**
+     * Gets several users by their ids, loading them and their roles in one query.
+     * Ids with no user are left out, and each user is only given once, in the order their ids were first requested.
+     * Gives a Status.INVALID_ARGUMENT error if more than MAX_USERS_BY_IDS different ids are requested.
+     * @param request Contains the ids of the users to get
+     * @param responseObserver Receives the users that were found
+     */
+    @Override
+    public void getUsersByIds(GetUsersByIdsRequest request, StreamObserver<GetUsersByIdsResponse> responseObserver) {
+        logger.info("getUsersByIds has been called for {} ids", request.getIdsCount());
+        Set<Integer> ids = new LinkedHashSet<>(request.getIdsList());
+        if (ids.size() > MAX_USERS_BY_IDS) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Cannot get more than " + MAX_USERS_BY_IDS + " users at once")
+                    .asRuntimeException());
+            return;
+        }
+
+        Map<Integer, User> usersById = new HashMap<>();
+        userRepository.findAllById(ids).forEach(user -> usersById.put(user.getId(), user));
+        List<UserResponse> userResponses = ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .map(this::buildUserResponse)
+                .toList();
+
+        responseObserver.onNext(GetUsersByIdsResponse.newBuilder().addAllUsers(userResponses).build());
+        responseObserver.onCompleted();
+    }
+
     @Override
     public void getPaginatedUsers(GetPaginatedUsersRequest request, StreamObserver<PaginatedUsersResponse> responseObserver) {
         logger.info("getPaginatedUsers has been called");
-        PaginatedUsersResponse.Builder reply = PaginatedUsersResponse.newBuilder();
-        int limit = request.getPaginationRequestOptions().getLimit();
-        int offset = request.getPaginationRequestOptions().getOffset();
-        String orderBy = request.getPaginationRequestOptions().getOrderBy();
-        boolean isAscending = request.getPaginationRequestOptions().getIsAscendingOrder();
+        PaginationRequestOptions options = request.getPaginationRequestOptions();
 
-        List<User> paginatedUsers;
+        PaginatedUsersResponse reply;
         try {
-            if (orderBy.equals("role")) {
-                    // Ordering by "role" means order by highest role ({STUDENT, COURSE_ADMIN} =>
-                    // highest is COURSE_ADMIN).
-                    // JPA allows ordering by joined tables, HOWEVER it generates SQL incompatible
-                    // with H2. So, we have
-                    // to bring the entire table into memory & sort here until that's migrated.
-                    // Update: MariaDB is used on the VMs yeah, but we still use H2 when developing
-                    // on our machines. So this stays.
-                paginatedUsers = paginatedUsersOrderedByRole(offset, limit, isAscending);
-            } else {
-                paginatedUsers = userService.getUsersPaginated(offset, limit, orderBy, isAscending);
-            }
+            reply = buildUsersPage(options.getOffset(), options);
         } catch (IllegalArgumentException e) { // `orderBy` wasn't a valid value.
             Throwable statusError = Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException();
             responseObserver.onError(statusError);
             return;
         }
 
-        List<UserResponse> userResponses = paginatedUsers.stream().map(this::buildUserResponse).toList();
-        int numUsersInDatabase = (int) userRepository.count();
-        PaginationResponseOptions.Builder responseOptions = PaginationResponseOptions.newBuilder();
-        responseOptions.setResultSetSize(numUsersInDatabase).build();
-        reply
-            .addAllUsers(userResponses)
-            .setPaginationResponseOptions(responseOptions);
-
-        responseObserver.onNext(reply.build());
+        responseObserver.onNext(reply);
         responseObserver.onCompleted();
     }
 
+    /**
+     * Sends the users a page at a time, from the requested page to the last one. Each page is only loaded
+     * once the client is ready for it, so all the users are never in memory at once.
+     * Gives a Status.INVALID_ARGUMENT error if the request's orderBy isn't a valid option,
+     * or its limit isn't between 1 and MAX_STREAM_PAGE_SIZE.
+     * @param request Contains the first page, the page size and how the users are ordered
+     * @param responseObserver Receives each page, and the total number of users with each
+     */
+    @Override
+    public void getPaginatedUsersStream(GetPaginatedUsersRequest request, StreamObserver<PaginatedUsersResponse> responseObserver) {
+        logger.info("getPaginatedUsersStream has been called");
+        PaginationRequestOptions options = request.getPaginationRequestOptions();
+        if (options.getLimit() < 1 || options.getLimit() > GlobalVars.MAX_STREAM_PAGE_SIZE) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Page size must be between 1 and " + GlobalVars.MAX_STREAM_PAGE_SIZE)
+                    .asRuntimeException());
+            return;
+        }
+
+        PagedResponseStream.send(responseObserver, options.getOffset(), page -> {
+            PaginatedUsersResponse reply;
+            try {
+                reply = buildUsersPage(page, options);
+            } catch (IllegalArgumentException e) { // `orderBy` wasn't a valid value.
+                throw Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException();
+            }
+            boolean isLast = reply.getUsersCount() < options.getLimit()
+                    || (page + 1L) * options.getLimit() >= reply.getPaginationResponseOptions().getResultSetSize();
+            return new PagedResponseStream.Page<>(reply, isLast);
+        });
+    }
 
     /**
-     * Returns a paginated view of the database's users, order by each user's highest role.
-     * <p>
-     * In an ideal world we wouldn't need this, but as mentioned the JPA generated
-     * isn't valid H2, so until that's fixed we need this.
-     * </p>
-     *
-     * @param page What "page" of the users you want. Affected by the ordering and page size
-     * @param limit How many items are in a page
-     * @param isAscending Is the list in ascending or descending order
-     * @return A list of users from that "page"
+     * Builds a page of users for getPaginatedUsers and getPaginatedUsersStream
+     * @param page The page to build
+     * @param options The page size and how the users are ordered
+     * @return The users on the page, and the total number of users
+     * @throws IllegalArgumentException Thrown if the orderBy option isn't valid
      */
-    private List<User> paginatedUsersOrderedByRole(int page, int limit, boolean isAscending) {
-        ArrayList<User> users = new ArrayList<>(userService.getAllUsers());
-        if (isAscending)
-            users.sort(Comparator.comparingInt(a -> a.highestRole().getNumber()));
-        else
-            users.sort((a, b) -> b.highestRole().getNumber() - a.highestRole().getNumber());
-
-        /* Get the sublist that is needed for the page */
-        int fromIndex = page * limit;
-        int toIndex = (page+1) * limit;
-        if (toIndex > users.size()) {    // If there are fewer users than needed for the page
-            toIndex = users.size();
+    private PaginatedUsersResponse buildUsersPage(int page, PaginationRequestOptions options) {
+        List<User> paginatedUsers = userService.getUsersPaginated(page, options.getLimit(), options.getOrderBy(),
+                options.getIsAscendingOrder());
+
+        List<UserResponse> userResponses = paginatedUsers.stream().map(this::buildUserResponse).toList();
+        int numUsersInDatabase = userService.countUsers();
+        PaginationResponseOptions responseOptions = PaginationResponseOptions.newBuilder()
+                .setResultSetSize(numUsersInDatabase)
+                .build();
+        return PaginatedUsersResponse.newBuilder()
+                .addAllUsers(userResponses)
+                .setPaginationResponseOptions(responseOptions)
+                .build();
+    }
+
+
+    /**
+     * Gets a page of the users whose name, username or nickname contain the request's filter text, ignoring case.
+     * The users are found with UserSearchService's index, then only the users in the page are loaded.
+     * Gives a Status.INVALID_ARGUMENT error if the request's orderBy isn't a valid option.
+     * @param request Contains the pagination options and the text to search for
+     * @param responseObserver Receives the page of users and the total number of users that matched
+     */
+    @Override
+    public void getPaginatedUsersFilteredByName(GetPaginatedUsersFilteredRequest request, StreamObserver<PaginatedUsersResponse> responseObserver) {
+        logger.info("getPaginatedUsersFilteredByName has been called");
+        PaginationRequestOptions options = request.getPaginationRequestOptions();
+
+        UserSearchService.SearchResult result;
+        try {
+            result = userSearchService.search(request.getFilteringOptions().getFilterText(), options.getOffset(),
+                    options.getLimit(), options.getOrderBy(), options.getIsAscendingOrder());
+        } catch (IllegalArgumentException e) { // `orderBy` wasn't a valid value.
+            Throwable statusError = Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException();
+            responseObserver.onError(statusError);
+            return;
         }
 
-        return users.subList(fromIndex, toIndex);
+        // Load the users in the page, and put them back in the order the search gave
+        Map<Integer, User> usersById = new HashMap<>();
+        userRepository.findAllById(result.userIds()).forEach(user -> usersById.put(user.getId(), user));
+        List<UserResponse> userResponses = result.userIds().stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .map(this::buildUserResponse)
+                .toList();
+
+        PaginationResponseOptions responseOptions = PaginationResponseOptions.newBuilder()
+                .setResultSetSize(result.resultSetSize())
+                .build();
+        responseObserver.onNext(PaginatedUsersResponse.newBuilder()
+                .addAllUsers(userResponses)
+                .setPaginationResponseOptions(responseOptions)
+                .build());
+        responseObserver.onCompleted();
     }
 
     /**
@@ -507,6 +708,7 @@ public class UserAccountServerService extends UserAccountServiceGrpc.UserAccount
         user.setEmail(request.getEmail());
 
         userRepository.save(user);  // Saves the user object to the database
+        userSearchService.userSaved(user);
         reply
                 .setIsSuccess(true)
                 .setMessage("User edited successfully");
@@ -516,46 +718,50 @@ public class UserAccountServerService extends UserAccountServiceGrpc.UserAccount
     }
 
     /**
-     * Changes a user's password to a new password if the request is valid
+     * Changes a user's password to a new password if the request is valid.
+     * Fails with RESOURCE_EXHAUSTED if too many passwords are already waiting to be hashed.
      * @param request Contains the details of the user to change, their current password and their new password
      */
     @Override
     public void changeUserPassword(ChangePasswordRequest request, StreamObserver<ChangePasswordResponse> responseObserver) {
         logger.info("changeUserPassword() has been called");
-        ChangePasswordResponse.Builder reply = ChangePasswordResponse.newBuilder();
+        // Checking the current password and hashing the new one is slow, so it's done on the password hashing pool
+        passwordHashingService.execute(() -> {
+            ChangePasswordResponse.Builder reply = ChangePasswordResponse.newBuilder();
 
-        User user = userRepository.findById(request.getUserId()); // Attempts to get the user from the database
+            User user = userRepository.findById(request.getUserId()); // Attempts to get the user from the database
 
-        List<ValidationError> errors = validator.validateChangePasswordRequest(request, user);
+            List<ValidationError> errors = validator.validateChangePasswordRequest(request, user);
 
-        if(!errors.isEmpty()) { // If there are errors in the request
+            if(!errors.isEmpty()) { // If there are errors in the request
 
-            for (ValidationError error : errors) {
-                logger.error("Change password of user {} : {} - {}",
-                        request.getUserId(), error.getFieldName(), error.getErrorText());
+                for (ValidationError error : errors) {
+                    logger.error("Change password of user {} : {} - {}",
+                            request.getUserId(), error.getFieldName(), error.getErrorText());
+                }
+
+                reply
+                        .setIsSuccess(false)
+                        .setMessage("User's password could not be changed")
+                        .addAllValidationErrors(errors);
+                responseObserver.onNext(reply.build());
+                responseObserver.onCompleted();
+                return;
             }
 
+            // Set the user's password to the new password provided in the edit request
+            // Hash password
+            String hashedPassword = passwordHashingService.encode(request.getNewPassword());
+            user.setPassword(hashedPassword);
+
+            userRepository.save(user);  // Saves the user object to the database
             reply
-                    .setIsSuccess(false)
-                    .setMessage("User's password could not be changed")
-                    .addAllValidationErrors(errors);
+                    .setIsSuccess(true)
+                    .setMessage("User's password changed successfully");
+
             responseObserver.onNext(reply.build());
             responseObserver.onCompleted();
-            return;
-        }
-
-        // Set the user's password to the new password provided in the edit request
-        // Hash password
-        String hashedPassword = encoder.encode(request.getNewPassword());
-        user.setPassword(hashedPassword);
-
-        userRepository.save(user);  // Saves the user object to the database
-        reply
-                .setIsSuccess(true)
-                .setMessage("User's password changed successfully");
-
-        responseObserver.onNext(reply.build());
-        responseObserver.onCompleted();
+        }, responseObserver);
     }
 
     /**
@@ -581,6 +787,7 @@ public class UserAccountServerService extends UserAccountServiceGrpc.UserAccount
                 .setPersonalPronouns(user.getPersonalPronouns())
                 .setEmail(user.getEmail())
                 .setProfileImagePath(profilePhotoService.getUserProfileImageUrl(id))
+                .setMediumProfileImagePath(profilePhotoService.getUserProfileImageUrl(id, ProfilePhotoService.MEDIUM_THUMBNAIL_SIZE))
                 .addAllRoles(user.getRoles())
                 .setCreated(Timestamp.newBuilder()  // Converts Instant to protobuf.Timestamp
                     .setSeconds(user.getCreated().getEpochSecond())
@@ -0,0 +1,207 @@
+package nz.ac.canterbury.seng302.identityprovider.service;
+
+import nz.ac.canterbury.seng302.identityprovider.model.User;
+import nz.ac.canterbury.seng302.identityprovider.repository.UserRepository;
+import nz.ac.canterbury.seng302.shared.identityprovider.UserRole;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Searches users by name, username and nickname, using an in-memory index so searches don't scan the users table.
+ * A user matches if the search text appears anywhere in their full name, username or nickname, ignoring case
+ * (like <code>LIKE '%text%'</code> in SQL).
+ *
+ * The index maps every three-character piece (trigram) of each user's names to the users that have it.
+ * A search only checks the users that have the search text's rarest trigram, instead of every user.
+ * Searches shorter than three characters check every user, which is still fast as the names are kept in memory.
+ *
+ * Whatever saves or deletes a user should call userSaved or userDeleted to keep the index up to date.
+ * The index is also rebuilt from the database after <code>user-search.max-age-seconds</code>,
+ * in case the database was changed some other way.
+ */
+@Service
+public class UserSearchService {
+
+    private static final int GRAM_LENGTH = 3;
+    // Separates the user's names in their search text, so a search can't match across two names
+    private static final char NAME_SEPARATOR = '\n';
+
+    /**
+     * The names of a user, for searching and sorting by.
+     */
+    private record Entry(int id, String username, String firstName, String middleName, String lastName,
+                         String nickname, UserRole highestRole, String searchText) {}
+
+    /**
+     * A page of search results.
+     * @param userIds the ids of the users in the page, in order
+     * @param resultSetSize the total number of users that matched
+     */
+    public record SearchResult(List<Integer> userIds, int resultSetSize) {}
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${user-search.max-age-seconds:600}")
+    private long maxAgeSeconds;
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final Map<String, Set<Integer>> usersByGram = new HashMap<>();
+    // When the index was last built from the database, or null if it needs building
+    private Long builtAt;
+
+    /**
+     * Finds a page of the users whose name, username or nickname contain some text.
+     * @param filterText The text to search for. If it's blank, every user matches
+     * @param page What "page" of the results you want. Affected by the ordering and page size
+     * @param limit How many users are in a page
+     * @param orderBy How the results are ordered; <code>"name"</code>, <code>"username"</code>,
+     *                <code>"nickname"</code> or <code>"role"</code>, like UserService.getUsersPaginated
+     * @param isAscending Is the list in ascending or descending order
+     * @return The ids of the users in the page, and how many users matched in total
+     * @throws IllegalArgumentException Thrown if the provided orderBy string isn't one of the valid options
+     */
+    public synchronized SearchResult search(String filterText, int page, int limit, String orderBy, boolean isAscending)
+            throws IllegalArgumentException {
+        Comparator<Entry> order = getOrder(orderBy, isAscending);
+        if (builtAt == null || System.nanoTime() - builtAt > maxAgeSeconds * 1_000_000_000L) {
+            rebuildIndex();
+        }
+
+        List<Entry> matches = findMatches(filterText.strip().toLowerCase(Locale.ROOT));
+        matches.sort(order);
+
+        int fromIndex = Math.min(page * limit, matches.size());
+        int toIndex = Math.min(fromIndex + limit, matches.size());
+        List<Integer> userIds = matches.subList(fromIndex, toIndex).stream().map(Entry::id).toList();
+        return new SearchResult(userIds, matches.size());
+    }
+
+    /**
+     * Adds a user to the index, or updates them if they're already in it.
+     * @param user The user that was saved
+     */
+    public synchronized void userSaved(User user) {
+        removeEntry(user.getId());
+        // The full name is there with and without the middle name, so "first last" still matches
+        String searchText = String.join(String.valueOf(NAME_SEPARATOR),
+                joinNames(user.getFirstName(), user.getMiddleName(), user.getLastName()),
+                joinNames(user.getFirstName(), user.getLastName()),
+                joinNames(user.getUsername()), joinNames(user.getNickname())).toLowerCase(Locale.ROOT);
+        Entry entry = new Entry(user.getId(), user.getUsername(), user.getFirstName(), user.getMiddleName(),
+                user.getLastName(), user.getNickname(), user.getHighestRole(), searchText);
+        entries.put(entry.id(), entry);
+        for (String gram : getGrams(searchText)) {
+            usersByGram.computeIfAbsent(gram, key -> new HashSet<>()).add(entry.id());
+        }
+    }
+
+    /**
+     * Removes a user from the index.
+     * @param userId The id of the user that was deleted
+     */
+    public synchronized void userDeleted(int userId) {
+        removeEntry(userId);
+    }
+
+    private static String joinNames(String... names) {
+        return Arrays.stream(names).filter(name -> name != null && !name.isEmpty()).collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Rebuilds the index from every user in the database. Searches do this themselves when the index is too old.
+     */
+    public synchronized void rebuildIndex() {
+        entries.clear();
+        usersByGram.clear();
+        for (User user : userRepository.findAll()) {
+            userSaved(user);
+        }
+        builtAt = System.nanoTime();
+    }
+
+    private void removeEntry(int userId) {
+        Entry entry = entries.remove(userId);
+        if (entry != null) {
+            for (String gram : getGrams(entry.searchText())) {
+                Set<Integer> users = usersByGram.get(gram);
+                users.remove(userId);
+                if (users.isEmpty()) {
+                    usersByGram.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the users whose search text contains some text.
+     * @param text The lower case text to search for
+     * @return The users that match, in no particular order
+     */
+    private List<Entry> findMatches(String text) {
+        if (text.length() < GRAM_LENGTH || text.indexOf(NAME_SEPARATOR) >= 0) {
+            return entries.values().stream()
+                    .filter(entry -> entry.searchText().contains(text))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+
+        // Every match has all the text's trigrams, so only the users with the rarest one need checking
+        Set<Integer> candidates = null;
+        for (String gram : getGrams(text)) {
+            Set<Integer> users = usersByGram.getOrDefault(gram, Set.of());
+            if (candidates == null || users.size() < candidates.size()) {
+                candidates = users;
+            }
+        }
+        List<Entry> matches = new ArrayList<>();
+        for (int userId : candidates) {
+            Entry entry = entries.get(userId);
+            if (entry.searchText().contains(text)) {
+                matches.add(entry);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Gets every trigram in some text, skipping any that go across two of a user's names.
+     * @param text The text to split up
+     * @return The distinct trigrams in the text
+     */
+    private static Set<String> getGrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            String gram = text.substring(i, i + GRAM_LENGTH);
+            if (gram.indexOf(NAME_SEPARATOR) < 0) {
+                grams.add(gram);
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Gets the order to sort results in, which matches the orders in UserService.getUsersPaginated.
+     * Users that are equal otherwise are kept in id order.
+     */
+    private static Comparator<Entry> getOrder(String orderBy, boolean isAscending) throws IllegalArgumentException {
+        // Names are sorted ignoring case, so "alice" comes before "Bob"
+        Comparator<String> strings = Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+        Comparator<Entry> order = switch (orderBy) {
+            case "name"     -> Comparator.comparing(Entry::firstName, strings)
+                                    .thenComparing(Entry::middleName, strings)
+                                    .thenComparing(Entry::lastName, strings);
+            case "username" -> Comparator.comparing(Entry::username, strings);
+            case "nickname" -> Comparator.comparing(Entry::nickname, strings);
+            case "role"     -> Comparator.comparing(Entry::highestRole, Comparator.nullsFirst(Comparator.naturalOrder()));
+            default -> throw new IllegalArgumentException(String.format("Can not order users by '%s'", orderBy));
+        };
+        if (!isAscending) {
+            order = order.reversed();
+        }
+        return order.thenComparingInt(Entry::id);
+    }
+}
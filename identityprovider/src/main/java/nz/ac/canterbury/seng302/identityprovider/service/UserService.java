@@ -3,13 +3,17 @@ package nz.ac.canterbury.seng302.identityprovider.service;
 import nz.ac.canterbury.seng302.identityprovider.model.User;
 import nz.ac.canterbury.seng302.identityprovider.repository.UserRepository;
 import nz.ac.canterbury.seng302.shared.identityprovider.UserRole;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.JpaSort;
 import org.springframework.stereotype.Service;
 
+import javax.transaction.Transactional;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -25,6 +29,12 @@ public class UserService {
     @Autowired
     private GroupService groupService;
 
+    @Autowired
+    private UserSearchService userSearchService;
+
+    // The number of users in the repository, or null if it needs counting again
+    private Integer userCount;
+
     /**
      * Gets all users from the repository
      * @return A list of all users in the repository
@@ -45,28 +55,91 @@ public class UserService {
      *                    <li><code>"name"</code> - Ordered by their first, middle, and last name alphabetically</li>
      *                    <li><code>"username"</code> - Ordered by their username alphabetically</li>
      *                    <li><code>"nickname"</code> - Ordered by their nickname alphabetically</li>
-     *                    <li><code>"roles"</code> - Ordered by their highest permission role</li>
+     *                    <li><code>"role"</code> - Ordered by their highest permission role</li>
      *                  </ul>
      * @param isAscending Is the list in ascending or descending order
      * @return A list of users from that "page"
      * @throws IllegalArgumentException Thrown if the provided orderBy string isn't one of the valid options
      */
+    @Transactional
     public List<User> getUsersPaginated(int page, int limit, String orderBy, boolean isAscending) throws IllegalArgumentException {
+        Pageable pageable = PageRequest.of(page, limit, getUserSort(orderBy, isAscending));
+
+        return withRoles(userRepository.findAllBy(pageable));
+    }
+
+    /**
+     * Gets a page of the members of a group, without loading the rest of them
+     * @param groupId The id of the group to get members of
+     * @param page What "page" of the members you want. Affected by the ordering and page size
+     * @param limit How many items are in a page
+     * @param orderBy How the list is ordered. The options are the same as for getUsersPaginated
+     * @param isAscending Is the list in ascending or descending order
+     * @return A list of the group's members from that "page"
+     * @throws IllegalArgumentException Thrown if the provided orderBy string isn't one of the valid options
+     */
+    @Transactional
+    public List<User> getUsersInGroupPaginated(int groupId, int page, int limit, String orderBy, boolean isAscending)
+            throws IllegalArgumentException {
+        Pageable pageable = PageRequest.of(page, limit, getUserSort(orderBy, isAscending));
+
+        return withRoles(userRepository.findAllByGroupsId(groupId, pageable));
+    }
+
+    /**
+     * Loads the roles of a page of users, so they can be used once the transaction is over.
+     * Roles are batch loaded, so this is one query for the whole page.
+     * @param users The users, loaded in the current transaction
+     * @return The same users
+     */
+    private static List<User> withRoles(List<User> users) {
+        users.forEach(user -> Hibernate.initialize(user.getRoles()));
+        return users;
+    }
+
+    /**
+     * Gets all the members of a group, ordered by name
+     * @param groupId The id of the group to get members of
+     * @return A list of the group's members
+     */
+    public List<User> getUsersInGroup(int groupId) {
+        return userRepository.findAllByGroupsId(groupId, getUserSort("name", true));
+    }
+
+    /**
+     * Counts the members of a group, without loading them
+     * @param groupId The id of the group
+     * @return The number of users in the group
+     */
+    public int countUsersInGroup(int groupId) {
+        return userRepository.countByGroupsId(groupId);
+    }
+
+    /**
+     * Gets how to sort users for the given orderBy option, as used by getUsersPaginated
+     * @throws IllegalArgumentException Thrown if the provided orderBy string isn't one of the valid options
+     */
+    private static Sort getUserSort(String orderBy, boolean isAscending) throws IllegalArgumentException {
         Sort sortBy = switch (orderBy) {
-            case "name"     -> Sort.by("firstName").and(Sort.by("middleName")).and(Sort.by("lastName"));
-            case "username" -> Sort.by("username");
-            case "nickname" -> Sort.by("nickname");
-            case "role"     -> JpaSort.unsafe("MAX(roles)");    // WARNING: Doesn't work when using H2, so we bypass it in UserAccountServerService.getPaginatedUsers
+            case "name"     -> Sort.by(ignoringCase("firstName"), ignoringCase("middleName"), ignoringCase("lastName"));
+            case "username" -> Sort.by(ignoringCase("username"));
+            case "nickname" -> Sort.by(ignoringCase("nickname"));
+            case "role"     -> Sort.by("highestRole");
             default -> throw new IllegalArgumentException(String.format("Can not order users by '%s'", orderBy));
         };
 
         if (!isAscending) {
             sortBy = sortBy.descending();
         }
+        // Users that are equal otherwise are kept in id order, so they don't move between pages
+        return sortBy.and(Sort.by("id"));
+    }
 
-        Pageable pageable = PageRequest.of(page, limit, sortBy);
-
-        return userRepository.findAll(pageable);
+    /**
+     * Sorts by a text property ignoring case, so "alice" comes before "Bob"
+     */
+    private static Sort.Order ignoringCase(String property) {
+        return Sort.Order.asc(property).ignoreCase();
     }
 
     /**
@@ -110,6 +183,7 @@ public class UserService {
 
         ret = user.addRole(role);
         userRepository.save(user);
+        userSearchService.userSaved(user);
         return ret;
     }
     
@@ -139,10 +213,44 @@ public class UserService {
         } else {
             success = user.removeRole(role);
             userRepository.save(user);
+            userSearchService.userSaved(user);
         }
         return success;
     }
 
+    /**
+     * Gets the number of users in the repository. This is counted once, then kept
+     * until a user is added or deleted, so paginated requests don't need to count the users every time.
+     * @return The number of users
+     */
+    public synchronized int countUsers() {
+        if (userCount == null) {
+            userCount = (int) userRepository.count();
+        }
+        return userCount;
+    }
+
+    /**
+     * Makes the next call to countUsers count the users again. Call this after adding or deleting a user.
+     */
+    public synchronized void userCountChanged() {
+        userCount = null;
+    }
+
+    /**
+     * When the app starts up, stores the highest role of any users that were saved before it was stored,
+     * so they're sorted properly when ordering by role
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void populateHighestRoles() {
+        List<User> users = userRepository.findAllByHighestRoleIsNull();
+        for (User user : users) {
+            user.updateHighestRole();
+        }
+        userRepository.saveAll(users);
+    }
+
     /**
      * Saves a user to the repository
      * @param user The user object to save to the repository
@@ -159,6 +267,8 @@ public class UserService {
     public void delete(int id)
     {
         userRepository.deleteById(id);
+        userCountChanged();
+        userSearchService.userDeleted(id);
     }
     
 }
@@ -7,7 +7,6 @@ import nz.ac.canterbury.seng302.shared.identityprovider.EditUserRequest;
 import nz.ac.canterbury.seng302.shared.identityprovider.UserRegisterRequest;
 import nz.ac.canterbury.seng302.shared.util.ValidationError;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -21,7 +20,9 @@ public class ValidationService {
     @Autowired
     private UserRepository repository;
 
-    private static final BCryptPasswordEncoder encoder =  new BCryptPasswordEncoder();
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
     private static final String USERNAME = "Username";  // Save the field name as a string constant
 
     /**
@@ -47,7 +48,7 @@ public class ValidationService {
         errors.add(error);
         }
         // Checks that the username isn't already in the database
-        else if (repository.findByUsername(request.getUsername()) != null) {
+        else if (repository.existsByUsername(request.getUsername())) {
             ValidationError error = ValidationError.newBuilder()
                     .setFieldName(USERNAME)
                     .setErrorText("Username is already in use")
@@ -177,7 +178,8 @@ public class ValidationService {
     }
 
     /**
-     * Validates the fields in a change password request
+     * Validates the fields in a change password request.
+     * This checks the current password, which is slow, so only call it on the password hashing pool.
      * @param request The change password request to validate
      * @return A list of validation errors in the change password request
      */
@@ -199,7 +201,7 @@ public class ValidationService {
                     .setErrorText("Current password cannot be empty")
                     .build();
             errors.add(error);
-        } else if (!encoder.matches(request.getCurrentPassword(), user.getPassword())) {   // Passwords don't match
+        } else if (!passwordHashingService.matches(request.getCurrentPassword(), user.getPassword())) {   // Passwords don't match
             ValidationError error = ValidationError.newBuilder()
                     .setFieldName("CurrentPassword")
                     .setErrorText("Current password does not match password in database")
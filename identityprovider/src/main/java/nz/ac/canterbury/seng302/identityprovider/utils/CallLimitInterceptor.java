@@ -0,0 +1,101 @@
+package nz.ac.canterbury.seng302.identityprovider.utils;
+
+import io.grpc.*;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits how many gRPC calls of each class (see GrpcCallClasses) can be open at once.
+ * A call over the limit fails straight away with RESOURCE_EXHAUSTED, instead of queueing behind the others
+ * for as long as it takes, so clients can back off or show an error.
+ * A call counts as open from when it starts until it is closed or cancelled.
+ * <p>
+ * This runs before the other interceptors, so calls over the limit are turned away before their token is checked.
+ * </p>
+ */
+@GrpcGlobalServerInterceptor
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CallLimitInterceptor implements ServerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(CallLimitInterceptor.class);
+
+    private final GrpcCallClasses callClasses;
+    private final Semaphore heavyCalls;
+    private final Semaphore lightCalls;
+
+    /**
+     * Creates the interceptor with the configured limits
+     * @param callClasses Sorts methods into heavy and light ones
+     * @param maxHeavyCalls How many heavy calls can be open at once
+     * @param maxLightCalls How many light calls can be open at once
+     */
+    @Autowired
+    public CallLimitInterceptor(GrpcCallClasses callClasses,
+                                @Value("${grpc-calls.heavy-max-concurrent:50}") int maxHeavyCalls,
+                                @Value("${grpc-calls.light-max-concurrent:500}") int maxLightCalls) {
+        this.callClasses = callClasses;
+        this.heavyCalls = new Semaphore(maxHeavyCalls);
+        this.lightCalls = new Semaphore(maxLightCalls);
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call,
+            Metadata headers,
+            ServerCallHandler<ReqT, RespT> next
+    ) {
+        Semaphore openCalls = callClasses.isHeavy(call.getMethodDescriptor()) ? heavyCalls : lightCalls;
+        if (!openCalls.tryAcquire()) {
+            logger.warn("Rejected call to {} as too many calls like it are open",
+                    call.getMethodDescriptor().getFullMethodName());
+            call.close(Status.RESOURCE_EXHAUSTED.withDescription("The server is busy; please try again in a moment"),
+                    new Metadata());
+            return new ServerCall.Listener<>() {};
+        }
+
+        // A call can be both closed and cancelled, but must only give its permit back once
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                openCalls.release();
+            }
+        };
+        ServerCall<ReqT, RespT> limitedCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                // Released before the client hears back, so it can make its next call straight away
+                release.run();
+                super.close(status, trailers);
+            }
+        };
+
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(limitedCall, headers);
+        } catch (RuntimeException e) {
+            release.run();
+            throw e;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onCancel() {
+                release.run();
+                super.onCancel();
+            }
+
+            @Override
+            public void onComplete() {
+                release.run();
+                super.onComplete();
+            }
+        };
+    }
+}
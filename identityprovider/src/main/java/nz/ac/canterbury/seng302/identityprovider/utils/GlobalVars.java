@@ -10,5 +10,7 @@ public class GlobalVars {
     public static final int TEACHER_GROUP_ID = 0;
     public static final int MEMBERS_WITHOUT_GROUPS_ID = 1;
     public static final String GROUP_NOT_FOUND_ERROR_MESSAGE = "There is no group with id ";
+    // The biggest page the streaming paginated calls send in one message
+    public static final int MAX_STREAM_PAGE_SIZE = 500;
 
 }
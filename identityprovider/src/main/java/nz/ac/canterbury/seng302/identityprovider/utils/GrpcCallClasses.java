@@ -0,0 +1,39 @@
+package nz.ac.canterbury.seng302.identityprovider.utils;
+
+import io.grpc.MethodDescriptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sorts gRPC methods into heavy ones (e.g. logins, which check a password, and photo uploads)
+ * and light ones (everything else), so that each class can have its own threads and limit on open calls.
+ * A rush of heavy calls then can't make cheap calls like checkAuthState wait behind them.
+ */
+@Component
+public class GrpcCallClasses {
+
+    private final Set<String> heavyMethods;
+
+    /**
+     * @param heavyMethods The full names of the heavy methods, e.g.
+     *                     <code>nz.ac.canterbury.seng302.AuthenticationService/Authenticate</code>
+     */
+    public GrpcCallClasses(@Value("${grpc-calls.heavy-methods:}") String[] heavyMethods) {
+        this.heavyMethods = Arrays.stream(heavyMethods)
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * @param method The method being called
+     * @return Whether it is one of the heavy methods
+     */
+    public boolean isHeavy(MethodDescriptor<?, ?> method) {
+        return heavyMethods.contains(method.getFullMethodName());
+    }
+}
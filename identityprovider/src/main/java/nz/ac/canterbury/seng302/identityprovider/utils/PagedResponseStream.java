@@ -0,0 +1,110 @@
+package nz.ac.canterbury.seng302.identityprovider.utils;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends the pages of a result to a server-streaming gRPC call, one message per page.
+ * <p>
+ * Each page is only loaded once the client is ready for more (<code>ServerCallStreamObserver.isReady</code>),
+ * so a slow client holds up the loading instead of every page piling up in memory.
+ * Loading stops if the client cancels the call.
+ * </p>
+ */
+public class PagedResponseStream<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PagedResponseStream.class);
+
+    /**
+     * A loaded page
+     * @param message The message to send for the page
+     * @param isLast Whether this is the last page
+     */
+    public record Page<T>(T message, boolean isLast) {}
+
+    /**
+     * Loads the message for a page
+     */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        /**
+         * @param page The number of the page to load, starting at 0
+         * @return The loaded page
+         * @throws StatusRuntimeException If the page can't be loaded, which is passed on to the client
+         */
+        Page<T> load(int page);
+    }
+
+    private final StreamObserver<T> responseObserver;
+    private final PageLoader<T> pageLoader;
+    // Guarded by this
+    private int nextPage;
+    private boolean finished;
+
+    private PagedResponseStream(StreamObserver<T> responseObserver, int firstPage, PageLoader<T> pageLoader) {
+        this.responseObserver = responseObserver;
+        this.pageLoader = pageLoader;
+        this.nextPage = firstPage;
+    }
+
+    /**
+     * Starts sending pages to a call, from a page until the last one
+     * @param responseObserver The call's response observer
+     * @param firstPage The number of the first page to send
+     * @param pageLoader Loads each page
+     */
+    public static <T> void send(StreamObserver<T> responseObserver, int firstPage, PageLoader<T> pageLoader) {
+        PagedResponseStream<T> stream = new PagedResponseStream<>(responseObserver, firstPage, pageLoader);
+        if (responseObserver instanceof ServerCallStreamObserver<T> serverObserver) {
+            serverObserver.setOnCancelHandler(stream::cancel);
+            serverObserver.setOnReadyHandler(stream::sendWhileReady);
+        }
+        // The call may already be ready, in which case the handler isn't run until it stops being ready
+        stream.sendWhileReady();
+    }
+
+    private synchronized void sendWhileReady() {
+        while (!finished && isReady()) {
+            Page<T> page;
+            try {
+                page = pageLoader.load(nextPage);
+            } catch (StatusRuntimeException e) {
+                finished = true;
+                responseObserver.onError(e);
+                return;
+            } catch (RuntimeException e) {
+                finished = true;
+                logger.error("Could not load page {} of a streamed response", nextPage, e);
+                responseObserver.onError(Status.INTERNAL.withDescription("Could not load page " + nextPage)
+                        .asRuntimeException());
+                return;
+            }
+            try {
+                responseObserver.onNext(page.message());
+            } catch (RuntimeException e) {
+                // The call is closed (e.g. cancelled between the ready check and sending), so nothing more can be sent
+                finished = true;
+                logger.warn("Could not send page {} of a streamed response: {}", nextPage, e.getMessage());
+                return;
+            }
+            nextPage++;
+            if (page.isLast()) {
+                finished = true;
+                responseObserver.onCompleted();
+            }
+        }
+    }
+
+    private boolean isReady() {
+        // Plain observers (e.g. in tests) have no flow control, so everything is sent at once
+        return !(responseObserver instanceof ServerCallStreamObserver<T> serverObserver) || serverObserver.isReady();
+    }
+
+    private synchronized void cancel() {
+        finished = true;
+    }
+}
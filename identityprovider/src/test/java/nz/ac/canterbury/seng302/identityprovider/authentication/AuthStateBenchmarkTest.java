@@ -0,0 +1,105 @@
+package nz.ac.canterbury.seng302.identityprovider.authentication;
+
+import nz.ac.canterbury.seng302.identityprovider.model.User;
+import nz.ac.canterbury.seng302.identityprovider.repository.GroupRepository;
+import nz.ac.canterbury.seng302.identityprovider.repository.UserRepository;
+import nz.ac.canterbury.seng302.shared.identityprovider.AuthState;
+import nz.ac.canterbury.seng302.shared.identityprovider.UserRole;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmarks AuthenticationValidatorUtil.validateTokenForAuthState, which every gRPC call to the IdP goes through,
+ * against how it used to work: parsing the token once to validate it and again to read the user id, then generating
+ * a new token for the user and parsing that twice more to read its claims.
+ * It is tagged as a benchmark, so it only runs with <code>./gradlew benchmark</code>.
+ */
+@SpringBootTest
+@DirtiesContext
+class AuthStateBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthStateBenchmarkTest.class);
+
+    private static final int NUM_CHECKS = 5_000;
+    private static final int WARMUP_ROUNDS = 2;
+
+    @Autowired
+    private AuthenticationValidatorUtil authenticationValidatorUtil;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    /**
+     * validateTokenForAuthState as it was before the token was only parsed once
+     */
+    private AuthState validateTheOldWay(String sessionToken) {
+        AuthState.Builder reply = AuthState.newBuilder();
+        if (!jwtTokenUtil.validateToken(sessionToken)) {
+            return reply.setIsAuthenticated(false).build();
+        }
+        int userID = (int) jwtTokenUtil.getNamedClaimFromToken(sessionToken, "nameid");
+        User user = userRepository.findById(userID);
+        String newToken = jwtTokenUtil.generateTokenForUser(user);
+        reply.addAllClaims(jwtTokenUtil.getClaimDTOsForAuthStateCheck(newToken));
+        return reply
+                .setIsAuthenticated(true)
+                .setNameClaimType(JwtTokenUtil.NAME_CLAIM_TYPE)
+                .setRoleClaimType(JwtTokenUtil.ROLE_CLAIM_TYPE)
+                .setAuthenticationType(JwtTokenUtil.AUTHENTICATION_TYPE)
+                .setName(jwtTokenUtil.getNamedClaimFromToken(newToken, "name").toString())
+                .build();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void validateTokenForAuthState_fasterThanOldWay() {
+        User user = new User("abc123", "password", "Alice", "Mary", "Smith", "Ali",
+                "bio", "she/her", "abc123@example.com");
+        user.setId(1);
+        user.addRole(UserRole.STUDENT);
+        when(userRepository.findById(1)).thenReturn(user);
+        String token = jwtTokenUtil.generateTokenForUser(user);
+
+        long oldNanos = 0;
+        long newNanos = 0;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            AuthState expected = null;
+            long start = System.nanoTime();
+            for (int i = 0; i < NUM_CHECKS; i++) {
+                expected = validateTheOldWay(token);
+            }
+            oldNanos = System.nanoTime() - start;
+
+            AuthState actual = null;
+            start = System.nanoTime();
+            for (int i = 0; i < NUM_CHECKS; i++) {
+                actual = authenticationValidatorUtil.validateTokenForAuthState(token);
+            }
+            newNanos = System.nanoTime() - start;
+
+            assertTrue(actual.getIsAuthenticated());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getClaimsCount(), actual.getClaimsCount());
+        }
+
+        logger.info("validateTokenForAuthState: old way {} us per check, now {} us per check",
+                oldNanos / 1000 / NUM_CHECKS, newNanos / 1000 / NUM_CHECKS);
+        assertTrue(newNanos < oldNanos);
+    }
+}
@@ -0,0 +1,119 @@
+package nz.ac.canterbury.seng302.identityprovider.authentication;
+
+import nz.ac.canterbury.seng302.identityprovider.model.User;
+import nz.ac.canterbury.seng302.identityprovider.repository.GroupRepository;
+import nz.ac.canterbury.seng302.identityprovider.repository.UserRepository;
+import nz.ac.canterbury.seng302.shared.identityprovider.AuthState;
+import nz.ac.canterbury.seng302.shared.identityprovider.ClaimDTO;
+import nz.ac.canterbury.seng302.shared.identityprovider.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@DirtiesContext
+class AuthenticationValidatorUtilTest {
+
+    private static final int TEST_USER_ID = 5;
+
+    @Autowired
+    private AuthenticationValidatorUtil authenticationValidatorUtil;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    private User testUser;
+
+    @BeforeEach
+    void setup() {
+        testUser = new User("abc123", "password", "Alice", null, "Smith", "Ali",
+                "bio", "she/her", "abc123@example.com");
+        testUser.setId(TEST_USER_ID);
+        testUser.addRole(UserRole.STUDENT);
+        testUser.addRole(UserRole.TEACHER);
+        when(userRepository.findById(TEST_USER_ID)).thenReturn(testUser);
+    }
+
+    /**
+     * Leaves out the times in a list of claims, as they depend on when they were made
+     */
+    private static List<ClaimDTO> withoutTimes(List<ClaimDTO> claims) {
+        return claims.stream().filter(claim -> !List.of("exp", "iat").contains(claim.getType())).toList();
+    }
+
+    @Test
+    void validToken_authenticatedWithSameClaimsAsNewToken() {
+        String token = jwtTokenUtil.generateTokenForUser(testUser);
+
+        AuthState authState = authenticationValidatorUtil.validateTokenForAuthState(token);
+
+        assertTrue(authState.getIsAuthenticated());
+        assertEquals("Alice Smith", authState.getName());
+        // The claims built from the user should be the same as reading them back from a new token
+        List<ClaimDTO> fromToken = List.copyOf(jwtTokenUtil.getClaimDTOsForAuthStateCheck(token));
+        assertEquals(withoutTimes(fromToken), withoutTimes(authState.getClaimsList()));
+        assertEquals(fromToken.stream().map(ClaimDTO::getType).toList(),
+                authState.getClaimsList().stream().map(ClaimDTO::getType).toList());
+        for (int i = 0; i < fromToken.size(); i++) {
+            assertEquals(fromToken.get(i).getValueType(), authState.getClaims(i).getValueType());
+        }
+    }
+
+    @Test
+    void userRolesChanged_newRolesInClaims() {
+        String token = jwtTokenUtil.generateTokenForUser(testUser);
+        testUser.removeRole(UserRole.TEACHER);
+
+        AuthState authState = authenticationValidatorUtil.validateTokenForAuthState(token);
+
+        ClaimDTO roleClaim = authState.getClaimsList().stream()
+                .filter(claim -> claim.getType().equals(JwtTokenUtil.ROLE_CLAIM_TYPE)).findFirst().orElseThrow();
+        assertEquals("student", roleClaim.getValue());
+    }
+
+    @Test
+    void tamperedToken_notAuthenticated() {
+        String token = jwtTokenUtil.generateTokenForUser(testUser);
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + parts[1] + "." + new StringBuilder(parts[2]).reverse();
+
+        assertFalse(authenticationValidatorUtil.validateTokenForAuthState(tampered).getIsAuthenticated());
+    }
+
+    @Test
+    void missingOrMalformedToken_notAuthenticated() {
+        assertFalse(authenticationValidatorUtil.validateTokenForAuthState("").getIsAuthenticated());
+        assertFalse(authenticationValidatorUtil.validateTokenForAuthState("not a token").getIsAuthenticated());
+    }
+
+    @Test
+    void userDeleted_notAuthenticated() {
+        String token = jwtTokenUtil.generateTokenForUser(testUser);
+        when(userRepository.findById(TEST_USER_ID)).thenReturn(null);
+
+        assertFalse(authenticationValidatorUtil.validateTokenForAuthState(token).getIsAuthenticated());
+    }
+
+    @Test
+    void parseToken_claimsCantBeChanged() {
+        JwtTokenUtil.ParsedToken parsed = jwtTokenUtil.parseToken(jwtTokenUtil.generateTokenForUser(testUser));
+
+        assertEquals(TEST_USER_ID, parsed.getUserId());
+        assertEquals("abc123", parsed.get("unique_name"));
+        assertThrows(UnsupportedOperationException.class, () -> parsed.claims().put("nameid", 1));
+    }
+}
@@ -0,0 +1,105 @@
+package nz.ac.canterbury.seng302.identityprovider.authentication;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyStoreTest {
+
+    private static final String PASSWORD = "test-password";
+
+    @TempDir
+    Path tempDir;
+
+    private Path keystoreFile;
+
+    @BeforeEach
+    void setup() {
+        keystoreFile = tempDir.resolve("jwt-keys.p12");
+    }
+
+    private static String tokenFor(JwtTokenUtil jwtTokenUtil, int userId) {
+        return jwtTokenUtil.generateTokenForUser("abc123", userId, "Alice Smith", "student");
+    }
+
+    @Test
+    void newKeyStore_createsFileWithSigningKey() {
+        JwtKeyStore keyStore = new JwtKeyStore(keystoreFile, PASSWORD, 24);
+
+        assertTrue(keystoreFile.toFile().isFile());
+        JwtKeyStore.SigningKey signingKey = keyStore.getSigningKey();
+        assertNotNull(signingKey);
+        assertEquals(signingKey.key(), keyStore.getVerificationKey(signingKey.id()));
+    }
+
+    @Test
+    void noPassword_failsWithoutCreatingFile() {
+        assertThrows(IllegalStateException.class, () -> new JwtKeyStore(keystoreFile, "", 24));
+
+        assertFalse(keystoreFile.toFile().exists());
+    }
+
+    @Test
+    void tokenFromBeforeRestart_stillValid() {
+        String token = tokenFor(new JwtTokenUtil(new JwtKeyStore(keystoreFile, PASSWORD, 24)), 5);
+
+        // A new key store reading the same file, as after the IdP restarts
+        JwtTokenUtil restarted = new JwtTokenUtil(new JwtKeyStore(keystoreFile, PASSWORD, 24));
+        assertEquals(5, restarted.parseToken(token).getUserId());
+    }
+
+    @Test
+    void keyRotated_oldTokensStillValidAndNewTokensUseNewKey() throws InterruptedException {
+        // Keys are due to be replaced as soon as they're made
+        JwtKeyStore keyStore = new JwtKeyStore(keystoreFile, PASSWORD, 0);
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(keyStore);
+        String oldKeyId = keyStore.getSigningKey().id();
+        String oldToken = tokenFor(jwtTokenUtil, 5);
+
+        Thread.sleep(5);
+        String newToken = tokenFor(jwtTokenUtil, 6);
+
+        assertNotEquals(oldKeyId, keyStore.getSigningKey().id());
+        assertEquals(5, jwtTokenUtil.parseToken(oldToken).getUserId());
+        assertEquals(6, jwtTokenUtil.parseToken(newToken).getUserId());
+    }
+
+    @Test
+    void keyMadeByOtherInstance_tokenValid() throws InterruptedException {
+        JwtTokenUtil thisInstance = new JwtTokenUtil(new JwtKeyStore(keystoreFile, PASSWORD, 24));
+        Thread.sleep(5);
+        // Another instance sharing the file, which makes a new key straight away
+        JwtKeyStore otherKeyStore = new JwtKeyStore(keystoreFile, PASSWORD, 0);
+        String token = tokenFor(new JwtTokenUtil(otherKeyStore), 5);
+
+        // This instance only reads the file again for an unknown key once a second
+        Thread.sleep(1100);
+        assertEquals(5, thisInstance.parseToken(token).getUserId());
+    }
+
+    @Test
+    void tokenSignedByOtherKeyStore_invalid() {
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(new JwtKeyStore(keystoreFile, PASSWORD, 24));
+        JwtTokenUtil otherJwtTokenUtil = new JwtTokenUtil(new JwtKeyStore(tempDir.resolve("other.p12"), PASSWORD, 24));
+        String token = tokenFor(otherJwtTokenUtil, 5);
+
+        assertThrows(JwtException.class, () -> jwtTokenUtil.parseToken(token));
+    }
+
+    @Test
+    void tokenWithoutKeyId_invalid() {
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(new JwtKeyStore(keystoreFile, PASSWORD, 24));
+        String token = Jwts.builder().claim("nameid", 5)
+                .signWith(Keys.secretKeyFor(SignatureAlgorithm.HS256)).compact();
+
+        assertThrows(JwtException.class, () -> jwtTokenUtil.parseToken(token));
+    }
+}
@@ -0,0 +1,120 @@
+package nz.ac.canterbury.seng302.identityprovider.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+class ServeImageControllerTest {
+
+    private static final String TEST_IMAGE_NAME = "serve-image-test.jpg";
+    private static final byte[] TEST_IMAGE_BYTES = "not really a jpg, but the controller doesn't care".getBytes();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Value("${profile-image-uri}")
+    private String imageEndpoint;
+
+    @Value("${profile-image-folder}")
+    private Path profileImageFolder;
+
+    private String imageUrl;
+
+    @BeforeEach
+    void setup() throws IOException {
+        Files.createDirectories(profileImageFolder);
+        Files.write(profileImageFolder.resolve(TEST_IMAGE_NAME), TEST_IMAGE_BYTES);
+        imageUrl = "/" + imageEndpoint + TEST_IMAGE_NAME;
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(profileImageFolder.resolve(TEST_IMAGE_NAME));
+    }
+
+    @Test
+    void getImage_imageWithCachingHeadersReturned() throws Exception {
+        mockMvc.perform(get(imageUrl))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().bytes(TEST_IMAGE_BYTES))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+    }
+
+    @Test
+    void getVersionedImage_cachedForAYear() throws Exception {
+        mockMvc.perform(get(imageUrl).param("v", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public"));
+    }
+
+    @Test
+    void getImageWithMatchingETag_notModified() throws Exception {
+        MvcResult result = mockMvc.perform(get(imageUrl)).andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(imageUrl).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getChangedImageWithOldETag_newImageReturned() throws Exception {
+        MvcResult result = mockMvc.perform(get(imageUrl)).andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        byte[] newBytes = "a different image".getBytes();
+        Path file = profileImageFolder.resolve(TEST_IMAGE_NAME);
+        Files.write(file, newBytes);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+
+        result = mockMvc.perform(get(imageUrl).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(newBytes))
+                .andReturn();
+        assertNotEquals(etag, result.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void getImageRange_partOfImageReturned() throws Exception {
+        mockMvc.perform(get(imageUrl).header(HttpHeaders.RANGE, "bytes=0-9"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOf(TEST_IMAGE_BYTES, 10)));
+    }
+
+    @Test
+    void getMissingImage_notFound() throws Exception {
+        mockMvc.perform(get("/" + imageEndpoint + "no-such-image.jpg"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getImageOutsideFolder_notFound() throws Exception {
+        mockMvc.perform(get("/" + imageEndpoint + "..%2F..%2Fbuild.gradle"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -5,6 +5,7 @@ import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
 import nz.ac.canterbury.seng302.identityprovider.model.Group;
 import nz.ac.canterbury.seng302.identityprovider.model.User;
+import nz.ac.canterbury.seng302.identityprovider.repository.GroupMembershipRepository;
 import nz.ac.canterbury.seng302.identityprovider.repository.GroupRepository;
 import nz.ac.canterbury.seng302.identityprovider.repository.UserRepository;
 import nz.ac.canterbury.seng302.identityprovider.service.GroupServerService;
@@ -51,6 +52,9 @@ class GroupServerServiceTest {
     @MockBean
     private GroupRepository groupRepository;
 
+    @MockBean
+    private GroupMembershipRepository groupMembershipRepository;
+
     @MockBean
     private UserRepository userRepository;
 
@@ -161,10 +165,8 @@ class GroupServerServiceTest {
     @Test
     void testCreateGroup_whenShortNameNotUnique_getFailure() {
         // * Given: There is another group with the same short name
-        Group other = new Group("duplicate shortname", "valid long name");
-        other.setId(testGroupId);   // Give other group an ID so the two groups do not have the same ID
-        when(groupRepository.findAll())
-                .thenReturn(List.of(other));
+        when(groupRepository.existsByShortNameAndIdNot("duplicate shortname", 0))
+                .thenReturn(true);
 
         StreamObserver<CreateGroupResponse> observer = mock(StreamObserver.class);
         ArgumentCaptor<CreateGroupResponse> captor = ArgumentCaptor.forClass(CreateGroupResponse.class);
@@ -193,10 +195,8 @@ class GroupServerServiceTest {
     @Test
     void testCreateGroup_whenLongNameNotUnique_getFailure() {
         // * Given: There is another group with the same long name
-        Group other = new Group("valid short name", "duplicate long name");
-        other.setId(testGroupId);   // Give other group an ID so the two groups do not have the same ID
-        when(groupRepository.findAll())
-                .thenReturn(List.of(other));
+        when(groupRepository.existsByLongNameAndIdNot("duplicate long name", 0))
+                .thenReturn(true);
 
         StreamObserver<CreateGroupResponse> observer = mock(StreamObserver.class);
         ArgumentCaptor<CreateGroupResponse> captor = ArgumentCaptor.forClass(CreateGroupResponse.class);
@@ -224,11 +224,10 @@ class GroupServerServiceTest {
 
     @Test
     void testAddUsersToGroup_getSuccess() {
-        // Prepare collections of user ids/users to use as mock data
+        // Prepare a collection of user ids to use as mock data
         List<Integer> userIds = List.of(testUserId1, testUserId2);
-        Iterable<User> users = List.of(testUser1, testUser2);
-        when(userRepository.findAllById(userIds))
-                .thenReturn(users);
+        when(groupMembershipRepository.findExistingUserIds(userIds))
+                .thenReturn(userIds);
 
         // * Given: There is a group with this id
         when(groupRepository.findById(testGroupId))
@@ -256,11 +255,10 @@ class GroupServerServiceTest {
 
     @Test
     void testAddZeroUsersToGroup_getSuccess() {
-        // Prepare collections of user ids/users to use as mock data
+        // Prepare a collection of user ids to use as mock data
         List<Integer> userIds = Collections.emptyList();
-        Iterable<User> users = Collections.emptyList();
-        when(userRepository.findAllById(userIds))
-                .thenReturn(users);
+        when(groupMembershipRepository.findExistingUserIds(userIds))
+                .thenReturn(userIds);
 
         // * Given: There is a group with this id
         when(groupRepository.findById(testGroupId))
@@ -286,11 +284,10 @@ class GroupServerServiceTest {
 
     @Test
     void testAddUsersToGroup_whenGroupDoesNotExist_getFailure() {
-        // Prepare collections of user ids/users to use as mock data
+        // Prepare a collection of user ids to use as mock data
         List<Integer> userIds = List.of(testUserId1, testUserId2);
-        Iterable<User> users = List.of(testUser1, testUser2);
-        when(userRepository.findAllById(userIds))
-                .thenReturn(users);
+        when(groupMembershipRepository.findExistingUserIds(userIds))
+                .thenReturn(userIds);
 
         // * Given: There is no group with this id
         when(groupRepository.findById(testGroupId))
@@ -316,11 +313,10 @@ class GroupServerServiceTest {
 
     @Test
     void testRemoveMembersFromGroup_getSuccess() {
-        // Prepare collections of user ids/users to use as mock data
+        // Prepare a collection of user ids to use as mock data
         List<Integer> userIds = List.of(testUserId1, testUserId2);
-        Iterable<User> users = List.of(testUser1, testUser2);
-        when(userRepository.findAllById(userIds))
-                .thenReturn(users);
+        when(groupMembershipRepository.findExistingUserIds(userIds))
+                .thenReturn(userIds);
 
         // * Given: There is a group with this id
         when(groupRepository.findById(testGroupId))
@@ -348,11 +344,10 @@ class GroupServerServiceTest {
 
     @Test
     void testRemoveZeroMembersFromGroup_getSuccess() {
-        // Prepare collections of user ids/users to use as mock data
+        // Prepare a collection of user ids to use as mock data
         List<Integer> userIds = Collections.emptyList();
-        Iterable<User> users = Collections.emptyList();
-        when(userRepository.findAllById(userIds))
-                .thenReturn(users);
+        when(groupMembershipRepository.findExistingUserIds(userIds))
+                .thenReturn(userIds);
 
         // * Given: There is a group with this id
         when(groupRepository.findById(testGroupId))
@@ -378,11 +373,10 @@ class GroupServerServiceTest {
 
     @Test
     void testRemoveMembersFromGroup_whenGroupDoesNotExist_getFailure(){
-        // Prepare collections of user ids/users to use as mock data
+        // Prepare a collection of user ids to use as mock data
         List<Integer> userIds = List.of(testUserId1, testUserId2);
-        Iterable<User> users = List.of(testUser1, testUser2);
-        when(userRepository.findAllById(userIds))
-                .thenReturn(users);
+        when(groupMembershipRepository.findExistingUserIds(userIds))
+                .thenReturn(userIds);
 
         // * Given: There is no group with this id
         when(groupRepository.findById(testGroupId))
@@ -583,9 +577,8 @@ class GroupServerServiceTest {
         when(groupRepository.findById(testGroupId))
                 .thenReturn(testGroup);
         // * And: There is another group with the same short name
-        Group other = new Group("duplicate shortname", "valid long name");
-        when(groupRepository.findAll())
-                .thenReturn(List.of(other));
+        when(groupRepository.existsByShortNameAndIdNot("duplicate shortname", testGroupId))
+                .thenReturn(true);
 
         StreamObserver<ModifyGroupDetailsResponse> observer = mock(StreamObserver.class);
         ArgumentCaptor<ModifyGroupDetailsResponse> captor = ArgumentCaptor.forClass(ModifyGroupDetailsResponse.class);
@@ -618,9 +611,8 @@ class GroupServerServiceTest {
         when(groupRepository.findById(testGroupId))
                 .thenReturn(testGroup);
         // * And: There is another group with the same long name
-        Group other = new Group("valid short name", "duplicate long name");
-        when(groupRepository.findAll())
-                .thenReturn(List.of(other));
+        when(groupRepository.existsByLongNameAndIdNot("duplicate long name", testGroupId))
+                .thenReturn(true);
 
         StreamObserver<ModifyGroupDetailsResponse> observer = mock(StreamObserver.class);
         ArgumentCaptor<ModifyGroupDetailsResponse> captor = ArgumentCaptor.forClass(ModifyGroupDetailsResponse.class);
@@ -790,6 +782,136 @@ class GroupServerServiceTest {
         assertEquals(2, response.getGroupsCount());
     }
 
+    @Test
+    void testGetPaginatedGroupsStream_everyPageFromRequestedOneSent() {
+        when(groupRepository.findAll(PageRequest.of(0, 1, Sort.by("longName"))))
+                .thenReturn(List.of(testGroup));
+        when(groupRepository.findAll(PageRequest.of(1, 1, Sort.by("longName"))))
+                .thenReturn(List.of(testMembersWithoutAGroup));
+        when(groupRepository.count())
+                .thenReturn(2L);
+
+        StreamObserver<PaginatedGroupsResponse> observer = mock(StreamObserver.class);
+        ArgumentCaptor<PaginatedGroupsResponse> captor = ArgumentCaptor.forClass(PaginatedGroupsResponse.class);
+        PaginationRequestOptions options = PaginationRequestOptions.newBuilder()
+                .setOffset(0)
+                .setLimit(1)
+                .setOrderBy("longName")
+                .setIsAscendingOrder(true)
+                .build();
+        GetPaginatedGroupsRequest request = GetPaginatedGroupsRequest.newBuilder()
+                .setPaginationRequestOptions(options).build();
+        groupServerService.getPaginatedGroupsStream(request, observer);
+
+        verify(observer, times(1)).onCompleted();
+        verify(observer, times(2)).onNext(captor.capture());
+        assertEquals(List.of(testGroup.getLongName(), testMembersWithoutAGroup.getLongName()),
+                captor.getAllValues().stream().map(page -> page.getGroups(0).getLongName()).toList());
+        assertEquals(2, captor.getAllValues().get(1).getPaginationResponseOptions().getResultSetSize());
+    }
+
+    @Test
+    void testGetPaginatedGroupsStream_pageTooBig() {
+        StreamObserver<PaginatedGroupsResponse> observer = mock(StreamObserver.class);
+        ArgumentCaptor<StatusRuntimeException> captor = ArgumentCaptor.forClass(StatusRuntimeException.class);
+        PaginationRequestOptions options = PaginationRequestOptions.newBuilder()
+                .setOffset(0)
+                .setLimit(Integer.MAX_VALUE)
+                .setOrderBy("longName")
+                .setIsAscendingOrder(true)
+                .build();
+        GetPaginatedGroupsRequest request = GetPaginatedGroupsRequest.newBuilder()
+                .setPaginationRequestOptions(options).build();
+        groupServerService.getPaginatedGroupsStream(request, observer);
+
+        verify(observer, times(1)).onError(captor.capture());
+        assertEquals(Status.Code.INVALID_ARGUMENT, captor.getValue().getStatus().getCode());
+        verify(groupRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void testGetPaginatedGroup_memberCountsWithoutMembers() {
+        Pageable pageable = PageRequest.of(0, 2, Sort.by("longName"));
+        when(groupRepository.findAll(pageable))
+                .thenReturn(List.of(testGroup));
+        when(groupRepository.count())
+                .thenReturn(1L);
+        when(userRepository.countMembersByGroupIds(List.of(testGroupId)))
+                .thenReturn(List.of(new UserRepository.GroupMemberCount() {
+                    public int getGroupId() { return testGroupId; }
+                    public long getMemberCount() { return 2; }
+                }));
+
+        StreamObserver<PaginatedGroupsResponse> observer = mock(StreamObserver.class);
+        ArgumentCaptor<PaginatedGroupsResponse> captor = ArgumentCaptor.forClass(PaginatedGroupsResponse.class);
+        PaginationRequestOptions options = PaginationRequestOptions.newBuilder()
+                .setOffset(0)
+                .setLimit(2)
+                .setOrderBy("longName")
+                .setIsAscendingOrder(true)
+                .build();
+        GetPaginatedGroupsRequest request = GetPaginatedGroupsRequest.newBuilder()
+                .setPaginationRequestOptions(options).build();
+        groupServerService.getPaginatedGroups(request, observer);
+        verify(observer, times(1)).onNext(captor.capture());
+        GroupDetailsResponse group = captor.getValue().getGroups(0);
+
+        // * Then: The members are counted, but not sent
+        assertEquals(2, group.getMemberCount());
+        assertEquals(0, group.getMembersCount());
+    }
+
+    @Test
+    void testGetPaginatedGroupMembers_whenValid_pageOfMembersRetrieved() {
+        when(groupRepository.findById(testGroupId))
+                .thenReturn(testGroup);
+        Pageable pageable = PageRequest.of(0, 1, Sort.by(Sort.Order.asc("username").ignoreCase()).and(Sort.by("id")));
+        when(userRepository.findAllByGroupsId(testGroupId, pageable))
+                .thenReturn(List.of(testUser1));
+        when(userRepository.countByGroupsId(testGroupId))
+                .thenReturn(2);
+
+        StreamObserver<PaginatedUsersResponse> observer = mock(StreamObserver.class);
+        ArgumentCaptor<PaginatedUsersResponse> captor = ArgumentCaptor.forClass(PaginatedUsersResponse.class);
+        GetPaginatedGroupMembersRequest request = GetPaginatedGroupMembersRequest.newBuilder()
+                .setGroupId(testGroupId)
+                .setPaginationRequestOptions(PaginationRequestOptions.newBuilder()
+                        .setOffset(0)
+                        .setLimit(1)
+                        .setOrderBy("username")
+                        .setIsAscendingOrder(true))
+                .build();
+        groupServerService.getPaginatedGroupMembers(request, observer);
+
+        verify(observer, times(1)).onCompleted();
+        verify(observer, times(1)).onNext(captor.capture());
+        PaginatedUsersResponse response = captor.getValue();
+        assertEquals(1, response.getUsersCount());
+        assertEquals(testUserId1, response.getUsers(0).getId());
+        assertEquals(2, response.getPaginationResponseOptions().getResultSetSize());
+    }
+
+    @Test
+    void testGetPaginatedGroupMembers_whenGroupDoesNotExist_getNotFound() {
+        when(groupRepository.findById(testGroupId))
+                .thenReturn(null);
+
+        StreamObserver<PaginatedUsersResponse> observer = mock(StreamObserver.class);
+        ArgumentCaptor<StatusRuntimeException> errorCaptor = ArgumentCaptor.forClass(StatusRuntimeException.class);
+        GetPaginatedGroupMembersRequest request = GetPaginatedGroupMembersRequest.newBuilder()
+                .setGroupId(testGroupId)
+                .setPaginationRequestOptions(PaginationRequestOptions.newBuilder()
+                        .setOffset(0)
+                        .setLimit(10)
+                        .setOrderBy("name")
+                        .setIsAscendingOrder(true))
+                .build();
+        groupServerService.getPaginatedGroupMembers(request, observer);
+
+        verify(observer, times(1)).onError(errorCaptor.capture());
+        assertEquals(Status.NOT_FOUND.getCode(), errorCaptor.getValue().getStatus().getCode());
+    }
+
     @Test
     void testGetPaginatedGroup_byInvalidKeyword_getFailure() {
         Pageable pageable = PageRequest.of(0, 2, Sort.by("longName"));
@@ -3,6 +3,7 @@ package nz.ac.canterbury.seng302.identityprovider.grpcservice;
 import com.google.protobuf.ByteString;
 import io.grpc.stub.StreamObserver;
 import nz.ac.canterbury.seng302.identityprovider.utils.Base64DecodedMultipartFile;
+import nz.ac.canterbury.seng302.identityprovider.service.ProfilePhotoService;
 import nz.ac.canterbury.seng302.identityprovider.service.UserAccountServerService;
 import nz.ac.canterbury.seng302.shared.identityprovider.DeleteUserProfilePhotoRequest;
 import nz.ac.canterbury.seng302.shared.identityprovider.DeleteUserProfilePhotoResponse;
@@ -48,6 +49,9 @@ class UserAccountServicePhotoTest {
     @Autowired
     private UserAccountServerService userAccountServerService;
 
+    @Autowired
+    private ProfilePhotoService profilePhotoService;
+
     private static final String BASE64_PREFIX_JPG = "data:image/jpeg;base64,";
     private static final String BASE64_PREFIX_PNG = "data:image/png;base64,";
     private static final String BASE64_PREFIX_TXT = "data:@file/plain;base64,";
@@ -60,11 +64,19 @@ class UserAccountServicePhotoTest {
     @Value("${profile-image-folder}")
     private Path profileImageFolder;
 
+    @Value("${profile-photo.max-upload-bytes}")
+    private long maxPhotoUploadBytes;
+
     @AfterEach
     @BeforeEach
     void setup() throws IOException {
         Files.deleteIfExists(profileImageFolder.resolve(TEST_PHOTO_NAME + TEST_PHOTO_FORMAT_JPG));
         Files.deleteIfExists(profileImageFolder.resolve(TEST_PHOTO_NAME + TEST_PHOTO_FORMAT_PNG));
+        Files.deleteIfExists(getThumbnailPath(ProfilePhotoService.MEDIUM_THUMBNAIL_SIZE));
+    }
+
+    Path getThumbnailPath(int size) {
+        return profileImageFolder.resolve(TEST_PHOTO_USERID + "_photo_" + size + ".jpg");
     }
 
     /**
@@ -105,6 +117,43 @@ class UserAccountServicePhotoTest {
         return new Base64DecodedMultipartFile(BASE64_PREFIX_TXT + DatatypeConverter.printBase64Binary(text.getBytes(StandardCharsets.UTF_8)));
     }
 
+    /**
+     * Waits for the profile photo service to notice a change to the test user's photo, or fails after 10 seconds.
+     * @param hasPhoto whether the test user should end up with a photo
+     */
+    void waitForPhotoService(boolean hasPhoto) throws InterruptedException {
+        long giveUpAt = System.currentTimeMillis() + 10_000;
+        while (profilePhotoService.hasProfilePhoto(TEST_PHOTO_USERID) != hasPhoto) {
+            assertTrue(System.currentTimeMillis() < giveUpAt, "Photo change was not noticed");
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Waits for an upload's response, as uploaded photos are saved on another thread, or fails after 10 seconds.
+     * @param responseObserver the observer the upload's response is sent to
+     */
+    void waitForResponse(StreamObserver<FileUploadStatusResponse> responseObserver) {
+        verify(responseObserver, timeout(10_000)).onCompleted();
+    }
+
+    /**
+     * Starts uploading a photo for the test user, as UserAccountClientService does.
+     * @param responseObserver the observer the upload's response is sent to
+     * @return the observer to send the photo's content to
+     */
+    StreamObserver<UploadUserProfilePhotoRequest> startUpload(StreamObserver<FileUploadStatusResponse> responseObserver) {
+        StreamObserver<UploadUserProfilePhotoRequest> requestStreamObserver =
+                userAccountServerService.uploadUserProfilePhoto(responseObserver);
+        requestStreamObserver.onNext(UploadUserProfilePhotoRequest.newBuilder()
+                .setMetaData(ProfilePhotoUploadMetadata.newBuilder()
+                        .setUserId(TEST_PHOTO_USERID)
+                        .setFileType("jpeg")
+                        .build())
+                .build());
+        return requestStreamObserver;
+    }
+
     @Test
     void deleteNonexistentPhoto_getFailure() {
         /* Given: There is no photo for the given user */
@@ -192,6 +241,7 @@ class UserAccountServicePhotoTest {
         // close the stream
         inputStream.close();
         requestStreamObserver.onCompleted();
+        waitForResponse(responseStreamObserver);
 
         /* Then: The file exists and the response will be a success */
         File pfp = new File(profileImageFolder + TEST_PHOTO_NAME + TEST_PHOTO_FORMAT_JPG);
@@ -245,6 +295,7 @@ class UserAccountServicePhotoTest {
         // close the stream
         inputStream.close();
         requestStreamObserver.onCompleted();
+        waitForResponse(responseStreamObserver);
 
         /* Then: The file exists and the response will be a success */
         File pfp = new File(profileImageFolder + TEST_PHOTO_NAME + TEST_PHOTO_FORMAT_JPG);
@@ -303,6 +354,7 @@ class UserAccountServicePhotoTest {
         // close the stream
         inputStream.close();
         requestStreamObserver.onCompleted();
+        waitForResponse(responseStreamObserver);
 
         /* Then: The file will be different (different size), and the response will be a success */
         assertTrue(pfp.exists());
@@ -356,6 +408,7 @@ class UserAccountServicePhotoTest {
         // close the stream
         inputStream.close();
         requestStreamObserver.onCompleted();
+        waitForResponse(responseStreamObserver);
 
         /* Then: The file doesn't exist and the response will be a failure */
         File pfp = new File(profileImageFolder + TEST_PHOTO_NAME + TEST_PHOTO_FORMAT_JPG);
@@ -407,6 +460,7 @@ class UserAccountServicePhotoTest {
         // close the stream
         inputStream.close();
         requestStreamObserver.onCompleted();
+        waitForResponse(responseStreamObserver);
 
         /* Then: The file doesn't exist in either format and the response will be a failure */
         File pfp = new File(profileImageFolder + TEST_PHOTO_NAME + TEST_PHOTO_FORMAT_JPG);
@@ -422,4 +476,134 @@ class UserAccountServicePhotoTest {
 
         assertEquals(FileUploadStatus.FAILED, response.getStatus());
     }
+
+    @Test
+    void uploadThenDeletePhoto_photoUrlUpdated() throws IOException {
+        /* Given: The user has uploaded a photo */
+        MultipartFile file = getTestUserImageMultipartFile(TEST_PHOTO_DIMENSIONS, TEST_PHOTO_FORMAT_JPG);
+        UploadUserProfilePhotoRequest metadata = UploadUserProfilePhotoRequest.newBuilder()
+                .setMetaData(ProfilePhotoUploadMetadata.newBuilder()
+                        .setUserId(TEST_PHOTO_USERID)
+                        .setFileType("jpeg")
+                        .build())
+                .build();
+        StreamObserver<FileUploadStatusResponse> responseStreamObserver = mock(StreamObserver.class);
+        StreamObserver<UploadUserProfilePhotoRequest> requestStreamObserver =
+                userAccountServerService.uploadUserProfilePhoto(responseStreamObserver);
+        requestStreamObserver.onNext(metadata);
+        requestStreamObserver.onNext(UploadUserProfilePhotoRequest.newBuilder()
+                .setFileContent(ByteString.copyFrom(file.getBytes()))
+                .build());
+        requestStreamObserver.onCompleted();
+        waitForResponse(responseStreamObserver);
+
+        /* Then: Their photo is used straight away */
+        assertTrue(profilePhotoService.getUserProfileImageUrl(TEST_PHOTO_USERID).contains(TEST_PHOTO_USERID + "_photo.jpg?v="));
+
+        /* When: They delete it */
+        DeleteUserProfilePhotoRequest request = DeleteUserProfilePhotoRequest.newBuilder()
+                .setUserId(TEST_PHOTO_USERID)
+                .build();
+        userAccountServerService.deleteUserProfilePhoto(request, mock(StreamObserver.class));
+
+        /* Then: The default photo is used straight away */
+        assertFalse(profilePhotoService.hasProfilePhoto(TEST_PHOTO_USERID));
+        assertTrue(profilePhotoService.getUserProfileImageUrl(TEST_PHOTO_USERID).endsWith("default-pfp.jpg"));
+    }
+
+    @Test
+    void photoChangedOutsideApp_changeNoticed() throws IOException, InterruptedException {
+        /* When: A photo is copied into the photo folder directly */
+        createTestUserImage(TEST_PHOTO_DIMENSIONS);
+
+        /* Then: The user is noticed to have a photo */
+        waitForPhotoService(true);
+
+        /* When: The photo is deleted directly */
+        Files.delete(profileImageFolder.resolve(TEST_PHOTO_NAME.substring(1) + TEST_PHOTO_FORMAT_JPG));
+
+        /* Then: The user is noticed not to have a photo */
+        waitForPhotoService(false);
+    }
+
+    @Test
+    void uploadNonImage_rejectedBeforeUploadFinishes() {
+        /* Given: An upload has started */
+        StreamObserver<FileUploadStatusResponse> responseStreamObserver = mock(StreamObserver.class);
+        StreamObserver<UploadUserProfilePhotoRequest> requestStreamObserver = startUpload(responseStreamObserver);
+
+        /* When: The first chunk isn't the start of a JPEG or PNG */
+        requestStreamObserver.onNext(UploadUserProfilePhotoRequest.newBuilder()
+                .setFileContent(ByteString.copyFromUtf8("<html>not an image</html>"))
+                .build());
+
+        /* Then: The upload fails straight away, and nothing more is done when it finishes */
+        ArgumentCaptor<FileUploadStatusResponse> captor = ArgumentCaptor.forClass(FileUploadStatusResponse.class);
+        verify(responseStreamObserver, times(1)).onNext(captor.capture());
+        verify(responseStreamObserver, times(1)).onCompleted();
+        assertEquals(FileUploadStatus.FAILED, captor.getValue().getStatus());
+
+        requestStreamObserver.onNext(UploadUserProfilePhotoRequest.newBuilder()
+                .setFileContent(ByteString.copyFromUtf8("more text"))
+                .build());
+        requestStreamObserver.onCompleted();
+        verify(responseStreamObserver, times(1)).onNext(any());
+        verify(responseStreamObserver, times(1)).onCompleted();
+    }
+
+    @Test
+    void uploadTooLargePhoto_rejectedBeforeUploadFinishes() throws IOException {
+        /* Given: An upload has started, and the start of a real photo has been sent */
+        StreamObserver<FileUploadStatusResponse> responseStreamObserver = mock(StreamObserver.class);
+        StreamObserver<UploadUserProfilePhotoRequest> requestStreamObserver = startUpload(responseStreamObserver);
+        MultipartFile file = getTestUserImageMultipartFile(TEST_PHOTO_DIMENSIONS, TEST_PHOTO_FORMAT_JPG);
+        requestStreamObserver.onNext(UploadUserProfilePhotoRequest.newBuilder()
+                .setFileContent(ByteString.copyFrom(file.getBytes()))
+                .build());
+        verify(responseStreamObserver, never()).onNext(any());
+
+        /* When: More than the upload limit is sent */
+        requestStreamObserver.onNext(UploadUserProfilePhotoRequest.newBuilder()
+                .setFileContent(ByteString.copyFrom(new byte[(int) maxPhotoUploadBytes]))
+                .build());
+
+        /* Then: The upload fails without waiting for the rest, and no photo is saved */
+        ArgumentCaptor<FileUploadStatusResponse> captor = ArgumentCaptor.forClass(FileUploadStatusResponse.class);
+        verify(responseStreamObserver, times(1)).onNext(captor.capture());
+        assertEquals(FileUploadStatus.FAILED, captor.getValue().getStatus());
+        assertTrue(captor.getValue().getMessage().contains("too large"));
+        requestStreamObserver.onCompleted();
+        assertFalse(Files.exists(profileImageFolder.resolve(TEST_PHOTO_NAME.substring(1) + TEST_PHOTO_FORMAT_JPG)));
+    }
+
+    @Test
+    void uploadThenDeletePhoto_thumbnailsMadeAndDeleted() throws IOException {
+        /* Given: The user has uploaded a photo */
+        MultipartFile file = getTestUserImageMultipartFile(TEST_PHOTO_DIMENSIONS, TEST_PHOTO_FORMAT_JPG);
+        StreamObserver<FileUploadStatusResponse> responseStreamObserver = mock(StreamObserver.class);
+        StreamObserver<UploadUserProfilePhotoRequest> requestStreamObserver = startUpload(responseStreamObserver);
+        requestStreamObserver.onNext(UploadUserProfilePhotoRequest.newBuilder()
+                .setFileContent(ByteString.copyFrom(file.getBytes()))
+                .build());
+        requestStreamObserver.onCompleted();
+        waitForResponse(responseStreamObserver);
+
+        /* Then: Thumbnails of the photo have been made, and their URLs are given */
+        int size = ProfilePhotoService.MEDIUM_THUMBNAIL_SIZE;
+        BufferedImage thumbnail = ImageIO.read(getThumbnailPath(size).toFile());
+        assertEquals(size, thumbnail.getWidth());
+        assertEquals(size, thumbnail.getHeight());
+        assertTrue(profilePhotoService.getUserProfileImageUrl(TEST_PHOTO_USERID, size)
+                .contains(TEST_PHOTO_USERID + "_photo_" + size + ".jpg?v="));
+
+        /* When: They delete the photo */
+        userAccountServerService.deleteUserProfilePhoto(DeleteUserProfilePhotoRequest.newBuilder()
+                .setUserId(TEST_PHOTO_USERID)
+                .build(), mock(StreamObserver.class));
+
+        /* Then: The thumbnails are deleted too, and the default photo is used for them */
+        assertFalse(Files.exists(getThumbnailPath(ProfilePhotoService.MEDIUM_THUMBNAIL_SIZE)));
+        assertTrue(profilePhotoService.getUserProfileImageUrl(TEST_PHOTO_USERID, ProfilePhotoService.MEDIUM_THUMBNAIL_SIZE)
+                .endsWith("default-pfp.jpg"));
+    }
 }
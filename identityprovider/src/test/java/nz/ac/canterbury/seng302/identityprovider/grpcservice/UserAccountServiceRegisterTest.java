@@ -0,0 +1,82 @@
+package nz.ac.canterbury.seng302.identityprovider.grpcservice;
+
+import io.grpc.stub.StreamObserver;
+import nz.ac.canterbury.seng302.identityprovider.service.UserAccountServerService;
+import nz.ac.canterbury.seng302.shared.identityprovider.UserRegisterRequest;
+import nz.ac.canterbury.seng302.shared.identityprovider.UserRegisterResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+
+import static nz.ac.canterbury.seng302.identityprovider.utils.GlobalVars.MEMBERS_WITHOUT_GROUPS_ID;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests registering users in {@link UserAccountServerService} against the real database, rather than mocked
+ * repositories, as registering runs on the password hashing pool with no Hibernate session open.
+ */
+@SpringBootTest
+@DirtiesContext
+@SuppressWarnings("unchecked")
+class UserAccountServiceRegisterTest {
+
+    private static final String TEST_USERNAME = "registerTest";
+    // register responds from the password hashing pool, so tests wait this long for it
+    private static final int RESPONSE_TIMEOUT_MS = 5000;
+
+    @Autowired
+    private UserAccountServerService userAccountServerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    @BeforeEach
+    void deleteTestUser() {
+        jdbcTemplate.update("DELETE FROM group_members WHERE user_id IN (SELECT id FROM users WHERE username = ?)",
+                TEST_USERNAME);
+        jdbcTemplate.update("DELETE FROM user_roles WHERE user_id IN (SELECT id FROM users WHERE username = ?)",
+                TEST_USERNAME);
+        jdbcTemplate.update("DELETE FROM users WHERE username = ?", TEST_USERNAME);
+    }
+
+    private UserRegisterResponse register() {
+        StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
+        ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
+        UserRegisterRequest request = UserRegisterRequest.newBuilder()
+                .setUsername(TEST_USERNAME)
+                .setPassword("testPassword")
+                .setFirstName("Frank")
+                .setMiddleName("Michael")
+                .setLastName("Lucas")
+                .setNickname("Nick")
+                .setBio("This is a test bio")
+                .setPersonalPronouns("test/pronouns")
+                .setEmail("register@example.com")
+                .build();
+        userAccountServerService.register(request, observer);
+
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
+        verify(observer, times(1)).onNext(captor.capture());
+        verify(observer, never()).onError(any());
+        return captor.getValue();
+    }
+
+    @Test
+    void register_membershipOfDefaultGroupSaved() {
+        UserRegisterResponse response = register();
+
+        assertTrue(response.getIsSuccess(), response.getMessage());
+        List<Integer> groupIds = jdbcTemplate.queryForList(
+                "SELECT group_id FROM group_members WHERE user_id = ?", Integer.class, response.getNewUserId());
+        assertEquals(List.of(MEMBERS_WITHOUT_GROUPS_ID), groupIds);
+    }
+}
@@ -5,10 +5,15 @@ import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
 import nz.ac.canterbury.seng302.identityprovider.model.Group;
 import nz.ac.canterbury.seng302.identityprovider.model.User;
+import nz.ac.canterbury.seng302.identityprovider.repository.GroupMembershipRepository;
 import nz.ac.canterbury.seng302.identityprovider.repository.GroupRepository;
 import nz.ac.canterbury.seng302.identityprovider.repository.UserRepository;
 import nz.ac.canterbury.seng302.identityprovider.service.UserAccountServerService;
+import nz.ac.canterbury.seng302.identityprovider.service.UserSearchService;
+import nz.ac.canterbury.seng302.identityprovider.service.UserService;
 import nz.ac.canterbury.seng302.shared.identityprovider.*;
+import nz.ac.canterbury.seng302.shared.util.BasicStringFilteringOptions;
+import nz.ac.canterbury.seng302.shared.util.PaginationRequestOptions;
 import nz.ac.canterbury.seng302.shared.util.ValidationError;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,10 +21,14 @@ import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.annotation.DirtiesContext;
 
+import java.time.Instant;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import static nz.ac.canterbury.seng302.identityprovider.utils.GlobalVars.MEMBERS_WITHOUT_GROUPS_ID;
 import static nz.ac.canterbury.seng302.identityprovider.utils.GlobalVars.TEACHER_GROUP_ID;
@@ -37,18 +46,29 @@ class UserAccountServiceTest {
     @Autowired
     private UserAccountServerService userAccountServerService;
 
+    @Autowired
+    private UserSearchService userSearchService;
+
+    @Autowired
+    private UserService userService;
+
     @MockBean
     private UserRepository userRepository;
 
     @MockBean
     private GroupRepository groupRepository;
 
+    @MockBean
+    private GroupMembershipRepository groupMembershipRepository;
+
 
     private User testUser;
     private Group testTeacherGroup;
     private Group testMembersWithoutAGroup;
 
     private static final int testUserID = 999;
+    // register and changeUserPassword respond from the password hashing pool, so tests wait this long for them
+    private static final int RESPONSE_TIMEOUT_MS = 5000;
     private final BCryptPasswordEncoder encoder =  new BCryptPasswordEncoder();
 
     @BeforeEach
@@ -80,7 +100,7 @@ class UserAccountServiceTest {
                 .build();
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
 
@@ -89,8 +109,6 @@ class UserAccountServiceTest {
 
     @Test
     void testRegister_userAddedToDefaultGroup() {
-        assertEquals(0, testMembersWithoutAGroup.getMembers().size());
-        when(groupRepository.findById(MEMBERS_WITHOUT_GROUPS_ID)).thenReturn(testMembersWithoutAGroup);
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         UserRegisterRequest request = UserRegisterRequest.newBuilder()
@@ -105,14 +123,13 @@ class UserAccountServiceTest {
                 .setEmail("test@example.com")
                 .build();
         userAccountServerService.register(request, observer);
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         verify(observer, times(1)).onNext(captor.capture());
 
-        assertEquals(1, testMembersWithoutAGroup.getMembers().size());
-
         UserRegisterResponse response = captor.getValue();
 
         assertTrue(response.getIsSuccess());
+        verify(groupMembershipRepository).addMembers(MEMBERS_WITHOUT_GROUPS_ID, List.of(response.getNewUserId()));
     }
 
     @Test
@@ -123,8 +140,8 @@ class UserAccountServiceTest {
                 .thenReturn(testUser);
         when(groupRepository.findById(TEACHER_GROUP_ID))
                 .thenReturn(testTeacherGroup);
-        when(userRepository.findAllById(List.of(testUserID)))
-                .thenReturn(List.of(testUser));
+        when(groupMembershipRepository.findExistingUserIds(List.of(testUserID)))
+                .thenReturn(List.of(testUserID));
         when(groupRepository.findById(MEMBERS_WITHOUT_GROUPS_ID))
                 .thenReturn(testMembersWithoutAGroup);
 
@@ -142,9 +159,9 @@ class UserAccountServiceTest {
         verify(observer, times(1)).onNext(captor.capture());
         UserRoleChangeResponse response = captor.getValue();
 
-        // * Then: They now have this role
+        // * Then: They are given this role
         assertTrue(response.getIsSuccess());
-        assertTrue(testUser.getRoles().contains(UserRole.TEACHER));
+        verify(groupMembershipRepository).addRole(List.of(testUserID), UserRole.TEACHER);
     }
     @Test
     void test_CanRemoveRoleFromUser() {
@@ -154,8 +171,8 @@ class UserAccountServiceTest {
                 .thenReturn(testUser);
         when(groupRepository.findById(TEACHER_GROUP_ID))
                 .thenReturn(testTeacherGroup);
-        when(userRepository.findAllById(List.of(testUserID)))
-                .thenReturn(List.of(testUser));
+        when(groupMembershipRepository.findExistingUserIds(List.of(testUserID)))
+                .thenReturn(List.of(testUserID));
         when(groupRepository.findById(MEMBERS_WITHOUT_GROUPS_ID))
                 .thenReturn(testMembersWithoutAGroup);
 
@@ -173,9 +190,9 @@ class UserAccountServiceTest {
         verify(observer, times(1)).onNext(captor.capture());
         UserRoleChangeResponse response = captor.getValue();
 
-        // * Then: They no longer have this role
+        // * Then: This role is taken away from them
         assertTrue(response.getIsSuccess());
-        assertFalse(testUser.getRoles().contains(UserRole.TEACHER));
+        verify(groupMembershipRepository).removeRole(List.of(testUserID), UserRole.TEACHER, UserRole.STUDENT);
     }
 
     @Test
@@ -186,8 +203,8 @@ class UserAccountServiceTest {
                 .thenReturn(testUser);
         when(groupRepository.findById(TEACHER_GROUP_ID))
                 .thenReturn(testTeacherGroup);
-        when(userRepository.findAllById(List.of(testUserID)))
-                .thenReturn(List.of(testUser));
+        when(groupMembershipRepository.findExistingUserIds(List.of(testUserID)))
+                .thenReturn(List.of(testUserID));
         when(groupRepository.findById(MEMBERS_WITHOUT_GROUPS_ID))
                 .thenReturn(testMembersWithoutAGroup);
 
@@ -200,12 +217,12 @@ class UserAccountServiceTest {
         userAccountServerService.addRoleToUser(request, observer);
         verify(observer, atLeastOnce()).onCompleted();
         verify(observer, atLeastOnce()).onNext(captor.capture());
-        assertTrue(testUser.getRoles().contains(UserRole.TEACHER)); // They've been given the role
+        verify(groupMembershipRepository).addRole(List.of(testUserID), UserRole.TEACHER); // They've been given the role
         // Add again
         userAccountServerService.addRoleToUser(request, observer);
         verify(observer, atLeastOnce()).onCompleted();
         verify(observer, atLeastOnce()).onNext(captor.capture());
-        assertTrue(testUser.getRoles().contains(UserRole.TEACHER)); // User still has the role
+        verify(groupMembershipRepository, never()).removeRole(any(), any(), any()); // User still has the role
 
         // * When: This role is removed
         userAccountServerService.removeRoleFromUser(request, observer);
@@ -215,7 +232,7 @@ class UserAccountServiceTest {
 
         // * Then: The role is removed
         assertTrue(response.getIsSuccess());
-        assertFalse(testUser.getRoles().contains(UserRole.TEACHER));    // User still has role
+        verify(groupMembershipRepository).removeRole(List.of(testUserID), UserRole.TEACHER, UserRole.STUDENT);
     }
 
     @Test
@@ -348,7 +365,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -378,7 +395,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -408,7 +425,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -438,7 +455,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -468,7 +485,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -498,7 +515,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -528,7 +545,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -558,7 +575,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -588,7 +605,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -618,7 +635,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -648,7 +665,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -678,7 +695,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -710,7 +727,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -740,7 +757,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -770,7 +787,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -800,7 +817,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -830,7 +847,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -846,8 +863,8 @@ class UserAccountServiceTest {
 
     @Test
     void testRegister_whenUsernameIsTaken() {
-        when(userRepository.findByUsername("testUser"))
-                .thenReturn(testUser);
+        when(userRepository.existsByUsername("testUser"))
+                .thenReturn(true);
 
         UserRegisterRequest request = UserRegisterRequest.newBuilder()
                 .setUsername("testUser")
@@ -863,7 +880,7 @@ class UserAccountServiceTest {
         StreamObserver<UserRegisterResponse> observer = mock(StreamObserver.class);
         userAccountServerService.register(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<UserRegisterResponse> captor = ArgumentCaptor.forClass(UserRegisterResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         UserRegisterResponse response = captor.getValue();
@@ -1343,7 +1360,7 @@ class UserAccountServiceTest {
         StreamObserver<ChangePasswordResponse> observer = mock(StreamObserver.class);
         userAccountServerService.changeUserPassword(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<ChangePasswordResponse> captor = ArgumentCaptor.forClass(ChangePasswordResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         ChangePasswordResponse response = captor.getValue();
@@ -1365,7 +1382,7 @@ class UserAccountServiceTest {
         StreamObserver<ChangePasswordResponse> observer = mock(StreamObserver.class);
         userAccountServerService.changeUserPassword(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<ChangePasswordResponse> captor = ArgumentCaptor.forClass(ChangePasswordResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         ChangePasswordResponse response = captor.getValue();
@@ -1393,7 +1410,7 @@ class UserAccountServiceTest {
         StreamObserver<ChangePasswordResponse> observer = mock(StreamObserver.class);
         userAccountServerService.changeUserPassword(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<ChangePasswordResponse> captor = ArgumentCaptor.forClass(ChangePasswordResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         ChangePasswordResponse response = captor.getValue();
@@ -1421,7 +1438,7 @@ class UserAccountServiceTest {
         StreamObserver<ChangePasswordResponse> observer = mock(StreamObserver.class);
         userAccountServerService.changeUserPassword(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<ChangePasswordResponse> captor = ArgumentCaptor.forClass(ChangePasswordResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         ChangePasswordResponse response = captor.getValue();
@@ -1449,7 +1466,7 @@ class UserAccountServiceTest {
         StreamObserver<ChangePasswordResponse> observer = mock(StreamObserver.class);
         userAccountServerService.changeUserPassword(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<ChangePasswordResponse> captor = ArgumentCaptor.forClass(ChangePasswordResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         ChangePasswordResponse response = captor.getValue();
@@ -1477,7 +1494,7 @@ class UserAccountServiceTest {
         StreamObserver<ChangePasswordResponse> observer = mock(StreamObserver.class);
         userAccountServerService.changeUserPassword(request, observer);
 
-        verify(observer, times(1)).onCompleted();
+        verify(observer, timeout(RESPONSE_TIMEOUT_MS)).onCompleted();
         ArgumentCaptor<ChangePasswordResponse> captor = ArgumentCaptor.forClass(ChangePasswordResponse.class);
         verify(observer, times(1)).onNext(captor.capture());
         ChangePasswordResponse response = captor.getValue();
@@ -1490,4 +1507,136 @@ class UserAccountServiceTest {
         assertFalse(response.getIsSuccess());
         assertEquals(error, response.getValidationErrors(0));
     }
+
+    @Test
+    void testGetPaginatedUsersFilteredByName_matchingUsersReturned() {
+        testUser.setId(testUserID);
+        testUser.setCreated(Instant.now());  // Set by the database when the user is saved
+        User otherUser = new User("otherUser", "password", "Other", null, "Person", null,
+                "bio", "pronouns", "other@example.com");
+        otherUser.setId(testUserID + 1);
+        otherUser.addRole(UserRole.STUDENT);
+        when(userRepository.findAll()).thenReturn(List.of(testUser, otherUser));
+        when(userRepository.findAllById(List.of(testUserID))).thenReturn(List.of(testUser));
+        userSearchService.rebuildIndex();
+
+        StreamObserver<PaginatedUsersResponse> observer = mock(StreamObserver.class);
+        ArgumentCaptor<PaginatedUsersResponse> captor = ArgumentCaptor.forClass(PaginatedUsersResponse.class);
+        GetPaginatedUsersFilteredRequest request = GetPaginatedUsersFilteredRequest.newBuilder()
+                .setPaginationRequestOptions(PaginationRequestOptions.newBuilder()
+                        .setOffset(0).setLimit(10).setOrderBy("name").setIsAscendingOrder(true))
+                .setFilteringOptions(BasicStringFilteringOptions.newBuilder().setFilterText("TESTLAST"))
+                .build();
+        userAccountServerService.getPaginatedUsersFilteredByName(request, observer);
+
+        verify(observer, times(1)).onCompleted();
+        verify(observer, times(1)).onNext(captor.capture());
+        PaginatedUsersResponse response = captor.getValue();
+        assertEquals(1, response.getUsersCount());
+        assertEquals("testUser", response.getUsers(0).getUsername());
+        assertEquals(1, response.getPaginationResponseOptions().getResultSetSize());
+    }
+
+    @Test
+    void testGetUsersByIds_foundUsersInRequestedOrder() {
+        testUser.setId(testUserID);
+        testUser.setCreated(Instant.now());
+        User otherUser = new User("otherUser", "password", "Other", "", "Person", "",
+                "bio", "pronouns", "other@example.com");
+        otherUser.setId(testUserID + 1);
+        otherUser.setCreated(Instant.now());
+        otherUser.addRole(UserRole.STUDENT);
+        Set<Integer> requestedIds = new LinkedHashSet<>(List.of(testUserID + 1, -1, testUserID));
+        // The repository gives the users in its own order, and leaves out missing ones
+        when(userRepository.findAllById(requestedIds)).thenReturn(List.of(testUser, otherUser));
+
+        StreamObserver<GetUsersByIdsResponse> observer = mock(StreamObserver.class);
+        ArgumentCaptor<GetUsersByIdsResponse> captor = ArgumentCaptor.forClass(GetUsersByIdsResponse.class);
+        GetUsersByIdsRequest request = GetUsersByIdsRequest.newBuilder()
+                .addAllIds(List.of(testUserID + 1, -1, testUserID, testUserID + 1))
+                .build();
+        userAccountServerService.getUsersByIds(request, observer);
+
+        verify(observer, times(1)).onCompleted();
+        verify(observer, times(1)).onNext(captor.capture());
+        verify(userRepository, times(1)).findAllById(any());
+        assertEquals(List.of("otherUser", "testUser"),
+                captor.getValue().getUsersList().stream().map(UserResponse::getUsername).toList());
+    }
+
+    @Test
+    void testGetUsersByIds_tooManyIds() {
+        StreamObserver<GetUsersByIdsResponse> observer = mock(StreamObserver.class);
+        ArgumentCaptor<StatusRuntimeException> captor = ArgumentCaptor.forClass(StatusRuntimeException.class);
+        GetUsersByIdsRequest.Builder request = GetUsersByIdsRequest.newBuilder();
+        for (int id = 0; id <= 1000; id++) {
+            request.addIds(id);
+        }
+        userAccountServerService.getUsersByIds(request.build(), observer);
+
+        verify(observer, times(1)).onError(captor.capture());
+        assertEquals(Status.Code.INVALID_ARGUMENT, captor.getValue().getStatus().getCode());
+        verify(userRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void testGetPaginatedUsersFilteredByName_invalidOrder() {
+        StreamObserver<PaginatedUsersResponse> observer = mock(StreamObserver.class);
+        ArgumentCaptor<StatusRuntimeException> captor = ArgumentCaptor.forClass(StatusRuntimeException.class);
+        GetPaginatedUsersFilteredRequest request = GetPaginatedUsersFilteredRequest.newBuilder()
+                .setPaginationRequestOptions(PaginationRequestOptions.newBuilder()
+                        .setOffset(0).setLimit(10).setOrderBy("password").setIsAscendingOrder(true))
+                .setFilteringOptions(BasicStringFilteringOptions.newBuilder().setFilterText("test"))
+                .build();
+        userAccountServerService.getPaginatedUsersFilteredByName(request, observer);
+
+        verify(observer, times(1)).onError(captor.capture());
+        assertEquals(Status.INVALID_ARGUMENT.getCode(), captor.getValue().getStatus().getCode());
+    }
+
+    @Test
+    void testGetPaginatedUsersStream_everyPageFromRequestedOneSent() {
+        testUser.setId(testUserID);
+        testUser.setCreated(Instant.now());
+        User otherUser = new User("otherUser", "password", "Other", "", "Person", "",
+                "bio", "pronouns", "other@example.com");
+        otherUser.setId(testUserID + 1);
+        otherUser.setCreated(Instant.now());
+        otherUser.addRole(UserRole.STUDENT);
+        when(userRepository.findAllBy(any(Pageable.class)))
+                .thenReturn(List.of(testUser), List.of(otherUser));
+        when(userRepository.count()).thenReturn(3L);
+        userService.userCountChanged();
+
+        StreamObserver<PaginatedUsersResponse> observer = mock(StreamObserver.class);
+        ArgumentCaptor<PaginatedUsersResponse> captor = ArgumentCaptor.forClass(PaginatedUsersResponse.class);
+        GetPaginatedUsersRequest request = GetPaginatedUsersRequest.newBuilder()
+                .setPaginationRequestOptions(PaginationRequestOptions.newBuilder()
+                        .setOffset(1).setLimit(1).setOrderBy("username").setIsAscendingOrder(true))
+                .build();
+        userAccountServerService.getPaginatedUsersStream(request, observer);
+
+        // Starting at the second page of three, only the second and third pages are sent
+        verify(observer, times(1)).onCompleted();
+        verify(observer, times(2)).onNext(captor.capture());
+        verify(userRepository, times(2)).findAllBy(any(Pageable.class));
+        assertEquals(List.of("testUser", "otherUser"),
+                captor.getAllValues().stream().map(page -> page.getUsers(0).getUsername()).toList());
+        userService.userCountChanged();
+    }
+
+    @Test
+    void testGetPaginatedUsersStream_invalidOrderBy() {
+        StreamObserver<PaginatedUsersResponse> observer = mock(StreamObserver.class);
+        ArgumentCaptor<StatusRuntimeException> captor = ArgumentCaptor.forClass(StatusRuntimeException.class);
+        GetPaginatedUsersRequest request = GetPaginatedUsersRequest.newBuilder()
+                .setPaginationRequestOptions(PaginationRequestOptions.newBuilder()
+                        .setOffset(0).setLimit(10).setOrderBy("not a field").setIsAscendingOrder(true))
+                .build();
+        userAccountServerService.getPaginatedUsersStream(request, observer);
+
+        verify(observer, times(1)).onError(captor.capture());
+        verify(observer, never()).onNext(any());
+        assertEquals(Status.Code.INVALID_ARGUMENT, captor.getValue().getStatus().getCode());
+    }
 }
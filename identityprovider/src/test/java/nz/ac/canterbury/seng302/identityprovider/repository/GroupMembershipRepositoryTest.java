@@ -0,0 +1,138 @@
+package nz.ac.canterbury.seng302.identityprovider.repository;
+
+import nz.ac.canterbury.seng302.identityprovider.model.Group;
+import nz.ac.canterbury.seng302.identityprovider.model.User;
+import nz.ac.canterbury.seng302.shared.identityprovider.UserRole;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@Import(GroupMembershipRepository.class)
+class GroupMembershipRepositoryTest {
+    @Autowired private EntityManager entityManager;
+    @Autowired private UserRepository userRepository;
+    @Autowired private GroupRepository groupRepository;
+    @Autowired private GroupMembershipRepository groupMembershipRepository;
+
+    private User saveUser(String username, UserRole... roles) {
+        User user = new User(username, "password", "First", null, "Last", null, null, null, username + "@example.com");
+        for (UserRole role : roles) {
+            user.addRole(role);
+        }
+        return userRepository.save(user);
+    }
+
+    /**
+     * Makes sure the entities are in the database, and that they're loaded from it again afterwards
+     */
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private List<String> getMemberUsernames(Group group) {
+        return userRepository.findAllByGroupsId(group.getId(), Sort.by("username")).stream()
+                .map(User::getUsername).toList();
+    }
+
+    @Test
+    void findExistingUserIds_onlyUsersThatExist() {
+        User alice = saveUser("alice", UserRole.STUDENT);
+        flushAndClear();
+
+        assertThat(groupMembershipRepository.findExistingUserIds(List.of(alice.getId(), -1)))
+                .containsExactly(alice.getId());
+        assertThat(groupMembershipRepository.findExistingUserIds(List.of())).isEmpty();
+    }
+
+    @Test
+    void addAndRemoveMembers_thenOnlyThoseMembershipsChanged() {
+        User alice = saveUser("alice", UserRole.STUDENT);
+        User bob = saveUser("bob", UserRole.STUDENT);
+        User carol = saveUser("carol", UserRole.STUDENT);
+        Group group = new Group("Group", "Group long name");
+        group.addMember(alice);
+        group = groupRepository.save(group);
+        Group otherGroup = new Group("Other", "Other long name");
+        otherGroup.addMember(alice);
+        otherGroup.addMember(bob);
+        otherGroup = groupRepository.save(otherGroup);
+        flushAndClear();
+
+        groupMembershipRepository.addMembers(group.getId(), List.of(bob.getId(), carol.getId()));
+        assertThat(getMemberUsernames(group)).containsExactly("alice", "bob", "carol");
+        assertThat(groupMembershipRepository.findMemberIds(group.getId(), List.of(alice.getId(), carol.getId())))
+                .isEqualTo(Set.of(alice.getId(), carol.getId()));
+
+        groupMembershipRepository.removeMembers(group.getId(), List.of(alice.getId(), bob.getId()));
+        assertThat(getMemberUsernames(group)).containsExactly("carol");
+        assertThat(getMemberUsernames(otherGroup)).containsExactly("alice", "bob");
+    }
+
+    @Test
+    void findUserIdsWithoutAGroup_onlyUsersInNoGroups() {
+        User alice = saveUser("alice", UserRole.STUDENT);
+        User bob = saveUser("bob", UserRole.STUDENT);
+        Group group = new Group("Group", "Group long name");
+        group.addMember(alice);
+        groupRepository.save(group);
+        flushAndClear();
+
+        assertThat(groupMembershipRepository.findUserIdsWithoutAGroup(List.of(alice.getId(), bob.getId())))
+                .isEqualTo(Set.of(bob.getId()));
+    }
+
+    @Test
+    void addRole_givenToUsersWithoutItAndHighestRoleUpdated() {
+        User student = saveUser("student", UserRole.STUDENT);
+        User teacher = saveUser("teacher", UserRole.STUDENT, UserRole.TEACHER);
+        User admin = saveUser("admin", UserRole.COURSE_ADMINISTRATOR);
+        flushAndClear();
+
+        groupMembershipRepository.addRole(List.of(student.getId(), teacher.getId(), admin.getId()), UserRole.TEACHER);
+
+        assertThat(userRepository.findById(student.getId()).getRoles())
+                .containsExactlyInAnyOrder(UserRole.STUDENT, UserRole.TEACHER);
+        assertThat(userRepository.findById(teacher.getId()).getRoles())
+                .containsExactlyInAnyOrder(UserRole.STUDENT, UserRole.TEACHER);
+        assertThat(userRepository.findById(admin.getId()).getRoles())
+                .containsExactlyInAnyOrder(UserRole.TEACHER, UserRole.COURSE_ADMINISTRATOR);
+        // The stored highest roles are updated too, so the student is now sorted with the teacher
+        Sort byRoleDescending = Sort.by("highestRole").descending().and(Sort.by("id"));
+        assertThat(userRepository.findAll(PageRequest.of(0, 10, byRoleDescending))).extracting(User::getUsername)
+                .containsExactly("admin", "student", "teacher");
+    }
+
+    @Test
+    void removeRole_takenAwayAndReplacedIfOnlyRole() {
+        User teacherOnly = saveUser("teacherOnly", UserRole.TEACHER);
+        User studentTeacher = saveUser("studentTeacher", UserRole.STUDENT, UserRole.TEACHER);
+        User adminTeacher = saveUser("adminTeacher", UserRole.TEACHER, UserRole.COURSE_ADMINISTRATOR);
+        flushAndClear();
+
+        groupMembershipRepository.removeRole(List.of(teacherOnly.getId(), studentTeacher.getId(), adminTeacher.getId()),
+                UserRole.TEACHER, UserRole.STUDENT);
+
+        assertThat(userRepository.findById(teacherOnly.getId()).getRoles()).containsExactly(UserRole.STUDENT);
+        assertThat(userRepository.findById(studentTeacher.getId()).getRoles()).containsExactly(UserRole.STUDENT);
+        assertThat(userRepository.findById(adminTeacher.getId()).getRoles())
+                .containsExactly(UserRole.COURSE_ADMINISTRATOR);
+        assertThat(userRepository.findAllByRoles(UserRole.TEACHER)).isEmpty();
+        Sort byRoleDescending = Sort.by("highestRole").descending().and(Sort.by("id"));
+        assertThat(userRepository.findAll(PageRequest.of(0, 10, byRoleDescending))).extracting(User::getUsername)
+                .containsExactly("adminTeacher", "teacherOnly", "studentTeacher");
+    }
+}
@@ -1,5 +1,6 @@
 package nz.ac.canterbury.seng302.identityprovider.repository;
 
+import nz.ac.canterbury.seng302.identityprovider.model.Group;
 import nz.ac.canterbury.seng302.identityprovider.repository.GroupRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,6 +12,8 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import javax.persistence.EntityManager;
 import javax.sql.DataSource;
 
+import static nz.ac.canterbury.seng302.identityprovider.utils.GlobalVars.MEMBERS_WITHOUT_GROUPS_ID;
+import static nz.ac.canterbury.seng302.identityprovider.utils.GlobalVars.TEACHER_GROUP_ID;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith(SpringExtension.class)
@@ -28,4 +31,17 @@ class GroupRepositoryTest {
         assertThat(entityManager).isNotNull();
         assertThat(groupRepository).isNotNull();
     }
+
+    @Test
+    void existsByNameAndIdNot_onlyOtherGroupsCount() {
+        // The default groups are made by data-h2.sql
+        Group teachingStaff = groupRepository.findById(TEACHER_GROUP_ID);
+
+        assertThat(groupRepository.existsByShortNameAndIdNot(teachingStaff.getShortName(), MEMBERS_WITHOUT_GROUPS_ID)).isTrue();
+        assertThat(groupRepository.existsByLongNameAndIdNot(teachingStaff.getLongName(), MEMBERS_WITHOUT_GROUPS_ID)).isTrue();
+        // A group's own names don't count as being in use
+        assertThat(groupRepository.existsByShortNameAndIdNot(teachingStaff.getShortName(), TEACHER_GROUP_ID)).isFalse();
+        assertThat(groupRepository.existsByLongNameAndIdNot(teachingStaff.getLongName(), TEACHER_GROUP_ID)).isFalse();
+        assertThat(groupRepository.existsByShortNameAndIdNot("Unused", MEMBERS_WITHOUT_GROUPS_ID)).isFalse();
+    }
 }
@@ -0,0 +1,123 @@
+package nz.ac.canterbury.seng302.identityprovider.repository;
+
+import nz.ac.canterbury.seng302.identityprovider.model.Group;
+import nz.ac.canterbury.seng302.identityprovider.model.User;
+import nz.ac.canterbury.seng302.shared.identityprovider.UserRole;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the SQL statements that loading users and groups takes, so loading one query per user (N+1) can't come back.
+ * Every check is done with more users than the statement count, so per-user queries would fail it.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class QueryCountTest {
+    private static final int USER_COUNT = 20;
+
+    @Autowired private EntityManager entityManager;
+    @Autowired private UserRepository userRepository;
+    @Autowired private GroupRepository groupRepository;
+
+    private Statistics statistics;
+    private Group group;
+    private final List<Integer> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        // Users are saved first, as saving a group first collides with the default groups' ids
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USER_COUNT; i++) {
+            User user = new User("user" + i, "password", "First", null, "Last", null, null, null, "user" + i + "@example.com");
+            user.addRole(UserRole.STUDENT);
+            if (i % 2 == 0) {
+                user.addRole(UserRole.TEACHER);
+            }
+            users.add(userRepository.save(user));
+            userIds.add(user.getId());
+        }
+        group = new Group("Group", "Group long name");
+        users.forEach(group::addMember);
+        group = groupRepository.save(group);
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * Counts the statements run by some code, starting with nothing loaded
+     */
+    private long countStatements(Runnable runnable) {
+        entityManager.clear();
+        long before = statistics.getPrepareStatementCount();
+        runnable.run();
+        return statistics.getPrepareStatementCount() - before;
+    }
+
+    private static void loadRoles(Iterable<User> users) {
+        users.forEach(user -> Hibernate.initialize(user.getRoles()));
+    }
+
+    @Test
+    void findGroupMembersWithRoles_oneStatement() {
+        assertThat(countStatements(() ->
+                loadRoles(userRepository.findAllByGroupsId(group.getId(), Sort.by("username"))))).isEqualTo(1);
+    }
+
+    @Test
+    void findUsersByIdsWithRoles_oneStatement() {
+        assertThat(countStatements(() -> loadRoles(userRepository.findAllById(userIds)))).isEqualTo(1);
+    }
+
+    @Test
+    void findUserByIdWithRoles_oneStatement() {
+        assertThat(countStatements(() -> loadRoles(List.of(userRepository.findById(userIds.get(0).intValue())))))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void pageOfUsersWithRoles_rolesLoadedInOneBatch() {
+        assertThat(countStatements(() ->
+                loadRoles(userRepository.findAllBy(PageRequest.of(0, USER_COUNT, Sort.by("id")))))).isEqualTo(2);
+        assertThat(countStatements(() ->
+                loadRoles(userRepository.findAllByGroupsId(group.getId(), PageRequest.of(0, USER_COUNT)))))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void allUsersWithGroups_groupsLoadedInOneBatch() {
+        assertThat(countStatements(() -> userRepository.findAll().forEach(user -> user.getGroups().isEmpty())))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void allGroups_membersAndRolesNotLoaded() {
+        assertThat(countStatements(() -> groupRepository.findAll().forEach(Group::getShortName))).isEqualTo(1);
+    }
+
+    @Test
+    void countAndNameChecks_noUsersLoaded() {
+        assertThat(countStatements(() -> userRepository.countByGroupsId(group.getId()))).isEqualTo(1);
+        assertThat(countStatements(() -> userRepository.countMembersByGroupIds(List.of(group.getId())))).isEqualTo(1);
+        assertThat(countStatements(() -> userRepository.existsByUsername("user0"))).isEqualTo(1);
+        assertThat(countStatements(() -> groupRepository.existsByShortNameAndIdNot("Group", 0))).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+}
@@ -1,17 +1,24 @@
 package nz.ac.canterbury.seng302.identityprovider.repository;
 
+import nz.ac.canterbury.seng302.identityprovider.model.Group;
+import nz.ac.canterbury.seng302.identityprovider.model.User;
 import nz.ac.canterbury.seng302.identityprovider.repository.UserRepository;
+import nz.ac.canterbury.seng302.shared.identityprovider.UserRole;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import javax.persistence.EntityManager;
 import javax.sql.DataSource;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @ExtendWith(SpringExtension.class)
 @DataJpaTest
@@ -20,6 +27,7 @@ class UserRepositoryTest {
     @Autowired private JdbcTemplate jdbcTemplate;
     @Autowired private EntityManager entityManager;
     @Autowired private UserRepository userRepository;
+    @Autowired private GroupRepository groupRepository;
 
     @Test
     void injectedComponentsAreNotNull(){
@@ -28,4 +36,61 @@ class UserRepositoryTest {
         assertThat(entityManager).isNotNull();
         assertThat(userRepository).isNotNull();
     }
+
+    private User saveUser(String username, UserRole... roles) {
+        User user = new User(username, "password", "First", null, "Last", null, null, null, username + "@example.com");
+        for (UserRole role : roles) {
+            user.addRole(role);
+        }
+        return userRepository.save(user);
+    }
+
+    @Test
+    void findAllSortedByHighestRole_thenOrderedByTheirHighestRole() {
+        saveUser("admin", UserRole.STUDENT, UserRole.COURSE_ADMINISTRATOR);
+        saveUser("student", UserRole.STUDENT);
+        User teacher = saveUser("teacher", UserRole.STUDENT, UserRole.TEACHER, UserRole.COURSE_ADMINISTRATOR);
+        teacher.removeRole(UserRole.COURSE_ADMINISTRATOR);
+        userRepository.save(teacher);
+
+        Sort byRoleDescending = Sort.by("highestRole").descending().and(Sort.by("id"));
+        List<String> usernames = userRepository.findAll(PageRequest.of(0, 10, byRoleDescending)).stream()
+                .map(User::getUsername).toList();
+        assertThat(usernames).containsExactly("admin", "teacher", "student");
+
+        List<String> secondPage = userRepository.findAll(PageRequest.of(1, 2, byRoleDescending)).stream()
+                .map(User::getUsername).toList();
+        assertThat(secondPage).containsExactly("student");
+    }
+
+    @Test
+    void findAndCountGroupMembers_thenOnlyThatGroupsMembers() {
+        User alice = saveUser("alice", UserRole.STUDENT);
+        User bob = saveUser("bob", UserRole.STUDENT);
+        User carol = saveUser("carol", UserRole.STUDENT);
+        Group group = new Group("Group", "Group long name");
+        group.addMember(alice);
+        group.addMember(carol);
+        group = groupRepository.save(group);
+        Group otherGroup = new Group("Other", "Other long name");
+        otherGroup.addMember(bob);
+        otherGroup = groupRepository.save(otherGroup);
+        Group emptyGroup = groupRepository.save(new Group("Empty", "Empty long name"));
+        entityManager.flush();
+        entityManager.clear();
+
+        Sort byUsername = Sort.by("username").and(Sort.by("id"));
+        List<String> firstPage = userRepository.findAllByGroupsId(group.getId(), PageRequest.of(0, 1, byUsername))
+                .stream().map(User::getUsername).toList();
+        List<String> secondPage = userRepository.findAllByGroupsId(group.getId(), PageRequest.of(1, 1, byUsername))
+                .stream().map(User::getUsername).toList();
+        assertThat(firstPage).containsExactly("alice");
+        assertThat(secondPage).containsExactly("carol");
+        assertThat(userRepository.countByGroupsId(group.getId())).isEqualTo(2);
+
+        List<UserRepository.GroupMemberCount> counts = userRepository.countMembersByGroupIds(
+                List.of(group.getId(), otherGroup.getId(), emptyGroup.getId()));
+        assertThat(counts).extracting(UserRepository.GroupMemberCount::getGroupId, UserRepository.GroupMemberCount::getMemberCount)
+                .containsExactlyInAnyOrder(tuple(group.getId(), 2L), tuple(otherGroup.getId(), 1L));
+    }
 }
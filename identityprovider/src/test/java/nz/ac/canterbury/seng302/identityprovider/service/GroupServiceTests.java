@@ -2,6 +2,7 @@ package nz.ac.canterbury.seng302.identityprovider.service;
 
 import nz.ac.canterbury.seng302.identityprovider.model.Group;
 import nz.ac.canterbury.seng302.identityprovider.model.User;
+import nz.ac.canterbury.seng302.identityprovider.repository.GroupMembershipRepository;
 import nz.ac.canterbury.seng302.identityprovider.repository.GroupRepository;
 import nz.ac.canterbury.seng302.identityprovider.repository.UserRepository;
 import nz.ac.canterbury.seng302.shared.identityprovider.UserRole;
@@ -20,7 +21,9 @@ import java.util.*;
 import static nz.ac.canterbury.seng302.identityprovider.utils.GlobalVars.MEMBERS_WITHOUT_GROUPS_ID;
 import static nz.ac.canterbury.seng302.identityprovider.utils.GlobalVars.TEACHER_GROUP_ID;
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
 
 @SpringBootTest
 @DirtiesContext
@@ -35,6 +38,9 @@ class GroupServiceTests {
     @MockBean
     private UserRepository userRepository;
 
+    @MockBean
+    private GroupMembershipRepository groupMembershipRepository;
+
     private Group testGroup;
     private Group testMembersWithoutAGroup;
     private User testUser1;
@@ -87,70 +93,84 @@ class GroupServiceTests {
 
     @Test
     void test_addUsersToGroup() {
-        // Prepare collections of user ids/users to use as mock data
         List<Integer> usersToAdd = List.of(testUserId1, testUserId2);
-        Iterable<User> users = List.of(testUser1, testUser2);
-        when(userRepository.findAllById(usersToAdd))
-                .thenReturn(users);
+        when(groupMembershipRepository.findExistingUserIds(usersToAdd))
+                .thenReturn(usersToAdd);
         when(groupRepository.findById(testGroupId))
                 .thenReturn(testGroup);
 
         int numUsersAdded = groupService.addUsersToGroup(testGroupId, usersToAdd);
 
-        // Test that the users are added to the groups members, and that the group is added to the users joined groups
+        // Test that both users are added to the group in one batch
         assertEquals(2, numUsersAdded);
-        assertTrue(testGroup.getMembers().contains(testUser1));
-        assertTrue(testGroup.getMembers().contains(testUser2));
-        assertTrue(testUser1.getGroups().contains(testGroup));
-        assertTrue(testUser2.getGroups().contains(testGroup));
+        verify(groupMembershipRepository).addMembers(testGroupId, Set.of(testUserId1, testUserId2));
+        verify(groupMembershipRepository, never()).addRole(any(), any());
+    }
+
+    @Test
+    void test_addUsersToGroup_onlyNewMembersAdded() {
+        List<Integer> usersToAdd = List.of(testUserId1, testUserId2);
+        when(groupMembershipRepository.findExistingUserIds(usersToAdd))
+                .thenReturn(usersToAdd);
+        when(groupMembershipRepository.findMemberIds(testGroupId, usersToAdd))
+                .thenReturn(Set.of(testUserId1));
+        when(groupRepository.findById(testGroupId))
+                .thenReturn(testGroup);
+
+        int numUsersAdded = groupService.addUsersToGroup(testGroupId, usersToAdd);
+
+        // Test that only the user who wasn't already in the group is added
+        assertEquals(2, numUsersAdded);
+        verify(groupMembershipRepository).addMembers(testGroupId, Set.of(testUserId2));
+    }
+
+    @Test
+    void test_addNonexistentUsersToGroup_onlyExistingUsersAdded() {
+        List<Integer> usersToAdd = List.of(testUserId1, testUserId2);
+        when(groupMembershipRepository.findExistingUserIds(usersToAdd))
+                .thenReturn(List.of(testUserId2));
+        when(groupRepository.findById(testGroupId))
+                .thenReturn(testGroup);
+
+        int numUsersAdded = groupService.addUsersToGroup(testGroupId, usersToAdd);
+
+        assertEquals(1, numUsersAdded);
+        verify(groupMembershipRepository).addMembers(testGroupId, Set.of(testUserId2));
     }
 
     @Test
     void test_removeOneUserFromGroup() {
-        // Prepare collections of user ids/users to use as mock data
         List<Integer> usersToRemove = List.of(testUserId1);
-        Iterable<User> users = List.of(testUser1);
-        // Add users to group
-        testGroup.addMember(testUser1);
-        testGroup.addMember(testUser2);
-
-        when(userRepository.findAllById(usersToRemove))
-                .thenReturn(users);
+        when(groupMembershipRepository.findExistingUserIds(usersToRemove))
+                .thenReturn(usersToRemove);
+        when(groupMembershipRepository.findMemberIds(testGroupId, usersToRemove))
+                .thenReturn(Set.of(testUserId1));
         when(groupRepository.findById(testGroupId))
                 .thenReturn(testGroup);
 
         int numUsersRemoved = groupService.removeUsersFromGroup(testGroupId, usersToRemove);
 
-        // Test that user1 is removed, and user2 is still in the group
+        // Test that only user1 is removed
         assertEquals(1, numUsersRemoved);
-        assertFalse(testGroup.getMembers().contains(testUser1));
-        assertTrue(testGroup.getMembers().contains(testUser2));
-        assertFalse(testUser1.getGroups().contains(testGroup));
-        assertTrue(testUser2.getGroups().contains(testGroup));
+        verify(groupMembershipRepository).removeMembers(testGroupId, Set.of(testUserId1));
+        verify(groupMembershipRepository, never()).removeRole(any(), any(), any());
     }
 
     @Test
     void test_removeListOfUsersFromGroup() {
-        // Prepare collections of user ids/users to use as mock data
         List<Integer> usersToRemove = List.of(testUserId1, testUserId2);
-        Iterable<User> users = List.of(testUser1, testUser2);
-        // Add users to group
-        testGroup.addMember(testUser1);
-        testGroup.addMember(testUser2);
-
-        when(userRepository.findAllById(usersToRemove))
-                .thenReturn(users);
+        when(groupMembershipRepository.findExistingUserIds(usersToRemove))
+                .thenReturn(usersToRemove);
+        when(groupMembershipRepository.findMemberIds(testGroupId, usersToRemove))
+                .thenReturn(Set.of(testUserId1, testUserId2));
         when(groupRepository.findById(testGroupId))
                 .thenReturn(testGroup);
+
         int numUsersRemoved = groupService.removeUsersFromGroup(testGroupId, usersToRemove);
 
-        // Test that both users are removed from the group
+        // Test that both users are removed from the group in one batch
         assertEquals(2, numUsersRemoved);
-        assertFalse(testGroup.getMembers().contains(testUser1));
-        assertFalse(testGroup.getMembers().contains(testUser2));
-        // Test that users no longer have the group in their set of joined groups
-        assertFalse(testUser1.getGroups().contains(testGroup));
-        assertFalse(testUser2.getGroups().contains(testGroup));
+        verify(groupMembershipRepository).removeMembers(testGroupId, Set.of(testUserId1, testUserId2));
     }
 
     @Test
@@ -171,100 +191,81 @@ class GroupServiceTests {
 
     @Test
     void test_addUsersToTeacherGroup() {
-        // Prepare collections of user ids/users to use as mock data
         List<Integer> usersToAdd = List.of(testUserId1, testUserId2);
-        Iterable<User> users = List.of(testUser1, testUser2);
-        when(userRepository.findAllById(usersToAdd))
-                .thenReturn(users);
+        when(groupMembershipRepository.findExistingUserIds(usersToAdd))
+                .thenReturn(usersToAdd);
         when(groupRepository.findById(TEACHER_GROUP_ID))
                 .thenReturn(testGroup);
+        when(userRepository.findAllById(usersToAdd))
+                .thenReturn(List.of(testUser1, testUser2));
 
         int numUsersAdded = groupService.addUsersToGroup(TEACHER_GROUP_ID, usersToAdd);
 
-        // Test that the users are added to the groups members, and that the group is added to the users joined groups
+        // Test that the users are added to the group
         assertEquals(2, numUsersAdded);
-        assertTrue(testGroup.getMembers().contains(testUser1));
-        assertTrue(testGroup.getMembers().contains(testUser2));
-        assertTrue(testUser1.getGroups().contains(testGroup));
-        assertTrue(testUser2.getGroups().contains(testGroup));
-        // Test that users gained the teacher role
-        assertTrue(testUser1.getRoles().contains(UserRole.TEACHER));
-        assertTrue(testUser2.getRoles().contains(UserRole.TEACHER));
+        verify(groupMembershipRepository).addMembers(TEACHER_GROUP_ID, Set.of(testUserId1, testUserId2));
+        // Test that users gained the teacher role, in one update
+        verify(groupMembershipRepository).addRole(usersToAdd, UserRole.TEACHER);
     }
 
     @Test
     void test_removeUsersFromTeachingGroup() {
-        testUser1.addRole(UserRole.TEACHER);
-        testUser2.addRole(UserRole.TEACHER);
-        // Prepare collections of user ids/users to use as mock data
         List<Integer> usersToRemove = List.of(testUserId1, testUserId2);
-        Iterable<User> users = List.of(testUser1, testUser2);
-        // Add users to group
-        testGroup.addMember(testUser1);
-        testGroup.addMember(testUser2);
-
-        when(userRepository.findAllById(usersToRemove))
-                .thenReturn(users);
+        when(groupMembershipRepository.findExistingUserIds(usersToRemove))
+                .thenReturn(usersToRemove);
+        when(groupMembershipRepository.findMemberIds(TEACHER_GROUP_ID, usersToRemove))
+                .thenReturn(Set.of(testUserId1, testUserId2));
         when(groupRepository.findById(TEACHER_GROUP_ID))
                 .thenReturn(testGroup);
+        when(userRepository.findAllById(usersToRemove))
+                .thenReturn(List.of(testUser1, testUser2));
+
         int numUsersRemoved = groupService.removeUsersFromGroup(TEACHER_GROUP_ID, usersToRemove);
 
         // Test that both users are removed from the group
         assertEquals(2, numUsersRemoved);
-        assertFalse(testGroup.getMembers().contains(testUser1));
-        assertFalse(testGroup.getMembers().contains(testUser2));
-        // Test that users no longer have the group in their set of joined groups
-        assertFalse(testUser1.getGroups().contains(testGroup));
-        assertFalse(testUser2.getGroups().contains(testGroup));
-        // Test that users no longer have the teacher role
-        assertFalse(testUser1.getRoles().contains(UserRole.TEACHER));
-        assertFalse(testUser2.getRoles().contains(UserRole.TEACHER));
-        // Test that users have been given the student role instead
-        assertTrue(testUser1.getRoles().contains(UserRole.STUDENT));
-        assertTrue(testUser2.getRoles().contains(UserRole.STUDENT));
+        verify(groupMembershipRepository).removeMembers(TEACHER_GROUP_ID, Set.of(testUserId1, testUserId2));
+        // Test that users lose the teacher role, and are given the student role if it was their only role
+        verify(groupMembershipRepository).removeRole(usersToRemove, UserRole.TEACHER, UserRole.STUDENT);
     }
 
     @Test
     void test_addUsersToMembersWithoutAGroup_doNothing() {
-        // Prepare collections of user ids/users to use as mock data
         List<Integer> usersToAdd = List.of(testUserId1, testUserId2);
-        Iterable<User> users = List.of(testUser1, testUser2);
-
-        when(userRepository.findAllById(usersToAdd))
-                .thenReturn(users);
+        when(groupMembershipRepository.findExistingUserIds(usersToAdd))
+                .thenReturn(usersToAdd);
 
         int numUsersAdded = groupService.addUsersToGroup(MEMBERS_WITHOUT_GROUPS_ID, usersToAdd);
 
         // Test that the users are not added to the group
         assertEquals(0, numUsersAdded);
+        verify(groupMembershipRepository, never()).addMembers(anyInt(), any());
     }
 
     @Test
     void test_removeUsersFromMembersWithoutAGroup_doNothing() {
-        // Prepare collections of user ids/users to use as mock data
         List<Integer> usersToRemove = List.of(testUserId1, testUserId2);
-        Iterable<User> users = List.of(testUser1, testUser2);
-
-        when(userRepository.findAllById(usersToRemove))
-                .thenReturn(users);
+        when(groupMembershipRepository.findExistingUserIds(usersToRemove))
+                .thenReturn(usersToRemove);
 
         int numUsersRemoved = groupService.removeUsersFromGroup(MEMBERS_WITHOUT_GROUPS_ID, usersToRemove);
 
-        // Test that the users are not added to the group
+        // Test that the users are not removed from the group
         assertEquals(0, numUsersRemoved);
+        verify(groupMembershipRepository, never()).removeMembers(anyInt(), any());
     }
 
     @Test
     void test_removeUsersFromGroup_addedToMembersWithoutAGroup() {
-        // Prepare collections of user ids/users to use as mock data
         List<Integer> usersToRemove = List.of(testUserId1, testUserId2);
-        Iterable<User> users = List.of(testUser1, testUser2);
-        // Add users to group
-        testGroup.addMember(testUser1);
-        testGroup.addMember(testUser2);
-
-        when(userRepository.findAllById(usersToRemove))
-                .thenReturn(users);
+        Set<Integer> members = Set.of(testUserId1, testUserId2);
+        when(groupMembershipRepository.findExistingUserIds(usersToRemove))
+                .thenReturn(usersToRemove);
+        when(groupMembershipRepository.findMemberIds(testGroupId, usersToRemove))
+                .thenReturn(members);
+        // * Given: Neither user is in another group
+        when(groupMembershipRepository.findUserIdsWithoutAGroup(members))
+                .thenReturn(members);
         when(groupRepository.findById(testGroupId))
                 .thenReturn(testGroup);
 
@@ -272,24 +273,20 @@ class GroupServiceTests {
 
         // Test that the users were added to Members Without A Group
         assertEquals(2, numUsersRemoved);
-        assertTrue(testMembersWithoutAGroup.getMembers().contains(testUser1));
-        assertTrue(testMembersWithoutAGroup.getMembers().contains(testUser2));
+        verify(groupMembershipRepository).addMembers(MEMBERS_WITHOUT_GROUPS_ID, members);
     }
 
     @Test
     void test_removeUsersFromOneGroup_notAddedToMembersWithoutAGroup() {
-        // Prepare collections of user ids/users to use as mock data
         List<Integer> usersToRemove = List.of(testUserId1, testUserId2);
-        Iterable<User> users = List.of(testUser1, testUser2);
-        Group testGroup2 = new Group("test short name2", "test long name2");
-        // Add users to groups
-        testGroup.addMember(testUser1);
-        testGroup.addMember(testUser2);
-        testGroup2.addMember(testUser1);
-        testGroup2.addMember(testUser2);
-
-        when(userRepository.findAllById(usersToRemove))
-                .thenReturn(users);
+        Set<Integer> members = Set.of(testUserId1, testUserId2);
+        when(groupMembershipRepository.findExistingUserIds(usersToRemove))
+                .thenReturn(usersToRemove);
+        when(groupMembershipRepository.findMemberIds(testGroupId, usersToRemove))
+                .thenReturn(members);
+        // * Given: Both users are in another group
+        when(groupMembershipRepository.findUserIdsWithoutAGroup(members))
+                .thenReturn(Set.of());
         when(groupRepository.findById(testGroupId))
                 .thenReturn(testGroup);
 
@@ -297,21 +294,18 @@ class GroupServiceTests {
 
         // Test that the users were not added to Members Without A Group
         assertEquals(2, numUsersRemoved);
-        assertFalse(testMembersWithoutAGroup.getMembers().contains(testUser1));
-        assertFalse(testMembersWithoutAGroup.getMembers().contains(testUser2));
+        verify(groupMembershipRepository).addMembers(MEMBERS_WITHOUT_GROUPS_ID, Set.of());
     }
 
     @Test
     void test_addUsersToGroup_removedFromMembersWithoutAGroup() {
-        // Prepare collections of user ids/users to use as mock data
         List<Integer> usersToAdd = List.of(testUserId1, testUserId2);
-        Iterable<User> users = List.of(testUser1, testUser2);
-        // Add users to group
-        testMembersWithoutAGroup.addMember(testUser1);
-        testMembersWithoutAGroup.addMember(testUser2);
-
-        when(userRepository.findAllById(usersToAdd))
-                .thenReturn(users);
+        Set<Integer> newMembers = Set.of(testUserId1, testUserId2);
+        when(groupMembershipRepository.findExistingUserIds(usersToAdd))
+                .thenReturn(usersToAdd);
+        // * Given: Both users are in Members Without A Group
+        when(groupMembershipRepository.findMemberIds(MEMBERS_WITHOUT_GROUPS_ID, newMembers))
+                .thenReturn(newMembers);
         when(groupRepository.findById(testGroupId))
                 .thenReturn(testGroup);
 
@@ -319,8 +313,7 @@ class GroupServiceTests {
 
         // Test that the users were removed from Members Without A Group
         assertEquals(2, numUsersAdded);
-        assertFalse(testMembersWithoutAGroup.getMembers().contains(testUser1));
-        assertFalse(testMembersWithoutAGroup.getMembers().contains(testUser2));
+        verify(groupMembershipRepository).removeMembers(MEMBERS_WITHOUT_GROUPS_ID, newMembers);
     }
 
     @Test
@@ -382,6 +375,15 @@ class GroupServiceTests {
         assertEquals("test short name", groups.get(0).getShortName());
     }
 
+    @Test
+    void test_getGroupsPaginated_onlyThatPageReturned() {
+        Pageable pageable = PageRequest.of(1, 1, Sort.by("shortName"));
+        when(groupRepository.findAll(pageable))
+                .thenReturn(List.of(testMembersWithoutAGroup));
+        List<Group> groups = groupService.getGroupsPaginated(1, 1, "shortname", true);
+        assertEquals(List.of(testMembersWithoutAGroup), groups);
+    }
+
     @Test
     void test_getPaginatedGroupsByInvalid_thenThrowException() {
         assertThrows(IllegalArgumentException.class, () -> {
@@ -0,0 +1,105 @@
+package nz.ac.canterbury.seng302.identityprovider.service;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("unchecked")
+class PasswordHashingServiceTest {
+
+    private static final int BCRYPT_STRENGTH = 4;   // The lowest, so the tests are quick
+
+    private ThreadPoolExecutor executor;
+    private PasswordHashingService passwordHashingService;
+
+    @BeforeEach
+    void setup() {
+        // One thread and room for one task to wait
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        passwordHashingService = new PasswordHashingService(BCRYPT_STRENGTH, 0, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void encodePassword_matchesOnlyThatPasswordAndUsesStrength() {
+        String hash = passwordHashingService.encode("password");
+        assertTrue(passwordHashingService.matches("password", hash));
+        assertFalse(passwordHashingService.matches("Password", hash));
+        assertTrue(hash.startsWith("$2a$04$"));
+    }
+
+    @Test
+    void executeTask_runsOnPoolAndIsCounted() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        String[] threadName = new String[1];
+        passwordHashingService.execute(() -> {
+            threadName[0] = Thread.currentThread().getName();
+            done.countDown();
+        }, mock(StreamObserver.class));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertNotEquals(Thread.currentThread().getName(), threadName[0]);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, passwordHashingService.getStatistics().completed());
+    }
+
+    @Test
+    void executeWhenQueueFull_callFailsWithResourceExhausted() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StreamObserver<Object> observer = mock(StreamObserver.class);
+
+        // Fill the thread and the queue
+        passwordHashingService.execute(() -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, observer);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        passwordHashingService.execute(() -> {}, observer);
+        verify(observer, never()).onError(any());
+
+        // No room for this one
+        StreamObserver<Object> rejectedObserver = mock(StreamObserver.class);
+        passwordHashingService.execute(() -> fail("Rejected task should not run"), rejectedObserver);
+
+        ArgumentCaptor<StatusRuntimeException> captor = ArgumentCaptor.forClass(StatusRuntimeException.class);
+        verify(rejectedObserver).onError(captor.capture());
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, captor.getValue().getStatus().getCode());
+        assertEquals(1, passwordHashingService.getStatistics().rejected());
+        assertEquals(1, passwordHashingService.getStatistics().queued());
+        release.countDown();
+    }
+
+    @Test
+    void taskThrowsException_callFailsWithInternal() {
+        StreamObserver<Object> observer = mock(StreamObserver.class);
+        passwordHashingService.execute(() -> {
+            throw new IllegalStateException("Something went wrong");
+        }, observer);
+
+        ArgumentCaptor<StatusRuntimeException> captor = ArgumentCaptor.forClass(StatusRuntimeException.class);
+        verify(observer, timeout(5000)).onError(captor.capture());
+        assertEquals(Status.Code.INTERNAL, captor.getValue().getStatus().getCode());
+    }
+}
@@ -0,0 +1,129 @@
+package nz.ac.canterbury.seng302.identityprovider.service;
+
+import nz.ac.canterbury.seng302.identityprovider.model.User;
+import nz.ac.canterbury.seng302.identityprovider.repository.UserRepository;
+import nz.ac.canterbury.seng302.shared.identityprovider.UserRole;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmarks searching 10,000 users with UserSearchService against a <code>LIKE '%text%'</code> query
+ * on the users table, and checks that both find the same users.
+ * It is tagged as a benchmark, so it only runs with <code>./gradlew benchmark</code>.
+ */
+@DataJpaTest
+@Import(UserSearchService.class)
+class UserSearchBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchBenchmarkTest.class);
+
+    private static final int NUM_USERS = 10_000;
+    private static final int NUM_SEARCHES = 200;
+    private static final int PAGE_SIZE = 10;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final String[] SYLLABLES = {"an", "ben", "car", "da", "el", "fi", "go", "ha", "is", "jo", "ka",
+            "li", "mo", "ne", "or", "pa", "qui", "ro", "sa", "to", "ul", "vi", "wen", "xa", "yo", "zed"};
+
+    // Like UserSearchService, but in SQL. Only the ids are selected, as that's all the index gives
+    private static final String LIKE_CONDITION = "WHERE lower(u.firstName) LIKE :text OR lower(u.middleName) LIKE :text " +
+            "OR lower(u.lastName) LIKE :text OR lower(u.nickname) LIKE :text OR lower(u.username) LIKE :text";
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserSearchService userSearchService;
+    @Autowired
+    private EntityManager entityManager;
+
+    private final Random random = new Random(302);
+
+    private String randomName() {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 2 + random.nextInt(2); i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return name.toString();
+    }
+
+    private List<String> saveUsersAndPickSearches() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < NUM_USERS; i++) {
+            String firstName = randomName();
+            String lastName = randomName();
+            User user = new User(firstName + lastName + i, "password", firstName,
+                    random.nextBoolean() ? randomName() : null, lastName,
+                    random.nextBoolean() ? randomName() : null, "", "", "user" + i + "@example.com");
+            user.addRole(UserRole.STUDENT);
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Searches for a piece of someone's name, like staff looking for a student
+        List<String> searches = new ArrayList<>();
+        for (int i = 0; i < NUM_SEARCHES; i++) {
+            String name = users.get(random.nextInt(NUM_USERS)).getLastName();
+            int length = 3 + random.nextInt(3);
+            int start = random.nextInt(Math.max(1, name.length() - length + 1));
+            searches.add(name.substring(start, Math.min(name.length(), start + length)));
+        }
+        return searches;
+    }
+
+    private UserSearchService.SearchResult searchWithLike(String text) {
+        List<Integer> userIds = entityManager.createQuery(
+                "SELECT u.id FROM User u " + LIKE_CONDITION + " ORDER BY u.username, u.id", Integer.class)
+                .setParameter("text", "%" + text + "%")
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+        long count = entityManager.createQuery("SELECT COUNT(u) FROM User u " + LIKE_CONDITION, Long.class)
+                .setParameter("text", "%" + text + "%")
+                .getSingleResult();
+        return new UserSearchService.SearchResult(userIds, (int) count);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void searchUsers_indexMatchesLikeQueryAndIsFaster() {
+        List<String> searches = saveUsersAndPickSearches();
+        userSearchService.rebuildIndex();
+
+        long likeNanos = 0;
+        long indexNanos = 0;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            List<UserSearchService.SearchResult> expected = new ArrayList<>();
+            long start = System.nanoTime();
+            for (String text : searches) {
+                expected.add(searchWithLike(text));
+            }
+            likeNanos = System.nanoTime() - start;
+
+            List<UserSearchService.SearchResult> actual = new ArrayList<>();
+            start = System.nanoTime();
+            for (String text : searches) {
+                actual.add(userSearchService.search(text, 0, PAGE_SIZE, "username", true));
+            }
+            indexNanos = System.nanoTime() - start;
+
+            assertEquals(expected, actual);
+        }
+
+        logger.info("{} users: LIKE query {} us per search, UserSearchService {} us per search",
+                NUM_USERS, likeNanos / 1000 / NUM_SEARCHES, indexNanos / 1000 / NUM_SEARCHES);
+        assertTrue(indexNanos < likeNanos);
+    }
+}
@@ -0,0 +1,124 @@
+package nz.ac.canterbury.seng302.identityprovider.service;
+
+import nz.ac.canterbury.seng302.identityprovider.model.User;
+import nz.ac.canterbury.seng302.identityprovider.repository.GroupRepository;
+import nz.ac.canterbury.seng302.identityprovider.repository.UserRepository;
+import nz.ac.canterbury.seng302.shared.identityprovider.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@DirtiesContext
+class UserSearchServiceTests {
+
+    @Autowired
+    private UserSearchService userSearchService;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private GroupRepository groupRepository;
+
+    private User alice;
+    private User bob;
+    private User carol;
+
+    private User createUser(int id, String username, String firstName, String middleName, String lastName,
+                            String nickname, UserRole role) {
+        User user = new User(username, "password", firstName, middleName, lastName, nickname,
+                "bio", "pronouns", username + "@example.com");
+        user.setId(id);
+        user.addRole(role);
+        return user;
+    }
+
+    @BeforeEach
+    public void setup() {
+        alice = createUser(1, "asmith", "Alice", "Mary", "Smith", "Ali", UserRole.TEACHER);
+        bob = createUser(2, "bobby", "Bob", null, "Brown", null, UserRole.STUDENT);
+        carol = createUser(3, "cjones", "Carol", null, "Smithers", "Caz", UserRole.COURSE_ADMINISTRATOR);
+        when(userRepository.findAll()).thenReturn(List.of(alice, bob, carol));
+        userSearchService.rebuildIndex();
+    }
+
+    private List<Integer> search(String text) {
+        return userSearchService.search(text, 0, 10, "username", true).userIds();
+    }
+
+    @Test
+    void test_searchPartOfName_usersWithItFound() {
+        assertEquals(List.of(1, 3), search("smith"));
+        assertEquals(List.of(2), search("BRO"));
+    }
+
+    @Test
+    void test_searchUsernameOrNickname_userFound() {
+        assertEquals(List.of(3), search("cjon"));
+        assertEquals(List.of(3), search("caz"));
+    }
+
+    @Test
+    void test_searchFirstAndLastName_userWithMiddleNameFound() {
+        assertEquals(List.of(1), search("alice smith"));
+        assertEquals(List.of(1), search("alice mary smith"));
+    }
+
+    @Test
+    void test_searchAcrossTwoNames_noUsersFound() {
+        // "smithasmith" would only match if the last name and username were searched as one piece of text
+        assertEquals(List.of(), search("smithasmith"));
+    }
+
+    @Test
+    void test_searchShortOrBlankText_usersWithItFound() {
+        assertEquals(List.of(2), search("bo"));
+        assertEquals(List.of(1, 2, 3), search(""));
+    }
+
+    @Test
+    void test_searchWithPaging_resultSetSizeIsAllMatches() {
+        UserSearchService.SearchResult result = userSearchService.search("", 1, 2, "role", false);
+        assertEquals(List.of(2), result.userIds());
+        assertEquals(3, result.resultSetSize());
+    }
+
+    @Test
+    void test_userRenamed_foundByNewName() {
+        bob.setLastName("Green");
+        userSearchService.userSaved(bob);
+        assertEquals(List.of(), search("brown"));
+        assertEquals(List.of(2), search("green"));
+    }
+
+    @Test
+    void test_userDeleted_notFound() {
+        userSearchService.userDeleted(alice.getId());
+        assertEquals(List.of(3), search("smith"));
+    }
+
+    @Test
+    void test_searchOrderedByMixedCaseNames_caseIgnored() {
+        User alan = createUser(4, "Bsmith", "alan", null, "smith", "bee", UserRole.STUDENT);
+        userSearchService.userSaved(alan);
+        // Sorting by case would put every capitalised name before every lower case one
+        assertEquals(List.of(4, 1, 3), userSearchService.search("smith", 0, 10, "name", true).userIds());
+        assertEquals(List.of(1, 4, 3), userSearchService.search("smith", 0, 10, "username", true).userIds());
+        assertEquals(List.of(1, 4, 3), userSearchService.search("smith", 0, 10, "nickname", true).userIds());
+        assertEquals(List.of(3, 1, 4), userSearchService.search("smith", 0, 10, "name", false).userIds());
+    }
+
+    @Test
+    void test_searchWithInvalidOrder_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> userSearchService.search("smith", 0, 10, "email", true));
+    }
+}
@@ -2,6 +2,7 @@ package nz.ac.canterbury.seng302.identityprovider.service;
 
 import nz.ac.canterbury.seng302.identityprovider.model.Group;
 import nz.ac.canterbury.seng302.identityprovider.model.User;
+import nz.ac.canterbury.seng302.identityprovider.repository.GroupMembershipRepository;
 import nz.ac.canterbury.seng302.identityprovider.repository.GroupRepository;
 import nz.ac.canterbury.seng302.identityprovider.repository.UserRepository;
 import nz.ac.canterbury.seng302.identityprovider.service.UserService;
@@ -18,10 +19,11 @@ import static nz.ac.canterbury.seng302.identityprovider.utils.GlobalVars.MEMBERS
 import static nz.ac.canterbury.seng302.identityprovider.utils.GlobalVars.TEACHER_GROUP_ID;
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 @SpringBootTest
 @DirtiesContext
@@ -36,6 +38,9 @@ class UserServiceTests {
     @MockBean
     private GroupRepository groupRepository;
 
+    @MockBean
+    private GroupMembershipRepository groupMembershipRepository;
+
     private static final String testUsername = "testUser";
     private static final int userID = 999;
     private User testUser;
@@ -98,33 +103,49 @@ class UserServiceTests {
                 .thenReturn(testUser);
         when(groupRepository.findById(TEACHER_GROUP_ID))
                 .thenReturn(testGroup);
-        when(userRepository.findAllById(List.of(userID)))
-                .thenReturn(List.of(testUser));
+        when(groupMembershipRepository.findExistingUserIds(List.of(userID)))
+                .thenReturn(List.of(userID));
         when(groupRepository.findById(MEMBERS_WITHOUT_GROUPS_ID))
                 .thenReturn(testMembersWithoutAGroup);
         // When: We add the Teacher role to a user
         userService.addRoleToUser(userID, UserRole.TEACHER);
-        // Then: The user is added to the Teaching Staff group
-        assertTrue(testGroup.getMembers().contains(testUser));
-        assertTrue(testUser.getGroups().contains(testGroup));
+        // Then: The user is added to the Teaching Staff group, and given the role
+        verify(groupMembershipRepository).addMembers(TEACHER_GROUP_ID, Set.of(userID));
+        verify(groupMembershipRepository).addRole(List.of(userID), UserRole.TEACHER);
     }
 
 
     @Test
     void test_removeTeacherRoleFromUser_userRemovedFromTeachingGroup() {
-        testGroup.addMember(testUser);
         when(userRepository.findById(userID))
                 .thenReturn(testUser);
         when(groupRepository.findById(TEACHER_GROUP_ID))
                 .thenReturn(testGroup);
         when(groupRepository.findById(MEMBERS_WITHOUT_GROUPS_ID))
                 .thenReturn(testMembersWithoutAGroup);
-        when(userRepository.findAllById(List.of(userID)))
-                .thenReturn(List.of(testUser));
+        when(groupMembershipRepository.findExistingUserIds(List.of(userID)))
+                .thenReturn(List.of(userID));
+        when(groupMembershipRepository.findMemberIds(TEACHER_GROUP_ID, List.of(userID)))
+                .thenReturn(Set.of(userID));
         // When: We remove the Teacher role from a user
         userService.removeRoleFromUser(userID, UserRole.TEACHER);
-        // Then: The user is removed from the Teaching Staff group
-        assertFalse(testGroup.getMembers().contains(testUser));
-        assertFalse(testUser.getGroups().contains(testGroup));
+        // Then: The user is removed from the Teaching Staff group, and loses the role
+        verify(groupMembershipRepository).removeMembers(TEACHER_GROUP_ID, Set.of(userID));
+        verify(groupMembershipRepository).removeRole(List.of(userID), UserRole.TEACHER, UserRole.STUDENT);
+    }
+
+    @Test
+    void test_countUsersTwice_onlyCountedOnce() {
+        when(userRepository.count()).thenReturn(5L, 6L);
+        userService.userCountChanged();
+
+        assertEquals(5, userService.countUsers());
+        assertEquals(5, userService.countUsers());
+        verify(userRepository, times(1)).count();
+
+        // Adding or deleting a user means the users need counting again
+        userService.userCountChanged();
+        assertEquals(6, userService.countUsers());
+        verify(userRepository, times(2)).count();
     }
 }
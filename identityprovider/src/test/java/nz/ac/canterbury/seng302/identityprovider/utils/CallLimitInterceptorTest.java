@@ -0,0 +1,127 @@
+package nz.ac.canterbury.seng302.identityprovider.utils;
+
+import com.google.protobuf.Empty;
+import io.grpc.*;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import nz.ac.canterbury.seng302.identityprovider.GrpcServerConfig;
+import nz.ac.canterbury.seng302.shared.identityprovider.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that heavy and light gRPC calls run on their own pools, and that calls over the limit for their class
+ * fail with RESOURCE_EXHAUSTED. Authenticate is the heavy method, and CheckAuthState a light one.
+ */
+class CallLimitInterceptorTest {
+
+    private static final long WAIT_SECONDS = 5;
+
+    private final GrpcServerConfig config = new GrpcServerConfig();
+    private final GrpcCallClasses callClasses = new GrpcCallClasses(new String[] {
+            AuthenticationServiceGrpc.getAuthenticateMethod().getFullMethodName()});
+    // Authenticate calls wait for this before answering, so they stay open
+    private final CountDownLatch finishLogins = new CountDownLatch(1);
+    private final CountDownLatch loginStarted = new CountDownLatch(1);
+
+    private ExecutorService heavyCallExecutor;
+    private ExecutorService lightCallExecutor;
+    private Server server;
+    private ManagedChannel channel;
+
+    /**
+     * Answers CheckAuthState straight away, with the name of the thread it ran on,
+     * and Authenticate once logins are allowed to finish
+     */
+    private class FakeAuthenticationService extends AuthenticationServiceGrpc.AuthenticationServiceImplBase {
+        @Override
+        public void authenticate(AuthenticateRequest request, StreamObserver<AuthenticateResponse> responseObserver) {
+            loginStarted.countDown();
+            try {
+                finishLogins.await(WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            responseObserver.onNext(AuthenticateResponse.newBuilder()
+                    .setMessage(Thread.currentThread().getName()).build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void checkAuthState(Empty request, StreamObserver<AuthState> responseObserver) {
+            responseObserver.onNext(AuthState.newBuilder().setName(Thread.currentThread().getName()).build());
+            responseObserver.onCompleted();
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        heavyCallExecutor = config.grpcHeavyCallExecutor(2);
+        lightCallExecutor = config.grpcLightCallExecutor(2);
+        String serverName = InProcessServerBuilder.generateName();
+        InProcessServerBuilder serverBuilder = InProcessServerBuilder.forName(serverName);
+        config.callExecutorConfigurer(callClasses, heavyCallExecutor, lightCallExecutor).accept(serverBuilder);
+        server = serverBuilder
+                .addService(ServerInterceptors.intercept(new FakeAuthenticationService(),
+                        new CallLimitInterceptor(callClasses, 1, 10)))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(serverName).build();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        finishLogins.countDown();
+        channel.shutdownNow().awaitTermination(WAIT_SECONDS, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(WAIT_SECONDS, TimeUnit.SECONDS);
+        heavyCallExecutor.shutdown();
+        lightCallExecutor.shutdown();
+    }
+
+    private AuthenticationServiceGrpc.AuthenticationServiceBlockingStub blockingStub() {
+        return AuthenticationServiceGrpc.newBlockingStub(channel).withDeadlineAfter(WAIT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void callsRunOnPoolForTheirClass() {
+        finishLogins.countDown();
+
+        assertTrue(blockingStub().authenticate(AuthenticateRequest.getDefaultInstance()).getMessage()
+                .startsWith("grpc-heavy-"));
+        assertTrue(blockingStub().checkAuthState(Empty.getDefaultInstance()).getName()
+                .startsWith("grpc-light-"));
+    }
+
+    @Test
+    void tooManyHeavyCalls_resourceExhaustedAndLightCallsStillAnswered() throws Exception {
+        var openLogin = AuthenticationServiceGrpc.newFutureStub(channel)
+                .authenticate(AuthenticateRequest.getDefaultInstance());
+        assertTrue(loginStarted.await(WAIT_SECONDS, TimeUnit.SECONDS));
+
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+                () -> blockingStub().authenticate(AuthenticateRequest.getDefaultInstance()));
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, e.getStatus().getCode());
+        assertNotNull(blockingStub().checkAuthState(Empty.getDefaultInstance()));
+
+        finishLogins.countDown();
+        openLogin.get(WAIT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void heavyCallFinished_nextHeavyCallAllowed() {
+        finishLogins.countDown();
+
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(blockingStub().authenticate(AuthenticateRequest.getDefaultInstance()));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package nz.ac.canterbury.seng302.identityprovider.utils;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the PagedResponseStream, which only loads pages of a streamed response as the client is ready for them.
+ */
+@SuppressWarnings("unchecked")
+class PagedResponseStreamTest {
+
+    private static final int LAST_PAGE = 4;
+
+    private ServerCallStreamObserver<String> observer;
+    // The pages that were loaded, in order
+    private final List<Integer> loadedPages = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        observer = mock(ServerCallStreamObserver.class);
+    }
+
+    private PagedResponseStream.Page<String> loadPage(int page) {
+        loadedPages.add(page);
+        return new PagedResponseStream.Page<>("page " + page, page == LAST_PAGE);
+    }
+
+    private Runnable captureHandler(boolean onReady) {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        if (onReady) {
+            verify(observer).setOnReadyHandler(captor.capture());
+        } else {
+            verify(observer).setOnCancelHandler(captor.capture());
+        }
+        return captor.getValue();
+    }
+
+    @Test
+    void clientAlwaysReady_everyPageFromFirstSent() {
+        when(observer.isReady()).thenReturn(true);
+        PagedResponseStream.send(observer, 2, this::loadPage);
+
+        assertEquals(List.of(2, 3, 4), loadedPages);
+        verify(observer).onNext("page 2");
+        verify(observer).onNext("page 4");
+        verify(observer, times(1)).onCompleted();
+    }
+
+    @Test
+    void clientNotReady_pagesLoadedOnceReady() {
+        when(observer.isReady()).thenReturn(true, true, false);
+        PagedResponseStream.send(observer, 0, this::loadPage);
+
+        assertEquals(List.of(0, 1), loadedPages);
+        verify(observer, never()).onCompleted();
+
+        when(observer.isReady()).thenReturn(true);
+        captureHandler(true).run();
+
+        assertEquals(List.of(0, 1, 2, 3, 4), loadedPages);
+        verify(observer, times(5)).onNext(any());
+        verify(observer, times(1)).onCompleted();
+    }
+
+    @Test
+    void clientCancels_noMorePagesLoaded() {
+        when(observer.isReady()).thenReturn(true, false);
+        PagedResponseStream.send(observer, 0, this::loadPage);
+        captureHandler(false).run();
+
+        when(observer.isReady()).thenReturn(true);
+        captureHandler(true).run();
+
+        assertEquals(List.of(0), loadedPages);
+        verify(observer, never()).onCompleted();
+    }
+
+    @Test
+    void loaderThrowsStatus_statusSentToClient() {
+        when(observer.isReady()).thenReturn(true);
+        StatusRuntimeException error = Status.INVALID_ARGUMENT.withDescription("Bad page").asRuntimeException();
+        PagedResponseStream.send(observer, 0, page -> {
+            throw error;
+        });
+
+        verify(observer, times(1)).onError(error);
+        verify(observer, never()).onNext(any());
+        verify(observer, never()).onCompleted();
+    }
+
+    @Test
+    void loaderFails_internalErrorSentToClient() {
+        when(observer.isReady()).thenReturn(true);
+        ArgumentCaptor<StatusRuntimeException> captor = ArgumentCaptor.forClass(StatusRuntimeException.class);
+        PagedResponseStream.send(observer, 0, page -> {
+            throw new IllegalStateException("Database unavailable");
+        });
+
+        verify(observer, times(1)).onError(captor.capture());
+        assertEquals(Status.Code.INTERNAL, captor.getValue().getStatus().getCode());
+    }
+
+    @Test
+    void sendFailsAsCallClosed_noMorePagesLoadedOrSent() {
+        when(observer.isReady()).thenReturn(true);
+        doThrow(Status.CANCELLED.withDescription("call already cancelled").asRuntimeException())
+                .when(observer).onNext("page 1");
+        PagedResponseStream.send(observer, 0, this::loadPage);
+
+        assertEquals(List.of(0, 1), loadedPages);
+        verify(observer, never()).onNext("page 2");
+        verify(observer, never()).onCompleted();
+
+        captureHandler(true).run();
+        assertEquals(List.of(0, 1), loadedPages);
+    }
+}
@@ -0,0 +1,25 @@
+package nz.ac.canterbury.seng302.portfolio;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Configuration for the clients that call the identity provider over gRPC.
+ */
+@Configuration
+public class GrpcClientConfig {
+
+    /**
+     * Sends the batches of user lookups collected by UserAccountClientService
+     * @return A scheduler object
+     */
+    @Bean
+    public TaskScheduler userBatchScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.setThreadNamePrefix("user-batch-");
+        return scheduler;
+    }
+}
@@ -3,14 +3,19 @@ package nz.ac.canterbury.seng302.portfolio;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
 import org.springframework.stereotype.Component;
 import org.springframework.ui.ModelMap;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.AsyncHandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
 
-import nz.ac.canterbury.seng302.portfolio.service.UserAccountClientService;
+import nz.ac.canterbury.seng302.portfolio.service.UserProfileCache;
 import nz.ac.canterbury.seng302.portfolio.utils.PrincipalData;
 import nz.ac.canterbury.seng302.shared.identityprovider.AuthState;
 import nz.ac.canterbury.seng302.shared.identityprovider.UserResponse;
@@ -33,7 +38,10 @@ public class ModelAttributeInterceptor implements AsyncHandlerInterceptor {
     */
 
     @Autowired
-    private UserAccountClientService userAccountClientService;
+    private UserProfileCache userProfileCache;
+
+    // The request attribute holding the lookup of the current user started by preHandle
+    private static final String USER_LOOKUP_ATTRIBUTE = ModelAttributeInterceptor.class.getName() + ".userLookup";
 
     /**
      * This class is a workaround.
@@ -51,6 +59,29 @@ public class ModelAttributeInterceptor implements AsyncHandlerInterceptor {
         }
     }
 
+    /**
+     * Starts looking up the current user before the request is handled, so that if they aren't cached,
+     * the IdP fetches them while the controller is making its own calls.
+     * @param request the request object
+     * @param response the response object
+     * @param handler the handler that is executed
+     * @return true, so the request is always handled
+     */
+    @Override
+    public boolean preHandle(
+            final HttpServletRequest request,
+            final HttpServletResponse response,
+            final Object handler) {
+        if (!rendersView(handler)) {
+            return true;
+        }
+        PrincipalData thisUser = extractPrincipalDataFromRequest(request);
+        if (thisUser.isAuthenticated()) {
+            request.setAttribute(USER_LOOKUP_ATTRIBUTE, userProfileCache.getUserAsync(thisUser.getID()));
+        }
+        return true;
+    }
+
     /**
      * Does things after a request is made, but before processing the view.
      * Used to add globally accessible attributes to the model.
@@ -77,13 +108,43 @@ public class ModelAttributeInterceptor implements AsyncHandlerInterceptor {
         PrincipalData thisUser = extractPrincipalDataFromRequest(request);
         model.addAttribute("G_PrincipalData", thisUser);
         // Add the user's full UserResponse, currently used to get the PFP
-        if (thisUser.isAuthenticated()) {
-            UserResponse fullUser = userAccountClientService.getUserAccountById(thisUser.getID());
+        // This is cached, so pages don't wait on the IdP for it. If the IdP can't give it, the header has no photo
+        UserResponse fullUser = thisUser.isAuthenticated() ? getUser(request, thisUser.getID()) : null;
+        if (fullUser != null) {
             model.addAttribute("G_ProfilePic", new NotString(fullUser.getProfileImagePath()));
+            // The header only shows the photo as a small icon, so it uses a thumbnail
+            model.addAttribute("G_ProfileIcon", new NotString(fullUser.getMediumProfileImagePath()));
             // see NotString documentation for why this has to be done
         }
     }
 
+    /**
+     * Whether a handler may render a page, so needs the current user. Static resources and response bodies don't.
+     * @param handler the handler that is executed
+     * @return false if the handler never renders a page
+     */
+    private static boolean rendersView(Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return false;
+        }
+        return !handlerMethod.hasMethodAnnotation(ResponseBody.class)
+                && !AnnotatedElementUtils.hasAnnotation(handlerMethod.getBeanType(), ResponseBody.class);
+    }
+
+    /**
+     * Gets the current user from the lookup started by preHandle, or looks them up now if there isn't one
+     * @param request the request object
+     * @param userId the id of the current user
+     * @return the user, or <code>null</code> if the IdP couldn't give them
+     */
+    @SuppressWarnings("unchecked")
+    private UserResponse getUser(HttpServletRequest request, int userId) {
+        CompletableFuture<UserResponse> lookup =
+                (CompletableFuture<UserResponse>) request.getAttribute(USER_LOOKUP_ATTRIBUTE);
+        // The lookup times out by itself, and never completes exceptionally
+        return lookup == null ? userProfileCache.getUser(userId) : lookup.join();
+    }
+
     /**
      * <h3>Grabs the Principal from a HttpServletRequest</h3>
      * This method exists because of the weird casting needed to get the Principal.
@@ -1,7 +1,10 @@
 package nz.ac.canterbury.seng302.portfolio;
 
+import nz.ac.canterbury.seng302.portfolio.authentication.AuthStateCache;
+import nz.ac.canterbury.seng302.portfolio.authentication.CookieUtil;
 import nz.ac.canterbury.seng302.portfolio.authentication.JwtAuthenticationFilter;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -26,6 +29,9 @@ public class SecurityConfig {
     @Value("${base-url}")
     private String baseURL;
 
+    @Autowired
+    private AuthStateCache authStateCache;
+
     private static final String LOGIN = "/login";
 
     /**
@@ -56,6 +62,9 @@ public class SecurityConfig {
                 .permitAll()
                 .invalidateHttpSession(true)
                 .deleteCookies("lens-session-token")
+                // Stop trusting the cached AuthState for this session
+                .addLogoutHandler((request, response, authentication) ->
+                        authStateCache.invalidateToken(CookieUtil.getValue(request, "lens-session-token")))
                 .logoutSuccessUrl(LOGIN);
 
         // Disable basic http security
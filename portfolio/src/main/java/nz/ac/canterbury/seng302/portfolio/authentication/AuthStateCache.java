@@ -0,0 +1,98 @@
+package nz.ac.canterbury.seng302.portfolio.authentication;
+
+import nz.ac.canterbury.seng302.portfolio.utils.ExpiringCache;
+import nz.ac.canterbury.seng302.portfolio.utils.PrincipalData;
+import nz.ac.canterbury.seng302.shared.identityprovider.AuthState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the AuthState that the IdP returned for each session token, so that JwtAuthenticationFilter
+ * doesn't need to make a gRPC call to the IdP on every single request.
+ * <p>
+ * Entries expire after a configurable time (<code>auth-state-cache.ttl-seconds</code>), and the cache holds at most
+ * <code>auth-state-cache.max-size</code> tokens. Only authenticated states are cached, so a token the IdP rejects
+ * is always re-checked. Call {@link #invalidateUser(int)} whenever something in a user's AuthState changes
+ * (e.g. their roles), so the change takes effect on their next request.
+ * </p>
+ */
+@Component
+public class AuthStateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthStateCache.class);
+
+    private final ExpiringCache<String, AuthState> cache;
+    private final int statsLogInterval;
+    private final AtomicLong lookups = new AtomicLong();
+
+    /**
+     * Creates the cache with the configured size and time-to-live.
+     * @param ttlSeconds how many seconds an AuthState is trusted for before asking the IdP again
+     * @param maxSize the maximum number of session tokens to hold
+     * @param statsLogInterval how many lookups between logging the cache statistics
+     */
+    public AuthStateCache(@Value("${auth-state-cache.ttl-seconds:30}") long ttlSeconds,
+                          @Value("${auth-state-cache.max-size:1000}") int maxSize,
+                          @Value("${auth-state-cache.stats-log-interval:1000}") int statsLogInterval) {
+        this.cache = new ExpiringCache<>(ttlSeconds, TimeUnit.SECONDS, maxSize);
+        this.statsLogInterval = statsLogInterval;
+    }
+
+    /**
+     * Gets the cached AuthState for a session token.
+     * @param sessionToken the value of the user's lens-session-token cookie
+     * @return the cached AuthState, or <code>null</code> if the IdP needs to be asked
+     */
+    public AuthState get(String sessionToken) {
+        AuthState authState = cache.get(sessionToken);
+        if (statsLogInterval > 0 && lookups.incrementAndGet() % statsLogInterval == 0) {
+            logStatistics();
+        }
+        return authState;
+    }
+
+    /**
+     * Stores the AuthState the IdP returned for a session token. Unauthenticated states are not stored.
+     * @param sessionToken the value of the user's lens-session-token cookie
+     * @param authState the AuthState returned by the IdP
+     */
+    public void put(String sessionToken, AuthState authState) {
+        if (authState.getIsAuthenticated()) {
+            cache.put(sessionToken, authState);
+        }
+    }
+
+    /**
+     * Removes every cached AuthState belonging to a user, e.g. after their roles have changed.
+     * @param userId the id of the user
+     */
+    public void invalidateUser(int userId) {
+        cache.invalidateIf(authState -> PrincipalData.from(authState).getID() == userId);
+    }
+
+    /**
+     * Removes a single session token from the cache, e.g. when the user logs out.
+     * @param sessionToken the value of the user's lens-session-token cookie
+     */
+    public void invalidateToken(String sessionToken) {
+        cache.invalidate(sessionToken);
+    }
+
+    /**
+     * @return the current hit, miss and eviction counts of the cache
+     */
+    public ExpiringCache.Statistics getStatistics() {
+        return cache.getStatistics();
+    }
+
+    private void logStatistics() {
+        ExpiringCache.Statistics stats = cache.getStatistics();
+        logger.info("AuthState cache: size {}, hit rate {}, hits {}, misses {}, evictions {}",
+                stats.size(), String.format("%.3f", stats.hitRate()), stats.hits(), stats.misses(), stats.evictions());
+    }
+}
@@ -24,6 +24,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private AuthenticateClientService authenticateClientService;
 
+    private AuthStateCache authStateCache;
+
     private AuthenticateClientService getAuthenticateClientService(HttpServletRequest request) {
         if(authenticateClientService == null){
             ServletContext servletContext = request.getServletContext();
@@ -37,6 +39,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return authenticateClientService;
     }
 
+    private AuthStateCache getAuthStateCache(HttpServletRequest request) {
+        if (authStateCache == null) {
+            ServletContext servletContext = request.getServletContext();
+            WebApplicationContext webApplicationContext = WebApplicationContextUtils.getWebApplicationContext(servletContext);
+            if (webApplicationContext != null) {
+                // The cache is optional, so fall back to asking the IdP every time if it isn't there
+                authStateCache = webApplicationContext.getBeanProvider(AuthStateCache.class).getIfAvailable();
+            }
+        }
+        return authStateCache;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws IOException, ServletException {
         PreAuthenticatedAuthenticationToken authentication = getAuthentication(req);
@@ -53,6 +67,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      * Check with the IdP whether the user making this request is authenticated, and set the authState returned
      * as our authentication principal. This allows us to access the authState (including name, roles, id, etc.)
      * in any of our controllers just by adding an @AuthenticationPrincipal parameter.
+     * Authenticated states are cached for a short time (see AuthStateCache), so the IdP is only asked about
+     * a session token when it hasn't been seen recently.
      *
      * @param request HTTP request sent by client
      * @return PreAuth token with the authState of user, and whether they are authenticated
@@ -68,7 +84,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return authToken;
         }
 
-        AuthState authState;
+        AuthStateCache cache = getAuthStateCache(request);
+        AuthState authState = cache == null ? null : cache.get(lensSessionCookieJwtString);
+        if (authState != null) {
+            return createAuthToken(authState, lensSessionCookieJwtString);
+        }
+
         try {
             AuthenticateClientService authService = getAuthenticateClientService(request);
             // Check that the service is fetched
@@ -81,10 +102,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // Also may be thrown if some error connecting to IdP, either way, return unauthenticated token
             return authToken;
         }
+        if (cache != null) {
+            cache.put(lensSessionCookieJwtString, authState);
+        }
+        return createAuthToken(authState, lensSessionCookieJwtString);
+    }
 
+    /**
+     * Creates an auth token from an AuthState returned by the IdP.
+     * @param authState the AuthState of the user
+     * @param sessionToken the user's session token
+     * @return PreAuth token with the authState of user, and whether they are authenticated
+     */
+    private static PreAuthenticatedAuthenticationToken createAuthToken(AuthState authState, String sessionToken) {
         // If we get here, then the IdP has returned 'some' auth state, so we configure our auth token with whatever
         // the IdP has said about the authentication status of the user that provided this token
-        authToken = new PreAuthenticatedAuthenticationToken(authState, lensSessionCookieJwtString);
+        PreAuthenticatedAuthenticationToken authToken = new PreAuthenticatedAuthenticationToken(authState, sessionToken);
         authToken.setAuthenticated(authState.getIsAuthenticated());
         return authToken;
     }
@@ -48,6 +48,8 @@ public class DetailsController extends PageController {
     private MilestoneService milestoneService;
     @Autowired
     private SprintLabelService labelUtils;
+    @Autowired
+    private SchedulableSummaryService schedulableSummaryService;
 
     /**
      * Get request to view project details page.
@@ -109,17 +111,13 @@ public class DetailsController extends PageController {
         model.addAttribute("projectEnd", DateUtils.toString(project.getProjectEndDate()));
         model.addAttribute("projectForm", new ProjectForm());
 
-        labelUtils.refreshProjectSprintLabels(parentProjectId);
-
         // Gets the sprint list and sorts it based on the sprint start date
         List<Sprint> sprintList = sprintService.getSprintsInProject(parentProjectId);
         sprintList.sort(Comparator.comparing(Sprint::getSprintStartDate));
         model.addAttribute("sprints", sprintList);
 
-        List<Schedulable> schedulableList = getAllSchedulablesInProject(parentProjectId);
-
-        // Sorts schedulable list by start dates.
-        schedulableList.sort(Comparator.comparing(Schedulable::getStartDate));
+        // Already sorted by start date
+        List<ReadOnlySchedulable> schedulableList = getAllSchedulablesInProject(parentProjectId);
         model.addAttribute("schedulables", schedulableList);
 
         // If the user is at least a teacher, the template will render delete/edit buttons
@@ -245,19 +243,12 @@ public class DetailsController extends PageController {
     }
 
     /**
-     * Gets a list of all schedulables in the project
+     * Gets a list of all schedulables in the project, sorted by start date.
+     * These are read-only summaries, loaded with one query; use the event, deadline or milestone service to edit one.
      * @param parentProjectId The id of the project to get schedulables from
      * @return A list of all schedulables in the project
      */
-    public List<Schedulable> getAllSchedulablesInProject(int parentProjectId) {
-        // Gets the event, deadline and milestone lists and sorts them based on their start dates
-        List<Event> eventList = eventService.getEventByParentProjectId(parentProjectId);
-        List<Deadline> deadlineList = deadlineService.getDeadlineByParentProjectId(parentProjectId);
-        List<Milestone> milestoneList = milestoneService.getMilestoneByParentProjectId(parentProjectId);
-        List<Schedulable> schedulableList = new ArrayList<>();
-        schedulableList.addAll(eventList);
-        schedulableList.addAll(deadlineList);
-        schedulableList.addAll(milestoneList);
-        return schedulableList;
+    public List<ReadOnlySchedulable> getAllSchedulablesInProject(int parentProjectId) {
+        return new ArrayList<>(schedulableSummaryService.getSchedulablesInProject(parentProjectId));
     }
 }
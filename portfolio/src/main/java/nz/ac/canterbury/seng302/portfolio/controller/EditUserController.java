@@ -6,11 +6,13 @@ import nz.ac.canterbury.seng302.portfolio.model.ErrorType;
 import nz.ac.canterbury.seng302.portfolio.model.User;
 import nz.ac.canterbury.seng302.portfolio.service.FileUploadObserver;
 import nz.ac.canterbury.seng302.portfolio.service.UserAccountClientService;
+import nz.ac.canterbury.seng302.portfolio.service.UserProfileCache;
 import nz.ac.canterbury.seng302.shared.identityprovider.*;
 import nz.ac.canterbury.seng302.shared.util.ValidationError;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -18,7 +20,7 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
-import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller to handle requests for editing a user.
@@ -31,6 +33,13 @@ public class EditUserController extends PageController{
     @Autowired
     private UserAccountClientService userAccountClientService;
 
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    // How long to wait for the IdP to say whether an uploaded photo was saved, before saying it's still processing
+    @Value("${profile-photo.upload-response-timeout-ms:10000}")
+    private long photoResponseTimeoutMs;
+
     private static final String EDIT_USER_TEMPLATE = "editUser";
     private static final String REDIRECT_TO_PROFILE = "redirect:../";
     private static final String DEFAULT_PROFILE_PICTURE_NAME = "default-pfp.jpg";
@@ -133,6 +142,7 @@ public class EditUserController extends PageController{
                     lastName, nickname, bio, personalPronouns, email);
 
             if (editReply.getIsSuccess()) {
+                userProfileCache.invalidateUser(id);
                 /* Redirect to profile page when done */
                 return REDIRECT_TO_PROFILE + id;
             } else {
@@ -230,8 +240,15 @@ public class EditUserController extends PageController{
         model.addAttribute("file", file);
         if (isValidImageFile(file) && file.getSize() > 0) {
             FileUploadObserver fileUploadObserver = userAccountClientService.uploadUserProfilePhoto(id, file);
-            waitForPhotoResponse(fileUploadObserver);
-            if (Boolean.TRUE.equals(fileUploadObserver.isUploadSuccessful())) { // Sonarlint wanted this
+            boolean responded = fileUploadObserver.awaitResponse(photoResponseTimeoutMs, TimeUnit.MILLISECONDS);
+            // Even if it hasn't finished yet, the upload may still work, so the cached photo could be out of date
+            userProfileCache.invalidateUser(id);
+            if (!responded) {
+                logger.info("Photo for user {} still processing after {} ms", id, photoResponseTimeoutMs);
+                model.addAttribute("photoProcessing", "Your photo is still being processed. " +
+                        "It will show on your profile once it's ready, so check back in a moment.");
+                return EDIT_USER_TEMPLATE;
+            } else if (Boolean.TRUE.equals(fileUploadObserver.isUploadSuccessful())) { // Sonarlint wanted this
                 return REDIRECT_TO_PROFILE + id;
             } else {
                 model.addAttribute("error_InvalidPhoto", "Something went wrong uploading your photo: " + fileUploadObserver.getUploadMessage());
@@ -243,20 +260,6 @@ public class EditUserController extends PageController{
         }
     }
 
-    /**
-     * Waits until the uploaded image has been saved / rejected / caused an error, or 500ms have passed.
-     * @param observer the FileUploadObserver for this upload
-     * @throws InterruptedException if a thread interrupts the current one (?)
-     */
-    private synchronized void waitForPhotoResponse(FileUploadObserver observer) throws InterruptedException {
-        int count = 0;
-        while ((observer.isUploadSuccessful() == null || Objects.equals(observer.getUploadMessage(), "")) && count < 500) {
-            count++;
-            wait(1);
-        }
-        logger.debug("EditUserController waited for {} ms to receive a photo response.", count);
-    }
-
     /**
      * Checks whether the provided MultipartFile has a content type of image/jpeg or image/png.
      * @param file the MultipartFile in question
@@ -291,6 +294,7 @@ public class EditUserController extends PageController{
             deleteReply = userAccountClientService.deleteUserProfilePhoto(id);
 
             if (deleteReply.getIsSuccess()) {
+                userProfileCache.invalidateUser(id);
                 /* Redirect to profile page when done */
                 return REDIRECT_TO_PROFILE + id;
             } else {
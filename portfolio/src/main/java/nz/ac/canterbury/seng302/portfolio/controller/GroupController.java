@@ -1,5 +1,8 @@
 package nz.ac.canterbury.seng302.portfolio.controller;
 
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import nz.ac.canterbury.seng302.portfolio.authentication.AuthStateCache;
 import nz.ac.canterbury.seng302.portfolio.controller.forms.GroupForm;
 import nz.ac.canterbury.seng302.portfolio.model.ValidationError;
 import nz.ac.canterbury.seng302.portfolio.service.GroupClientService;
@@ -37,18 +40,27 @@ public class GroupController extends PageController{
     private ProjectService projectService;
     @Autowired
     private GroupClientService groupClientService;
+    @Autowired
+    private AuthStateCache authStateCache;
 
     public static final String GROUPS_TEMPLATE_NAME = "groups";
+    public static final String GROUP_MEMBERS_FRAGMENT_NAME = "groupFragments :: groupMembers";
+
+    private static final int GROUPS_PER_PAGE = 10;
+    private static final int MEMBERS_PER_PAGE = 20;
 
     /**
-     * Get request to view the groups page.
+     * Get request to view the groups page. Only the groups' details are loaded here;
+     * their members are loaded by groupMembers when a group is expanded.
      * @param principal Authenticated user
+     * @param page The page of groups to view, starting at 1
      * @param model Parameters sent to thymeleaf template
      * @return Groups page
      */
     @GetMapping("/groups")
     public String groups(
             @AuthenticationPrincipal AuthState principal,
+            @RequestParam(name="page", defaultValue="1") int page,
             Model model
     ) {
         boolean hasEditPermissions = PrincipalData.from(principal).hasRoleOfAtLeast(UserRole.TEACHER);
@@ -56,11 +68,16 @@ public class GroupController extends PageController{
 
         model.addAttribute("tab", 3);
 
-        PaginatedGroupsResponse groups = groupClientService.getPaginatedGroups(0, Integer.MAX_VALUE, "shortName", true );
+        PaginatedGroupsResponse groups = groupClientService.getPaginatedGroups(page - 1, GROUPS_PER_PAGE, "shortName", true);
 
         model.addAttribute("groupList", groups.getGroupsList());
         model.addAttribute("membersWithoutGroupsId", GlobalVars.MEMBERS_WITHOUT_GROUPS_ID);
 
+        /* Total number of pages */
+        int totalPages = (groups.getPaginationResponseOptions().getResultSetSize() + GROUPS_PER_PAGE - 1) / GROUPS_PER_PAGE;
+        model.addAttribute("page", page);
+        model.addAttribute("totalPages", totalPages);
+
         // Sending the min and max length of group short and long name
         model.addAttribute("minShortNameLen", GlobalVars.MIN_NAME_LENGTH);
         model.addAttribute("maxShortNameLen", GlobalVars.MAX_NAME_LENGTH);
@@ -69,6 +86,42 @@ public class GroupController extends PageController{
         return GROUPS_TEMPLATE_NAME;    // Return the name of the Thymeleaf template
     }
 
+    /**
+     * Gets a page of a group's members, ordered by name, for when the group is expanded on the groups page.
+     * @param principal Authenticated user
+     * @param groupId The id of the group to get members of
+     * @param page The page of members to get, starting at 1
+     * @param model Parameters sent to thymeleaf template
+     * @return The rows of the group's member table for that page
+     */
+    @GetMapping("/groups/{group_id}/members")
+    public String groupMembers(
+            @AuthenticationPrincipal AuthState principal,
+            @PathVariable("group_id") int groupId,
+            @RequestParam(name="page", defaultValue="1") int page,
+            Model model
+    ) {
+        PaginatedUsersResponse members;
+        try {
+            members = groupClientService.getPaginatedGroupMembers(groupId, page - 1, MEMBERS_PER_PAGE, "name", true);
+        } catch (StatusRuntimeException e) {
+            if (e.getStatus().getCode() == Status.NOT_FOUND.getCode()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getStatus().getDescription());
+            }
+            throw e;
+        }
+
+        model.addAttribute("groupId", groupId);
+        model.addAttribute("members", members.getUsersList());
+        model.addAttribute("canEdit", PrincipalData.from(principal).hasRoleOfAtLeast(UserRole.TEACHER));
+        model.addAttribute("membersWithoutGroupsId", GlobalVars.MEMBERS_WITHOUT_GROUPS_ID);
+        // The next page to load, if there are more members after this page
+        boolean hasNextPage = page * MEMBERS_PER_PAGE < members.getPaginationResponseOptions().getResultSetSize();
+        model.addAttribute("nextPage", hasNextPage ? page + 1 : null);
+
+        return GROUP_MEMBERS_FRAGMENT_NAME;
+    }
+
     /**
      * A post mapping to add a list of users to a group
      * @param principal the user adding members to a group. used for authentication
@@ -91,6 +144,7 @@ public class GroupController extends PageController{
         AddGroupMembersResponse addGroupMembersResponse = groupClientService.addGroupMembers(groupId, userIds);
 
         if (addGroupMembersResponse.getIsSuccess()) {
+            rolesChanged(groupId, userIds);
             return new ResponseEntity<>(addGroupMembersResponse.getMessage(), HttpStatus.OK);
         } else if (addGroupMembersResponse.getMessage().equals(GlobalVars.GROUP_NOT_FOUND_ERROR_MESSAGE + groupId)){
             return new ResponseEntity<>(addGroupMembersResponse.getMessage(), HttpStatus.NOT_FOUND);
@@ -99,6 +153,18 @@ public class GroupController extends PageController{
         }
     }
 
+    /**
+     * Joining or leaving the teaching staff group adds or removes the teacher role, so the cached AuthStates
+     * of those users still have their old roles
+     * @param groupId the id of the group that users were added to or removed from
+     * @param userIds the ids of the users
+     */
+    private void rolesChanged(int groupId, List<Integer> userIds) {
+        if (groupId == TEACHER_GROUP_ID) {
+            userIds.forEach(authStateCache::invalidateUser);
+        }
+    }
+
     /**
      * Post requests to add groups.
      * @param principal The authenticated or currently logged-in user
@@ -258,6 +324,7 @@ public class GroupController extends PageController{
         RemoveGroupMembersResponse removeGroupMembersResponse = groupClientService.removeGroupMembers(groupId, userIds);
 
         if (removeGroupMembersResponse.getIsSuccess()) {
+            rolesChanged(groupId, userIds);
             return new ResponseEntity<>(removeGroupMembersResponse.getMessage(), HttpStatus.OK);
         } else if (removeGroupMembersResponse.getMessage().equals(GlobalVars.GROUP_NOT_FOUND_ERROR_MESSAGE + groupId)) {
             return new ResponseEntity<>(removeGroupMembersResponse.getMessage(), HttpStatus.NOT_FOUND);
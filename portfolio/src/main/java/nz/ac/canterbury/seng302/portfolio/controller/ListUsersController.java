@@ -2,6 +2,7 @@ package nz.ac.canterbury.seng302.portfolio.controller;
 
 import io.grpc.Status;
 import io.grpc.StatusException;
+import nz.ac.canterbury.seng302.portfolio.authentication.AuthStateCache;
 import nz.ac.canterbury.seng302.portfolio.authentication.CookieUtil;
 import nz.ac.canterbury.seng302.portfolio.service.UserAccountClientService;
 import nz.ac.canterbury.seng302.portfolio.utils.PrincipalData;
@@ -54,6 +55,9 @@ public class ListUsersController extends PageController {
     @Autowired
     private UserAccountClientService userAccountClientService;
 
+    @Autowired
+    private AuthStateCache authStateCache;
+
     /**
      * Displays a list of users with their name, username, nickname and roles
      */
@@ -240,6 +244,8 @@ public class ListUsersController extends PageController {
                 // Add the role to the user
                 boolean roleAdded = userAccountClientService.addRoleToUser(id, role);
                 if(roleAdded) {
+                    // The user's cached AuthState still has their old roles
+                    authStateCache.invalidateUser(id);
                     return new ResponseEntity<>("Role " + role.name() + " added", HttpStatus.OK);
                 } else {
                     return  new ResponseEntity<>("Role not added", HttpStatus.BAD_REQUEST);
@@ -275,6 +281,8 @@ public class ListUsersController extends PageController {
                 // Remove role from user
                 boolean roleRemoved = userAccountClientService.removeRoleFromUser(id, role);
                 if(roleRemoved) {
+                    // The user's cached AuthState still has their old roles
+                    authStateCache.invalidateUser(id);
                     return new ResponseEntity<>("Role " + role.name() + " removed", HttpStatus.OK);
                 } else {
                     return  new ResponseEntity<>("Role not removed", HttpStatus.BAD_REQUEST);
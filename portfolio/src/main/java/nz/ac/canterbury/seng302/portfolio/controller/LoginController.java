@@ -1,5 +1,6 @@
 package nz.ac.canterbury.seng302.portfolio.controller;
 
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import nz.ac.canterbury.seng302.portfolio.authentication.CookieUtil;
 import nz.ac.canterbury.seng302.portfolio.service.AuthenticateClientService;
@@ -86,7 +87,12 @@ public class LoginController {
         try {
             loginReply = authenticateClientService.authenticate(username, password);
         } catch (StatusRuntimeException e){
-            model.addAttribute("loginMessage", "Error connecting to Identity Provider...");
+            if (e.getStatus().getCode() == Status.Code.RESOURCE_EXHAUSTED) {
+                // The IdP has too many logins to check right now
+                model.addAttribute("loginMessage", "Lots of people are logging in right now. Please try again in a moment.");
+            } else {
+                model.addAttribute("loginMessage", "Error connecting to Identity Provider...");
+            }
             return LOGIN_PAGE;
         }
         if (loginReply.getSuccess()) {
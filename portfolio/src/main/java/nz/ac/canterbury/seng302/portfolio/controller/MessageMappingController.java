@@ -8,34 +8,55 @@ import nz.ac.canterbury.seng302.portfolio.utils.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.*;
 
 import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 
 /**
  * Controller to handle websockets.
- * Sends websocket messages to endpoints specified with @SendTo annotations.
+ * Every message is about one project, so it is only sent to the topics of that project
+ * (/topic/project/{projectId}/...), which are only subscribed to by people viewing that project.
  */
 @Controller
 public class MessageMappingController {
 
     private static final Logger logger = LoggerFactory.getLogger(MessageMappingController.class);
 
+    // Topic for a type of message about a project, e.g. /topic/project/1/sprints
+    public static final String PROJECT_TOPIC_FORMAT = "/topic/project/%d/%s";
+
     private final SimpMessagingTemplate simpMessagingTemplate;
+    private final TaskScheduler sprintUpdateScheduler;
+    private final Duration sprintUpdateDelay;
+
+    // Sprint ids that have an update waiting to be sent, so repeated messages for one sprint only send one update
+    private final Map<Integer, ScheduledFuture<?>> pendingSprintUpdates = new ConcurrentHashMap<>();
 
     @Autowired
-    public MessageMappingController(SimpMessagingTemplate template) {
+    public MessageMappingController(SimpMessagingTemplate template,
+                                    @Qualifier("sprintUpdateScheduler") TaskScheduler sprintUpdateScheduler,
+                                    @Value("${websocket.sprint-update-delay-ms:250}") long sprintUpdateDelayMs) {
         this.simpMessagingTemplate = template;
+        this.sprintUpdateScheduler = sprintUpdateScheduler;
+        this.sprintUpdateDelay = Duration.ofMillis(sprintUpdateDelayMs);
     }
 
     @Autowired
@@ -48,6 +69,8 @@ public class MessageMappingController {
     SprintService sprintService;
     @Autowired
     ProjectService projectService;
+    @Autowired
+    SchedulePlacementService schedulePlacementService;
 
     /**
      * Called when a user disconnects from their websocket connection.
@@ -65,110 +88,104 @@ public class MessageMappingController {
     }
 
     /**
-     * <p>Receives a websocket message for a sprint id, then replies with an empty output if it doesn't exist,
-     * or a SprintMessageOutput with the sprint's data if it does exist.</p>
-     * <p>Waits for 100ms before sending the message, so that entities in the database can be updated
-     * before an update is sent out for them. This is because these updates are triggered by the user
-     * updating the object in the first place, so we need to wait for the object to update before we send
-     * the update out to everyone.</p>
+     * <p>Receives a websocket message for a sprint id, and schedules an update for that sprint to be sent
+     * to its project's sprints topic after a short delay (<code>websocket.sprint-update-delay-ms</code>).</p>
+     * <p>The delay is needed because some pages send this message before the request that saves the sprint,
+     * so the sprint is read once it has had time to be saved. Messages for a sprint that already has an update
+     * waiting are merged into that update, and nothing blocks while waiting, so updates to different sprints
+     * don't hold each other up.</p>
+     * @param projectId the id of the project the message was sent from
      * @param sprintMessage data received from the websocket containing the sprint id and type
-     * @return a SprintMessageOutput that gets sent to the endpoint in @Sendto
-     * @throws InterruptedException if the thread is interrupted while it is waiting
      */
-    @MessageMapping("/sprints")
-    @SendTo("/topic/sprints")
-    public synchronized SprintMessageOutput sendSprintData(SprintMessage sprintMessage) throws InterruptedException {
-        // wait statements must be in a while loop, so it is in a while loop
-        // the loop should end if the sprint changes, but that breaks live updates (at least on localhost)
-        // so it ends after 250 ms every time instead
-        int count = 0;
-        while (count < 250) {
-            count++;
-            wait(1);
-        }
+    @MessageMapping("/project/{projectId}/sprints")
+    public void sendSprintData(@DestinationVariable int projectId, SprintMessage sprintMessage) {
+        pendingSprintUpdates.computeIfAbsent(sprintMessage.getId(), id ->
+                sprintUpdateScheduler.schedule(() -> publishSprintUpdate(projectId, id), Instant.now().plus(sprintUpdateDelay)));
+    }
+
+    /**
+     * Sends the current state of a sprint to the sprints topic of its project.
+     * @param projectId the id of the project the message was sent from, used if the sprint has been deleted
+     * @param sprintId the id of the sprint that was updated
+     */
+    private void publishSprintUpdate(int projectId, int sprintId) {
+        // Remove before reading, so any message that arrives after the read schedules another update
+        pendingSprintUpdates.remove(sprintId);
+        int topicProjectId = projectId;
         SprintMessageOutput sprintMessageOutput;
         try {
-            Sprint updatedSprint = sprintService.getSprintById(sprintMessage.getId());
+            Sprint updatedSprint = sprintService.getSprintById(sprintId);
             sprintMessageOutput = new SprintMessageOutput(updatedSprint);
+            topicProjectId = updatedSprint.getParentProjectId();
         } catch (ResponseStatusException e) {
             // Send back an empty message if the sprint is not found
             logger.error(e.getMessage());
             sprintMessageOutput = new SprintMessageOutput();
-            sprintMessageOutput.setId(sprintMessage.getId());
+            sprintMessageOutput.setId(sprintId);
         }
-
-        return sprintMessageOutput;
+        simpMessagingTemplate.convertAndSend(String.format(PROJECT_TOPIC_FORMAT, topicProjectId, "sprints"), sprintMessageOutput);
     }
 
     /**
-     * Receives a websocket message for a project id, then replies with an empty output if it doesn't exist,
-     * or a ProjecttMessageOutput with the project's data if it does exist.
+     * Receives a websocket message for a project id, then sends an empty output if it doesn't exist,
+     * or a ProjectMessageOutput with the project's data if it does exist, to that project's projects topic.
+     * @param projectId the id of the project the message was sent from, used if the project has been deleted
      * @param projectMessage data received from the websocket containing the project id and type
-     * @return a ProjectMessageOutput that gets sent to the endpoint in @Sendto
      */
-    @MessageMapping("/projects")
-    @SendTo("/topic/projects")
-    public ProjectMessageOutput sendProjectData(ProjectMessage projectMessage) {
+    @MessageMapping("/project/{projectId}/projects")
+    public void sendProjectData(@DestinationVariable int projectId, ProjectMessage projectMessage) {
+        int topicProjectId = projectId;
         ProjectMessageOutput projectMessageOutput;
         try {
             Project updatedProject = projectService.getProjectById(projectMessage.getId());
             projectMessageOutput = new ProjectMessageOutput(updatedProject);
+            topicProjectId = updatedProject.getId();
         } catch (ResponseStatusException e) {
             // Send back an empty message if the project is not found
             logger.error(e.getMessage());
             projectMessageOutput = new ProjectMessageOutput();
             projectMessageOutput.setId(projectMessage.getId());
         }
-
-        return projectMessageOutput;
+        simpMessagingTemplate.convertAndSend(String.format(PROJECT_TOPIC_FORMAT, topicProjectId, "projects"), projectMessageOutput);
     }
 
     /**
-     * Websocket message mapping for editing schedulables
-     * @param message Data to send through the websocket
-     * @return An output that gets sent to the endpoint in the @SendTo parameter
+     * Websocket message mapping for editing schedulables. The message is passed on to the editing-schedulable topic
+     * of the project the schedulable belongs to.
+     * @param projectId the id of the project the message was sent from, used if the schedulable can't be found
+     * @param message Data to send through the websocket, with content in the form <code>schedulableId,type[,userId]</code>
      */
-    @MessageMapping("/ws")
-    @SendTo("/topic/editing-schedulable")
-    public Message editingSchedulable(Message message) {
-        return message;
+    @MessageMapping("/project/{projectId}/ws")
+    public void editingSchedulable(@DestinationVariable int projectId, Message message) {
+        int topicProjectId = projectId;
+        try {
+            String[] content = message.getContent().split(",");
+            topicProjectId = getSchedulable(Integer.parseInt(content[0]), content[1]).getParentProject().getId();
+        } catch (ResponseStatusException e) {
+            logger.error(e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Editing message has invalid content: {}", message.getContent());
+        }
+        simpMessagingTemplate.convertAndSend(String.format(PROJECT_TOPIC_FORMAT, topicProjectId, "editing-schedulable"), message);
     }
 
     /**
-     * Receives a websocket message with a schedulable id and type, and then replies with an empty
+     * Receives a websocket message with a schedulable id and type, and then sends an empty
      * output (if the specified schedulable does not exist) or a SchedulableMessageOutput with the
-     * schedulable's information and location if it does exist.
+     * schedulable's information and location if it does exist, to the schedulables topic of its project.
      *
+     * @param projectId the id of the project the message was sent from, used if the schedulable has been deleted
      * @param schedulableMessage Data received from the websocket containing the schedulable id and type
-     * @return A SchedulableMessageOutput that gets sent to the endpoint in the @SendTo parameter
      */
-    @MessageMapping("/schedulables")
-    @SendTo("/topic/schedulables")
-    public SchedulableMessageOutput sendSchedulableData(SchedulableMessage schedulableMessage) {
-        Schedulable updatedSchedulable;
+    @MessageMapping("/project/{projectId}/schedulables")
+    public void sendSchedulableData(@DestinationVariable int projectId, SchedulableMessage schedulableMessage) {
+        int topicProjectId = projectId;
         SchedulableMessageOutput schedulableMessageOutput;
-        List<Schedulable> schedulableList = new ArrayList<>();
 
         try {
-            /* Determine schedulable type and get data.
-             * Return a proper response if the schedulable exists. */
-            if (EVENT_TYPE.equals(schedulableMessage.getType())) {
-                updatedSchedulable = eventService.getEventById(schedulableMessage.getId());
-            } else if (DEADLINE_TYPE.equals(schedulableMessage.getType())) {
-                updatedSchedulable = deadlineService.getDeadlineById(schedulableMessage.getId());
-            } else if (MILESTONE_TYPE.equals(schedulableMessage.getType())) {
-                updatedSchedulable = milestoneService.getMilestoneById(schedulableMessage.getId());
-            } else {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, schedulableMessage.getType() + " is not a type of schedulable!");
-            }
-
-            schedulableList.addAll(eventService.getEventByParentProjectId(updatedSchedulable.getParentProject().getId()));
-            schedulableList.addAll(deadlineService.getDeadlineByParentProjectId(updatedSchedulable.getParentProject().getId()));
-            schedulableList.addAll(milestoneService.getMilestoneByParentProjectId(updatedSchedulable.getParentProject().getId()));
-            
-            schedulableMessageOutput = new SchedulableMessageOutput(updatedSchedulable,
-                    sprintService.getSprintsInProject(updatedSchedulable.getParentProject().getId()),
-                    schedulableList);
+            Schedulable updatedSchedulable = getSchedulable(schedulableMessage.getId(), schedulableMessage.getType());
+            schedulableMessageOutput = schedulePlacementService.getPlacement(updatedSchedulable);
+            topicProjectId = updatedSchedulable.getParentProject().getId();
         } catch (ResponseStatusException e) {
             // Send back an empty response if the schedulable doesn't exist
             logger.error(e.getMessage());
@@ -178,6 +195,25 @@ public class MessageMappingController {
             schedulableMessageOutput.setType(schedulableMessage.getType());
         }
 
-        return schedulableMessageOutput;
+        simpMessagingTemplate.convertAndSend(String.format(PROJECT_TOPIC_FORMAT, topicProjectId, "schedulables"), schedulableMessageOutput);
+    }
+
+    /**
+     * Gets a schedulable of the given type
+     * @param id the id of the schedulable
+     * @param type the type of the schedulable, e.g. EVENT_TYPE
+     * @return the schedulable
+     * @throws ResponseStatusException if the schedulable doesn't exist, or the type isn't a type of schedulable
+     */
+    private Schedulable getSchedulable(int id, String type) throws ResponseStatusException {
+        if (EVENT_TYPE.equals(type)) {
+            return eventService.getEventById(id);
+        } else if (DEADLINE_TYPE.equals(type)) {
+            return deadlineService.getDeadlineById(id);
+        } else if (MILESTONE_TYPE.equals(type)) {
+            return milestoneService.getMilestoneById(id);
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, type + " is not a type of schedulable!");
+        }
     }
 }
@@ -1,7 +1,7 @@
 package nz.ac.canterbury.seng302.portfolio.controller;
 
 import nz.ac.canterbury.seng302.portfolio.model.Project;
-import nz.ac.canterbury.seng302.portfolio.model.Schedulable;
+import nz.ac.canterbury.seng302.portfolio.model.SchedulablePage;
 import nz.ac.canterbury.seng302.portfolio.model.Sprint;
 import nz.ac.canterbury.seng302.portfolio.service.*;
 import nz.ac.canterbury.seng302.portfolio.utils.DateUtils;
@@ -45,7 +45,9 @@ public class MonthlyCalendarController extends PageController {
     @Autowired
     private MilestoneService milestoneService;
     @Autowired
-    private DetailsController detailsController;
+    private SprintLabelService labelUtils;
+    @Autowired
+    private SchedulableSummaryService schedulableSummaryService;
 
     /**
      *
@@ -86,48 +88,13 @@ public class MonthlyCalendarController extends PageController {
             model.addAttribute("sprintColours", getSprintsArrayList.get(4));
         }
 
-        List<Schedulable> schedulableList = detailsController.getAllSchedulablesInProject(id);
-        List<String> schedulableDetailsList = getStringListFromSchedulables(schedulableList);
-        model.addAttribute("schedulableNames", schedulableDetailsList.get(0));
-        model.addAttribute("schedulableTypes", schedulableDetailsList.get(1));
-        model.addAttribute("schedulableStartDates", schedulableDetailsList.get(2));
-        model.addAttribute("schedulableEndDates", schedulableDetailsList.get(3));
+        // Schedulables aren't put in the page, as the calendar loads them for the months it shows (see getSchedulablesInRange)
 
         model.addAttribute("tab", 2);
 
         return "monthlyCalendar";
     }
 
-    /**
-     * Returns a list with four strings, each comma separated (actually ", " separated).
-     * The strings are, in order, the names, types, start dates, and end dates of the provided schedulable objects.
-     * Note: the dates are in "yyyy-mm-dd HH:mm" format.
-     * @param schedulableList list of schedulable objects
-     * @return list of 4 strings as described above
-     */
-    private List<String> getStringListFromSchedulables(List<Schedulable> schedulableList) {
-        ArrayList<String> schedulableDetailsList = new ArrayList<>();
-
-        ArrayList<String> schedulableNames = new ArrayList<>();
-        ArrayList<String> schedulableTypes = new ArrayList<>();
-        ArrayList<String> schedulableStartDates = new ArrayList<>();
-        ArrayList<String> schedulableEndDates = new ArrayList<>();
-
-        for (Schedulable schedulable: schedulableList) {
-            schedulableNames.add(schedulable.getName());
-            schedulableTypes.add(schedulable.getType());
-            schedulableStartDates.add(DateUtils.toDateTimeString(schedulable.getStartDate()));
-            schedulableEndDates.add(DateUtils.toDateTimeString(schedulable.getEndDate()));
-        }
-
-        schedulableDetailsList.add(String.join(", ", schedulableNames));
-        schedulableDetailsList.add(String.join(", ", schedulableTypes));
-        schedulableDetailsList.add(String.join(", ", schedulableStartDates));
-        schedulableDetailsList.add(String.join(", ", schedulableEndDates));
-
-        return schedulableDetailsList;
-    }
-
     /**
      * Post Mapping for when a sprint date is updated in the monthly calendar. Saves the changed sprint dates.
      * @param principal Current authentication state
@@ -154,9 +121,14 @@ public class MonthlyCalendarController extends PageController {
             // sprint does not exist
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Sprint " + sprintId + " does not exist");
         }
+        boolean moved = !sprintStartDate.equals(sprintToUpdate.getSprintStartDate());
         sprintToUpdate.setStartDate(sprintStartDate);
         sprintToUpdate.setEndDate(DateUtils.removeOneDayFromDate(sprintEndDate));
         sprintService.saveSprint(sprintToUpdate);
+        // Labels are in start date order, so they only change if the sprint's start has moved
+        if (moved) {
+            labelUtils.refreshProjectSprintLabels(sprintToUpdate.getParentProjectId());
+        }
 
         return "redirect:../monthlyCalendar/" + id;
     }
@@ -198,27 +170,39 @@ public class MonthlyCalendarController extends PageController {
 
 
     /**
-     * Get all schedulables of a given type.
+     * Gets a page of the schedulables of a given type in a project, optionally only the ones in a date range,
+     * so the calendar only needs to load the months it is showing.
      * @param id ID of the project the schedulables belong to
      * @param schedulableType Type of schedulable to be taken
-     * @return ResponseEntity object with the list of schedulables
+     * @param from the first day of the range, defaults to the start of the project
+     * @param to the day after the last day of the range, defaults to the day after the end of the project
+     * @param cursor the nextCursor from the previous page, if getting the next page
+     * @param limit the maximum number of schedulables to return
+     * @return ResponseEntity object with the page of schedulables, and the cursor for the next page if there is one
      */
     @GetMapping("/project/{id}/schedulables/{type}")
-    public ResponseEntity<List<Schedulable>> getAllSchedulables(
+    public ResponseEntity<SchedulablePage> getSchedulablesInRange(
             @PathVariable(name="id") int id,
-            @PathVariable(name="type") String schedulableType
+            @PathVariable(name="type") String schedulableType,
+            @RequestParam(name="from", required=false) @DateTimeFormat(pattern=DATE_FORMAT) Date from,
+            @RequestParam(name="to", required=false) @DateTimeFormat(pattern=DATE_FORMAT) Date to,
+            @RequestParam(name="cursor", required=false) String cursor,
+            @RequestParam(name="limit", defaultValue="500") int limit
     ){
-        List<Schedulable> schedulableList = new ArrayList<>();
-        if (EVENT_TYPE.equals(schedulableType)) {
-            schedulableList.addAll(eventService.getAllEvents());
-        } else if (DEADLINE_TYPE.equals(schedulableType)) {
-            schedulableList.addAll(deadlineService.getAllDeadlines());
-        } else if (MILESTONE_TYPE.equals(schedulableType)) {
-            schedulableList.addAll(milestoneService.getAllMilestones());
-        } else {
+        if (!List.of(EVENT_TYPE, DEADLINE_TYPE, MILESTONE_TYPE).contains(schedulableType)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, schedulableType + " is not a type of schedulable!");
         }
-        return new ResponseEntity<>(schedulableList, HttpStatus.OK);
+        if (from == null || to == null) {
+            Project project = projectService.getProjectById(id);
+            if (from == null) {
+                from = project.getProjectStartDate();
+            }
+            if (to == null) {
+                to = DateUtils.toDate(DateUtils.addOneDayToDate(project.getProjectEndDate()));
+            }
+        }
+        SchedulablePage page = schedulableSummaryService.getSchedulablesInRange(id, schedulableType, from, to, cursor, limit);
+        return new ResponseEntity<>(page, HttpStatus.OK);
     }
 
 }
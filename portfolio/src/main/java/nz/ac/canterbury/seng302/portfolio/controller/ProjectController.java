@@ -2,7 +2,7 @@ package nz.ac.canterbury.seng302.portfolio.controller;
 
 import nz.ac.canterbury.seng302.portfolio.controller.forms.ProjectForm;
 import nz.ac.canterbury.seng302.portfolio.model.Project;
-import nz.ac.canterbury.seng302.portfolio.model.Schedulable;
+import nz.ac.canterbury.seng302.portfolio.model.ReadOnlySchedulable;
 import nz.ac.canterbury.seng302.portfolio.model.Sprint;
 import nz.ac.canterbury.seng302.portfolio.model.ValidationError;
 import nz.ac.canterbury.seng302.portfolio.service.ProjectService;
@@ -75,7 +75,7 @@ public class ProjectController extends PageController {
 
         List<Sprint> sprintList = sprintService.getSprintsInProject(id);
 
-        List<Schedulable> schedulableList = detailsController.getAllSchedulablesInProject(id);
+        List<ReadOnlySchedulable> schedulableList = detailsController.getAllSchedulablesInProject(id);
 
         ResponseEntity<String> validationResponse = validateProject(projectForm, bindingResult, sprintList, schedulableList,
                 newProject.getProjectCreationDate());
@@ -108,7 +108,7 @@ public class ProjectController extends PageController {
      * Bad Request if there are errors, Ok if there are none
      */
     private ResponseEntity<String> validateProject(ProjectForm projectForm, BindingResult bindingResult,
-                                                   List<Sprint> sprintList, List<Schedulable> schedulableList,
+                                                   List<Sprint> sprintList, List<ReadOnlySchedulable> schedulableList,
                                                    Date creationDate) {
 
         if (bindingResult.hasErrors()) {
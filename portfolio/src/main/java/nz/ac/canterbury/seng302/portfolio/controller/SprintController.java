@@ -106,6 +106,8 @@ public class SprintController extends PageController {
         sprint.setSprintColour(sprintColour);
 
         Sprint savedSprint = sprintService.saveSprint(sprint);
+        // The new sprint might start before other sprints, so their labels could change
+        labelUtils.refreshProjectSprintLabels(projectId);
         return ResponseEntity.ok(String.valueOf(savedSprint.getId()));
     }
 
@@ -139,6 +141,7 @@ public class SprintController extends PageController {
 
         if (validationResponse.getStatusCode() == HttpStatus.OK) {
             Sprint sprint = sprintService.getSprintById(id);
+            Date oldStartDate = sprint.getSprintStartDate();
 
             /* Set (new) sprint details to the corresponding sprint */
             sprint.setSprintName(sprintForm.getName());
@@ -146,6 +149,10 @@ public class SprintController extends PageController {
             sprint.setEndDate(DateUtils.localDateToDate(sprintForm.getEndDate()));
             sprint.setSprintDescription(sprintForm.getDescription());
             sprintService.saveSprint(sprint);
+            // Labels are in start date order, so they only change if the sprint has moved
+            if (!sprint.getSprintStartDate().equals(oldStartDate)) {
+                labelUtils.refreshProjectSprintLabels(projectId);
+            }
 
             /* Redirect to the details' page when done */
             return new ResponseEntity<>("", HttpStatus.OK);
@@ -172,7 +179,9 @@ public class SprintController extends PageController {
             return new ResponseEntity<>("User not authorised.", HttpStatus.UNAUTHORIZED);
         }
         try {
+            int projectId = sprintService.getSprintById(sprintId).getParentProjectId();
             sprintService.deleteSprint(sprintId);
+            labelUtils.refreshProjectSprintLabels(projectId);
             return new ResponseEntity<>("Sprint deleted.", HttpStatus.OK);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -14,6 +14,8 @@ import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.*;
  * Deadline objects are stored in a table called Deadline, as it is an @Entity.
  */
 @Entity
+// Index for finding the deadlines in a project by date
+@Table(indexes = @Index(name = "idx_deadline_project_date", columnList = "parent_project_id, deadlineDate"))
 public class Deadline implements Schedulable {
 
     /** The id of this deadline. This id should be unique between all deadlines.*/
@@ -1,13 +1,35 @@
 package nz.ac.canterbury.seng302.portfolio.model;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
 import java.util.List;
 
+import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.DEADLINE_TYPE;
+
 @Repository
 public interface DeadlineRepository extends CrudRepository<Deadline, Integer> {
     List<Deadline> findByDeadlineName(String deadlineName);
     Deadline findDeadlineById(int id);
     List<Deadline> findDeadlineByParentProjectId(int parentProjectId);
+
+    // Summaries of the deadlines in a project that overlap the period [from, to), in start date order
+    String SUMMARY_QUERY = "SELECT new nz.ac.canterbury.seng302.portfolio.model.SchedulableSummary(" +
+            "d.id, '" + DEADLINE_TYPE + "', d.parentProject.id, d.deadlineName, d.deadlineDescription, d.deadlineDate, d.deadlineDate) FROM Deadline d " +
+            "WHERE d.parentProject.id = :projectId AND d.deadlineDate < :to AND d.deadlineDate >= :from";
+
+    @Query(SUMMARY_QUERY + " ORDER BY d.deadlineDate, d.id")
+    List<SchedulableSummary> findSummariesInRange(@Param("projectId") int projectId, @Param("from") Date from,
+                                                  @Param("to") Date to, Pageable pageable);
+
+    // As above, but only the ones after (afterStart, afterId) in start date order, for getting the next page
+    @Query(SUMMARY_QUERY + " AND (d.deadlineDate > :afterStart OR (d.deadlineDate = :afterStart AND d.id > :afterId))" +
+            " ORDER BY d.deadlineDate, d.id")
+    List<SchedulableSummary> findSummariesInRangeAfter(@Param("projectId") int projectId, @Param("from") Date from,
+                                                       @Param("to") Date to, @Param("afterStart") Date afterStart,
+                                                       @Param("afterId") int afterId, Pageable pageable);
 }
@@ -17,6 +17,8 @@ import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.*;
  * Event objects are stored in a table called Event, as it is an @Entity.
  */
 @Entity
+// Index for finding the events in a project by date
+@Table(indexes = @Index(name = "idx_event_project_date", columnList = "parent_project_id, eventStartDate, eventEndDate"))
 public class Event implements Schedulable {
 
     /** The id of this event. This id should be unique between all events.*/
@@ -1,12 +1,34 @@
 package nz.ac.canterbury.seng302.portfolio.model;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Date;
 import java.util.List;
 
+import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.EVENT_TYPE;
+
 @Repository
 public interface EventRepository extends CrudRepository<Event, Integer> {
     List<Event> findByEventName(String eventName);
     Event findEventById(int id);
     List<Event> findEventByParentProjectId(int parentProjectId);
+
+    // Summaries of the events in a project that overlap the period [from, to), in start date order
+    String SUMMARY_QUERY = "SELECT new nz.ac.canterbury.seng302.portfolio.model.SchedulableSummary(" +
+            "e.id, '" + EVENT_TYPE + "', e.parentProject.id, e.eventName, e.eventDescription, e.eventStartDate, e.eventEndDate) FROM Event e " +
+            "WHERE e.parentProject.id = :projectId AND e.eventStartDate < :to AND e.eventEndDate >= :from";
+
+    @Query(SUMMARY_QUERY + " ORDER BY e.eventStartDate, e.id")
+    List<SchedulableSummary> findSummariesInRange(@Param("projectId") int projectId, @Param("from") Date from,
+                                                  @Param("to") Date to, Pageable pageable);
+
+    // As above, but only the ones after (afterStart, afterId) in start date order, for getting the next page
+    @Query(SUMMARY_QUERY + " AND (e.eventStartDate > :afterStart OR (e.eventStartDate = :afterStart AND e.id > :afterId))" +
+            " ORDER BY e.eventStartDate, e.id")
+    List<SchedulableSummary> findSummariesInRangeAfter(@Param("projectId") int projectId, @Param("from") Date from,
+                                                       @Param("to") Date to, @Param("afterStart") Date afterStart,
+                                                       @Param("afterId") int afterId, Pageable pageable);
 }
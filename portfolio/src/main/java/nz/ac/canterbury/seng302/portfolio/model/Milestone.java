@@ -16,6 +16,8 @@ import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.*;
  * Milestone objects are stored in a table called Milestone, as it is an @Entity.
  */
 @Entity
+// Index for finding the milestones in a project by date
+@Table(indexes = @Index(name = "idx_milestone_project_date", columnList = "parent_project_id, milestoneDate"))
 public class Milestone implements Schedulable {
 
     /** The id of this milestone. This id should be unique between all milestones.*/
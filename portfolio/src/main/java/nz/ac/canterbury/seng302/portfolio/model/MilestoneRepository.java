@@ -1,9 +1,15 @@
 package nz.ac.canterbury.seng302.portfolio.model;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Date;
 import java.util.List;
 
+import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.MILESTONE_TYPE;
+
 /**
  * Repository to query data related to milestone.
  */
@@ -12,4 +18,20 @@ public interface MilestoneRepository extends CrudRepository<Milestone, Integer>
     List<Milestone> findByMilestoneName(String milestoneName);
     Milestone findMilestoneById(int id);
     List<Milestone> findMilestoneByParentProjectId(int parentProjectId);
+
+    // Summaries of the milestones in a project that overlap the period [from, to), in start date order
+    String SUMMARY_QUERY = "SELECT new nz.ac.canterbury.seng302.portfolio.model.SchedulableSummary(" +
+            "m.id, '" + MILESTONE_TYPE + "', m.parentProject.id, m.milestoneName, m.milestoneDescription, m.milestoneDate, m.milestoneDate) FROM Milestone m " +
+            "WHERE m.parentProject.id = :projectId AND m.milestoneDate < :to AND m.milestoneDate >= :from";
+
+    @Query(SUMMARY_QUERY + " ORDER BY m.milestoneDate, m.id")
+    List<SchedulableSummary> findSummariesInRange(@Param("projectId") int projectId, @Param("from") Date from,
+                                                  @Param("to") Date to, Pageable pageable);
+
+    // As above, but only the ones after (afterStart, afterId) in start date order, for getting the next page
+    @Query(SUMMARY_QUERY + " AND (m.milestoneDate > :afterStart OR (m.milestoneDate = :afterStart AND m.id > :afterId))" +
+            " ORDER BY m.milestoneDate, m.id")
+    List<SchedulableSummary> findSummariesInRangeAfter(@Param("projectId") int projectId, @Param("from") Date from,
+                                                       @Param("to") Date to, @Param("afterStart") Date afterStart,
+                                                       @Param("afterId") int afterId, Pageable pageable);
 }
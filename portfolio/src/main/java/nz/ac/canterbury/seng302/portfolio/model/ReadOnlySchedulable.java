@@ -0,0 +1,66 @@
+package nz.ac.canterbury.seng302.portfolio.model;
+
+import java.util.Date;
+import java.util.List;
+
+import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.DEFAULT_COLOUR;
+
+/**
+ * The parts of an event, deadline or milestone that can be read without changing it.
+ * Code that only displays or checks schedulables should take this, so it works with both the entities
+ * (see {@link Schedulable}) and the read-only summaries loaded by queries (see {@link SchedulableSummary}).
+ * Objects with only one date should return the same date for getStartDate and getEndDate.
+ */
+public interface ReadOnlySchedulable {
+    int getId();
+    String getName();
+    String getDescription();
+    Date getStartDate();
+    Date getEndDate();
+
+    /**
+     * Gets the start day of this schedulable as a String.
+     * @return format "yyyy-mm-dd"
+     */
+    String getStartDay();
+    String getStartTime();
+    /**
+     * Gets the end day of this schedulable as a String.
+     * If there is no end date, returns the same as getStartDay().
+     * @return format "yyyy-mm-dd"
+     */
+    String getEndDay();
+    String getEndTime();
+
+    String getType();
+
+    /**
+     * Determines the correct colour for this schedulable based on the list of sprints.
+     * Specifically, this function returns the colour of the first sprint it finds which
+     * overlaps the start date of the schedulable (or end date if the end parameter is true).
+     * If it finds no sprint, it returns the default colour determined by the system.
+     * @param sprints a List object of sprints to choose a colour from.
+     * @param end {boolean} fetch the colour at the end of the schedulable, instead of the start.
+     *            For some schedulables, the start and end date will be the same so the value of this
+     *            parameter will not change the outcome.
+     */
+    default String determineColour(List<Sprint> sprints, boolean end) {
+        Date comparisonDate = getStartDate();
+        if (end) {
+            comparisonDate = getEndDate();
+        }
+
+        for (Sprint checkedSprint : sprints) {
+            Date sprintStart = checkedSprint.getSprintStartDate();
+            Date sprintEnd = checkedSprint.getSprintEndDate();
+
+            /* Sprints are assumed to be active on their start and end dates, so we also check for equality */
+            if ((sprintStart.before(comparisonDate) || sprintStart.equals(comparisonDate)) &&
+                    (sprintEnd.after(comparisonDate) || sprintEnd.equals(comparisonDate))) {
+                return checkedSprint.getSprintColour();
+            }
+        }
+
+        return DEFAULT_COLOUR;
+    }
+}
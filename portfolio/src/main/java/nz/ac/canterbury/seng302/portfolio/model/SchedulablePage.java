@@ -0,0 +1,30 @@
+package nz.ac.canterbury.seng302.portfolio.model;
+
+import java.util.List;
+
+/**
+ * One page of the schedulables in a date range, and the cursor to pass back to get the next page.
+ */
+public class SchedulablePage {
+
+    private final List<SchedulableSummary> schedulables;
+    private final String nextCursor;
+
+    /**
+     * Creates a page of schedulables.
+     * @param schedulables the schedulables in this page, in start date order
+     * @param nextCursor the cursor for the next page, or null if this is the last page
+     */
+    public SchedulablePage(List<SchedulableSummary> schedulables, String nextCursor) {
+        this.schedulables = schedulables;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<SchedulableSummary> getSchedulables() {
+        return schedulables;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
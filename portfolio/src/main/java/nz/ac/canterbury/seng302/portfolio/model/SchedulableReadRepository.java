@@ -0,0 +1,67 @@
+package nz.ac.canterbury.seng302.portfolio.model;
+
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.*;
+
+/**
+ * Read-only repository for getting the events, deadlines and milestones in a project together.
+ * They're in separate tables, so this uses one UNION ALL query rather than a query for each table,
+ * and the database sorts them. The (parent_project_id, date) indexes on each table cover the filter and sort.
+ */
+@Repository
+public class SchedulableReadRepository {
+
+    // Types in the order they're sorted in when they start at the same time, by their type_order column
+    private static final String[] TYPES = {EVENT_TYPE, DEADLINE_TYPE, MILESTONE_TYPE};
+
+    private static final String PROJECT_SCHEDULABLES_QUERY =
+            "SELECT s.id, s.type_order, s.schedulable_name, s.schedulable_description, s.start_date, s.end_date FROM (" +
+            "SELECT e.id AS id, 0 AS type_order, e.event_name AS schedulable_name, " +
+            "e.event_description AS schedulable_description, e.event_start_date AS start_date, e.event_end_date AS end_date " +
+            "FROM event e WHERE e.parent_project_id = :projectId " +
+            "UNION ALL " +
+            "SELECT d.id, 1, d.deadline_name, d.deadline_description, d.deadline_date, d.deadline_date " +
+            "FROM deadline d WHERE d.parent_project_id = :projectId " +
+            "UNION ALL " +
+            "SELECT m.id, 2, m.milestone_name, m.milestone_description, m.milestone_date, m.milestone_date " +
+            "FROM milestone m WHERE m.parent_project_id = :projectId" +
+            ") s ORDER BY s.start_date, s.type_order, s.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Gets all the events, deadlines and milestones in a project.
+     * @param projectId the id of the project
+     * @return summaries of the project's schedulables, ordered by start date, then type (events, deadlines,
+     * milestones), then id
+     */
+    public List<SchedulableSummary> findSchedulablesByParentProjectId(int projectId) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(PROJECT_SCHEDULABLES_QUERY)
+                .setParameter("projectId", projectId)
+                .getResultList();
+
+        List<SchedulableSummary> summaries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            summaries.add(new SchedulableSummary(((Number) row[0]).intValue(), TYPES[((Number) row[1]).intValue()],
+                    projectId, (String) row[2], (String) row[3], toDate(row[4]), toDate(row[5])));
+        }
+        return summaries;
+    }
+
+    /**
+     * JDBC drivers return timestamps as java.sql.Timestamp, which doesn't compare equal to a java.util.Date
+     * with the same time. This converts them to plain Dates like the entities have.
+     */
+    private static Date toDate(Object timestamp) {
+        return new Date(((Date) timestamp).getTime());
+    }
+}
@@ -0,0 +1,100 @@
+package nz.ac.canterbury.seng302.portfolio.model;
+
+import nz.ac.canterbury.seng302.portfolio.utils.DateUtils;
+
+import java.util.Date;
+
+import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.MILESTONE_TYPE;
+
+/**
+ * A read-only copy of an event, deadline or milestone, with the fields needed to display it.
+ * Repositories create these directly in their queries, so events, deadlines and milestones can be loaded
+ * together by one query (see {@link SchedulableReadRepository}) instead of as three kinds of entity.
+ *
+ * Summaries aren't entities, so changing one wouldn't change the database. They only have getters, and only
+ * implement {@link ReadOnlySchedulable}; edit the event, deadline or milestone itself instead.
+ * The parent project is only kept as an id, so a summary never needs the project to be loaded.
+ */
+public final class SchedulableSummary implements ReadOnlySchedulable {
+
+    private final int id;
+    private final String type;
+    private final int parentProjectId;
+    private final String name;
+    private final String description;
+    private final Date startDate;
+    private final Date endDate;
+
+    /**
+     * Creates a summary of a schedulable. Used by the repository queries that select summaries.
+     * @param id the id of the schedulable
+     * @param type the type of the schedulable (event, deadline or milestone)
+     * @param parentProjectId the id of the project the schedulable is in
+     * @param name the name of the schedulable
+     * @param description the description of the schedulable
+     * @param startDate the start date of the schedulable
+     * @param endDate the end date of the schedulable, which is the same as the start date for deadlines and milestones
+     */
+    public SchedulableSummary(int id, String type, int parentProjectId, String name, String description,
+                              Date startDate, Date endDate) {
+        this.id = id;
+        this.type = type;
+        this.parentProjectId = parentProjectId;
+        this.name = name;
+        this.description = description;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public int getParentProjectId() {
+        return parentProjectId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    public String getStartDay() {
+        return DateUtils.toString(startDate);
+    }
+
+    /**
+     * Gets the start time of this schedulable, like the entities do.
+     * @return format "HH:mm", or null for milestones, which don't have a time
+     */
+    public String getStartTime() {
+        return MILESTONE_TYPE.equals(type) ? null : DateUtils.toDateTimeString(startDate).substring(11, 16);
+    }
+
+    public String getEndDay() {
+        return DateUtils.toString(endDate);
+    }
+
+    /**
+     * Gets the end time of this schedulable, like the entities do.
+     * @return format "HH:mm", or null for milestones, which don't have a time
+     */
+    public String getEndTime() {
+        return MILESTONE_TYPE.equals(type) ? null : DateUtils.toDateTimeString(endDate).substring(11, 16);
+    }
+}
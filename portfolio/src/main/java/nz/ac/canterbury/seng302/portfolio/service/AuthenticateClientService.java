@@ -23,6 +23,12 @@ public class AuthenticateClientService {
         return authenticationStub.authenticate(authRequest);
     }
 
+    /**
+     * Asks the IdP whether the session token sent with this request is valid
+     * @return The AuthState of the token's user
+     * @throws StatusRuntimeException If the IdP couldn't be reached, or didn't answer within the deadline
+     *                                 (see DeadlineClientInterceptor)
+     */
     public AuthState checkAuthState() throws StatusRuntimeException {
         return authenticationStub.checkAuthState(Empty.newBuilder().build());
     }
@@ -9,11 +9,15 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
+import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.DEADLINE_TYPE;
+
 @Service
 public class DeadlineService {
 
     @Autowired
     private DeadlineRepository repository;
+    @Autowired
+    private SchedulePlacementService schedulePlacementService;
 
     /**
      * Get list of all deadlines
@@ -65,6 +69,7 @@ public class DeadlineService {
      */
     public void deleteDeadline(int deadlineId) {
         repository.deleteById(deadlineId);
+        schedulePlacementService.schedulableDeleted(DEADLINE_TYPE, deadlineId);
     }
 
     /**
@@ -73,6 +78,10 @@ public class DeadlineService {
      * @param deadline deadline to be added to the database
      */
     public Deadline saveDeadline(Deadline deadline) {
-        return repository.save(deadline);
+        Deadline savedDeadline = repository.save(deadline);
+        if (savedDeadline != null) {
+            schedulePlacementService.schedulableSaved(savedDeadline);
+        }
+        return savedDeadline;
     }
 }
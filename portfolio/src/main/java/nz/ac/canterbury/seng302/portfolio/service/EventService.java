@@ -9,6 +9,8 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
+import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.EVENT_TYPE;
+
 /**
  * Service class holding methods used to access the underlying event repository methods,
  * which actually touch the database.
@@ -21,6 +23,8 @@ public class EventService {
 
     @Autowired
     private EventRepository repository;
+    @Autowired
+    private SchedulePlacementService schedulePlacementService;
 
     /**
      * Get list of all events
@@ -65,6 +69,7 @@ public class EventService {
      */
     public void deleteEvent(int eventId) {
         repository.deleteById(eventId);
+        schedulePlacementService.schedulableDeleted(EVENT_TYPE, eventId);
     }
 
     /**
@@ -73,7 +78,11 @@ public class EventService {
      * @param event event to be added to the database
      */
     public Event saveEvent(Event event) {
-        return repository.save(event);
+        Event savedEvent = repository.save(event);
+        if (savedEvent != null) {
+            schedulePlacementService.schedulableSaved(savedEvent);
+        }
+        return savedEvent;
     }
 
 }
@@ -1,24 +1,33 @@
 package nz.ac.canterbury.seng302.portfolio.service;
 
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import nz.ac.canterbury.seng302.shared.util.FileUploadStatus;
 import nz.ac.canterbury.seng302.shared.util.FileUploadStatusResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receives the IdP's response to a profile photo upload.
+ * The response arrives on a gRPC thread, so callers wait for it with {@link #awaitResponse(long, TimeUnit)}.
+ */
 public class FileUploadObserver implements StreamObserver<FileUploadStatusResponse> {
 
     private static final Logger logger = LoggerFactory.getLogger(FileUploadObserver.class);
 
-
-    private Boolean uploadSuccessful = null;
-    private String uploadMessage = "";
+    private final CountDownLatch responded = new CountDownLatch(1);
+    private volatile Boolean uploadSuccessful = null;
+    private volatile String uploadMessage = "";
 
     @Override
     public void onNext(FileUploadStatusResponse response) {
         uploadSuccessful = (response.getStatus() == FileUploadStatus.SUCCESS);
         uploadMessage = response.getMessage();
         logger.info("File upload status {}, Message: {}", response.getStatus(), response.getMessage());
+        responded.countDown();
     }
 
     public Boolean isUploadSuccessful() {
@@ -29,13 +38,32 @@ public class FileUploadObserver implements StreamObserver<FileUploadStatusRespon
         return uploadMessage;
     }
 
+    /**
+     * Waits until the IdP has said whether the upload worked, or the call has failed.
+     * @param timeout the longest time to wait
+     * @param unit the unit of <code>timeout</code>
+     * @return true if there was a response, false if the upload is still being processed
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean awaitResponse(long timeout, TimeUnit unit) throws InterruptedException {
+        return responded.await(timeout, unit);
+    }
+
     @Override
     public void onError(Throwable t) {
-        // Isn't needed to be implemented at this stage
+        uploadSuccessful = false;
+        String description = Status.fromThrowable(t).getDescription();
+        uploadMessage = description != null ? description : "the identity provider couldn't be reached";
+        logger.error("File upload failed: {}", t.getMessage());
+        responded.countDown();
     }
 
     @Override
     public void onCompleted() {
-        // Isn't needed to be implemented at this stage
+        // Only reached after onNext, or with no response if the IdP ended the call without one
+        if (uploadSuccessful == null) {
+            uploadSuccessful = false;
+        }
+        responded.countDown();
     }
 }
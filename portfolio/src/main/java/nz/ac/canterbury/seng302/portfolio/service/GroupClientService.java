@@ -148,4 +148,39 @@ public class GroupClientService {
         }
     }
 
+    /**
+     * Sends a request to the identity provider to get a page of a group's members
+     * @param groupId The id of the group to get members of
+     * @param offset What "page" of the members you want. Affected by the ordering and page size. This starts at 0.
+     * @param limit How many members you want
+     * @param orderBy How the list is ordered, using the same options as UserAccountClientService.getPaginatedUsers
+     * @param isAscending Is the list in ascending or descending order
+     * @return A PaginatedUsersResponse containing the members in that page, and how many members the group has
+     * @throws IllegalArgumentException Thrown if the provided orderBy string isn't one of the valid options
+     */
+    public PaginatedUsersResponse getPaginatedGroupMembers(final int groupId, final int offset, final int limit,
+                                                           final String orderBy, final boolean isAscending) throws IllegalArgumentException {
+        PaginationRequestOptions requestOptions = PaginationRequestOptions.newBuilder()
+                .setOffset(offset)
+                .setLimit(limit)
+                .setOrderBy(orderBy)
+                .setIsAscendingOrder(isAscending)
+                .build();
+
+        GetPaginatedGroupMembersRequest paginatedGroupMembersRequest = GetPaginatedGroupMembersRequest.newBuilder()
+                .setGroupId(groupId)
+                .setPaginationRequestOptions(requestOptions)
+                .build();
+        try {
+            return groupStub.getPaginatedGroupMembers(paginatedGroupMembersRequest);
+        } catch (StatusRuntimeException e) {
+            if (e.getStatus().getCode() == Status.INVALID_ARGUMENT.getCode()) {
+                // Didn't order by a valid column
+                throw new IllegalArgumentException(e.getMessage());
+            } else {
+                throw e;
+            }
+        }
+    }
+
 }
@@ -9,6 +9,8 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
+import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.MILESTONE_TYPE;
+
 /**
  * Service class handles the business requirements that relates to milestones.
  */
@@ -17,6 +19,8 @@ public class MilestoneService {
 
     @Autowired
     private MilestoneRepository repository;
+    @Autowired
+    private SchedulePlacementService schedulePlacementService;
 
     /**
      * Get list of all milestones
@@ -71,10 +75,15 @@ public class MilestoneService {
      */
     public void deleteMilestone(int milestoneId) {
         repository.deleteById(milestoneId);
+        schedulePlacementService.schedulableDeleted(MILESTONE_TYPE, milestoneId);
     }
 
 
     public Milestone saveMilestone(Milestone milestone) {
-        return repository.save(milestone);
+        Milestone savedMilestone = repository.save(milestone);
+        if (savedMilestone != null) {
+            schedulePlacementService.schedulableSaved(savedMilestone);
+        }
+        return savedMilestone;
     }
 }
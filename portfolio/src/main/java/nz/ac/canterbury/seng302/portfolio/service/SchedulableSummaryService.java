@@ -0,0 +1,107 @@
+package nz.ac.canterbury.seng302.portfolio.service;
+
+import nz.ac.canterbury.seng302.portfolio.model.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Date;
+import java.util.List;
+
+import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.*;
+
+/**
+ * Service for getting summaries of the schedulables in a project that happen in a date range, a page at a time.
+ * The filtering by project and date is done by the database, so only the requested schedulables are loaded.
+ *
+ * Pages are in start date order. Each page comes with a cursor (the start date and id of its last schedulable),
+ * which is passed back to get the schedulables after it. Unlike page numbers, the cursor still works
+ * if schedulables are added or deleted in between requests.
+ */
+@Service
+public class SchedulableSummaryService {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private DeadlineRepository deadlineRepository;
+    @Autowired
+    private MilestoneRepository milestoneRepository;
+    @Autowired
+    private SchedulableReadRepository schedulableReadRepository;
+
+    /**
+     * Gets all the events, deadlines and milestones in a project, with one database query.
+     * @param projectId the id of the project
+     * @return summaries of the project's schedulables, in start date order
+     */
+    public List<SchedulableSummary> getSchedulablesInProject(int projectId) {
+        return schedulableReadRepository.findSchedulablesByParentProjectId(projectId);
+    }
+
+    /**
+     * Gets a page of summaries of the schedulables of one type in a project that overlap a date range.
+     * @param projectId the id of the project
+     * @param type the type of schedulable (event, deadline or milestone)
+     * @param from the start of the range (inclusive)
+     * @param to the end of the range (exclusive)
+     * @param cursor the nextCursor of the previous page, or null to get the first page
+     * @param limit the maximum number of schedulables in the page, at most MAX_PAGE_SIZE
+     * @return the page of schedulables, with the cursor for the next page if there might be more
+     * @throws ResponseStatusException if the type, cursor or limit is invalid
+     */
+    public SchedulablePage getSchedulablesInRange(int projectId, String type, Date from, Date to, String cursor, int limit)
+            throws ResponseStatusException {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Pageable page = PageRequest.of(0, limit);
+        List<SchedulableSummary> summaries;
+        if (cursor == null) {
+            summaries = switch (type) {
+                case EVENT_TYPE -> eventRepository.findSummariesInRange(projectId, from, to, page);
+                case DEADLINE_TYPE -> deadlineRepository.findSummariesInRange(projectId, from, to, page);
+                case MILESTONE_TYPE -> milestoneRepository.findSummariesInRange(projectId, from, to, page);
+                default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, type + " is not a type of schedulable!");
+            };
+        } else {
+            Date afterStart = new Date(parseCursorTime(cursor));
+            int afterId = parseCursorId(cursor);
+            summaries = switch (type) {
+                case EVENT_TYPE -> eventRepository.findSummariesInRangeAfter(projectId, from, to, afterStart, afterId, page);
+                case DEADLINE_TYPE -> deadlineRepository.findSummariesInRangeAfter(projectId, from, to, afterStart, afterId, page);
+                case MILESTONE_TYPE -> milestoneRepository.findSummariesInRangeAfter(projectId, from, to, afterStart, afterId, page);
+                default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, type + " is not a type of schedulable!");
+            };
+        }
+
+        // A full page means there might be more after it
+        String nextCursor = null;
+        if (summaries.size() == limit) {
+            SchedulableSummary last = summaries.get(summaries.size() - 1);
+            nextCursor = last.getStartDate().getTime() + "_" + last.getId();
+        }
+        return new SchedulablePage(summaries, nextCursor);
+    }
+
+    private static long parseCursorTime(String cursor) {
+        try {
+            return Long.parseLong(cursor.substring(0, cursor.indexOf('_')));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+        }
+    }
+
+    private static int parseCursorId(String cursor) {
+        try {
+            return Integer.parseInt(cursor.substring(cursor.indexOf('_') + 1));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+        }
+    }
+}
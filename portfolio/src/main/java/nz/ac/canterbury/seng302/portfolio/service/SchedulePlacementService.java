@@ -0,0 +1,138 @@
+package nz.ac.canterbury.seng302.portfolio.service;
+
+import nz.ac.canterbury.seng302.portfolio.model.*;
+import nz.ac.canterbury.seng302.portfolio.utils.ExpiringCache;
+import nz.ac.canterbury.seng302.portfolio.utils.ScheduleIndex;
+import nz.ac.canterbury.seng302.portfolio.utils.SchedulableMessageOutput;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This service works out where schedulables are displayed on the project details page, for websocket updates.
+ * It keeps a {@link ScheduleIndex} of the sprints and schedulables in each project that has been updated recently,
+ * so an update doesn't need to load and sort every sprint and schedulable in the project.
+ *
+ * The sprint, event, deadline and milestone services tell this service whenever they save or delete something,
+ * which keeps the indexes up to date. If that happens inside a transaction, the index is only changed once the
+ * transaction commits, so a rolled back change never shows up in it. At most <code>schedule-index.max-projects</code>
+ * indexes are kept, and each one is rebuilt from the database after <code>schedule-index.max-age-seconds</code>,
+ * in case the database was changed some other way.
+ */
+@Service
+public class SchedulePlacementService {
+
+    @Autowired
+    private SprintRepository sprintRepository;
+    @Autowired
+    private SchedulableReadRepository schedulableReadRepository;
+
+    // Indexes by project id. ScheduleIndex isn't thread-safe, so every use of an index is synchronized on this service
+    private final ExpiringCache<Integer, ScheduleIndex> indexes;
+
+    /**
+     * Creates the service with the configured index limits
+     * @param maxAgeSeconds how long an index is used for before it is rebuilt from the database
+     * @param maxProjects how many projects' indexes are kept at once; the least recently used one is dropped first
+     */
+    public SchedulePlacementService(@Value("${schedule-index.max-age-seconds:300}") long maxAgeSeconds,
+                                    @Value("${schedule-index.max-projects:100}") int maxProjects) {
+        this.indexes = new ExpiringCache<>(maxAgeSeconds, TimeUnit.SECONDS, maxProjects);
+    }
+
+    /**
+     * Finds where a schedulable is displayed on the project details page.
+     * @param schedulable the schedulable that was updated
+     * @return a SchedulableMessageOutput with the schedulable's information and location
+     */
+    public synchronized SchedulableMessageOutput getPlacement(Schedulable schedulable) {
+        return getIndex(schedulable.getParentProject().getId()).place(schedulable);
+    }
+
+    /**
+     * Updates the index of a sprint's project after the sprint is saved.
+     * @param sprint the sprint that was saved
+     */
+    public void sprintSaved(Sprint sprint) {
+        afterCommit(() -> {
+            ScheduleIndex index = indexes.get(sprint.getParentProjectId());
+            if (index != null) {
+                index.putSprint(sprint);
+            }
+        });
+    }
+
+    /**
+     * Removes a deleted sprint from the indexes.
+     * @param sprintId the id of the sprint that was deleted
+     */
+    public void sprintDeleted(int sprintId) {
+        afterCommit(() -> indexes.forEachValue(index -> index.removeSprint(sprintId)));
+    }
+
+    /**
+     * Updates the index of a schedulable's project after the schedulable is saved.
+     * @param schedulable the event, deadline or milestone that was saved
+     */
+    public void schedulableSaved(Schedulable schedulable) {
+        if (schedulable.getParentProject() == null) {
+            return;
+        }
+        int projectId = schedulable.getParentProject().getId();
+        afterCommit(() -> {
+            ScheduleIndex index = indexes.get(projectId);
+            if (index != null) {
+                index.putSchedulable(schedulable);
+            }
+        });
+    }
+
+    /**
+     * Removes a deleted schedulable from the indexes.
+     * @param type the type of the schedulable that was deleted
+     * @param id the id of the schedulable that was deleted
+     */
+    public void schedulableDeleted(String type, int id) {
+        afterCommit(() -> indexes.forEachValue(index -> index.removeSchedulable(type, id)));
+    }
+
+    /**
+     * Runs a change to the indexes once the current transaction has committed, or straight away if there isn't one.
+     * @param change the change to make
+     */
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyChange(change);
+                }
+            });
+        } else {
+            applyChange(change);
+        }
+    }
+
+    private synchronized void applyChange(Runnable change) {
+        change.run();
+    }
+
+    /**
+     * Gets the index for a project, building it from the database if there isn't one or it is too old.
+     * @param projectId the id of the project
+     * @return the index of the project's sprints and schedulables
+     */
+    private ScheduleIndex getIndex(int projectId) {
+        ScheduleIndex index = indexes.get(projectId);
+        if (index == null) {
+            index = new ScheduleIndex(sprintRepository.findByParentProjectId(projectId),
+                    schedulableReadRepository.findSchedulablesByParentProjectId(projectId));
+            indexes.put(projectId, index);
+        }
+        return index;
+    }
+}
@@ -5,6 +5,7 @@ import nz.ac.canterbury.seng302.portfolio.model.Sprint;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
@@ -13,6 +14,9 @@ import java.util.List;
  * It has methods to re-allocate sprint labels for one or all projects,
  * and to get the next available sprint label for a given project.
  *
+ * Labels are stored with the sprints, so they only need to be refreshed when a sprint is created, deleted or has its
+ * dates changed. Refreshing only saves the sprints whose labels actually changed, in one batch.
+ *
  * As this is a service, instantiate it with an @Autowired annotation as you would any other service.
  */
 @Service
@@ -45,10 +49,17 @@ public class SprintLabelService {
     public void refreshProjectSprintLabels(int projectId) {
         List<Sprint> projectSprints = sprintService.getSprintsInProject(projectId);
         projectSprints.sort(Comparator.comparing(Sprint::getSprintStartDate));
+        List<Sprint> changedSprints = new ArrayList<>();
         for (int i = 0; i < projectSprints.size(); i++) {
             Sprint sprint = projectSprints.get(i);
-            sprint.setSprintLabel(SPRINT_LABEL_BASE + (i + SPRINT_LABEL_OFFSET));
-            sprintService.saveSprint(sprint);
+            String label = SPRINT_LABEL_BASE + (i + SPRINT_LABEL_OFFSET);
+            if (!label.equals(sprint.getSprintLabel())) {
+                sprint.setSprintLabel(label);
+                changedSprints.add(sprint);
+            }
+        }
+        if (!changedSprints.isEmpty()) {
+            sprintService.saveSprints(changedSprints);
         }
     }
 
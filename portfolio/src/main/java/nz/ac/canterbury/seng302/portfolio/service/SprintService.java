@@ -22,6 +22,8 @@ import java.util.List;
 public class SprintService {
     @Autowired
     private SprintRepository repository;
+    @Autowired
+    private SchedulePlacementService schedulePlacementService;
 
     /**
      * Get list of all sprints
@@ -66,6 +68,7 @@ public class SprintService {
      */
     public void deleteSprint(int sprintId) {
         repository.deleteById(sprintId);
+        schedulePlacementService.sprintDeleted(sprintId);
     }
 
     /**
@@ -74,6 +77,19 @@ public class SprintService {
      * @param sprint sprint to be added to the database
      */
     public Sprint saveSprint(Sprint sprint) {
-        return repository.save(sprint);
+        Sprint savedSprint = repository.save(sprint);
+        if (savedSprint != null) {
+            schedulePlacementService.sprintSaved(savedSprint);
+        }
+        return savedSprint;
+    }
+
+    /**
+     * Saves several sprints at once, in a single transaction, e.g. after their labels have changed.
+     * Only use this for changes that don't affect sprint dates, as it doesn't update the schedule index.
+     * @param sprints the sprints to be saved
+     */
+    public void saveSprints(List<Sprint> sprints) {
+        repository.saveAll(sprints);
     }
 }
@@ -1,12 +1,17 @@
 package nz.ac.canterbury.seng302.portfolio.service;
 
-import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import io.grpc.stub.StreamObserver;
 import net.devh.boot.grpc.client.inject.GrpcClient;
+import nz.ac.canterbury.seng302.portfolio.utils.BatchLoader;
 import nz.ac.canterbury.seng302.shared.identityprovider.*;
 import nz.ac.canterbury.seng302.shared.util.PaginationRequestOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 
 import io.grpc.Status;
@@ -16,6 +21,14 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class UserAccountClientService {
@@ -28,6 +41,30 @@ public class UserAccountClientService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserAccountClientService.class);
 
+    // Photos are sent to the identity provider in chunks of this many bytes
+    private static final int PHOTO_CHUNK_SIZE = 64 * 1024;
+
+    // Single user lookups made around the same time, sent to the identity provider as one GetUsersByIds call
+    private final BatchLoader<Integer, UserResponse> userLoader;
+    private final long batchTimeoutMillis;
+
+    /**
+     * Creates the service, with the configured batching of user lookups
+     * @param userBatchScheduler Sends the batches of user lookups
+     * @param batchWindowMillis How many milliseconds a batch waits for more lookups before it is sent
+     * @param maxBatchSize The most users in one batch
+     * @param batchTimeoutMillis How many milliseconds to wait for the identity provider to answer a batch
+     */
+    @Autowired
+    public UserAccountClientService(@Qualifier("userBatchScheduler") TaskScheduler userBatchScheduler,
+                                    @Value("${user-batch.window-ms:5}") long batchWindowMillis,
+                                    @Value("${user-batch.max-size:100}") int maxBatchSize,
+                                    @Value("${user-batch.idp-timeout-ms:2000}") long batchTimeoutMillis) {
+        this.userLoader = new BatchLoader<>(this::getUsersByIds, userBatchScheduler,
+                Duration.ofMillis(batchWindowMillis), maxBatchSize);
+        this.batchTimeoutMillis = batchTimeoutMillis;
+    }
+
     /**
      * Sends a request to the identity provider to register a new user
      * @param username The new user's username
@@ -78,6 +115,56 @@ public class UserAccountClientService {
         }
     }
 
+    /**
+     * Gets a user account from the identity provider, in a batch with any other users looked up at around the
+     * same time, giving up if it takes too long
+     * @param id The id of the user account to get
+     * @param timeoutMillis How many milliseconds to wait for the identity provider
+     * @return A UserResponse with the attributes of the requested user account,
+     * or <code>null</code> if the user doesn't exist or the identity provider didn't answer in time
+     */
+    public UserResponse getUserAccountById(final int id, final long timeoutMillis) {
+        try {
+            return loadUserAccountById(id).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Gets a user account from the identity provider, along with any other users looked up at around the same time.
+     * Pages that need several users can call this for each of them, then wait for the results,
+     * and only one call is made to the identity provider.
+     * @param id The id of the user account to get
+     * @return Completes with the user account, or <code>null</code> if the user doesn't exist.
+     * Completes exceptionally if the identity provider couldn't be reached
+     */
+    public CompletableFuture<UserResponse> loadUserAccountById(final int id) {
+        return userLoader.load(id);
+    }
+
+    /**
+     * Gets several user accounts from the identity provider in one call
+     * @param ids The ids of the user accounts to get
+     * @return The user accounts that exist, by id, in the order their ids were given
+     * @throws StatusRuntimeException If the identity provider couldn't be reached, or rejected the request
+     */
+    public Map<Integer, UserResponse> getUsersByIds(final Collection<Integer> ids) {
+        GetUsersByIdsRequest request = GetUsersByIdsRequest.newBuilder()
+                .addAllIds(ids)
+                .build();
+        GetUsersByIdsResponse response = userAccountStub.withDeadlineAfter(batchTimeoutMillis, TimeUnit.MILLISECONDS)
+                .getUsersByIds(request);
+        Map<Integer, UserResponse> usersById = new LinkedHashMap<>();
+        for (UserResponse user : response.getUsersList()) {
+            usersById.put(user.getId(), user);
+        }
+        return usersById;
+    }
+
     /**
      * Gets a paginated list of users from the identity provider
      * @param offset What "page" of the users you want. Affected by the ordering and page size
@@ -232,19 +319,18 @@ public class UserAccountClientService {
                 .build();
         streamObserver.onNext(metadata);
 
-        // upload file as chunk
-        InputStream inputStream = file.getInputStream();
-        byte[] bytes = new byte[4096];
-        int size;
-        while ((size = inputStream.read(bytes)) > 0) {
-            UploadUserProfilePhotoRequest uploadRequest = UploadUserProfilePhotoRequest.newBuilder()
-                    .setFileContent(ByteString.copyFrom(bytes, 0 , size))
-                    .build();
-            streamObserver.onNext(uploadRequest);
+        // upload file as chunks. Each chunk gets its own array, so it can be wrapped without being copied
+        try (InputStream inputStream = file.getInputStream()) {
+            byte[] bytes;
+            while ((bytes = inputStream.readNBytes(PHOTO_CHUNK_SIZE)).length > 0) {
+                UploadUserProfilePhotoRequest uploadRequest = UploadUserProfilePhotoRequest.newBuilder()
+                        .setFileContent(UnsafeByteOperations.unsafeWrap(bytes))
+                        .build();
+                streamObserver.onNext(uploadRequest);
+            }
         }
 
         // close the stream
-        inputStream.close();
         streamObserver.onCompleted();
 
         return fileUploadObserver;
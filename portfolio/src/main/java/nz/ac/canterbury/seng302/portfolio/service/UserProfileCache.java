@@ -0,0 +1,177 @@
+package nz.ac.canterbury.seng302.portfolio.service;
+
+import nz.ac.canterbury.seng302.portfolio.utils.ExpiringCache;
+import nz.ac.canterbury.seng302.shared.identityprovider.UserResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the UserResponse of each user, so that ModelAttributeInterceptor doesn't ask the IdP for the current user
+ * on every page it renders, just to show their profile photo in the header.
+ * <p>
+ * A user is fetched again once their entry is <code>user-profile-cache.ttl-seconds</code> old. If the IdP doesn't
+ * answer within <code>user-profile-cache.idp-timeout-ms</code>, the old entry is used for up to
+ * <code>user-profile-cache.stale-ttl-seconds</code>, so a slow IdP doesn't hold up every page.
+ * Call {@link #invalidateUser(int)} whenever a user changes their details or profile photo.
+ * </p>
+ * <p>
+ * Only use this for showing users; anything that checks what a user is allowed to do should use AuthState.
+ * </p>
+ */
+@Service
+public class UserProfileCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserProfileCache.class);
+
+    /**
+     * A cached user, and when it was fetched from the IdP
+     */
+    private record Profile(UserResponse user, long fetchedAt) {}
+
+    private final UserAccountClientService userAccountClientService;
+    private final ExpiringCache<Integer, Profile> cache;
+    private final long ttlNanos;
+    private final long idpTimeoutMillis;
+    private final int statsLogInterval;
+    private final LongSupplier clock;
+    private final AtomicLong lookups = new AtomicLong();
+
+    /**
+     * Creates the cache with the configured size and times.
+     * @param userAccountClientService used to get users from the IdP
+     * @param ttlSeconds how many seconds a user is used for before asking the IdP again
+     * @param staleTtlSeconds how many seconds a user is still used for when the IdP doesn't answer
+     * @param maxSize the maximum number of users to hold
+     * @param idpTimeoutMillis how many milliseconds to wait for the IdP before using the old entry
+     * @param statsLogInterval how many lookups between logging the cache statistics
+     */
+    @Autowired
+    public UserProfileCache(UserAccountClientService userAccountClientService,
+                            @Value("${user-profile-cache.ttl-seconds:60}") long ttlSeconds,
+                            @Value("${user-profile-cache.stale-ttl-seconds:3600}") long staleTtlSeconds,
+                            @Value("${user-profile-cache.max-size:1000}") int maxSize,
+                            @Value("${user-profile-cache.idp-timeout-ms:500}") long idpTimeoutMillis,
+                            @Value("${user-profile-cache.stats-log-interval:1000}") int statsLogInterval) {
+        this(userAccountClientService, ttlSeconds, staleTtlSeconds, maxSize, idpTimeoutMillis, statsLogInterval,
+                System::nanoTime);
+    }
+
+    /**
+     * Creates the cache with a custom clock, used for testing expiry.
+     * @param userAccountClientService used to get users from the IdP
+     * @param ttlSeconds how many seconds a user is used for before asking the IdP again
+     * @param staleTtlSeconds how many seconds a user is still used for when the IdP doesn't answer
+     * @param maxSize the maximum number of users to hold
+     * @param idpTimeoutMillis how many milliseconds to wait for the IdP before using the old entry
+     * @param statsLogInterval how many lookups between logging the cache statistics
+     * @param clock a source of the current time in nanoseconds
+     */
+    UserProfileCache(UserAccountClientService userAccountClientService, long ttlSeconds, long staleTtlSeconds,
+                     int maxSize, long idpTimeoutMillis, int statsLogInterval, LongSupplier clock) {
+        this.userAccountClientService = userAccountClientService;
+        this.cache = new ExpiringCache<>(Math.max(ttlSeconds, staleTtlSeconds), TimeUnit.SECONDS, maxSize, clock);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.idpTimeoutMillis = idpTimeoutMillis;
+        this.statsLogInterval = statsLogInterval;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets a user, from the cache if they were fetched recently, otherwise from the IdP.
+     * @param userId the id of the user
+     * @return the user, possibly a little out of date, or <code>null</code> if the IdP couldn't give them
+     *         and there's no old entry to use
+     */
+    public UserResponse getUser(int userId) {
+        Profile cached = lookUp(userId);
+        if (isFresh(cached)) {
+            return cached.user();
+        }
+
+        UserResponse user = userAccountClientService.getUserAccountById(userId, idpTimeoutMillis);
+        return fetched(userId, cached, user);
+    }
+
+    /**
+     * Gets a user like {@link #getUser(int)}, but without waiting for the IdP, so the lookup can run while the
+     * request's thread does other work.
+     * @param userId the id of the user
+     * @return completes with the user, possibly a little out of date, or <code>null</code> if the IdP couldn't
+     *         give them within the timeout and there's no old entry to use. Never completes exceptionally
+     */
+    public CompletableFuture<UserResponse> getUserAsync(int userId) {
+        Profile cached = lookUp(userId);
+        if (isFresh(cached)) {
+            return CompletableFuture.completedFuture(cached.user());
+        }
+
+        // The loader shares its future between lookups of the same user, so the timeout goes on a copy of it
+        return userAccountClientService.loadUserAccountById(userId).copy()
+                .orTimeout(idpTimeoutMillis, TimeUnit.MILLISECONDS)
+                .handle((user, e) -> fetched(userId, cached, e == null ? user : null));
+    }
+
+    /**
+     * Gets the cached entry for a user, logging the cache statistics every statsLogInterval lookups
+     * @param userId the id of the user
+     * @return the cached entry, or <code>null</code> if there isn't one
+     */
+    private Profile lookUp(int userId) {
+        if (statsLogInterval > 0 && lookups.incrementAndGet() % statsLogInterval == 0) {
+            logStatistics();
+        }
+        return cache.get(userId);
+    }
+
+    private boolean isFresh(Profile cached) {
+        return cached != null && clock.getAsLong() - cached.fetchedAt() < ttlNanos;
+    }
+
+    /**
+     * Caches a user fetched from the IdP, or falls back to the old entry if there isn't one
+     * @param userId the id of the user
+     * @param cached the old entry, or <code>null</code> if there isn't one
+     * @param user the user from the IdP, or <code>null</code> if the IdP couldn't give them
+     * @return the user to show
+     */
+    private UserResponse fetched(int userId, Profile cached, UserResponse user) {
+        if (user != null) {
+            cache.put(userId, new Profile(user, clock.getAsLong()));
+            return user;
+        }
+        if (cached != null) {
+            logger.warn("Could not get user {} from the IdP, using their cached details", userId);
+            return cached.user();
+        }
+        return null;
+    }
+
+    /**
+     * Removes a user from the cache, so their next page shows their changes.
+     * @param userId the id of the user
+     */
+    public void invalidateUser(int userId) {
+        cache.invalidate(userId);
+    }
+
+    /**
+     * @return the current hit, miss and eviction counts of the cache
+     */
+    public ExpiringCache.Statistics getStatistics() {
+        return cache.getStatistics();
+    }
+
+    private void logStatistics() {
+        ExpiringCache.Statistics stats = cache.getStatistics();
+        logger.info("User profile cache: size {}, hit rate {}, hits {}, misses {}, evictions {}",
+                stats.size(), String.format("%.3f", stats.hitRate()), stats.hits(), stats.misses(), stats.evictions());
+    }
+}
@@ -0,0 +1,109 @@
+package nz.ac.canterbury.seng302.portfolio.utils;
+
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Collects single-key lookups made around the same time, and loads them with one call that takes all the keys,
+ * like a DataLoader.
+ * <p>
+ * The first lookup after a batch is sent starts a new batch, which is sent once the batch window has passed,
+ * or straight away when it reaches the maximum batch size. Lookups for a key already in the waiting batch
+ * share its result.
+ * </p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the loaded values
+ */
+public class BatchLoader<K, V> {
+
+    private final Function<Set<K>, Map<K, V>> batchFunction;
+    private final TaskScheduler scheduler;
+    private final Duration window;
+    private final int maxBatchSize;
+
+    // The lookups waiting to be sent, guarded by this
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+
+    /**
+     * Creates a batch loader.
+     * @param batchFunction loads the values for a set of keys. Keys with no value are left out of the map it returns
+     * @param scheduler runs the batches, once their window has passed
+     * @param window how long a batch waits for more lookups before it is sent
+     * @param maxBatchSize the most keys sent in one batch
+     */
+    public BatchLoader(Function<Set<K>, Map<K, V>> batchFunction, TaskScheduler scheduler, Duration window,
+                       int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.batchFunction = batchFunction;
+        this.scheduler = scheduler;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Adds a key to the next batch.
+     * @param key the key to load
+     * @return completes with the key's value, or <code>null</code> if it has none.
+     *         Completes exceptionally if loading the batch failed
+     */
+    public CompletableFuture<V> load(K key) {
+        Map<K, CompletableFuture<V>> fullBatch = null;
+        CompletableFuture<V> future;
+        synchronized (this) {
+            future = pending.get(key);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(key, future);
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = takePending();
+            } else if (pending.size() == 1) {
+                scheduler.schedule(this::dispatchPending, Instant.now().plus(window));
+            }
+        }
+        if (fullBatch != null) {
+            Map<K, CompletableFuture<V>> batch = fullBatch;
+            scheduler.schedule(() -> dispatch(batch), Instant.now());
+        }
+        return future;
+    }
+
+    private synchronized Map<K, CompletableFuture<V>> takePending() {
+        Map<K, CompletableFuture<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    /**
+     * Sends the waiting batch, if there is one. If the batch this was scheduled for filled up and was sent early,
+     * this sends the batch started after it a little early instead, which is harmless.
+     */
+    private void dispatchPending() {
+        Map<K, CompletableFuture<V>> batch = takePending();
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        Map<K, V> values;
+        try {
+            values = batchFunction.apply(batch.keySet());
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+            return;
+        }
+        batch.forEach((key, future) -> future.complete(values.get(key)));
+    }
+}
@@ -0,0 +1,44 @@
+package nz.ac.canterbury.seng302.portfolio.utils;
+
+import io.grpc.*;
+import net.devh.boot.grpc.client.interceptor.GrpcGlobalClientInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives every gRPC call to the identity provider a deadline, so a slow IdP can't hold on to the request threads
+ * waiting for it. Calls that already have a deadline (e.g. the batched user lookups) keep theirs.
+ * <p>
+ * The deadline is set on each call rather than on the stubs, as a deadline set on a stub starts counting
+ * when the stub is made, and the injected stubs are made once when the application starts.
+ * Streaming calls, like photo uploads, send many messages, so they get a longer deadline than single requests.
+ * </p>
+ */
+@GrpcGlobalClientInterceptor
+public class DeadlineClientInterceptor implements ClientInterceptor {
+
+    private final long deadlineMillis;
+    private final long streamingDeadlineMillis;
+
+    /**
+     * Creates the interceptor with the configured deadlines
+     * @param deadlineMillis How many milliseconds the identity provider has to answer a single request
+     * @param streamingDeadlineMillis How many milliseconds a streaming call can take altogether
+     */
+    public DeadlineClientInterceptor(@Value("${idp-client.deadline-ms:2000}") long deadlineMillis,
+                                     @Value("${idp-client.streaming-deadline-ms:30000}") long streamingDeadlineMillis) {
+        this.deadlineMillis = deadlineMillis;
+        this.streamingDeadlineMillis = streamingDeadlineMillis;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        if (callOptions.getDeadline() == null) {
+            long millis = method.getType() == MethodDescriptor.MethodType.UNARY ? deadlineMillis : streamingDeadlineMillis;
+            callOptions = callOptions.withDeadlineAfter(millis, TimeUnit.MILLISECONDS);
+        }
+        return next.newCall(method, callOptions);
+    }
+}
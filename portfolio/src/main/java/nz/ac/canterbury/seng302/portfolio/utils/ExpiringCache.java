@@ -0,0 +1,172 @@
+package nz.ac.canterbury.seng302.portfolio.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * A small, thread-safe, bounded cache where every entry expires a fixed amount of time after it was stored.
+ * <p>
+ * When the cache is full, the least recently used entry is evicted to make room for the new one.
+ * Hits, misses and evictions are counted so that the size and time-to-live can be tuned.
+ * </p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the cached values
+ */
+public class ExpiringCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    /**
+     * A snapshot of the cache's counters at a point in time.
+     * @param hits number of lookups that found a live entry
+     * @param misses number of lookups that found nothing, or an expired entry
+     * @param evictions number of entries removed because they expired or the cache was full
+     * @param size number of entries currently stored
+     */
+    public record Statistics(long hits, long misses, long evictions, int size) {
+        /**
+         * @return the fraction of lookups that were hits, or 0 if there have been no lookups
+         */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final long ttlNanos;
+    private final int maxSize;
+    private final LongSupplier clock;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache that uses the system clock.
+     * @param ttl how long an entry stays valid for after it is stored
+     * @param unit the unit of <code>ttl</code>
+     * @param maxSize the maximum number of entries the cache holds
+     */
+    public ExpiringCache(long ttl, TimeUnit unit, int maxSize) {
+        this(ttl, unit, maxSize, System::nanoTime);
+    }
+
+    /**
+     * Creates a cache with a custom clock, used for testing expiry.
+     * @param ttl how long an entry stays valid for after it is stored
+     * @param unit the unit of <code>ttl</code>
+     * @param maxSize the maximum number of entries the cache holds
+     * @param clock a source of the current time in nanoseconds
+     */
+    public ExpiringCache(long ttl, TimeUnit unit, int maxSize, LongSupplier clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1");
+        }
+        this.ttlNanos = unit.toNanos(ttl);
+        this.maxSize = maxSize;
+        this.clock = clock;
+        // Access-ordered, so the eldest entry is always the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Gets the value stored for a key, if it hasn't expired yet.
+     * @param key the key to look up
+     * @return the cached value, or <code>null</code> if there is no live entry for the key
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt() - clock.getAsLong() <= 0) {
+            entries.remove(key);
+            evictions++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value();
+    }
+
+    /**
+     * Stores a value, replacing any existing entry for the key.
+     * If the cache is full, expired entries are removed first, then the least recently used entry.
+     * @param key the key to store the value under
+     * @param value the value to store
+     */
+    public synchronized void put(K key, V value) {
+        long now = clock.getAsLong();
+        entries.put(key, new Entry<>(value, now + ttlNanos));
+        if (entries.size() > maxSize) {
+            removeExpired(now);
+        }
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (entries.size() > maxSize) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes the entry for a key, if there is one.
+     * @param key the key to remove
+     */
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes every entry whose value matches the given condition.
+     * This looks at every entry, so it should only be used for infrequent changes.
+     * @param condition which values to remove
+     */
+    public synchronized void invalidateIf(Predicate<V> condition) {
+        entries.values().removeIf(entry -> condition.test(entry.value()));
+    }
+
+    /**
+     * Runs an action on the value of every live entry, without counting as a use of the entries.
+     * This looks at every entry, so it should only be used for infrequent changes.
+     * @param action what to do with each value
+     */
+    public synchronized void forEachValue(Consumer<V> action) {
+        removeExpired(clock.getAsLong());
+        for (Entry<V> entry : entries.values()) {
+            action.accept(entry.value());
+        }
+    }
+
+    /**
+     * Removes every entry from the cache.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * @return a snapshot of the hit, miss and eviction counts, and the current size
+     */
+    public synchronized Statistics getStatistics() {
+        return new Statistics(hits, misses, evictions, entries.size());
+    }
+
+    private void removeExpired(long now) {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().expiresAt() - now <= 0) {
+                iterator.remove();
+                evictions++;
+            }
+        }
+    }
+}
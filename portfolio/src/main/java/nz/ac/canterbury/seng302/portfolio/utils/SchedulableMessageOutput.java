@@ -37,6 +37,20 @@ public class SchedulableMessageOutput {
     public SchedulableMessageOutput() {
     }
 
+    /**
+     * Creates an output for a schedulable with no locations yet, for {@link ScheduleIndex} to fill in
+     * using {@link #addLocation(BoxLocation, int, String)}.
+     * @param id the id of the schedulable
+     * @param type the type of the schedulable
+     */
+    SchedulableMessageOutput(int id, String type) {
+        this.id = id;
+        this.type = type;
+        this.schedulableListIds = new ArrayList<>();
+        this.nextSchedulableIds = new ArrayList<>();
+        this.schedulableBoxIds = new ArrayList<>();
+    }
+
     /**
      * Constructor for a SchedulableMessageOutput
      * @param schedulable the schedulable to take parameters from
@@ -105,6 +119,17 @@ public class SchedulableMessageOutput {
         }
     }
 
+    /**
+     * Adds a box that the schedulable in this message is displayed in.
+     * @param boxLocation the location, relative to sprints, of the box
+     * @param sprintId the id of the sprint the box is in or after. -1 if the box is before all sprints
+     * @param nextSchedulableId the id of the schedulable displayed after this one in the box, or "-1" if there isn't one
+     */
+    void addLocation(BoxLocation boxLocation, int sprintId, String nextSchedulableId) {
+        this.nextSchedulableIds.add(nextSchedulableId);
+        setSchedulableLocationIds(boxLocation, sprintId);
+    }
+
     /**
      * Sets the list of id and schedulable box id that the schedulable in this message will occupy.
      * Should be called once the actual location has already been determined.
@@ -0,0 +1,323 @@
+package nz.ac.canterbury.seng302.portfolio.utils;
+
+import nz.ac.canterbury.seng302.portfolio.model.Project;
+import nz.ac.canterbury.seng302.portfolio.model.ReadOnlySchedulable;
+import nz.ac.canterbury.seng302.portfolio.model.Schedulable;
+import nz.ac.canterbury.seng302.portfolio.model.Sprint;
+
+import java.util.*;
+
+import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.*;
+
+/**
+ * An in-memory index of the sprints and schedulables in one project, used to work out where a schedulable
+ * is displayed on the project details page without re-reading and re-sorting the whole project on every update.
+ * <p>
+ * Sprints are kept sorted by end date and schedulables by start date. The boxes a schedulable is displayed in are
+ * found with a binary search over the sprints, and the next schedulable in each box with binary searches over the
+ * schedulables plus a tree of the latest end date in each range of schedulables (a flattened interval tree).
+ * This gives the same results as {@link SchedulableMessageOutput#SchedulableMessageOutput(Schedulable, List, List)},
+ * as long as the sprints don't overlap, which sprint validation makes sure of.
+ * </p>
+ * This class is not thread-safe.
+ */
+public class ScheduleIndex {
+
+    private record SprintEntry(int id, long start, long end) {}
+
+    private record SchedulableEntry(String type, int id, long start, long end) {}
+
+    // Schedulables with the same start date are ordered by type, then id
+    private static final List<String> TYPE_ORDER = List.of(EVENT_TYPE, DEADLINE_TYPE, MILESTONE_TYPE);
+    private static final Comparator<SprintEntry> SPRINT_ORDER =
+            Comparator.comparingLong(SprintEntry::end).thenComparingInt(SprintEntry::id);
+    private static final Comparator<SchedulableEntry> SCHEDULABLE_ORDER =
+            Comparator.comparingLong(SchedulableEntry::start)
+                    .thenComparingInt(entry -> TYPE_ORDER.indexOf(entry.type()))
+                    .thenComparingInt(SchedulableEntry::id);
+
+    private final List<SprintEntry> sprints = new ArrayList<>();
+    private final Map<Integer, SprintEntry> sprintsById = new HashMap<>();
+    private final List<SchedulableEntry> schedulables = new ArrayList<>();
+    private final Map<String, SchedulableEntry> schedulablesByKey = new HashMap<>();
+
+    // latestEnds[node] is the latest end date of the schedulables under that node, with the leaves from treeSize on.
+    // It is rebuilt on the first lookup after the schedulables change.
+    private long[] latestEnds = new long[0];
+    private int treeSize;
+    private boolean treeOutdated = true;
+
+    /**
+     * Creates an index of a project's sprints and schedulables.
+     * @param sprints all the sprints in the project
+     * @param schedulables all the schedulables in the project
+     */
+    public ScheduleIndex(List<Sprint> sprints, List<? extends ReadOnlySchedulable> schedulables) {
+        for (Sprint sprint : sprints) {
+            SprintEntry entry = toEntry(sprint);
+            if (sprintsById.put(entry.id(), entry) == null) {
+                this.sprints.add(entry);
+            }
+        }
+        for (ReadOnlySchedulable schedulable : schedulables) {
+            SchedulableEntry entry = toEntry(schedulable);
+            if (schedulablesByKey.put(key(entry.type(), entry.id()), entry) == null) {
+                this.schedulables.add(entry);
+            }
+        }
+        this.sprints.sort(SPRINT_ORDER);
+        this.schedulables.sort(SCHEDULABLE_ORDER);
+    }
+
+    /**
+     * Adds a sprint to the index, or updates it if it is already there.
+     * @param sprint the sprint that was saved
+     */
+    public void putSprint(Sprint sprint) {
+        SprintEntry entry = toEntry(sprint);
+        SprintEntry previous = sprintsById.put(entry.id(), entry);
+        if (entry.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            sprints.remove(Collections.binarySearch(sprints, previous, SPRINT_ORDER));
+        }
+        sprints.add(-Collections.binarySearch(sprints, entry, SPRINT_ORDER) - 1, entry);
+    }
+
+    /**
+     * Removes a sprint from the index, if it is there.
+     * @param sprintId the id of the sprint that was deleted
+     */
+    public void removeSprint(int sprintId) {
+        SprintEntry previous = sprintsById.remove(sprintId);
+        if (previous != null) {
+            sprints.remove(Collections.binarySearch(sprints, previous, SPRINT_ORDER));
+        }
+    }
+
+    /**
+     * Adds a schedulable to the index, or updates it if it is already there.
+     * @param schedulable the schedulable that was saved
+     */
+    public void putSchedulable(Schedulable schedulable) {
+        SchedulableEntry entry = toEntry(schedulable);
+        SchedulableEntry previous = schedulablesByKey.put(key(entry.type(), entry.id()), entry);
+        if (entry.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            schedulables.remove(Collections.binarySearch(schedulables, previous, SCHEDULABLE_ORDER));
+        }
+        schedulables.add(-Collections.binarySearch(schedulables, entry, SCHEDULABLE_ORDER) - 1, entry);
+        treeOutdated = true;
+    }
+
+    /**
+     * Removes a schedulable from the index, if it is there.
+     * @param type the type of the schedulable that was deleted
+     * @param id the id of the schedulable that was deleted
+     */
+    public void removeSchedulable(String type, int id) {
+        SchedulableEntry previous = schedulablesByKey.remove(key(type, id));
+        if (previous != null) {
+            schedulables.remove(Collections.binarySearch(schedulables, previous, SCHEDULABLE_ORDER));
+            treeOutdated = true;
+        }
+    }
+
+    /**
+     * Finds the boxes a schedulable is displayed in, and the schedulable displayed after it in each box.
+     * The schedulable is added to the index (or updated) first, in case it has changed since it was last saved.
+     * @param schedulable the schedulable that was updated
+     * @return a message with the locations of the schedulable, in the same order as SchedulableMessageOutput lists them
+     */
+    public SchedulableMessageOutput place(Schedulable schedulable) {
+        putSchedulable(schedulable);
+        SchedulableMessageOutput output = new SchedulableMessageOutput(schedulable.getId(), schedulable.getType());
+        long start = schedulable.getStartDate().getTime();
+        long end = schedulable.getEndDate().getTime();
+        Project project = schedulable.getParentProject();
+
+        // check if the schedulable occurs before any sprints
+        if (sprints.isEmpty()) {
+            output.addLocation(SchedulableMessageOutput.BoxLocation.FIRST, -1, getNextSchedulable(start,
+                    project.getProjectStartDate().getTime(), project.getProjectEndDate().getTime(), true));
+            return output;
+        } else if (sprints.get(0).start() > start) {
+            output.addLocation(SchedulableMessageOutput.BoxLocation.FIRST, -1, getNextSchedulable(start,
+                    project.getProjectStartDate().getTime(), sprints.get(0).start(), true));
+        }
+
+        // Sprints that end before the schedulable starts can't contain it, and neither can the gaps after them,
+        // except for the gap just before the first sprint that could contain it
+        int first = Math.max(0, firstSprintEndingFrom(start) - 1);
+        for (int i = first; i < sprints.size(); i++) {
+            SprintEntry sprint = sprints.get(i);
+            if (sprint.start() > end) {
+                // This sprint and every one after it starts after the schedulable ends
+                break;
+            }
+            if (overlapsInclusive(sprint.start(), sprint.end(), start, end)) {
+                output.addLocation(SchedulableMessageOutput.BoxLocation.INSIDE, sprint.id(),
+                        getNextSchedulable(start, sprint.start(), sprint.end(), false));
+            }
+            if (i + 1 < sprints.size()) {
+                long nextSprintStart = sprints.get(i + 1).start();
+                if (overlapsExclusive(sprint.end(), nextSprintStart, start, end)) {
+                    output.addLocation(SchedulableMessageOutput.BoxLocation.AFTER, sprint.id(),
+                            getNextSchedulable(start, sprint.end(), nextSprintStart, true));
+                }
+            } else if (sprint.end() < end) {
+                output.addLocation(SchedulableMessageOutput.BoxLocation.AFTER, sprint.id(),
+                        getNextSchedulable(start, sprint.end(), project.getProjectEndDate().getTime(), false));
+            }
+        }
+        return output;
+    }
+
+    /**
+     * @return the number of schedulables in the index
+     */
+    public int getSchedulableCount() {
+        return schedulables.size();
+    }
+
+    /**
+     * Gets the first schedulable (in start date order) that starts after the updated schedulable and overlaps a period.
+     * This is the schedulable that is displayed after the updated schedulable in that period's box.
+     * @param updatedStart the start of the schedulable being updated
+     * @param periodStart the start of the period
+     * @param periodEnd the end of the period
+     * @param exclusive whether the period is exclusive of the start and end dates
+     * @return the box id of the next schedulable or -1 if there is no next schedulable
+     */
+    private String getNextSchedulable(long updatedStart, long periodStart, long periodEnd, boolean exclusive) {
+        int firstAfterUpdated = firstSchedulableStartingAfter(updatedStart);
+        int firstInPeriod = Math.max(firstAfterUpdated, firstSchedulableStartingAfter(periodStart - 1));
+
+        // Schedulables that start before the period overlap it if they end inside it
+        int found = firstSchedulableEndingFrom(firstAfterUpdated, firstInPeriod, exclusive ? periodStart + 1 : periodStart);
+        if (found == -1 && firstInPeriod < schedulables.size()) {
+            // Otherwise, only the first schedulable that starts in the period could be the next one
+            long nextStart = schedulables.get(firstInPeriod).start();
+            if (exclusive ? nextStart < periodEnd : nextStart <= periodEnd) {
+                found = firstInPeriod;
+            }
+        }
+        if (found == -1) {
+            return "-1";
+        }
+        SchedulableEntry next = schedulables.get(found);
+        return String.format(SchedulableMessageOutput.NEXT_SCHEDULABLE_ID_FORMAT, next.type(), next.id());
+    }
+
+    /**
+     * @return the index of the first sprint that ends at or after the given time, or the number of sprints if none do
+     */
+    private int firstSprintEndingFrom(long time) {
+        int low = 0;
+        int high = sprints.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sprints.get(middle).end() < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the index of the first schedulable that starts after the given time, or the number of schedulables if none do
+     */
+    private int firstSchedulableStartingAfter(long time) {
+        int low = 0;
+        int high = schedulables.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (schedulables.get(middle).start() <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first schedulable in a range of indexes that ends at or after the given time.
+     * @param from the first index to search (inclusive)
+     * @param to the last index to search (exclusive)
+     * @param time the earliest end date to look for
+     * @return the index of the schedulable, or -1 if there isn't one
+     */
+    private int firstSchedulableEndingFrom(int from, int to, long time) {
+        if (from >= to) {
+            return -1;
+        }
+        if (treeOutdated) {
+            rebuildTree();
+        }
+        return firstEndingFrom(1, 0, treeSize, from, to, time);
+    }
+
+    private int firstEndingFrom(int node, int nodeFrom, int nodeTo, int from, int to, long time) {
+        if (nodeTo <= from || to <= nodeFrom || latestEnds[node] < time) {
+            return -1;
+        }
+        if (nodeTo - nodeFrom == 1) {
+            return nodeFrom;
+        }
+        int middle = (nodeFrom + nodeTo) >>> 1;
+        int found = firstEndingFrom(2 * node, nodeFrom, middle, from, to, time);
+        return found != -1 ? found : firstEndingFrom(2 * node + 1, middle, nodeTo, from, to, time);
+    }
+
+    private void rebuildTree() {
+        treeSize = Integer.highestOneBit(Math.max(1, schedulables.size()) * 2 - 1);
+        latestEnds = new long[treeSize * 2];
+        Arrays.fill(latestEnds, Long.MIN_VALUE);
+        for (int i = 0; i < schedulables.size(); i++) {
+            latestEnds[treeSize + i] = schedulables.get(i).end();
+        }
+        for (int node = treeSize - 1; node > 0; node--) {
+            latestEnds[node] = Math.max(latestEnds[2 * node], latestEnds[2 * node + 1]);
+        }
+        treeOutdated = false;
+    }
+
+    /**
+     * Same as DateUtils.timesOverlapIncl, for times in milliseconds
+     */
+    private static boolean overlapsInclusive(long startA, long endA, long startB, long endB) {
+        if (startB < startA) {
+            return startA <= endB;
+        }
+        return startB <= endA;
+    }
+
+    /**
+     * Same as DateUtils.timesOverlapExcl, for times in milliseconds
+     */
+    private static boolean overlapsExclusive(long startA, long endA, long startB, long endB) {
+        if (startB < startA) {
+            return endB > startA;
+        }
+        return startB < endA;
+    }
+
+    private static String key(String type, int id) {
+        return type + "-" + id;
+    }
+
+    private static SprintEntry toEntry(Sprint sprint) {
+        return new SprintEntry(sprint.getId(), sprint.getSprintStartDate().getTime(), sprint.getSprintEndDate().getTime());
+    }
+
+    private static SchedulableEntry toEntry(ReadOnlySchedulable schedulable) {
+        return new SchedulableEntry(schedulable.getType(), schedulable.getId(),
+                schedulable.getStartDate().getTime(), schedulable.getEndDate().getTime());
+    }
+}
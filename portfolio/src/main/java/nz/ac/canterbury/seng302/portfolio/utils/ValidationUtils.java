@@ -1,7 +1,7 @@
 package nz.ac.canterbury.seng302.portfolio.utils;
 
 import nz.ac.canterbury.seng302.portfolio.model.Project;
-import nz.ac.canterbury.seng302.portfolio.model.Schedulable;
+import nz.ac.canterbury.seng302.portfolio.model.ReadOnlySchedulable;
 import nz.ac.canterbury.seng302.portfolio.model.Sprint;
 import nz.ac.canterbury.seng302.portfolio.model.ValidationError;
 import org.springframework.stereotype.Component;
@@ -82,7 +82,7 @@ public class ValidationUtils {
      * @return A ValidationError with a boolean error flag and a list of error messages
      */
     public static ValidationError validateProjectDates(Date start, Date end, Date creation,
-                                                       List<Sprint> sprintList, List<Schedulable> schedulableList) {
+                                                       List<Sprint> sprintList, List<? extends ReadOnlySchedulable> schedulableList) {
         // Initial error flag = false (no errors yet)
         ValidationError error = new ValidationError();
 
@@ -101,7 +101,7 @@ public class ValidationUtils {
         }
 
         // Checking against all schedulable dates (Events, Deadlines, Milestones)
-        for (Schedulable schedulable : schedulableList) {
+        for (ReadOnlySchedulable schedulable : schedulableList) {
             if (datesOutsideProject(schedulable.getStartDate(), schedulable.getEndDate(), start, end)) {
                 if (Objects.equals(schedulable.getType(), "event")) {
                     error.addErrorMessage("The " + schedulable.getType() + " \"" + schedulable.getName() +
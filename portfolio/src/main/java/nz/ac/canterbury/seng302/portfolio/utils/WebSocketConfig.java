@@ -1,5 +1,6 @@
 package nz.ac.canterbury.seng302.portfolio.utils;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
@@ -13,15 +14,42 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // Use an external STOMP broker (e.g. ActiveMQ) instead of the in-memory one
+    @Value("${websocket.broker-relay.enabled:false}")
+    private boolean brokerRelayEnabled;
+    @Value("${websocket.broker-relay.host:localhost}")
+    private String brokerRelayHost;
+    @Value("${websocket.broker-relay.port:61613}")
+    private int brokerRelayPort;
+    @Value("${websocket.broker-relay.login:guest}")
+    private String brokerRelayLogin;
+    @Value("${websocket.broker-relay.passcode:guest}")
+    private String brokerRelayPasscode;
+
     /**
-     * Designates where websockets can be sent to
+     * Designates where websockets can be sent to.
+     * Messages are sent to per-project topics (/topic/project/{id}/...), so each one only goes to the
+     * people viewing that project. By default these are handled by Spring's in-memory broker, but they can be
+     * relayed to an external STOMP broker by setting <code>websocket.broker-relay.enabled=true</code>.
      * @param config A registry that stores options configuring messages
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic")
-                .setHeartbeatValue(new long [] {9000, 20000})
-                .setTaskScheduler(heartBeatScheduler());
+        if (brokerRelayEnabled) {
+            config.enableStompBrokerRelay("/topic")
+                    .setRelayHost(brokerRelayHost)
+                    .setRelayPort(brokerRelayPort)
+                    .setClientLogin(brokerRelayLogin)
+                    .setClientPasscode(brokerRelayPasscode)
+                    .setSystemLogin(brokerRelayLogin)
+                    .setSystemPasscode(brokerRelayPasscode)
+                    .setSystemHeartbeatSendInterval(9000)
+                    .setSystemHeartbeatReceiveInterval(20000);
+        } else {
+            config.enableSimpleBroker("/topic")
+                    .setHeartbeatValue(new long [] {9000, 20000})
+                    .setTaskScheduler(heartBeatScheduler());
+        }
         config.setApplicationDestinationPrefixes("/app");
     }
 
@@ -52,4 +80,16 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public TaskScheduler heartBeatScheduler() {
         return new ThreadPoolTaskScheduler();
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs the delayed sprint updates sent by MessageMappingController, with one thread per core
+     * @return A scheduler object
+     */
+    @Bean
+    public TaskScheduler sprintUpdateScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Runtime.getRuntime().availableProcessors());
+        scheduler.setThreadNamePrefix("sprint-update-");
+        return scheduler;
+    }
+}
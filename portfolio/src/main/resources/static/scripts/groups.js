@@ -16,6 +16,45 @@ function toggleById(group_id) {
     toggleUsersButton(document.getElementById("user-button-" + group_id));
 }
 
+/**
+ * Shows or hides a group's members, loading the first page of them the first time they're shown.
+ * @param group_id the id of the group
+ * @param button the show/hide users button that was clicked
+ */
+function showGroupMembers(group_id, button) {
+    toggleUsersButton(button);
+    const table = document.getElementById('members-' + group_id);
+    if (!table.hasAttribute('data-loaded')) {
+        table.setAttribute('data-loaded', '');
+        loadGroupMembers(group_id, 1);
+    }
+}
+
+/**
+ * Adds a page of a group's members to the end of its table of members.
+ * @param group_id the id of the group
+ * @param page the page of members to load, starting at 1
+ * @param button the 'show more users' button that was clicked, which is removed once the page loads
+ */
+function loadGroupMembers(group_id, page, button) {
+    const url = BASE_URL + 'groups/' + group_id + '/members?page=' + page;
+    const membersRequest = new XMLHttpRequest();
+    membersRequest.open("GET", url);
+
+    membersRequest.onload = () => {
+        if (membersRequest.status === 200) {
+            if (button) {
+                button.closest('tr').remove();
+            }
+            // Each page is its own tbody
+            document.getElementById('members-' + group_id).insertAdjacentHTML('beforeend', membersRequest.responseText);
+        } else {
+            //handle errors
+        }
+    }
+    membersRequest.send();
+}
+
 /**
  * Submits the given group form's request in Javascript, allowing for in-place
  * updating of the page.
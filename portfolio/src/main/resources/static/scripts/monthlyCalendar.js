@@ -4,6 +4,9 @@ const eventIcon = '<svg xmlns="http://www.w3.org/2000/svg" width="16" height="16
 
 let calendar;
 let mouseButtonDown = false;
+// Types of schedulable shown as icons, and the dates each type was last loaded for
+const schedulableTypes = ['event', 'milestone', 'deadline'];
+const loadedSchedulableRanges = {};
 
 /**
  * Returns a new date that is the original date plus the specified number of days.
@@ -183,6 +186,7 @@ document.addEventListener('DOMContentLoaded', function() {
             prev: "<",
             next: ">"
         },
+        datesSet: loadAllSchedulablesInView,
 
         eventDidMount: function(info) {
             if(info.event.extendedProps.type !== 'sprint'){
@@ -280,58 +284,22 @@ document.addEventListener('DOMContentLoaded', function() {
        // docs: https://fullcalendar.io/docs/classname-input
        // you can add "hidden" to the class string, and it will hide the icon without repositioning anything else
        eventClassNames: function(arg) {
-            if (['event', 'milestone', 'deadline'].includes(arg.event.extendedProps.type)) {
+            if (schedulableTypes.includes(arg.event.extendedProps.type)) {
                 return arg.event.extendedProps.num === 0 ? [ 'schedulable-icon hidden' ] : [ 'schedulable-icon' ]
             }
        }
     });
 
-    // Move calendar to project start date, update all the icons to have the right number, and render the calendar
+    // Move calendar to project start date, render the calendar, and load the schedulables for the dates it shows
     calendar.gotoDate(projectStartDate);
-    updateIconObjectsWithSchedulables(calendar);
     calendar.render();
+    loadAllSchedulablesInView();
 });
 
 
-/**
- * Updates the list icons for the calendar with the provided schedulable information.
- * For each schedulable object, every day it occurs will have its icon's counter increased,
- * and its name added to the icon's name list.
- * @param calendar the calendar object to update. Must have icons for each day in the project.
- */
-function updateIconObjectsWithSchedulables(calendar) {
-    const sNames = schedulableNames.split(", ");
-    const sTypes = schedulableTypes.split(", ");
-    const sStarts = schedulableStartDates.split(", ");
-    const sEnds = schedulableEndDates.split(", ");
-
-    const count = sNames.length; // number of schedulables
-    for (let i = 0; i < count; i++) {
-        let start = getDateFromProjectDateString(sStarts[i]);
-        const end = getDateFromProjectDateString(sEnds[i]);
-
-        while (start <= end) {
-            const id = `${sTypes[i]}-${getStringFromDate(start)}`;
-            const icon = calendar.getEventById(id);
-            icon.setExtendedProp("num", icon.extendedProps.num + 1);
-            icon.setExtendedProp("schedulableNames", icon.extendedProps.schedulableNames.concat([sNames[i]]));
-            let schedulableTooltip = createTooltipString(icon, sNames[i], sStarts[i], sEnds[i]);
-            if (icon.extendedProps.description === '') {
-                icon.setExtendedProp("description", schedulableTooltip);
-            } else{
-                icon.setExtendedProp("description", icon.extendedProps.description + '<br>' + schedulableTooltip)
-            }
-
-            let newStart = new Date(start); // on the advice of https://stackoverflow.com/a/19691491
-            newStart.setDate(newStart.getDate() + 1);
-            start = newStart;
-        }
-    }
-}
-
 /**
  * Creates schedulable tooltip contents for an icon on the monthly calendar.
- * Helper function for updateIconObjectsWithSchedulables
+ * Helper function for rerenderCalendar
  * @returns {String} the contents for the tooltip, as determined by type
  */
 function createTooltipString(icon, sName, sStart, sEnd) {
@@ -359,43 +327,104 @@ function createTooltipString(icon, sName, sStart, sEnd) {
 }
 
 /**
- * Update the calendar using the information sent through the websocket
+ * Update the calendar using the information sent through the websocket.
+ * Only the schedulables in the dates being shown are reloaded, and the other dates are reloaded when the user
+ * moves to them.
  * @param message Message sent through the websocket
  */
 function updateCalendar(message) {
-    const url = BASE_URL + "project/" + projectId + "/schedulables/" + message.type;
-    const schedulableFragRequest = new XMLHttpRequest();
-    schedulableFragRequest.open("GET", url, true);
-    schedulableFragRequest.onload = () => {
-        // Reload the page to get the updated list of sprints after the delete
-        rerenderCalendar(schedulableFragRequest.response, message);
+    loadSchedulablesInView(message.type);
+}
+
+
+/**
+ * Loads the schedulables of each type, if they haven't already been loaded for the dates being shown.
+ * Called once the calendar is first rendered, and by the calendar whenever the dates being shown change.
+ */
+function loadAllSchedulablesInView() {
+    if (calendar.view.type !== 'dayGridMonth') {
+        return;     // refreshView switches views to update the tooltips, which doesn't need anything loaded
+    }
+    for (const type of schedulableTypes) {
+        if (loadedSchedulableRanges[type] !== getViewRange().join('/')) {
+            loadSchedulablesInView(type);
+        }
     }
-    schedulableFragRequest.send();
 }
 
 
 /**
- * Rerender the calendar with the new schedulable details
- * @param response Response from the GET request containing the list of all schedulables
- * @param message Message sent through the websocket
+ * Gets the dates the calendar is showing.
+ * @returns {String[]} the first day shown, and the day after the last day shown, in format 'yyyy-mm-dd'
  */
-function rerenderCalendar(response, message) {
-    removeSchedulables(message.type);
-    let schedulables = JSON.parse(response);
+function getViewRange() {
+    // The calendar is in UTC, so the ISO string has the right day
+    return [calendar.view.activeStart.toISOString().substring(0, 10), calendar.view.activeEnd.toISOString().substring(0, 10)];
+}
+
+
+/**
+ * Gets all the schedulables of a type in the dates the calendar is showing, one page at a time,
+ * then rerenders the calendar with them.
+ * @param type Type of the schedulables to load
+ */
+function loadSchedulablesInView(type) {
+    const [from, to] = getViewRange();
+    loadedSchedulableRanges[type] = `${from}/${to}`;
+    const schedulables = [];
+    const loadPage = (cursor) => {
+        let url = `${BASE_URL}project/${projectId}/schedulables/${type}?from=${from}&to=${to}`;
+        if (cursor) {
+            url += `&cursor=${encodeURIComponent(cursor)}`;
+        }
+        const schedulablesRequest = new XMLHttpRequest();
+        schedulablesRequest.open("GET", url, true);
+        schedulablesRequest.onload = () => {
+            const page = JSON.parse(schedulablesRequest.response);
+            schedulables.push(...page.schedulables);
+            if (page.nextCursor) {
+                loadPage(page.nextCursor);
+            } else {
+                rerenderCalendar(schedulables, type, from, to);
+            }
+        }
+        schedulablesRequest.send();
+    }
+    loadPage(null);
+}
+
+
+/**
+ * Rerender the calendar with the new schedulable details, for the given dates only
+ * @param schedulables List of all the schedulables of the given type in the given dates
+ * @param type Type of the schedulables
+ * @param from The first day to rerender, in format 'yyyy-mm-dd'
+ * @param to The day after the last day to rerender, in format 'yyyy-mm-dd'
+ */
+function rerenderCalendar(schedulables, type, from, to) {
+    removeSchedulables(type, from, to);
+    const rangeStart = getDateFromProjectDateString(from);
+    const rangeEnd = getDateFromProjectDateString(to);
     for (let schedulable of schedulables) {
-        if (schedulable.type === message.type) {
+        if (schedulable.type === type) {
             let start = getDateFromProjectDateString(schedulable.startDay);
             const end = getDateFromProjectDateString(schedulable.endDay);
-            while (start <= end) {
-                const id = `${message.type}-${getStringFromDate(start)}`;
+            // Only update the days being rerendered, as the other days weren't cleared
+            if (start < rangeStart) {
+                start = rangeStart;
+            }
+            while (start <= end && start < rangeEnd) {
+                const id = `${type}-${getStringFromDate(start)}`;
                 const icon = calendar.getEventById(id);
-                icon.setExtendedProp("num", icon.extendedProps.num + 1);
-                icon.setExtendedProp("schedulableNames", icon.extendedProps.schedulableNames.concat(schedulable.name));
-                let schedulableTooltip = createTooltipString(icon, schedulable.name, schedulable.startDay, schedulable.endDay);
-                if (icon.extendedProps.description === '') {
-                    icon.setExtendedProp("description", schedulableTooltip);
-                } else{
-                    icon.setExtendedProp("description", icon.extendedProps.description + '<br>' + schedulableTooltip);
+                if (icon) {     // there are only icons for days in the project
+                    icon.setExtendedProp("num", icon.extendedProps.num + 1);
+                    icon.setExtendedProp("schedulableNames", icon.extendedProps.schedulableNames.concat(schedulable.name));
+                    let schedulableTooltip = createTooltipString(icon, schedulable.name, schedulable.startDay, schedulable.endDay);
+                    if (icon.extendedProps.description === '') {
+                        icon.setExtendedProp("description", schedulableTooltip);
+                    } else{
+                        icon.setExtendedProp("description", icon.extendedProps.description + '<br>' + schedulableTooltip);
+                    }
                 }
 
                 let newStart = new Date(start); // on the advice of https://stackoverflow.com/a/19691491
@@ -447,15 +476,19 @@ function updateMouseState(e) {
 }
 
 /**
- * Remove from the calendar all schedulables of a given type.
+ * Remove from the calendar all schedulables of a given type, in the given dates.
  * @param type Type of the schedulable to be removed
+ * @param from The first day to remove schedulables from, in format 'yyyy-mm-dd'
+ * @param to The day after the last day to remove schedulables from, in format 'yyyy-mm-dd'
  */
-function removeSchedulables(type) {
+function removeSchedulables(type, from, to) {
     let events = calendar.getEvents();
     for (let event of events) {
-        if (event.id.includes(type) && event.extendedProps.num !== 0) {
+        const day = event.startStr.substring(0, 10);
+        if (event.id.includes(type) && event.extendedProps.num !== 0 && day >= from && day < to) {
             const icon = calendar.getEventById(event.id);
             icon.setExtendedProp("num", 0);
+            icon.setExtendedProp("schedulableNames", []);
             icon.setExtendedProp("description", '');
         }
     }
@@ -39,7 +39,7 @@ function deleteObject(id, type) {
     deleteRequest.onload = () => {
         // Send a websocket message to update the page after the deletion
         if (type in EDIT_NOTIFICATIONS) {
-            stompClient.send("/app/schedulables", {}, JSON.stringify({id: id, type: type}));
+            sendSchedulableUpdatedMessage(id, type);
             hideModal();
         } else {
             sendSprintUpdatedMessage(id);
@@ -166,7 +166,7 @@ function sendFormViaAjax(elem, type) {
             } else {
                 // Success
                 hideForm(formRequest.response, elem.getAttribute('formBoxId'), type);
-                stompClient.send("/app/schedulables", {}, JSON.stringify({id: formRequest.response, type: type}));
+                sendSchedulableUpdatedMessage(formRequest.response, type);
                 if (url.indexOf("add") !== -1) {
                     resetAddForm(type);
                 }
@@ -11,6 +11,7 @@
  */
 
 let stompClient = null;
+let websocketProjectId = null; // the project this page is about; messages are only sent to and received from its topics
 
 // Show or hide console logs from various websocket functions.
 const editingLogs = false;
@@ -21,32 +22,44 @@ const projectLogs = false;
 /**
  * Sets up a connection to a WebSocket
  * Uses the endpoint registered in WebSocketConfig.java
+ * @param projectId the id of the project shown on this page. Only messages about this project are received.
  */
-function connect() {
+function connect(projectId) {
+    websocketProjectId = projectId;
+    const topic = `/topic/project/${projectId}`;
     const socket = new SockJS(BASE_URL + 'ws');
     stompClient = Stomp.over(socket);
     stompClient.debug = function (){return;}; // stop log spamming, from https://stackoverflow.com/questions/21767126/stompjs-javascript-client-logging-like-crazy-on-console
     stompClient.connect({}, function(frame) {
         console.log('Connected: ' + frame);
-        stompClient.subscribe('/topic/editing-schedulable', function(message) {
+        stompClient.subscribe(`${topic}/editing-schedulable`, function(message) {
             handleSchedulableMessage(JSON.parse(message.body));
         });
-        stompClient.subscribe('/topic/schedulables', function(schedulableMessageOutput) {
+        stompClient.subscribe(`${topic}/schedulables`, function(schedulableMessageOutput) {
             if (document.URL.includes('monthlyCalendar')) {
                 updateCalendar(JSON.parse(schedulableMessageOutput.body));
             } else {
                 updateSchedulable(JSON.parse(schedulableMessageOutput.body));
             }
         });
-        stompClient.subscribe('/topic/sprints', function(sprintMessageOutput) {
+        stompClient.subscribe(`${topic}/sprints`, function(sprintMessageOutput) {
             handleSprintUpdateMessage(JSON.parse(sprintMessageOutput.body));
         });
-        stompClient.subscribe('/topic/projects', function(projectMessageOutput) {
+        stompClient.subscribe(`${topic}/projects`, function(projectMessageOutput) {
             handleProjectUpdateMessage(JSON.parse(projectMessageOutput.body));
         });
     });
 }
 
+/**
+ * Sends a message saying that the specified schedulable was updated.
+ * @param schedulableId the id of the schedulable which has updated
+ * @param type the type of the schedulable which has updated
+ */
+function sendSchedulableUpdatedMessage(schedulableId, type) {
+    stompClient.send(`/app/project/${websocketProjectId}/schedulables`, {}, JSON.stringify({id: schedulableId, type: type}));
+}
+
 /**
  * Disconnects from a WebSocket
  */
@@ -65,7 +78,7 @@ function sendSprintUpdatedMessage(sprintId) {
     if (editingLogs) {
         console.log("SENDING UPDATED SPRINT MESSAGE FOR " + sprintId);
     }
-    stompClient.send("/app/sprints", {}, JSON.stringify({'id':`${sprintId}`}));
+    stompClient.send(`/app/project/${websocketProjectId}/sprints`, {}, JSON.stringify({'id':`${sprintId}`}));
 }
 
 /**
@@ -76,7 +89,7 @@ function sendProjectUpdatedMessage(projectId) {
     if (editingLogs) {
         console.log("SENDING UPDATED PROJECT MESSAGE FOR " + projectId);
     }
-    stompClient.send("/app/projects", {}, JSON.stringify({'id':`${projectId}`}));
+    stompClient.send(`/app/project/${websocketProjectId}/projects`, {}, JSON.stringify({'id':`${projectId}`}));
 }
 
 /**
@@ -92,7 +105,7 @@ function sendEditingSchedulableMessage(schedulableId, type) {
     let user = document.getElementById('user').getAttribute('data-name');
     let userId = document.getElementById('userId').getAttribute('data-name');
     let content = `${schedulableId},${type},${userId}`;
-    stompClient.send("/app/ws", {},
+    stompClient.send(`/app/project/${websocketProjectId}/ws`, {},
     JSON.stringify({'from':user, 'content':content}));
 }
 
@@ -107,7 +120,7 @@ function sendStopEditingMessage(schedulableId, type) {
         }
         let user = document.getElementById('user').getAttribute('data-name');
         let content = `${schedulableId},${type}`
-        stompClient.send("/app/ws", {},
+        stompClient.send(`/app/project/${websocketProjectId}/ws`, {},
         JSON.stringify({'from':user, 'content':content}));
     }
 }
\ No newline at end of file
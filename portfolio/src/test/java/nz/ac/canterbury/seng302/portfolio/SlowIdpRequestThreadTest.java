@@ -0,0 +1,166 @@
+package nz.ac.canterbury.seng302.portfolio;
+
+import com.google.protobuf.Empty;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import nz.ac.canterbury.seng302.portfolio.factory.WithMockCustomUserSecurityContextFactory;
+import nz.ac.canterbury.seng302.shared.identityprovider.*;
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that a slow IdP can't hold on to Tomcat's request threads. The portfolio runs on a real port, with a few
+ * request threads, and talks to an in-process IdP that answers session token checks straight away but never answers
+ * user lookups while the test runs. Profile pages then only finish because their IdP calls have deadlines.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "grpc.client.identity-provider-grpc-server.address=in-process:" + SlowIdpRequestThreadTest.IDP_NAME,
+        "idp-client.deadline-ms=" + SlowIdpRequestThreadTest.DEADLINE_MS,
+        "user-profile-cache.idp-timeout-ms=" + SlowIdpRequestThreadTest.DEADLINE_MS,
+        "user-batch.idp-timeout-ms=" + SlowIdpRequestThreadTest.DEADLINE_MS,
+        "server.tomcat.threads.max=" + SlowIdpRequestThreadTest.REQUEST_THREADS
+})
+@DirtiesContext
+class SlowIdpRequestThreadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowIdpRequestThreadTest.class);
+
+    static final String IDP_NAME = "slow-idp-request-threads";
+    static final long DEADLINE_MS = 300;
+    static final int REQUEST_THREADS = 4;
+    // Three times as many requests as threads, so they would all queue behind the first ones without deadlines
+    private static final int NUM_REQUESTS = 3 * REQUEST_THREADS;
+    private static final long RESPONSE_TIMEOUT_SECONDS = 10;
+
+    private static Server idp;
+    // Released once the test is over, so the IdP never answers a user lookup while it runs
+    private static final CountDownLatch idpReleased = new CountDownLatch(1);
+    private static final AtomicInteger heldCalls = new AtomicInteger();
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    /**
+     * Answers every session token check straight away, as a logged in student
+     */
+    private static class FastAuthenticationService extends AuthenticationServiceGrpc.AuthenticationServiceImplBase {
+        @Override
+        public void checkAuthState(Empty request, StreamObserver<AuthState> responseObserver) {
+            responseObserver.onNext(WithMockCustomUserSecurityContextFactory.buildAuthState(1, UserRole.STUDENT));
+            responseObserver.onCompleted();
+        }
+    }
+
+    /**
+     * Doesn't answer user lookups until the test is over
+     */
+    private static class StuckUserAccountService extends UserAccountServiceGrpc.UserAccountServiceImplBase {
+        @Override
+        public void getUserAccountById(GetUserByIdRequest request, StreamObserver<UserResponse> responseObserver) {
+            holdCall();
+            responseObserver.onNext(UserResponse.newBuilder().setId(request.getId()).build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void getUsersByIds(GetUsersByIdsRequest request, StreamObserver<GetUsersByIdsResponse> responseObserver) {
+            holdCall();
+            responseObserver.onNext(GetUsersByIdsResponse.getDefaultInstance());
+            responseObserver.onCompleted();
+        }
+    }
+
+    private static void holdCall() {
+        heldCalls.incrementAndGet();
+        try {
+            idpReleased.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @BeforeAll
+    static void startIdp() throws IOException {
+        idp = InProcessServerBuilder.forName(IDP_NAME)
+                .addService(new FastAuthenticationService())
+                .addService(new StuckUserAccountService())
+                .build()
+                .start();
+    }
+
+    @AfterAll
+    static void stopIdp() throws InterruptedException {
+        idpReleased.countDown();
+        idp.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private ThreadPoolExecutor getRequestThreads() {
+        TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+        return (ThreadPoolExecutor) webServer.getTomcat().getConnector().getProtocolHandler().getExecutor();
+    }
+
+    @Test
+    void idpNeverAnswers_requestsFinishAndThreadsReleased() throws Exception {
+        ThreadPoolExecutor requestThreads = getRequestThreads();
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + context.getWebServer().getPort() + "/users/2"))
+                .header("Cookie", "lens-session-token=test-token")
+                .build();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>();
+        for (int i = 0; i < NUM_REQUESTS; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        CompletableFuture<Void> allResponses = CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new));
+        int mostBusyThreads = 0;
+        long giveUpAt = start + TimeUnit.SECONDS.toNanos(RESPONSE_TIMEOUT_SECONDS);
+        while (!allResponses.isDone() && System.nanoTime() < giveUpAt) {
+            mostBusyThreads = Math.max(mostBusyThreads, requestThreads.getActiveCount());
+            Thread.sleep(10);
+        }
+        assertTrue(allResponses.isDone(), "Requests were still waiting for the IdP after "
+                + RESPONSE_TIMEOUT_SECONDS + " seconds");
+        double elapsedMillis = (System.nanoTime() - start) / 1e6;
+
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            assertEquals(200, response.join().statusCode());
+        }
+        // Each page's calls were still held by the IdP when it finished
+        assertTrue(heldCalls.get() >= NUM_REQUESTS);
+        assertEquals(1, idpReleased.getCount());
+
+        // A thread counts as busy until it's back in the pool, which can be just after its response is sent
+        long releasedBy = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (requestThreads.getActiveCount() > 0 && System.nanoTime() < releasedBy) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, requestThreads.getActiveCount());
+        logger.info("{} requests took {} ms with {} request threads, at most {} busy at once, and {} IdP calls held",
+                NUM_REQUESTS, String.format("%.0f", elapsedMillis), REQUEST_THREADS, mostBusyThreads, heldCalls.get());
+    }
+}
@@ -6,6 +6,7 @@ import nz.ac.canterbury.seng302.portfolio.model.Deadline;
 import nz.ac.canterbury.seng302.portfolio.service.DeadlineService;
 import nz.ac.canterbury.seng302.portfolio.service.ProjectService;
 import nz.ac.canterbury.seng302.portfolio.service.UserAccountClientService;
+import nz.ac.canterbury.seng302.portfolio.service.UserProfileCache;
 import nz.ac.canterbury.seng302.portfolio.utils.DateUtils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -50,6 +51,9 @@ class DeadlineControllerTest {
     @MockBean
     private UserAccountClientService userAccountClientService;
 
+    @MockBean
+    private UserProfileCache userProfileCache;
+
     static Project parentProject = new Project("Project 2022", "This is the project", DateUtils.toDate("2022-01-01"), DateUtils.toDate("2022-12-31"));
 
     @Test
@@ -1,7 +1,11 @@
 package nz.ac.canterbury.seng302.portfolio.controller;
 
 import nz.ac.canterbury.seng302.portfolio.annotation.WithMockPrincipal;
+import nz.ac.canterbury.seng302.portfolio.model.Project;
+import nz.ac.canterbury.seng302.portfolio.model.SchedulableSummary;
+import nz.ac.canterbury.seng302.portfolio.model.Sprint;
 import nz.ac.canterbury.seng302.portfolio.service.*;
+import nz.ac.canterbury.seng302.portfolio.utils.DateUtils;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
@@ -11,9 +15,17 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.*;
 import static nz.ac.canterbury.seng302.shared.identityprovider.UserRole.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -43,5 +55,56 @@ class DetailsControllerTest {
     @MockBean
     private UserAccountClientService userAccountClientService;
 
+    @MockBean
+    private UserProfileCache userProfileCache;
+    @MockBean
+    private SchedulableSummaryService schedulableSummaryService;
+
+    @Test
+    @WithMockPrincipal(STUDENT)
+    void viewProjectDetails_noSprintsSaved() throws Exception {
+        Project project = new Project("Project 2022", "", DateUtils.toDate("2022-01-01"), DateUtils.toDate("2022-12-30"));
+        project.setId(1);
+        Sprint sprint = new Sprint(1, "Sprint 1", "", DateUtils.toDate("2022-01-02"), DateUtils.toDate("2022-02-01"), "#ff00aa");
+        Mockito.when(projectService.getProjectById(1)).thenReturn(project);
+        Mockito.when(sprintService.getSprintsInProject(1)).thenReturn(new ArrayList<>(List.of(sprint)));
+
+        this.mockMvc.perform(get("/project/1/"))
+                .andExpect(status().isOk());
+
+        // Viewing the page shouldn't write anything to the database
+        Mockito.verify(labelUtils, Mockito.never()).refreshProjectSprintLabels(anyInt());
+        Mockito.verify(sprintService, Mockito.never()).saveSprint(any());
+        Mockito.verify(sprintService, Mockito.never()).saveSprints(any());
+    }
+
+    @Test
+    @WithMockPrincipal(TEACHER)
+    void viewProjectDetails_schedulablesLoadedTogether() throws Exception {
+        Project project = new Project("Project 2022", "", DateUtils.toDate("2022-01-01"), DateUtils.toDate("2022-12-30"));
+        project.setId(1);
+        Sprint sprint = new Sprint(1, "Sprint 1", "", DateUtils.toDate("2022-01-02"), DateUtils.toDate("2022-02-01"), "#ff00aa");
+        Mockito.when(projectService.getProjectById(1)).thenReturn(project);
+        Mockito.when(sprintService.getSprintsInProject(1)).thenReturn(new ArrayList<>(List.of(sprint)));
+        Mockito.when(schedulableSummaryService.getSchedulablesInProject(1)).thenReturn(List.of(
+                new SchedulableSummary(1, EVENT_TYPE, project.getId(), "Event name", "Event description",
+                        DateUtils.toDateTime("2022-01-01 09:00"), DateUtils.toDateTime("2022-01-05 17:00")),
+                new SchedulableSummary(1, DEADLINE_TYPE, project.getId(), "Deadline name", "",
+                        DateUtils.toDateTime("2022-01-10 17:00"), DateUtils.toDateTime("2022-01-10 17:00")),
+                new SchedulableSummary(1, MILESTONE_TYPE, project.getId(), "Milestone name", "",
+                        DateUtils.toDate("2022-03-01"), DateUtils.toDate("2022-03-01"))));
+
+        this.mockMvc.perform(get("/project/1/"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Event description")))
+                .andExpect(content().string(containsString("Deadline name")))
+                .andExpect(content().string(containsString("Milestone name")));
+
+        // The page shouldn't load each type of schedulable separately
+        Mockito.verify(eventService, Mockito.never()).getEventByParentProjectId(anyInt());
+        Mockito.verify(deadlineService, Mockito.never()).getDeadlineByParentProjectId(anyInt());
+        Mockito.verify(milestoneService, Mockito.never()).getMilestoneByParentProjectId(anyInt());
+    }
+
     //TODO add tests that test the model attributes of get requests.
 }
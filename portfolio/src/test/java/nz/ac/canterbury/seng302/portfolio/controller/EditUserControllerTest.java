@@ -11,11 +11,20 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import nz.ac.canterbury.seng302.portfolio.annotation.WithMockPrincipal;
+import io.grpc.Status;
+import nz.ac.canterbury.seng302.portfolio.service.FileUploadObserver;
 import nz.ac.canterbury.seng302.portfolio.service.UserAccountClientService;
+import nz.ac.canterbury.seng302.portfolio.service.UserProfileCache;
 import nz.ac.canterbury.seng302.shared.identityprovider.DeleteUserProfilePhotoResponse;
 import nz.ac.canterbury.seng302.shared.identityprovider.UserResponse;
+import nz.ac.canterbury.seng302.shared.util.FileUploadStatus;
+import nz.ac.canterbury.seng302.shared.util.FileUploadStatusResponse;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -24,12 +33,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
 import static nz.ac.canterbury.seng302.shared.identityprovider.UserRole.*;
 
-@SpringBootTest
+@SpringBootTest(properties = "profile-photo.upload-response-timeout-ms=" + EditUserControllerTest.PHOTO_TIMEOUT_MS)
 @AutoConfigureMockMvc(addFilters = false)
 @WithMockPrincipal(value=TEACHER, id=EditUserControllerTest.USER_ID)    // Make our mocked user be the one we're editing
 class EditUserControllerTest {
 
     static final int USER_ID=1;
+    static final long PHOTO_TIMEOUT_MS = 200;
+    // A 1x1 PNG, as the cropper on the edit page would send it
+    private static final String IMAGE_STRING = "data:image/png;base64,iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNkYPhfDwAChwGA60e6kgAAAABJRU5ErkJggg==";
     final Logger logger = LoggerFactory.getLogger(EditUserControllerTest.class);
 
     // The URL which the controller handles requests on.
@@ -41,6 +53,9 @@ class EditUserControllerTest {
     @MockBean
     private UserAccountClientService userAccountService;
 
+    @MockBean
+    private UserProfileCache userProfileCache;
+
     @BeforeEach
     private void setup() {
         // Define the user for the tests; this is done to provide access to the edit page
@@ -75,6 +90,7 @@ class EditUserControllerTest {
             .andExpect(status().isOk())
             .andExpect(content().string(containsString("No profile photo uploaded")));
         verify(userAccountService).deleteUserProfilePhoto(USER_ID);
+        verify(userProfileCache, never()).invalidateUser(USER_ID);
     }
 
     @Test
@@ -93,5 +109,42 @@ class EditUserControllerTest {
             .andExpect(status().is3xxRedirection())
             .andExpect(redirectedUrl("../" + USER_ID));
         verify(userAccountService).deleteUserProfilePhoto(USER_ID);
+        // So the header shows the default photo straight away
+        verify(userProfileCache).invalidateUser(USER_ID);
+    }
+
+    @Test
+    void uploadPhotoIdpResponds_getRedirected() throws Exception {
+        FileUploadObserver observer = new FileUploadObserver();
+        observer.onNext(FileUploadStatusResponse.newBuilder().setStatus(FileUploadStatus.SUCCESS).build());
+        when(userAccountService.uploadUserProfilePhoto(eq(USER_ID), any())).thenReturn(observer);
+
+        this.mockMvc.perform(post(EDIT_USER_URL).param("imageString", IMAGE_STRING))
+            .andExpect(status().is3xxRedirection())
+            .andExpect(redirectedUrl("../" + USER_ID));
+        verify(userProfileCache).invalidateUser(USER_ID);
+    }
+
+    @Test
+    void uploadPhotoIdpFails_thenShowMessage() throws Exception {
+        FileUploadObserver observer = new FileUploadObserver();
+        observer.onError(Status.RESOURCE_EXHAUSTED.withDescription("Server busy").asRuntimeException());
+        when(userAccountService.uploadUserProfilePhoto(eq(USER_ID), any())).thenReturn(observer);
+
+        this.mockMvc.perform(post(EDIT_USER_URL).param("imageString", IMAGE_STRING))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("Something went wrong uploading your photo: Server busy")));
+    }
+
+    @Test
+    void uploadPhotoIdpSlowerThanTimeout_thenShowProcessingMessage() throws Exception {
+        // The IdP never answers
+        when(userAccountService.uploadUserProfilePhoto(eq(USER_ID), any())).thenReturn(new FileUploadObserver());
+
+        this.mockMvc.perform(post(EDIT_USER_URL).param("imageString", IMAGE_STRING))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("Your photo is still being processed")))
+            .andExpect(content().string(not(containsString("Something went wrong uploading your photo"))));
+        verify(userProfileCache).invalidateUser(USER_ID);
     }
 }
@@ -1,14 +1,18 @@
 package nz.ac.canterbury.seng302.portfolio.controller;
 
+import io.grpc.Status;
 import nz.ac.canterbury.seng302.portfolio.annotation.WithMockPrincipal;
+import nz.ac.canterbury.seng302.portfolio.authentication.AuthStateCache;
 import nz.ac.canterbury.seng302.portfolio.controller.forms.GroupForm;
 import nz.ac.canterbury.seng302.portfolio.model.Project;
 import nz.ac.canterbury.seng302.portfolio.service.GroupClientService;
 import nz.ac.canterbury.seng302.portfolio.service.ProjectService;
 import nz.ac.canterbury.seng302.portfolio.service.UserAccountClientService;
+import nz.ac.canterbury.seng302.portfolio.service.UserProfileCache;
 import nz.ac.canterbury.seng302.portfolio.utils.GlobalVars;
 import nz.ac.canterbury.seng302.shared.identityprovider.*;
 import nz.ac.canterbury.seng302.shared.identityprovider.DeleteGroupResponse;
+import nz.ac.canterbury.seng302.shared.util.PaginationResponseOptions;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,10 +27,15 @@ import java.util.List;
 import static nz.ac.canterbury.seng302.shared.identityprovider.UserRole.STUDENT;
 import static nz.ac.canterbury.seng302.shared.identityprovider.UserRole.TEACHER;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -47,9 +56,15 @@ class GroupControllerTest {
     @MockBean
     private UserAccountClientService userAccountClientService;
 
+    @MockBean
+    private UserProfileCache userProfileCache;
+    @MockBean
+    private AuthStateCache authStateCache;
+
     static final int USER_ID = 1;
     static final int GROUP_ID = 2;
     private GroupForm groupForm;                                // Initialises the group form object
+    private UserResponse testUser;
 
     @BeforeEach
     void setup() {
@@ -62,7 +77,7 @@ class GroupControllerTest {
         Project parentProject = new Project("Project 2022", "Test Parent Project", "2022-01-01", "2022-12-31");
 
         // Define the user for the tests; this is done to provide access to the edit page
-        UserResponse testUser = UserResponse.newBuilder()
+        testUser = UserResponse.newBuilder()
                 .setUsername("test_user")
                 .setFirstName("Testy")
                 .setMiddleName("")
@@ -203,6 +218,33 @@ class GroupControllerTest {
                 .param("user_id", "2"))
                 .andExpect(status().isOk())
                 .andExpect(content().string("2 users added to group 1"));
+        verify(authStateCache, never()).invalidateUser(anyInt());
+    }
+
+    @Test
+    @WithMockPrincipal(TEACHER)
+    void addUsersToTeachingStaffAsTeacher_theirAuthStatesInvalidated() throws Exception {
+        AddGroupMembersResponse addGroupMembersResponse = AddGroupMembersResponse.newBuilder().setIsSuccess(true).setMessage("2 users added to group 0").build();
+        when(groupClientService.addGroupMembers(GlobalVars.TEACHER_GROUP_ID, List.of(1, 2))).thenReturn(addGroupMembersResponse);
+
+        mockMvc.perform(post("/groups/" + GlobalVars.TEACHER_GROUP_ID + "/add-members")
+                        .param("user_id", "1")
+                        .param("user_id", "2"))
+                .andExpect(status().isOk());
+        verify(authStateCache).invalidateUser(1);
+        verify(authStateCache).invalidateUser(2);
+    }
+
+    @Test
+    @WithMockPrincipal(TEACHER)
+    void removeUsersFromTeachingStaffAsTeacher_theirAuthStatesInvalidated() throws Exception {
+        RemoveGroupMembersResponse removeGroupMembersResponse = RemoveGroupMembersResponse.newBuilder().setIsSuccess(true).setMessage("1 user removed from group 0").build();
+        when(groupClientService.removeGroupMembers(GlobalVars.TEACHER_GROUP_ID, List.of(1))).thenReturn(removeGroupMembersResponse);
+
+        mockMvc.perform(delete("/groups/" + GlobalVars.TEACHER_GROUP_ID + "/remove-members")
+                        .param("user_id", "1"))
+                .andExpect(status().isOk());
+        verify(authStateCache).invalidateUser(1);
     }
 
     @Test
@@ -366,4 +408,66 @@ class GroupControllerTest {
                 .andExpect(status().isForbidden())
                 .andExpect(content().string("You do not have permission to access this endpoint"));
     }
+
+    @Test
+    @WithMockPrincipal(STUDENT)
+    void viewSecondPageOfGroups_onlyThatPageRequested() throws Exception {
+        GroupDetailsResponse group = GroupDetailsResponse.newBuilder()
+                .setGroupId(GROUP_ID)
+                .setShortName("Test Group")
+                .setLongName("Test Project Group 2022")
+                .setMemberCount(1)
+                .build();
+        PaginatedGroupsResponse groups = PaginatedGroupsResponse.newBuilder()
+                .addGroups(group)
+                .setPaginationResponseOptions(PaginationResponseOptions.newBuilder().setResultSetSize(11))
+                .build();
+        when(groupClientService.getPaginatedGroups(1, 10, "shortName", true)).thenReturn(groups);
+
+        mockMvc.perform(get("/groups").param("page", "2"))
+                .andExpect(status().isOk())
+                .andExpect(view().name(GroupController.GROUPS_TEMPLATE_NAME))
+                .andExpect(model().attribute("page", 2))
+                .andExpect(model().attribute("totalPages", 2));
+    }
+
+    @Test
+    @WithMockPrincipal(TEACHER)
+    void getFirstPageOfGroupMembers_thenMembersAndNextPageShown() throws Exception {
+        PaginatedUsersResponse members = PaginatedUsersResponse.newBuilder()
+                .addUsers(testUser)
+                .setPaginationResponseOptions(PaginationResponseOptions.newBuilder().setResultSetSize(21))
+                .build();
+        when(groupClientService.getPaginatedGroupMembers(GROUP_ID, 0, 20, "name", true)).thenReturn(members);
+
+        mockMvc.perform(get("/groups/" + GROUP_ID + "/members"))
+                .andExpect(status().isOk())
+                .andExpect(view().name(GroupController.GROUP_MEMBERS_FRAGMENT_NAME))
+                .andExpect(model().attribute("members", List.of(testUser)))
+                .andExpect(model().attribute("nextPage", 2));
+    }
+
+    @Test
+    @WithMockPrincipal(TEACHER)
+    void getLastPageOfGroupMembers_thenNoNextPage() throws Exception {
+        PaginatedUsersResponse members = PaginatedUsersResponse.newBuilder()
+                .addUsers(testUser)
+                .setPaginationResponseOptions(PaginationResponseOptions.newBuilder().setResultSetSize(21))
+                .build();
+        when(groupClientService.getPaginatedGroupMembers(GROUP_ID, 1, 20, "name", true)).thenReturn(members);
+
+        mockMvc.perform(get("/groups/" + GROUP_ID + "/members").param("page", "2"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("nextPage", (Object) null));
+    }
+
+    @Test
+    @WithMockPrincipal(TEACHER)
+    void getMembersOfNonexistentGroup_get404Response() throws Exception {
+        when(groupClientService.getPaginatedGroupMembers(5, 0, 20, "name", true))
+                .thenThrow(Status.NOT_FOUND.withDescription(GlobalVars.GROUP_NOT_FOUND_ERROR_MESSAGE + "5").asRuntimeException());
+
+        mockMvc.perform(get("/groups/5/members"))
+                .andExpect(status().isNotFound());
+    }
 }
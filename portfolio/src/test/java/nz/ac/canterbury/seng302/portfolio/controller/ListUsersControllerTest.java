@@ -2,7 +2,9 @@ package nz.ac.canterbury.seng302.portfolio.controller;
 import io.grpc.Status;
 import io.grpc.StatusException;
 import nz.ac.canterbury.seng302.portfolio.annotation.WithMockPrincipal;
+import nz.ac.canterbury.seng302.portfolio.authentication.AuthStateCache;
 import nz.ac.canterbury.seng302.portfolio.service.UserAccountClientService;
+import nz.ac.canterbury.seng302.portfolio.service.UserProfileCache;
 import nz.ac.canterbury.seng302.shared.identityprovider.UserRole;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -31,6 +33,12 @@ class ListUsersControllerTest {
     @MockBean // @MockBean is used over @Mock as for mockmvc tests we require Spring context
     UserAccountClientService userAccountClientService;
 
+    @MockBean
+    UserProfileCache userProfileCache;
+
+    @MockBean
+    AuthStateCache authStateCache;
+
     /**
      * Mock the userAccountClientService such that it responds as if
      * the given user has the given role
@@ -183,4 +191,31 @@ class ListUsersControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(content().string("Invalid User Id"));
     }
+
+    @Test
+    @WithMockPrincipal(TEACHER)
+    void addRoleToUserAsTeacher_cachedAuthStateInvalidated() throws Exception {
+        mockUserWithoutRole(1, TEACHER);
+        mockMvc.perform(patch("/users/1/add-role/TEACHER"))
+                .andExpect(status().isOk());
+        Mockito.verify(authStateCache).invalidateUser(1);
+    }
+
+    @Test
+    @WithMockPrincipal(TEACHER)
+    void removeRoleFromUserAsTeacher_cachedAuthStateInvalidated() throws Exception {
+        mockUserWithRole(1, TEACHER);
+        mockMvc.perform(patch("/users/1/remove-role/TEACHER"))
+                .andExpect(status().isOk());
+        Mockito.verify(authStateCache).invalidateUser(1);
+    }
+
+    @Test
+    @WithMockPrincipal(TEACHER)
+    void addDuplicateRoleToUserAsTeacher_cachedAuthStateKept() throws Exception {
+        mockUserWithRole(1, TEACHER);
+        mockMvc.perform(patch("/users/1/add-role/TEACHER"))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(authStateCache, Mockito.never()).invalidateUser(Mockito.anyInt());
+    }
 }
@@ -0,0 +1,190 @@
+package nz.ac.canterbury.seng302.portfolio.controller;
+
+import nz.ac.canterbury.seng302.portfolio.model.Sprint;
+import nz.ac.canterbury.seng302.portfolio.service.SprintService;
+import nz.ac.canterbury.seng302.portfolio.utils.DateUtils;
+import nz.ac.canterbury.seng302.portfolio.utils.SprintMessage;
+import nz.ac.canterbury.seng302.portfolio.utils.SprintMessageOutput;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Load tests for sending sprint updates through MessageMappingController.
+ * Sprint reads are given an artificial database latency, and many sprints are updated at once from different threads.
+ * Updates used to be sent one at a time with a 250ms wait each, so these check that they now overlap.
+ * The tests that time the updates are tagged as benchmarks, so they only run with <code>./gradlew benchmark</code>.
+ */
+class MessageMappingControllerSprintLoadTest {
+
+    private static final int NUM_SPRINTS = 100;
+    private static final long DELAY_MS = 250;
+    private static final long READ_LATENCY_MS = 10;
+
+    private final List<SprintMessageOutput> sentMessages = new CopyOnWriteArrayList<>();
+    private final List<String> sentDestinations = new CopyOnWriteArrayList<>();
+    // The names of the threads that read sprints
+    private final List<String> readThreads = new CopyOnWriteArrayList<>();
+    private final AtomicInteger readsInProgress = new AtomicInteger();
+    private final AtomicInteger mostReadsAtOnce = new AtomicInteger();
+    // Reads wait here until this many reads have started, to show whether they can overlap
+    private CountDownLatch overlappingReads = new CountDownLatch(0);
+    private SprintService sprintService;
+    private ThreadPoolTaskScheduler scheduler;
+    private ExecutorService clients;
+
+    @BeforeEach
+    void setUp() {
+        sprintService = mock(SprintService.class);
+        when(sprintService.getSprintById(anyInt())).thenAnswer(invocation -> {
+            readThreads.add(Thread.currentThread().getName());
+            mostReadsAtOnce.accumulateAndGet(readsInProgress.incrementAndGet(), Math::max);
+            overlappingReads.countDown();
+            overlappingReads.await(5, TimeUnit.SECONDS);
+            Thread.sleep(READ_LATENCY_MS);
+            readsInProgress.decrementAndGet();
+            Sprint sprint = new Sprint(1, "Sprint", "desc", DateUtils.toDate("2022-01-01"),
+                    DateUtils.toDate("2022-02-01"), "#aabbcc");
+            sprint.setId(invocation.getArgument(0));
+            return sprint;
+        });
+        AtomicInteger clientCount = new AtomicInteger();
+        clients = Executors.newFixedThreadPool(16,
+                runnable -> new Thread(runnable, "client-" + clientCount.incrementAndGet()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        clients.shutdownNow();
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Creates a controller whose sprint updates run on a scheduler with the given number of threads.
+     */
+    private MessageMappingController createController(int threads) {
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(threads);
+        scheduler.initialize();
+        SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> true) {
+            @Override
+            public void convertAndSend(String destination, Object payload) {
+                sentDestinations.add(destination);
+                sentMessages.add((SprintMessageOutput) payload);
+            }
+        };
+        MessageMappingController controller = new MessageMappingController(template, scheduler, DELAY_MS);
+        controller.sprintService = sprintService;
+        return controller;
+    }
+
+    private static SprintMessage messageFor(int sprintId) {
+        SprintMessage message = new SprintMessage();
+        message.setId(sprintId);
+        return message;
+    }
+
+    /**
+     * Sends an update for every sprint at once from several client threads, and waits for them all to be sent out.
+     * @return how long it took in milliseconds
+     */
+    private long updateAllSprints(MessageMappingController controller) throws Exception {
+        long start = System.nanoTime();
+        List<Future<?>> sends = IntStream.range(0, NUM_SPRINTS)
+                .<Future<?>>mapToObj(id -> clients.submit(() -> controller.sendSprintData(1, messageFor(id))))
+                .toList();
+        for (Future<?> send : sends) {
+            send.get();
+        }
+        // Receiving a message must never wait for the sprint to be read
+        assertTrue(readThreads.stream().noneMatch(name -> name.startsWith("client-")));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (sentMessages.size() < NUM_SPRINTS && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(NUM_SPRINTS, sentMessages.size());
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @Test
+    void concurrentUpdatesToDifferentSprints_readsOverlap() throws Exception {
+        // If updates were still sent one at a time, the first read would wait out the latch alone
+        overlappingReads = new CountDownLatch(2);
+        updateAllSprints(createController(2));
+
+        assertTrue(mostReadsAtOnce.get() >= 2, "Sprint reads never overlapped");
+        assertEquals(NUM_SPRINTS, sentMessages.stream().mapToInt(SprintMessageOutput::getId).distinct().count());
+        assertTrue(sentDestinations.stream().allMatch("/topic/project/1/sprints"::equals));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void concurrentUpdatesToDifferentSprints_notSerialised() throws Exception {
+        long elapsed = updateAllSprints(createController(Runtime.getRuntime().availableProcessors()));
+        // Sent one after the other, this would take NUM_SPRINTS * (DELAY_MS + READ_LATENCY_MS) = 26 seconds
+        assertTrue(elapsed < DELAY_MS + NUM_SPRINTS * READ_LATENCY_MS + 1000, "Updates took " + elapsed + "ms");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void concurrentUpdatesToDifferentSprints_scaleWithCores() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        assumeTrue(cores > 1, "Scaling can only be measured with more than one core");
+
+        long singleThreaded = updateAllSprints(createController(1));
+        scheduler.shutdown();
+        sentMessages.clear();
+        long multiThreaded = updateAllSprints(createController(cores));
+
+        // Only the reads can run in parallel, the delay is the same for both
+        double speedup = (double) (singleThreaded - DELAY_MS) / Math.max(1, multiThreaded - DELAY_MS);
+        assertTrue(speedup > Math.min(cores, 4) / 2.0,
+                "Speedup with " + cores + " threads was only " + speedup + " (" + singleThreaded + "ms vs " + multiThreaded + "ms)");
+    }
+
+    @Test
+    void repeatedUpdatesToOneSprint_mergedIntoOneMessage() throws Exception {
+        MessageMappingController controller = createController(1);
+        List<Future<?>> sends = IntStream.range(0, 50)
+                .<Future<?>>mapToObj(i -> clients.submit(() -> controller.sendSprintData(1, messageFor(7))))
+                .toList();
+        for (Future<?> send : sends) {
+            send.get();
+        }
+        Thread.sleep(DELAY_MS + 200);
+        assertEquals(1, sentMessages.size());
+        assertEquals(7, sentMessages.get(0).getId());
+        verify(sprintService, times(1)).getSprintById(7);
+    }
+
+    @Test
+    void updateToDeletedSprint_sendsEmptyMessage() throws Exception {
+        when(sprintService.getSprintById(3)).thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Sprint not found."));
+        MessageMappingController controller = createController(1);
+        controller.sendSprintData(2, messageFor(3));
+        Thread.sleep(DELAY_MS + 200);
+        assertEquals(1, sentMessages.size());
+        assertEquals(3, sentMessages.get(0).getId());
+        assertNull(sentMessages.get(0).getName());
+        // The sprint can't be read, so it goes to the project the message came from
+        assertEquals("/topic/project/2/sprints", sentDestinations.get(0));
+    }
+}
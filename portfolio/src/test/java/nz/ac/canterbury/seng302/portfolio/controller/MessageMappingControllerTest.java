@@ -8,30 +8,36 @@ import nz.ac.canterbury.seng302.portfolio.service.EventService;
 import nz.ac.canterbury.seng302.portfolio.service.ProjectService;
 import nz.ac.canterbury.seng302.portfolio.service.SprintService;
 import nz.ac.canterbury.seng302.portfolio.utils.DateUtils;
+import nz.ac.canterbury.seng302.portfolio.utils.Message;
 import nz.ac.canterbury.seng302.portfolio.utils.ProjectMessage;
 import nz.ac.canterbury.seng302.portfolio.utils.ProjectMessageOutput;
 import nz.ac.canterbury.seng302.portfolio.utils.SchedulableMessage;
 import nz.ac.canterbury.seng302.portfolio.utils.SchedulableMessageOutput;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.*;
 
 /**
  * Holds tests for the MessageMappingController class.
  *
- * Currently, it tests that SchedulableMessageOutputs are returned correctly when the specified
- * event does or does not exist. The other methods in the controller aren't worth testing.
+ * Currently, it tests that SchedulableMessageOutputs are sent correctly when the specified
+ * event does or does not exist, and that messages are sent to the topics of the project they are about.
+ * The other methods in the controller aren't worth testing.
  */
 @SpringBootTest
 class MessageMappingControllerTest {
@@ -44,10 +50,20 @@ class MessageMappingControllerTest {
     private SprintService sprintService;
     @MockBean
     private ProjectService projectService;
+    @MockBean
+    private SimpMessagingTemplate template;
 
     @Autowired
-    MessageMappingController messageMappingController = new MessageMappingController(new SimpMessagingTemplate((message1, timeout) -> false));
-
+    MessageMappingController messageMappingController = new MessageMappingController(new SimpMessagingTemplate((message1, timeout) -> false), new ThreadPoolTaskScheduler(), 0);
+
+    /**
+     * Gets the message the controller sent to the given topic
+     */
+    private <T> T sentTo(String destination, Class<T> type) {
+        ArgumentCaptor<T> output = ArgumentCaptor.forClass(type);
+        verify(template).convertAndSend(eq(destination), output.capture());
+        return output.getValue();
+    }
 
     @Test
     void whenEventDoesNotExist_thenReturnEmptyResponse() {
@@ -55,7 +71,8 @@ class MessageMappingControllerTest {
         SchedulableMessage message = new SchedulableMessage();
         message.setId(1);
         message.setType(EVENT_TYPE);
-        SchedulableMessageOutput SchedulableMessageOutput = messageMappingController.sendSchedulableData(message);
+        messageMappingController.sendSchedulableData(1, message);
+        SchedulableMessageOutput SchedulableMessageOutput = sentTo("/topic/project/1/schedulables", SchedulableMessageOutput.class);
         assertEquals(1, SchedulableMessageOutput.getId());
         assertEquals(new ArrayList<>(), SchedulableMessageOutput.getSchedulableListIds());
     }
@@ -74,7 +91,8 @@ class MessageMappingControllerTest {
         SchedulableMessage message = new SchedulableMessage();
         message.setId(1);
         message.setType(EVENT_TYPE);
-        SchedulableMessageOutput SchedulableMessageOutput = messageMappingController.sendSchedulableData(message);
+        messageMappingController.sendSchedulableData(1, message);
+        SchedulableMessageOutput SchedulableMessageOutput = sentTo("/topic/project/1/schedulables", SchedulableMessageOutput.class);
         assertEquals(1, SchedulableMessageOutput.getId());
         assertEquals(1, SchedulableMessageOutput.getSchedulableListIds().size());
     }
@@ -85,7 +103,8 @@ class MessageMappingControllerTest {
         SchedulableMessage message = new SchedulableMessage();
         message.setId(1);
         message.setType(DEADLINE_TYPE);
-        SchedulableMessageOutput SchedulableMessageOutput = messageMappingController.sendSchedulableData(message);
+        messageMappingController.sendSchedulableData(1, message);
+        SchedulableMessageOutput SchedulableMessageOutput = sentTo("/topic/project/1/schedulables", SchedulableMessageOutput.class);
         assertEquals(1, SchedulableMessageOutput.getId());
         assertEquals(new ArrayList<>(), SchedulableMessageOutput.getSchedulableListIds());
     }
@@ -104,7 +123,8 @@ class MessageMappingControllerTest {
         SchedulableMessage message = new SchedulableMessage();
         message.setId(1);
         message.setType(DEADLINE_TYPE);
-        SchedulableMessageOutput SchedulableMessageOutput = messageMappingController.sendSchedulableData(message);
+        messageMappingController.sendSchedulableData(1, message);
+        SchedulableMessageOutput SchedulableMessageOutput = sentTo("/topic/project/1/schedulables", SchedulableMessageOutput.class);
         assertEquals(1, SchedulableMessageOutput.getId());
         assertEquals(1, SchedulableMessageOutput.getSchedulableListIds().size());
     }
@@ -114,7 +134,8 @@ class MessageMappingControllerTest {
         when(projectService.getProjectById(1)).thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Project not found."));
         ProjectMessage message = new ProjectMessage();
         message.setId(1);
-        ProjectMessageOutput projectMessageOutput = messageMappingController.sendProjectData(message);
+        messageMappingController.sendProjectData(1, message);
+        ProjectMessageOutput projectMessageOutput = sentTo("/topic/project/1/projects", ProjectMessageOutput.class);
         assertEquals(1, projectMessageOutput.getId());
     }
 
@@ -126,11 +147,64 @@ class MessageMappingControllerTest {
 
         ProjectMessage message = new ProjectMessage();
         message.setId(1);
-        ProjectMessageOutput projectMessageOutput = messageMappingController.sendProjectData(message);
+        messageMappingController.sendProjectData(1, message);
+        ProjectMessageOutput projectMessageOutput = sentTo("/topic/project/1/projects", ProjectMessageOutput.class);
         assertEquals(1, projectMessageOutput.getId());
         // With correct information
         assertEquals(project.getProjectName(), projectMessageOutput.getName());
         assertEquals(project.getProjectStartDate(), projectMessageOutput.getStartDate());
         assertEquals(project.getProjectEndDate(), projectMessageOutput.getEndDate());
     }
+
+    @Test
+    void whenEventMessageSentFromAnotherProject_thenSentToEventsProject() {
+        Event event = new Event("Name", "desc", DateUtils.toDate("2022-01-05"), DateUtils.toDate("2022-02-01"));
+        event.setId(1);
+        Project project = new Project("ProjName", "desc", DateUtils.toDate("2022-01-01"), DateUtils.toDate("2022-04-01"));
+        project.setId(2);
+        event.setParentProject(project);
+        when(eventService.getEventById(1)).thenReturn(event);
+        when(eventService.getEventByParentProjectId(2)).thenReturn(new ArrayList<>(List.of(event)));
+        when(sprintService.getSprintsInProject(2)).thenReturn(new ArrayList<>());
+
+        SchedulableMessage message = new SchedulableMessage();
+        message.setId(1);
+        message.setType(EVENT_TYPE);
+        messageMappingController.sendSchedulableData(1, message);
+        assertEquals(1, sentTo("/topic/project/2/schedulables", SchedulableMessageOutput.class).getId());
+        verify(template, never()).convertAndSend(eq("/topic/project/1/schedulables"), any(Object.class));
+    }
+
+    @Test
+    void whenProjectMessageSentFromAnotherProject_thenSentToThatProject() {
+        Project project = new Project("ProjName", "desc", DateUtils.toDate("2022-01-01"), DateUtils.toDate("2022-04-01"));
+        project.setId(2);
+        when(projectService.getProjectById(2)).thenReturn(project);
+
+        ProjectMessage message = new ProjectMessage();
+        message.setId(2);
+        messageMappingController.sendProjectData(1, message);
+        assertEquals(2, sentTo("/topic/project/2/projects", ProjectMessageOutput.class).getId());
+    }
+
+    @Test
+    void whenEditingMessageSentFromAnotherProject_thenSentToDeadlinesProject() {
+        Deadline deadline = new Deadline("Name", "desc", DateUtils.toDate("2022-01-05"));
+        deadline.setId(3);
+        Project project = new Project("ProjName", "desc", DateUtils.toDate("2022-01-01"), DateUtils.toDate("2022-04-01"));
+        project.setId(2);
+        deadline.setParentProject(project);
+        when(deadlineService.getDeadlineById(3)).thenReturn(deadline);
+
+        Message message = new Message("user", "3," + DEADLINE_TYPE + ",5");
+        messageMappingController.editingSchedulable(1, message);
+        assertEquals(message, sentTo("/topic/project/2/editing-schedulable", Message.class));
+    }
+
+    @Test
+    void whenEditingMessageIsInvalid_thenSentToSendersProject() {
+        Message message = new Message("user", "not a schedulable");
+        messageMappingController.editingSchedulable(1, message);
+        assertEquals(message, sentTo("/topic/project/1/editing-schedulable", Message.class));
+    }
 }
@@ -5,6 +5,8 @@ import nz.ac.canterbury.seng302.portfolio.model.Deadline;
 import nz.ac.canterbury.seng302.portfolio.model.Event;
 import nz.ac.canterbury.seng302.portfolio.model.Milestone;
 import nz.ac.canterbury.seng302.portfolio.model.Project;
+import nz.ac.canterbury.seng302.portfolio.model.SchedulablePage;
+import nz.ac.canterbury.seng302.portfolio.model.SchedulableSummary;
 import nz.ac.canterbury.seng302.portfolio.model.Sprint;
 import nz.ac.canterbury.seng302.portfolio.service.*;
 import nz.ac.canterbury.seng302.portfolio.utils.DateUtils;
@@ -46,6 +48,8 @@ class MonthlyCalendarControllerTest {
     @MockBean
     UserAccountClientService userAccountClientService;  // initializing the UserAccountClientService
     @MockBean
+    UserProfileCache userProfileCache;                  // initializing the UserProfileCache
+    @MockBean
     DateUtils utils;                                    // initializing the DateUtils
     @MockBean
     DeadlineService deadlineService;                    // initializing the DeadlineService
@@ -55,6 +59,10 @@ class MonthlyCalendarControllerTest {
     MilestoneService milestoneService;                  // initializing the MilestoneService
     @MockBean
     DetailsController detailsController;                // initializing the DetailsController
+    @MockBean
+    SprintLabelService sprintLabelService;              // initializing the SprintLabelService
+    @MockBean
+    SchedulableSummaryService schedulableSummaryService; // initializing the SchedulableSummaryService
 
     private static final int PROJECT_ID = 0;
     private static Deadline deadline = new Deadline("deadline1", "deaddesc", DateUtils.toDateTime("2022-02-01 17:00"));
@@ -131,25 +139,15 @@ class MonthlyCalendarControllerTest {
 
     @Test
     @WithMockPrincipal(UserRole.TEACHER)
-    void whenGetMonthlyCalendar_thenHasAllSchedulablesInProjectInCorrectFormat() throws Exception {
-        // get services to return list of schedulables
+    void whenGetMonthlyCalendar_thenSchedulablesNotInPage() throws Exception {
         Mockito.when(projectService.getProjectById(PROJECT_ID)).thenReturn(project);
-        Mockito.when(detailsController.getAllSchedulablesInProject(PROJECT_ID))
-                .thenReturn(List.of(deadline, milestone, event));
-
-
-        // create expected lists
-        String expectedNames = String.join(", ", List.of("deadline1", "milestone1", "event1"));
-        String expectedTypes = String.join(", ", List.of(GlobalVars.DEADLINE_TYPE, GlobalVars.MILESTONE_TYPE, GlobalVars.EVENT_TYPE));
-        String expectedStarts = String.join(", ", List.of("2022-02-01 17:00", "2022-02-02 00:00", "2022-02-02 09:00"));
-        String expectedEnds = String.join(", ", List.of("2022-02-01 17:00", "2022-02-02 00:00", "2022-02-20 17:00"));
 
+        // The calendar loads the schedulables for the dates it shows, so none are put in the page
         mockMvc.perform(get("/monthlyCalendar/" + PROJECT_ID))
                 .andExpect(status().isOk())
-                .andExpect(model().attribute("schedulableNames", expectedNames))
-                .andExpect(model().attribute("schedulableTypes", expectedTypes))
-                .andExpect(model().attribute("schedulableStartDates", expectedStarts))
-                .andExpect(model().attribute("schedulableEndDates", expectedEnds));
+                .andExpect(model().attributeDoesNotExist("schedulableNames", "schedulableTypes",
+                        "schedulableStartDates", "schedulableEndDates"));
+        Mockito.verify(detailsController, Mockito.never()).getAllSchedulablesInProject(Mockito.anyInt());
     }
 
     // this test is a bit odd because of how the sprint details are sent to the page
@@ -212,4 +210,36 @@ class MonthlyCalendarControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(status().reason("invalid is not a type of schedulable!"));
     }
+
+    @Test
+    @WithMockPrincipal(UserRole.TEACHER)
+    void whenGetSchedulablesInRange_thenRangeAndCursorPassedToService() throws Exception {
+        Mockito.when(projectService.getProjectById(PROJECT_ID)).thenReturn(project);
+        SchedulableSummary summary = new SchedulableSummary(1, GlobalVars.DEADLINE_TYPE, project.getId(), "deadline1", "deaddesc",
+                DateUtils.toDateTime("2022-02-01 17:00"), DateUtils.toDateTime("2022-02-01 17:00"));
+        Mockito.when(schedulableSummaryService.getSchedulablesInRange(PROJECT_ID, GlobalVars.DEADLINE_TYPE,
+                        DateUtils.toDate("2022-02-01"), DateUtils.toDate("2022-03-01"), "1643688000000_1", 10))
+                .thenReturn(new SchedulablePage(List.of(summary), null));
+
+        mockMvc.perform(get("/project/" + PROJECT_ID + "/schedulables/deadline")
+                        .param("from", "2022-02-01")
+                        .param("to", "2022-03-01")
+                        .param("cursor", "1643688000000_1")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.schedulables[0].name").value("deadline1"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @WithMockPrincipal(UserRole.TEACHER)
+    void whenGetSchedulablesWithoutRange_thenWholeProjectRequested() throws Exception {
+        Mockito.when(projectService.getProjectById(PROJECT_ID)).thenReturn(project);
+
+        mockMvc.perform(get("/project/" + PROJECT_ID + "/schedulables/event"))
+                .andExpect(status().isOk());
+
+        Mockito.verify(schedulableSummaryService).getSchedulablesInRange(PROJECT_ID, GlobalVars.EVENT_TYPE,
+                project.getProjectStartDate(), DateUtils.toDate("2023-01-01"), null, 500);
+    }
 }
@@ -0,0 +1,149 @@
+package nz.ac.canterbury.seng302.portfolio.service;
+
+import nz.ac.canterbury.seng302.portfolio.model.*;
+import nz.ac.canterbury.seng302.portfolio.utils.DateUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Holds tests for the SchedulableSummaryService class. These use the real repositories, to check that
+ * the database filters by project and date range and pages in start date order.
+ * Each test runs in a transaction that is rolled back afterwards.
+ */
+@SpringBootTest
+@Transactional
+class SchedulableSummaryServiceTest {
+
+    @Autowired
+    private SchedulableSummaryService schedulableSummaryService;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private DeadlineRepository deadlineRepository;
+    @Autowired
+    private MilestoneRepository milestoneRepository;
+
+    private Project project;
+    private Date from;
+    private Date to;
+
+    @BeforeEach
+    void setUp() {
+        project = projectRepository.save(new Project("Project", "", "2022-01-01", "2022-12-31"));
+        Project otherProject = projectRepository.save(new Project("Other project", "", "2022-01-01", "2022-12-31"));
+        from = DateUtils.toDate("2022-03-01");
+        to = DateUtils.toDate("2022-04-01");
+
+        // Inside, overlapping the start, overlapping the end, and outside the range
+        saveEvent(project, "2022-03-10", "2022-03-12");
+        saveEvent(project, "2022-02-20", "2022-03-02");
+        saveEvent(project, "2022-03-30", "2022-04-10");
+        saveEvent(project, "2022-01-10", "2022-01-12");
+        saveEvent(otherProject, "2022-03-10", "2022-03-12");
+
+        // Deadlines at the very start and very end of the range
+        saveDeadline(project, "2022-03-01 00:00");
+        saveDeadline(project, "2022-04-01 00:00");
+    }
+
+    private void saveEvent(Project parent, String start, String end) {
+        Event event = new Event("Event", "", DateUtils.toDate(start), DateUtils.toDate(end));
+        event.setParentProject(parent);
+        eventRepository.save(event);
+    }
+
+    private void saveDeadline(Project parent, String date) {
+        Deadline deadline = new Deadline("Deadline", "", DateUtils.toDateTime(date));
+        deadline.setParentProject(parent);
+        deadlineRepository.save(deadline);
+    }
+
+    @Test
+    void getEventsInRange_thenOnlyOverlappingEventsInProject() {
+        SchedulablePage page = schedulableSummaryService.getSchedulablesInRange(project.getId(), EVENT_TYPE, from, to, null, 10);
+
+        List<String> starts = page.getSchedulables().stream().map(SchedulableSummary::getStartDay).toList();
+        assertEquals(List.of("2022-02-20", "2022-03-10", "2022-03-30"), starts);
+        assertTrue(page.getSchedulables().stream().allMatch(summary -> EVENT_TYPE.equals(summary.getType())));
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getDeadlinesInRange_thenEndOfRangeExcluded() {
+        SchedulablePage page = schedulableSummaryService.getSchedulablesInRange(project.getId(), DEADLINE_TYPE, from, to, null, 10);
+
+        assertEquals(1, page.getSchedulables().size());
+        assertEquals("2022-03-01", page.getSchedulables().get(0).getStartDay());
+    }
+
+    @Test
+    void getEventsOnePerPage_thenCursorGetsTheRest() {
+        List<SchedulableSummary> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            SchedulablePage page = schedulableSummaryService.getSchedulablesInRange(project.getId(), EVENT_TYPE, from, to, cursor, 1);
+            assertTrue(page.getSchedulables().size() <= 1);
+            seen.addAll(page.getSchedulables());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of("2022-02-20", "2022-03-10", "2022-03-30"),
+                seen.stream().map(SchedulableSummary::getStartDay).toList());
+    }
+
+    @Test
+    void getSchedulablesInProject_thenAllTypesInStartDateOrder() {
+        Milestone milestone = new Milestone("Milestone", "Milestone description", DateUtils.toDate("2022-03-01"));
+        milestone.setParentProject(project);
+        milestoneRepository.save(milestone);
+
+        List<SchedulableSummary> summaries = schedulableSummaryService.getSchedulablesInProject(project.getId());
+
+        // Deadlines come before milestones that start at the same time, like on the project details page
+        assertEquals(List.of(EVENT_TYPE, EVENT_TYPE, DEADLINE_TYPE, MILESTONE_TYPE, EVENT_TYPE, EVENT_TYPE, DEADLINE_TYPE),
+                summaries.stream().map(SchedulableSummary::getType).toList());
+        for (int i = 1; i < summaries.size(); i++) {
+            assertFalse(summaries.get(i).getStartDate().before(summaries.get(i - 1).getStartDate()));
+        }
+        SchedulableSummary milestoneSummary = summaries.get(3);
+        assertEquals(milestone.getId(), milestoneSummary.getId());
+        assertEquals("Milestone description", milestoneSummary.getDescription());
+        assertEquals(milestone.getStartDate().getTime(), milestoneSummary.getStartDate().getTime());
+        assertEquals(project.getId(), milestoneSummary.getParentProjectId());
+    }
+
+    @Test
+    void getSchedulablesWithInvalidLimit_then400Error() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () ->
+                schedulableSummaryService.getSchedulablesInRange(project.getId(), EVENT_TYPE, from, to, null, 0));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+
+    @Test
+    void getSchedulablesWithInvalidCursor_then400Error() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () ->
+                schedulableSummaryService.getSchedulablesInRange(project.getId(), EVENT_TYPE, from, to, "abc", 10));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+
+    @Test
+    void getSchedulablesOfInvalidType_then400Error() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () ->
+                schedulableSummaryService.getSchedulablesInRange(project.getId(), "sprint", from, to, null, 10));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+}
@@ -0,0 +1,102 @@
+package nz.ac.canterbury.seng302.portfolio.service;
+
+import nz.ac.canterbury.seng302.portfolio.model.*;
+import nz.ac.canterbury.seng302.portfolio.utils.DateUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests that SchedulePlacementService only changes its indexes once a transaction commits,
+ * and only keeps as many indexes as it is allowed to.
+ */
+class SchedulePlacementServiceTest {
+
+    private final SprintRepository sprintRepository = mock(SprintRepository.class);
+    private final SchedulableReadRepository schedulableReadRepository = mock(SchedulableReadRepository.class);
+    private SchedulePlacementService schedulePlacementService;
+    private Milestone milestone;
+
+    @BeforeEach
+    void setUp() {
+        schedulePlacementService = new SchedulePlacementService(300, 1);
+        ReflectionTestUtils.setField(schedulePlacementService, "sprintRepository", sprintRepository);
+        ReflectionTestUtils.setField(schedulePlacementService, "schedulableReadRepository", schedulableReadRepository);
+
+        Project project = new Project("Project", "", DateUtils.toDate("2022-01-01"), DateUtils.toDate("2022-12-30"));
+        project.setId(1);
+        Sprint sprint = new Sprint(1, "Sprint", "", DateUtils.toDate("2022-01-02"), DateUtils.toDate("2022-02-01"), "#ff00aa");
+        sprint.setId(1);
+        when(sprintRepository.findByParentProjectId(1)).thenReturn(new ArrayList<>(List.of(sprint)));
+
+        milestone = new Milestone("Milestone", "", DateUtils.toDate("2022-01-15"));
+        milestone.setId(1);
+        milestone.setParentProject(project);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private List<String> placeMilestone() {
+        return schedulePlacementService.getPlacement(milestone).getSchedulableListIds();
+    }
+
+    @Test
+    void sprintDeletedInTransaction_indexChangedAfterCommit() {
+        List<String> inSprint = placeMilestone();
+        TransactionSynchronizationManager.initSynchronization();
+
+        schedulePlacementService.sprintDeleted(1);
+        assertEquals(inSprint, placeMilestone());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertNotEquals(inSprint, placeMilestone());
+    }
+
+    @Test
+    void sprintDeletedInTransactionThatRollsBack_indexNotChanged() {
+        List<String> inSprint = placeMilestone();
+        TransactionSynchronizationManager.initSynchronization();
+
+        schedulePlacementService.sprintDeleted(1);
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertEquals(inSprint, placeMilestone());
+    }
+
+    @Test
+    void sprintDeletedOutsideTransaction_indexChangedStraightAway() {
+        List<String> inSprint = placeMilestone();
+        schedulePlacementService.sprintDeleted(1);
+        assertNotEquals(inSprint, placeMilestone());
+    }
+
+    @Test
+    void moreProjectsThanMaxProjects_leastRecentlyUsedIndexRebuilt() {
+        placeMilestone();
+        placeMilestone();
+        verify(sprintRepository, times(1)).findByParentProjectId(1);
+
+        Project otherProject = new Project("Other", "", DateUtils.toDate("2022-01-01"), DateUtils.toDate("2022-12-30"));
+        otherProject.setId(2);
+        Milestone otherMilestone = new Milestone("Milestone", "", DateUtils.toDate("2022-01-15"));
+        otherMilestone.setParentProject(otherProject);
+        schedulePlacementService.getPlacement(otherMilestone);
+
+        placeMilestone();
+        verify(sprintRepository, times(2)).findByParentProjectId(1);
+    }
+}
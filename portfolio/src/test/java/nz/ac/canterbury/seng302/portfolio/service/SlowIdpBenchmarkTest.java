@@ -0,0 +1,186 @@
+package nz.ac.canterbury.seng302.portfolio.service;
+
+import com.google.protobuf.Empty;
+import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import nz.ac.canterbury.seng302.portfolio.utils.DeadlineClientInterceptor;
+import nz.ac.canterbury.seng302.shared.identityprovider.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures how long a request thread is held by the calls a page makes to the IdP, when the IdP is slow to answer.
+ * The IdP is simulated with an in-process gRPC server that waits IDP_DELAY_MS before answering every call, and the
+ * page's calls are made from the test's thread, not a Tomcat request thread.
+ * It is tagged as a benchmark, so it only runs with <code>./gradlew benchmark</code>.
+ */
+class SlowIdpBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowIdpBenchmarkTest.class);
+
+    private static final long IDP_DELAY_MS = 200;
+    private static final long DEADLINE_MS = 2000;
+    private static final int NUM_REQUESTS = 5;
+    private static final int USER_ID = 1;
+    private static final int OTHER_USER_ID = 2;
+
+    private Server server;
+    private ManagedChannel channel;
+    private ThreadPoolTaskScheduler scheduler;
+    private AuthenticateClientService authenticateClientService;
+    private UserAccountClientService userAccountClientService;
+    private UserProfileCache userProfileCache;
+
+    /**
+     * Answers session token checks, after waiting IDP_DELAY_MS
+     */
+    private static class SlowAuthenticationService extends AuthenticationServiceGrpc.AuthenticationServiceImplBase {
+        @Override
+        public void checkAuthState(Empty request, StreamObserver<AuthState> responseObserver) {
+            waitForIdp();
+            responseObserver.onNext(AuthState.newBuilder().setIsAuthenticated(true).build());
+            responseObserver.onCompleted();
+        }
+    }
+
+    /**
+     * Answers user lookups, singly or in batches, after waiting IDP_DELAY_MS
+     */
+    private static class SlowUserAccountService extends UserAccountServiceGrpc.UserAccountServiceImplBase {
+        @Override
+        public void getUserAccountById(GetUserByIdRequest request, StreamObserver<UserResponse> responseObserver) {
+            waitForIdp();
+            responseObserver.onNext(UserResponse.newBuilder().setId(request.getId()).build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void getUsersByIds(GetUsersByIdsRequest request, StreamObserver<GetUsersByIdsResponse> responseObserver) {
+            waitForIdp();
+            GetUsersByIdsResponse.Builder response = GetUsersByIdsResponse.newBuilder();
+            for (int id : request.getIdsList()) {
+                response.addUsers(UserResponse.newBuilder().setId(id).build());
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        }
+    }
+
+    private static void waitForIdp() {
+        try {
+            Thread.sleep(IDP_DELAY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+                .addService(new SlowAuthenticationService())
+                .addService(new SlowUserAccountService())
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(serverName).build();
+
+        authenticateClientService = new AuthenticateClientService();
+        useDeadline(DEADLINE_MS);
+
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+        userAccountClientService = new UserAccountClientService(scheduler, 5, 100, DEADLINE_MS);
+        ReflectionTestUtils.setField(userAccountClientService, "userAccountStub",
+                UserAccountServiceGrpc.newBlockingStub(channel));
+        // Users are never fresh, so every page has to ask the IdP for the header's user
+        userProfileCache = new UserProfileCache(userAccountClientService, 0, 3600, 10, DEADLINE_MS, 0);
+    }
+
+    /**
+     * Makes the session token checks with a deadline, as DeadlineClientInterceptor gives them in the application
+     */
+    private void useDeadline(long deadlineMillis) {
+        Channel channelWithDeadline = ClientInterceptors.intercept(channel,
+                new DeadlineClientInterceptor(deadlineMillis, deadlineMillis));
+        ReflectionTestUtils.setField(authenticateClientService, "authenticationStub",
+                AuthenticationServiceGrpc.newBlockingStub(channelWithDeadline));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        scheduler.shutdown();
+    }
+
+    /**
+     * Makes the calls of NUM_REQUESTS pages one after another, and logs how long each held the request thread.
+     * @return the average number of milliseconds a page held its thread for
+     */
+    private double timeRequests(String label, Runnable request) {
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_REQUESTS; i++) {
+            request.run();
+        }
+        double averageMillis = (System.nanoTime() - start) / 1e6 / NUM_REQUESTS;
+        logger.info("{}: request thread held for {} ms per page, with the IdP taking {} ms per call",
+                label, String.format("%.1f", averageMillis), IDP_DELAY_MS);
+        return averageMillis;
+    }
+
+    /**
+     * A profile page: the controller gets the user being shown, and ModelAttributeInterceptor gets the current
+     * user for the header
+     */
+    @Test
+    @Tag("benchmark")
+    void headerLookupOverlapsControllerCall_threadHeldForOneCall() {
+        double blockingMillis = timeRequests("Header user fetched after the controller", () -> {
+            assertNotNull(userAccountClientService.getUserAccountById(OTHER_USER_ID));
+            assertNotNull(userProfileCache.getUser(USER_ID));
+        });
+        double asyncMillis = timeRequests("Header user fetched during the controller", () -> {
+            // As in ModelAttributeInterceptor: started in preHandle, and joined in postHandle
+            CompletableFuture<UserResponse> headerUser = userProfileCache.getUserAsync(USER_ID);
+            assertNotNull(userAccountClientService.getUserAccountById(OTHER_USER_ID));
+            assertNotNull(headerUser.join());
+        });
+
+        assertTrue(blockingMillis >= 2 * IDP_DELAY_MS);
+        assertTrue(asyncMillis < blockingMillis - IDP_DELAY_MS / 2.0,
+                String.format("Overlapped calls took %.1f ms, one after another %.1f ms", asyncMillis, blockingMillis));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void idpSlowerThanDeadline_threadReleasedAtDeadline() {
+        useDeadline(IDP_DELAY_MS / 4);
+
+        double blockingMillis = timeRequests("Blocking call past its deadline", () -> {
+            StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+                    () -> authenticateClientService.checkAuthState());
+            assertEquals(Status.Code.DEADLINE_EXCEEDED, e.getStatus().getCode());
+        });
+
+        assertTrue(blockingMillis < IDP_DELAY_MS);
+    }
+}
@@ -14,7 +14,8 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import java.util.Arrays;
 import java.util.List;
 
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 /**
  * This class tests the SprintLabelService, which is responsible for assigning labels to Sprint objects such that
@@ -165,4 +166,21 @@ class SprintLabelServiceTest {
         Assertions.assertEquals(BASE + 4, sprint3.getSprintLabel());
         Assertions.assertEquals(BASE + 5, sprintLabelService.nextLabel(PROJECT_ID_1));
     }
+
+    @Test
+    void refreshLabels_onlyChangedLabelsSaved() {
+        sprintLabelService.refreshProjectSprintLabels(PROJECT_ID_1);
+        verify(sprintService).saveSprints(List.of(sprint1, sprint2, sprint3));
+        clearInvocations(sprintService);
+
+        // the labels are already right, so nothing needs saving
+        sprintLabelService.refreshProjectSprintLabels(PROJECT_ID_1);
+        verify(sprintService, never()).saveSprints(any());
+        verify(sprintService, never()).saveSprint(any());
+
+        Sprint sprint4 = new Sprint(PROJECT_ID_1, "Sprint 4", "desc", DateUtils.toDate("2022-03-02"), DateUtils.toDate("2022-04-01"), "#987654");
+        when(sprintService.getSprintsInProject(PROJECT_ID_1)).thenReturn(Arrays.asList(sprint1, sprint2, sprint3, sprint4));
+        sprintLabelService.refreshProjectSprintLabels(PROJECT_ID_1);
+        verify(sprintService).saveSprints(List.of(sprint4, sprint3));
+    }
 }
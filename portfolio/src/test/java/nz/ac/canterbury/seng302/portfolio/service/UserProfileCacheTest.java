@@ -0,0 +1,118 @@
+package nz.ac.canterbury.seng302.portfolio.service;
+
+import nz.ac.canterbury.seng302.shared.identityprovider.UserResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the UserProfileCache, which saves ModelAttributeInterceptor asking the IdP for the user on every page.
+ */
+class UserProfileCacheTest {
+
+    private static final int USER_ID = 1;
+    private static final long IDP_TIMEOUT_MS = 500;
+
+    private final UserAccountClientService userAccountClientService = mock(UserAccountClientService.class);
+    private long now;
+    private UserProfileCache userProfileCache;
+    private UserResponse user;
+
+    @BeforeEach
+    void setUp() {
+        now = 0;
+        // Fresh for 60 seconds, and used for an hour if the IdP doesn't answer
+        userProfileCache = new UserProfileCache(userAccountClientService, 60, 3600, 10, IDP_TIMEOUT_MS, 0,
+                () -> now);
+        user = UserResponse.newBuilder().setId(USER_ID).setProfileImagePath("photo.jpg").build();
+        when(userAccountClientService.getUserAccountById(USER_ID, IDP_TIMEOUT_MS)).thenReturn(user);
+    }
+
+    @Test
+    void getUserTwice_idpOnlyAskedOnce() {
+        assertEquals(user, userProfileCache.getUser(USER_ID));
+        assertEquals(user, userProfileCache.getUser(USER_ID));
+        verify(userAccountClientService, times(1)).getUserAccountById(USER_ID, IDP_TIMEOUT_MS);
+    }
+
+    @Test
+    void getUserAfterTtl_idpAskedAgain() {
+        userProfileCache.getUser(USER_ID);
+        now += TimeUnit.SECONDS.toNanos(60);
+        UserResponse newUser = user.toBuilder().setProfileImagePath("new.jpg").build();
+        when(userAccountClientService.getUserAccountById(USER_ID, IDP_TIMEOUT_MS)).thenReturn(newUser);
+
+        assertEquals(newUser, userProfileCache.getUser(USER_ID));
+        verify(userAccountClientService, times(2)).getUserAccountById(USER_ID, IDP_TIMEOUT_MS);
+    }
+
+    @Test
+    void getUserAfterInvalidate_idpAskedAgain() {
+        userProfileCache.getUser(USER_ID);
+        userProfileCache.invalidateUser(USER_ID);
+        userProfileCache.getUser(USER_ID);
+        verify(userAccountClientService, times(2)).getUserAccountById(USER_ID, IDP_TIMEOUT_MS);
+    }
+
+    @Test
+    void idpFailsAfterTtl_oldUserUsed() {
+        userProfileCache.getUser(USER_ID);
+        now += TimeUnit.SECONDS.toNanos(120);
+        when(userAccountClientService.getUserAccountById(anyInt(), anyLong())).thenReturn(null);
+
+        assertEquals(user, userProfileCache.getUser(USER_ID));
+    }
+
+    @Test
+    void idpFailsAfterStaleTtl_returnsNull() {
+        userProfileCache.getUser(USER_ID);
+        now += TimeUnit.SECONDS.toNanos(3600);
+        when(userAccountClientService.getUserAccountById(anyInt(), anyLong())).thenReturn(null);
+
+        assertNull(userProfileCache.getUser(USER_ID));
+    }
+
+    @Test
+    void idpFailsWithNothingCached_returnsNullAndNothingCached() {
+        when(userAccountClientService.getUserAccountById(anyInt(), anyLong())).thenReturn(null);
+
+        assertNull(userProfileCache.getUser(USER_ID));
+        assertEquals(0, userProfileCache.getStatistics().size());
+    }
+
+    @Test
+    void getUserAsyncWhenCached_idpNotAsked() {
+        userProfileCache.getUser(USER_ID);
+
+        assertEquals(user, userProfileCache.getUserAsync(USER_ID).join());
+        verify(userAccountClientService, never()).loadUserAccountById(anyInt());
+    }
+
+    @Test
+    void getUserAsync_idpAskedAndUserCached() {
+        when(userAccountClientService.loadUserAccountById(USER_ID)).thenReturn(CompletableFuture.completedFuture(user));
+
+        assertEquals(user, userProfileCache.getUserAsync(USER_ID).join());
+        assertEquals(user, userProfileCache.getUser(USER_ID));
+        verify(userAccountClientService, never()).getUserAccountById(anyInt(), anyLong());
+    }
+
+    @Test
+    void getUserAsyncIdpTooSlow_oldUserUsed() {
+        userProfileCache.getUser(USER_ID);
+        now += TimeUnit.SECONDS.toNanos(120);
+        // The IdP never answers, so the lookup gives up after IDP_TIMEOUT_MS
+        CompletableFuture<UserResponse> neverLoaded = new CompletableFuture<>();
+        when(userAccountClientService.loadUserAccountById(USER_ID)).thenReturn(neverLoaded);
+
+        assertEquals(user, userProfileCache.getUserAsync(USER_ID).join());
+        assertFalse(neverLoaded.isDone());
+    }
+}
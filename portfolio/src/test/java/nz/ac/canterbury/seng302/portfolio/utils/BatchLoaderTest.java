@@ -0,0 +1,108 @@
+package nz.ac.canterbury.seng302.portfolio.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the BatchLoader, which combines single user lookups into one call to the IdP.
+ */
+class BatchLoaderTest {
+
+    private static final long WAIT_SECONDS = 5;
+
+    private ThreadPoolTaskScheduler scheduler;
+    // The keys of each batch that was loaded
+    private final List<Set<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Makes a loader whose values are the keys times ten, and with no values for negative keys
+     */
+    private BatchLoader<Integer, Integer> createLoader(Duration window, int maxBatchSize) {
+        return new BatchLoader<>(keys -> {
+            batches.add(new LinkedHashSet<>(keys));
+            return keys.stream().filter(key -> key >= 0).collect(Collectors.toMap(key -> key, key -> key * 10));
+        }, scheduler, window, maxBatchSize);
+    }
+
+    @Test
+    void loadsWithinWindow_sentAsOneBatch() throws Exception {
+        BatchLoader<Integer, Integer> loader = createLoader(Duration.ofMillis(100), 10);
+        CompletableFuture<Integer> first = loader.load(1);
+        CompletableFuture<Integer> second = loader.load(2);
+        CompletableFuture<Integer> missing = loader.load(-1);
+
+        assertEquals(10, first.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(20, second.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertNull(missing.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of(Set.of(1, 2, -1)), batches);
+    }
+
+    @Test
+    void sameKeyTwice_sharesResult() throws Exception {
+        BatchLoader<Integer, Integer> loader = createLoader(Duration.ofMillis(100), 10);
+        CompletableFuture<Integer> first = loader.load(1);
+        CompletableFuture<Integer> second = loader.load(1);
+
+        assertSame(first, second);
+        assertEquals(10, first.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of(Set.of(1)), batches);
+    }
+
+    @Test
+    void batchFull_sentWithoutWaitingForWindow() throws Exception {
+        // The window is far longer than the test waits, so only a full batch can be sent
+        BatchLoader<Integer, Integer> loader = createLoader(Duration.ofMinutes(10), 2);
+        CompletableFuture<Integer> first = loader.load(1);
+        CompletableFuture<Integer> second = loader.load(2);
+
+        assertEquals(10, first.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(20, second.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of(Set.of(1, 2)), batches);
+    }
+
+    @Test
+    void loadAfterBatchSent_startsNewBatch() throws Exception {
+        BatchLoader<Integer, Integer> loader = createLoader(Duration.ofMillis(10), 10);
+        assertEquals(10, loader.load(1).get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(10, loader.load(1).get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of(Set.of(1), Set.of(1)), batches);
+    }
+
+    @Test
+    void batchFunctionFails_everyLoadFails() {
+        IllegalStateException failure = new IllegalStateException("IdP unavailable");
+        BatchLoader<Integer, Integer> loader = new BatchLoader<>(keys -> {
+            throw failure;
+        }, scheduler, Duration.ofMillis(10), 10);
+        CompletableFuture<Integer> first = loader.load(1);
+        CompletableFuture<Integer> second = loader.load(2);
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> first.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertSame(failure, exception.getCause());
+        assertThrows(ExecutionException.class, () -> second.get(WAIT_SECONDS, TimeUnit.SECONDS));
+    }
+}
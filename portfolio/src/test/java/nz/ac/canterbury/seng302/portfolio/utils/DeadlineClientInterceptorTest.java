@@ -0,0 +1,72 @@
+package nz.ac.canterbury.seng302.portfolio.utils;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.Deadline;
+import io.grpc.MethodDescriptor;
+import nz.ac.canterbury.seng302.shared.identityprovider.UserAccountServiceGrpc;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the DeadlineClientInterceptor, which gives every call to the IdP a deadline.
+ */
+class DeadlineClientInterceptorTest {
+
+    private static final long DEADLINE_MS = 2000;
+    private static final long STREAMING_DEADLINE_MS = 30000;
+
+    private final DeadlineClientInterceptor interceptor =
+            new DeadlineClientInterceptor(DEADLINE_MS, STREAMING_DEADLINE_MS);
+    private Channel channel;
+
+    @BeforeEach
+    void setUp() {
+        channel = mock(Channel.class);
+    }
+
+    /**
+     * Makes a call through the interceptor
+     * @return The options the call was made with
+     */
+    private CallOptions interceptCall(MethodDescriptor<?, ?> method, CallOptions callOptions) {
+        ArgumentCaptor<CallOptions> captor = ArgumentCaptor.forClass(CallOptions.class);
+        interceptor.interceptCall(method, callOptions, channel);
+        verify(channel).newCall(eq(method), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void unaryCallWithoutDeadline_getsDeadline() {
+        CallOptions options = interceptCall(UserAccountServiceGrpc.getGetUserAccountByIdMethod(), CallOptions.DEFAULT);
+
+        assertNotNull(options.getDeadline());
+        long remainingMillis = options.getDeadline().timeRemaining(TimeUnit.MILLISECONDS);
+        assertTrue(remainingMillis > 0 && remainingMillis <= DEADLINE_MS);
+    }
+
+    @Test
+    void streamingCallWithoutDeadline_getsStreamingDeadline() {
+        CallOptions options = interceptCall(UserAccountServiceGrpc.getUploadUserProfilePhotoMethod(),
+                CallOptions.DEFAULT);
+
+        assertNotNull(options.getDeadline());
+        assertTrue(options.getDeadline().timeRemaining(TimeUnit.MILLISECONDS) > DEADLINE_MS);
+    }
+
+    @Test
+    void callWithDeadline_keepsIt() {
+        Deadline deadline = Deadline.after(10, TimeUnit.MINUTES);
+        CallOptions options = interceptCall(UserAccountServiceGrpc.getGetUserAccountByIdMethod(),
+                CallOptions.DEFAULT.withDeadline(deadline));
+
+        assertSame(deadline, options.getDeadline());
+    }
+}
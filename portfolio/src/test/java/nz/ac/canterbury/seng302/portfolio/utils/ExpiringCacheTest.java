@@ -0,0 +1,115 @@
+package nz.ac.canterbury.seng302.portfolio.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the ExpiringCache, which is used to avoid repeated calls to the IdP.
+ */
+class ExpiringCacheTest {
+
+    private long now;
+    private ExpiringCache<String, Integer> cache;
+
+    @BeforeEach
+    void setUp() {
+        now = 0;
+        cache = new ExpiringCache<>(10, TimeUnit.SECONDS, 3, () -> now);
+    }
+
+    @Test
+    void getStoredValue_returnsValue() {
+        cache.put("a", 1);
+        assertEquals(1, cache.get("a"));
+    }
+
+    @Test
+    void getMissingValue_returnsNull() {
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void getValueAfterTtl_returnsNullAndCountsEviction() {
+        cache.put("a", 1);
+        now += TimeUnit.SECONDS.toNanos(10);
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getStatistics().evictions());
+        assertEquals(0, cache.getStatistics().size());
+    }
+
+    @Test
+    void putPastMaxSize_evictsLeastRecentlyUsed() {
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a");
+        cache.put("d", 4);
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(4, cache.get("d"));
+        assertEquals(1, cache.getStatistics().evictions());
+    }
+
+    @Test
+    void putPastMaxSize_evictsExpiredEntriesFirst() {
+        cache.put("a", 1);
+        now += TimeUnit.SECONDS.toNanos(5);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        now += TimeUnit.SECONDS.toNanos(5);
+        cache.get("c");
+        cache.get("b");
+        cache.put("d", 4);
+        assertEquals(3, cache.getStatistics().size());
+        assertEquals(2, cache.get("b"));
+    }
+
+    @Test
+    void forEachValue_skipsExpiredValues() {
+        cache.put("a", 1);
+        now += TimeUnit.SECONDS.toNanos(5);
+        cache.put("b", 2);
+        now += TimeUnit.SECONDS.toNanos(5);
+        List<Integer> values = new ArrayList<>();
+        cache.forEachValue(values::add);
+        assertEquals(List.of(2), values);
+    }
+
+    @Test
+    void invalidateIf_removesMatchingValues() {
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.invalidateIf(value -> value % 2 == 1);
+        assertNull(cache.get("a"));
+        assertEquals(2, cache.get("b"));
+        assertNull(cache.get("c"));
+    }
+
+    @Test
+    void invalidate_removesValue() {
+        cache.put("a", 1);
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void getStatistics_countsHitsAndMisses() {
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        ExpiringCache.Statistics stats = cache.getStatistics();
+        assertEquals(3, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.75, stats.hitRate());
+    }
+}
@@ -0,0 +1,156 @@
+package nz.ac.canterbury.seng302.portfolio.utils;
+
+import nz.ac.canterbury.seng302.portfolio.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static nz.ac.canterbury.seng302.portfolio.utils.GlobalVars.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Holds tests for the ScheduleIndex class, checking that it places schedulables in the same boxes as
+ * SchedulableMessageOutput, including after sprints and schedulables are saved or deleted.
+ */
+class ScheduleIndexTest {
+
+    /**
+     * Orders schedulables by type then id, the order ScheduleIndex uses for schedulables that start at the same time.
+     * Sorting a list like this before giving it to SchedulableMessageOutput makes both classes break ties the same way.
+     */
+    static class TypeThenIdOrder implements Comparator<Schedulable> {
+        private static final List<String> TYPES = List.of(EVENT_TYPE, DEADLINE_TYPE, MILESTONE_TYPE);
+
+        @Override
+        public int compare(Schedulable a, Schedulable b) {
+            int byType = Integer.compare(TYPES.indexOf(a.getType()), TYPES.indexOf(b.getType()));
+            return byType != 0 ? byType : Integer.compare(a.getId(), b.getId());
+        }
+    }
+
+    static void assertSamePlacement(SchedulableMessageOutput expected, SchedulableMessageOutput actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getSchedulableListIds(), actual.getSchedulableListIds());
+        assertEquals(expected.getSchedulableBoxIds(), actual.getSchedulableBoxIds());
+        assertEquals(expected.getNextSchedulableIds(), actual.getNextSchedulableIds());
+    }
+
+    private Project project;
+    private Sprint sprint1;
+    private Sprint sprint2;
+    private Event event1;
+    private Event event2;
+    private Deadline deadline;
+    private Milestone milestone;
+    private List<Sprint> sprints;
+    private List<Schedulable> schedulables;
+    private ScheduleIndex index;
+
+    @BeforeEach
+    void setUp() {
+        project = new Project("Project 2022", "", DateUtils.toDate("2022-01-01"), DateUtils.toDate("2022-12-30"));
+        project.setId(1);
+        sprint1 = new Sprint(1, "name", "description", DateUtils.toDate("2022-01-02"), DateUtils.toDate("2022-02-01"), "#ff00aa");
+        sprint1.setId(1);
+        sprint2 = new Sprint(1, "name", "description", DateUtils.toDate("2022-02-03"), DateUtils.toDate("2022-03-01"), "#ff00aa");
+        sprint2.setId(2);
+
+        event1 = new Event("Event name", "desc", DateUtils.toDate("2022-01-01"), DateUtils.toDate("2022-02-05"));
+        event1.setId(1);
+        event2 = new Event("Event name", "desc", DateUtils.toDate("2022-01-20"), DateUtils.toDate("2022-02-27"));
+        event2.setId(2);
+        deadline = new Deadline("Deadline name", "desc", DateUtils.toDate("2022-02-02"));
+        deadline.setId(1);
+        milestone = new Milestone("Milestone name", "desc", DateUtils.toDate("2022-02-01"));
+        milestone.setId(1);
+        for (Schedulable schedulable : List.of(event1, event2, deadline, milestone)) {
+            schedulable.setParentProject(project);
+        }
+
+        sprints = new ArrayList<>(List.of(sprint1, sprint2));
+        schedulables = new ArrayList<>(List.of(event1, event2, deadline, milestone));
+        index = new ScheduleIndex(sprints, schedulables);
+    }
+
+    private void assertPlacedLikeSchedulableMessageOutput(Schedulable schedulable) {
+        schedulables.sort(new TypeThenIdOrder());
+        assertSamePlacement(new SchedulableMessageOutput(schedulable, new ArrayList<>(sprints), new ArrayList<>(schedulables)),
+                index.place(schedulable));
+    }
+
+    @Test
+    void whenPlaceSchedulables_thenSameAsSchedulableMessageOutput() {
+        for (Schedulable schedulable : List.of(event1, event2, deadline, milestone)) {
+            assertPlacedLikeSchedulableMessageOutput(schedulable);
+        }
+    }
+
+    @Test
+    void whenPlaceEventAcrossSprints_thenInEveryBox() {
+        SchedulableMessageOutput output = index.place(event1);
+        assertEquals(List.of(SchedulableMessageOutput.LIST_BEFORE_ALL_ID_NAME,
+                        String.format(SchedulableMessageOutput.LIST_IN_ID_FORMAT, 1),
+                        String.format(SchedulableMessageOutput.LIST_AFTER_ID_FORMAT, 1),
+                        String.format(SchedulableMessageOutput.LIST_IN_ID_FORMAT, 2)),
+                output.getSchedulableListIds());
+        assertEquals(List.of("-1", "event-2", "event-2", "event-2"), output.getNextSchedulableIds());
+    }
+
+    @Test
+    void whenNextSchedulableDeleted_thenNoLongerNext() {
+        schedulables.remove(event2);
+        index.removeSchedulable(EVENT_TYPE, event2.getId());
+        assertPlacedLikeSchedulableMessageOutput(event1);
+        assertEquals(List.of("-1", "milestone-1", "milestone-1", "-1"), index.place(event1).getNextSchedulableIds());
+    }
+
+    @Test
+    void whenSchedulableMoved_thenPlacedAtNewDates() {
+        deadline.setStartDate(DateUtils.toDate("2022-03-05"));
+        index.putSchedulable(deadline);
+        assertPlacedLikeSchedulableMessageOutput(deadline);
+        assertPlacedLikeSchedulableMessageOutput(event1);
+    }
+
+    @Test
+    void whenSchedulableAdded_thenCanBeNext() {
+        Milestone newMilestone = new Milestone("New milestone", "desc", DateUtils.toDate("2022-01-10"));
+        newMilestone.setId(2);
+        newMilestone.setParentProject(project);
+        schedulables.add(newMilestone);
+        index.putSchedulable(newMilestone);
+        assertPlacedLikeSchedulableMessageOutput(event1);
+        assertPlacedLikeSchedulableMessageOutput(newMilestone);
+    }
+
+    @Test
+    void whenSprintMoved_thenBoxesChange() {
+        sprint2.setStartDate(DateUtils.toDate("2022-03-01"));
+        sprint2.setEndDate(DateUtils.toDate("2022-04-01"));
+        index.putSprint(sprint2);
+        for (Schedulable schedulable : List.of(event1, event2, deadline, milestone)) {
+            assertPlacedLikeSchedulableMessageOutput(schedulable);
+        }
+    }
+
+    @Test
+    void whenSprintDeleted_thenNoBoxesForIt() {
+        sprints.remove(sprint1);
+        index.removeSprint(sprint1.getId());
+        for (Schedulable schedulable : List.of(event1, event2, deadline, milestone)) {
+            assertPlacedLikeSchedulableMessageOutput(schedulable);
+        }
+    }
+
+    @Test
+    void whenNoSprints_thenOnlyFirstBox() {
+        index = new ScheduleIndex(new ArrayList<>(), schedulables);
+        SchedulableMessageOutput output = index.place(event1);
+        assertEquals(List.of(SchedulableMessageOutput.LIST_BEFORE_ALL_ID_NAME), output.getSchedulableListIds());
+        assertEquals(List.of("event-2"), output.getNextSchedulableIds());
+    }
+}
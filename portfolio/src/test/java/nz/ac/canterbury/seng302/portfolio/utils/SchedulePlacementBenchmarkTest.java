@@ -0,0 +1,135 @@
+package nz.ac.canterbury.seng302.portfolio.utils;
+
+import nz.ac.canterbury.seng302.portfolio.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmarks placing updated schedulables with ScheduleIndex against SchedulableMessageOutput,
+ * for a project with 50 sprints and 5,000 schedulables, and checks that both give the same placements.
+ * The timed test is tagged as a benchmark, so it only runs with <code>./gradlew benchmark</code>.
+ */
+class SchedulePlacementBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulePlacementBenchmarkTest.class);
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final int NUM_SPRINTS = 50;
+    private static final int NUM_SCHEDULABLES = 5000;
+    private static final int NUM_PLACEMENTS = 1000;
+    private static final int WARMUP_ROUNDS = 2;
+
+    private final Random random = new Random(302);
+    private Project project;
+    private List<Sprint> sprints;
+    private List<Schedulable> schedulables;
+
+    @BeforeEach
+    void setUp() {
+        // 50 sprints of 7 days, with 1 day gaps between them
+        long projectStart = DateUtils.toDate("2022-01-01").getTime();
+        project = new Project("Project", "", new Date(projectStart), new Date(projectStart + NUM_SPRINTS * 8 * DAY + 10 * DAY));
+        project.setId(1);
+        sprints = new ArrayList<>();
+        for (int i = 0; i < NUM_SPRINTS; i++) {
+            long sprintStart = projectStart + 5 * DAY + i * 8 * DAY;
+            Sprint sprint = new Sprint(1, "Sprint", "", new Date(sprintStart), new Date(sprintStart + 7 * DAY), "#ff00aa");
+            sprint.setId(i + 1);
+            sprints.add(sprint);
+        }
+
+        // Whole-day dates, so plenty of schedulables start on the same day or on a sprint's start or end date
+        schedulables = new ArrayList<>();
+        int projectDays = (int) ((project.getProjectEndDate().getTime() - projectStart) / DAY);
+        for (int i = 0; i < NUM_SCHEDULABLES; i++) {
+            Date start = new Date(projectStart + random.nextInt(projectDays) * DAY);
+            Schedulable schedulable = switch (i % 3) {
+                case 0 -> new Event("Event", "", start, new Date(start.getTime() + random.nextInt(20) * DAY));
+                case 1 -> new Deadline("Deadline", "", start);
+                default -> new Milestone("Milestone", "", start);
+            };
+            schedulable.setId(i + 1);
+            schedulable.setParentProject(project);
+            schedulables.add(schedulable);
+        }
+        // SchedulableMessageOutput keeps this order for schedulables that start at the same time,
+        // which is the order ScheduleIndex uses
+        schedulables.sort(new ScheduleIndexTest.TypeThenIdOrder());
+    }
+
+    private List<Schedulable> pickSchedulables() {
+        List<Schedulable> picked = new ArrayList<>();
+        for (int i = 0; i < NUM_PLACEMENTS; i++) {
+            picked.add(schedulables.get(random.nextInt(schedulables.size())));
+        }
+        return picked;
+    }
+
+    @Test
+    @Tag("benchmark")
+    void placeSchedulables_indexMatchesSchedulableMessageOutputAndIsFaster() {
+        List<Schedulable> picked = pickSchedulables();
+        ScheduleIndex index = new ScheduleIndex(sprints, schedulables);
+
+        long listNanos = 0;
+        long indexNanos = 0;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            List<SchedulableMessageOutput> expected = new ArrayList<>();
+            long start = System.nanoTime();
+            for (Schedulable schedulable : picked) {
+                // Copies, like the lists that used to be loaded from the database for each update
+                expected.add(new SchedulableMessageOutput(schedulable, new ArrayList<>(sprints), new ArrayList<>(schedulables)));
+            }
+            listNanos = System.nanoTime() - start;
+
+            List<SchedulableMessageOutput> actual = new ArrayList<>();
+            start = System.nanoTime();
+            for (Schedulable schedulable : picked) {
+                actual.add(index.place(schedulable));
+            }
+            indexNanos = System.nanoTime() - start;
+
+            for (int i = 0; i < picked.size(); i++) {
+                ScheduleIndexTest.assertSamePlacement(expected.get(i), actual.get(i));
+            }
+        }
+
+        logger.info("{} sprints, {} schedulables: SchedulableMessageOutput {} us per placement, ScheduleIndex {} us per placement",
+                NUM_SPRINTS, NUM_SCHEDULABLES, listNanos / 1000 / NUM_PLACEMENTS, indexNanos / 1000 / NUM_PLACEMENTS);
+        assertTrue(indexNanos < listNanos);
+    }
+
+    @Test
+    void moveSchedulables_indexStaysUpToDate() {
+        ScheduleIndex index = new ScheduleIndex(sprints, schedulables);
+        long start = System.nanoTime();
+        for (Schedulable schedulable : pickSchedulables()) {
+            // Move the schedulable somewhere else in the project, then place it, like an edit followed by its message
+            long shift = (random.nextInt(61) - 30) * DAY;
+            Date newStart = new Date(schedulable.getStartDate().getTime() + shift);
+            if (schedulable instanceof Event event) {
+                event.setEndDate(new Date(event.getEndDate().getTime() + shift));
+            }
+            schedulable.setStartDate(newStart);
+            index.putSchedulable(schedulable);
+            SchedulableMessageOutput actual = index.place(schedulable);
+
+            schedulables.sort(new ScheduleIndexTest.TypeThenIdOrder());
+            ScheduleIndexTest.assertSamePlacement(
+                    new SchedulableMessageOutput(schedulable, new ArrayList<>(sprints), new ArrayList<>(schedulables)), actual);
+        }
+        logger.info("{} edits checked in {} ms", NUM_PLACEMENTS, (System.nanoTime() - start) / 1_000_000);
+        assertEquals(NUM_SCHEDULABLES, index.getSchedulableCount());
+    }
+}
@@ -0,0 +1,114 @@
+package nz.ac.canterbury.seng302.portfolio.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static nz.ac.canterbury.seng302.portfolio.controller.MessageMappingController.PROJECT_TOPIC_FORMAT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmarks how many messages the in-memory websocket broker delivers when one project is updated,
+ * with many clients connected across many projects.
+ * With per-project topics, an update should only be delivered to the clients viewing that project.
+ */
+class WebSocketFanOutBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketFanOutBenchmarkTest.class);
+
+    private static final int NUM_PROJECTS = 20;
+    private static final int CLIENTS_PER_PROJECT = 50;
+    private static final int NUM_UPDATES = 2000;
+
+    private final AtomicLong deliveries = new AtomicLong();
+    private SimpleBrokerMessageHandler broker;
+
+    @BeforeEach
+    void setUp() {
+        // Channels without executors deliver on the calling thread, so we can count deliveries synchronously
+        ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        clientOutbound.subscribe(message -> deliveries.incrementAndGet());
+        broker = new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel, List.of("/topic"));
+        broker.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broker.stop();
+    }
+
+    private static Message<byte[]> createMessage(SimpMessageType type, String sessionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-" + sessionId);
+        accessor.setDestination(destination);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    /**
+     * Connects CLIENTS_PER_PROJECT clients to each project, each subscribed to the given topic of their project.
+     */
+    private void subscribeClients(String topicFormat) {
+        for (int project = 0; project < NUM_PROJECTS; project++) {
+            for (int client = 0; client < CLIENTS_PER_PROJECT; client++) {
+                String sessionId = project + "-" + client;
+                broker.handleMessage(createMessage(SimpMessageType.CONNECT, sessionId, null));
+                broker.handleMessage(createMessage(SimpMessageType.SUBSCRIBE, sessionId, String.format(topicFormat, project, "sprints")));
+            }
+        }
+    }
+
+    /**
+     * Sends NUM_UPDATES updates, spread across all the projects, and logs the delivery rate.
+     * @return the average number of clients each update was delivered to
+     */
+    private double sendUpdates(String topicFormat, String label) {
+        deliveries.set(0);
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_UPDATES; i++) {
+            broker.handleMessage(createMessage(SimpMessageType.MESSAGE, "server", String.format(topicFormat, i % NUM_PROJECTS, "sprints")));
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        double perUpdate = (double) deliveries.get() / NUM_UPDATES;
+        logger.info("{}: {} deliveries per update, {} us per update, {} ns per delivery", label, perUpdate,
+                elapsedNanos / 1000 / NUM_UPDATES, elapsedNanos / Math.max(1, deliveries.get()));
+        return perUpdate;
+    }
+
+    @Test
+    void projectTopics_updateOnlyDeliveredToProjectViewers() {
+        subscribeClients(PROJECT_TOPIC_FORMAT);
+        double perUpdate = sendUpdates(PROJECT_TOPIC_FORMAT, "Per-project topics");
+        assertEquals(CLIENTS_PER_PROJECT, perUpdate);
+    }
+
+    @Test
+    void projectTopics_deliverFarFewerMessagesThanGlobalTopic() {
+        // The old behaviour: everyone subscribed to one topic, whatever project they are viewing
+        String globalTopicFormat = "/topic/%2$s";
+        subscribeClients(globalTopicFormat);
+        double globalPerUpdate = sendUpdates(globalTopicFormat, "Global topic");
+        assertEquals(NUM_PROJECTS * CLIENTS_PER_PROJECT, globalPerUpdate);
+
+        broker.stop();
+        setUp();
+        subscribeClients(PROJECT_TOPIC_FORMAT);
+        double projectPerUpdate = sendUpdates(PROJECT_TOPIC_FORMAT, "Per-project topics");
+        assertTrue(projectPerUpdate * NUM_PROJECTS <= globalPerUpdate);
+    }
+}